@@ -175,6 +175,7 @@ import magellan.client.utils.ResourceSettingsFactory;
 import magellan.client.utils.SelectionHistory;
 import magellan.client.utils.SwingUtils;
 import magellan.library.CoordinateID;
+import magellan.library.EntityID;
 import magellan.library.Faction;
 import magellan.library.GameData;
 import magellan.library.GameDataMerger;
@@ -185,8 +186,11 @@ import magellan.library.Region;
 import magellan.library.TempUnit;
 import magellan.library.TrustLevel;
 import magellan.library.Unit;
+import magellan.library.UnitID;
 import magellan.library.event.GameDataEvent;
 import magellan.library.event.GameDataListener;
+import magellan.library.gamebinding.EresseaRelationFactory;
+import magellan.library.gamebinding.RelationFactory;
 import magellan.library.io.GameDataReader;
 import magellan.library.io.cr.CRWriter;
 import magellan.library.io.file.FileBackup;
@@ -429,6 +433,8 @@ public class Client extends JFrame implements ShortcutListener, PreferencesFacto
     }
 
     showStatus = PropertiesHelper.getBoolean(settings, "Client.ShowOrderStatus", false);
+    GameData.setReparseThreads(PropertiesHelper.getInteger(settings,
+        PropertiesHelper.CLIENT_REPARSE_THREADS, 0));
 
     // initialize the context, this has to be very early.
     context = new MagellanContext(this);
@@ -1846,9 +1852,13 @@ public class Client extends JFrame implements ShortcutListener, PreferencesFacto
       // write cr to file
       Client.log.info("Client.saveReport Using encoding: " + getData().getEncoding());
       UserInterface ui = new ProgressBarUI(this);
+      filetype.setCompressionThreads(Math.max(0, PropertiesHelper.getInteger(getProperties(),
+          PropertiesHelper.CLIENT_COMPRESSION_THREADS, FileType.DEFAULT_COMPRESSION_THREADS)));
       crw = new CRWriter(getData(), ui, filetype, getData().getEncoding(), Integer.parseInt(
           getProperties().getProperty("Client.CRBackups.count", FileBackup.DEFAULT_BACKUP_LEVEL
               + "")));
+      crw.setParallel(PropertiesHelper.getBoolean(getProperties(),
+          PropertiesHelper.CLIENT_PARALLEL_SAVE, false));
       crw.writeAsynchronously();
       crw.close();
 
@@ -1999,6 +2009,13 @@ public class Client extends JFrame implements ShortcutListener, PreferencesFacto
         Client.log.error(ioe);
       }
     }
+
+    // backups are moved by a daemon thread
+    try {
+      FileBackup.waitForBackground();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
     log.fine("Telling requester to quit");
     ql.performQuit();
   }
@@ -2039,8 +2056,11 @@ public class Client extends JFrame implements ShortcutListener, PreferencesFacto
       ui.setMaximum(-1);
       ui.show();
       // FIXME(stm) maybe not pass ui to the reader here!?!
-      data = new GameDataReader(ui).readGameData(FileTypeFactory.singleton().createFileType(
-          fileName, true, new ClientFileTypeChooser(client)));
+      GameDataReader reader = new GameDataReader(ui);
+      reader.setParallel(PropertiesHelper.getBoolean(getProperties(),
+          PropertiesHelper.CLIENT_PARALLEL_READ, false));
+      data = reader.readGameData(FileTypeFactory.singleton().createFileType(fileName, true,
+          new ClientFileTypeChooser(client)));
       if (data == null)
         throw new NullPointerException();
     } catch (FileTypeFactory.NoValidEntryException e) {
@@ -2161,6 +2181,11 @@ public class Client extends JFrame implements ShortcutListener, PreferencesFacto
 
           // save old data
           if (!saveFirst || saveSynchronously()) {
+            // the old report is replaced, so drop its shared IDs before the new report creates its
+            // own; IDs compare by value, so the old report stays valid if loading fails
+            CoordinateID.clearCache();
+            UnitID.clearCache();
+            EntityID.clearCache();
             data = loadCR(ui, fileName);
           }
 
@@ -2793,6 +2818,13 @@ public class Client extends JFrame implements ShortcutListener, PreferencesFacto
         : "???"));
     context.setGameData(newData);
     postProcessLoadedCR(newData);
+    newData.setDistanceOracleEnabled(PropertiesHelper.getBoolean(getProperties(),
+        PropertiesHelper.CLIENT_DISTANCE_ORACLE, false));
+    RelationFactory relationFactory = newData.getGameSpecificStuff().getRelationFactory();
+    if (relationFactory instanceof EresseaRelationFactory) {
+      ((EresseaRelationFactory) relationFactory).setDependencyTracking(PropertiesHelper.getBoolean(
+          getProperties(), PropertiesHelper.CLIENT_DEPENDENCY_TRACKING, false));
+    }
     log.fine("fire(GameDataEvent)");
     getDispatcher().fire(new GameDataEvent(this, getData(), true));
   }
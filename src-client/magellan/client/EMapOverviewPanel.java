@@ -37,6 +37,7 @@ import java.util.Map.Entry;
 import java.util.Properties;
 import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.concurrent.ExecutionException;
 
 import javax.swing.JCheckBoxMenuItem;
 import javax.swing.JList;
@@ -47,6 +48,7 @@ import javax.swing.JSplitPane;
 import javax.swing.KeyStroke;
 import javax.swing.ListModel;
 import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
 import javax.swing.ToolTipManager;
 import javax.swing.event.ChangeListener;
 import javax.swing.event.ListSelectionEvent;
@@ -90,6 +92,7 @@ import magellan.client.swing.tree.NodeWrapperFactory;
 import magellan.client.swing.tree.RegionNodeWrapper;
 import magellan.client.swing.tree.SimpleNodeWrapper;
 import magellan.client.swing.tree.TreeHelper;
+import magellan.client.swing.tree.TreeMerger;
 import magellan.client.swing.tree.TreeUpdate;
 import magellan.client.swing.tree.UnitContainerNodeWrapper;
 import magellan.client.swing.tree.UnitNodeWrapper;
@@ -208,6 +211,11 @@ public class EMapOverviewPanel extends InternationalizedDataPanel implements Tre
   private Set<TreeNode> expandInfo = new HashSet<TreeNode>();
   private Set<TreePath> selectionTransfer = new HashSet<TreePath>();
 
+  /** the tree that is currently built in the background */
+  private TreeBuild treeBuild;
+  /** true if the tree must be built again after the current build */
+  private boolean rebuildPending;
+
   private UnitChangeListener unitChangeListener;
 
   protected Object lastCause;
@@ -230,6 +238,8 @@ public class EMapOverviewPanel extends InternationalizedDataPanel implements Tre
 
     unitChangeListener = new UnitChangeListener() {
       public void unitChanged(UnitChangeEvent event) {
+        // a tree that is being built may contain the old state of the unit
+        treeChanged();
         if (lastCause != event.getCause() || lastRegion != event.getUnit().getRegion()) {
           lastCause = event.getCause();
           lastRegion = event.getUnit().getRegion();
@@ -414,36 +424,17 @@ public class EMapOverviewPanel extends InternationalizedDataPanel implements Tre
   }
 
   /**
-   * Rebuild the region tree from scratch.
+   * Rebuild the region tree from scratch. The new tree is built in a background thread and merged
+   * into the current tree afterwards. Only nodes that have changed are updated, so the expansion
+   * state of the other nodes is preserved.
    */
   public void rebuildTree() {
-    Unique oldActiveObject = activeObject;
-
-    // clear node maps
-    regionNodes.clear();
-    unitNodes.clear();
-    buildingNodes.clear();
-    shipNodes.clear();
-    rootNode.removeAllChildren();
-
-    // // clear relation map
-    // lastUnitRelations.clear();
-
-    // clear other buffers
-    selectedObjects.clear();
-    contexts.clear();
-    activeObject = null;
-    lastExpanded.clear();
-
-    // if((data != null) && (data.getRegions() != null)) {
-    // preprocess regions to have relations
-    // pavkovic 2003.12.21: moved to RegionNodeWrapper, perhaps this helps
-    // for(Iterator iter = data.getRegions().iterator();
-    // iter.hasNext();) {
-    // ((Region) iter.next()).refreshUnitRelations();
-    // }
-    // }
-    // initialize variables used in while loop
+    if (treeBuild != null) {
+      // build again as soon as the running build is finished
+      rebuildPending = true;
+      return;
+    }
+    rebuildPending = false;
 
     // TODO: this needs explanations
     boolean createIslandNodes = isShowIslands(settings);
@@ -482,20 +473,47 @@ public class EMapOverviewPanel extends InternationalizedDataPanel implements Tre
     treeBuilder.setUnitComparator(EMapOverviewPanel.getUnitSorting(settings));
     treeBuilder.setTreeStructure(EMapOverviewPanel.getTreeStructure(settings));
 
-    treeBuilder.buildTree(rootNode, getGameData());
+    // the shared builder may be changed while the tree is built, so the build gets its own
+    TreeBuilder buildBuilder = createTreeBuilder();
+    buildBuilder.setSortShipUnderUnitParent(sortShipUnderUnitParent);
+    buildBuilder.setDisplayMode(displayMode);
+    buildBuilder.setActiveAlliances(new Hashtable<EntityID, Alliance>(activeAlliances));
+    buildBuilder.setUnitComparator(EMapOverviewPanel.getUnitSorting(settings));
+    buildBuilder.setTreeStructure(EMapOverviewPanel.getTreeStructure(settings));
 
-    // for (Unit u : data.getUnits()) {
-    // List<TransferRelation> relations = u.getRelations(TransferRelation.class);
-    // if (relations != null && !relations.isEmpty()) {
-    // lastUnitRelations.put(u.getID(), new HashSet<TransferRelation>(relations));
-    // }
-    // }
+    treeBuild = new TreeBuild(buildBuilder, getGameData());
+    treeBuild.execute();
+  }
+
+  /**
+   * Merges a tree built by {@link #rebuildTree()} into the current tree.
+   */
+  private void applyTree(TreeBuild build, DefaultMutableTreeNode newRoot) {
+    Unique oldActiveObject = activeObject;
+
+    TreeMerger merger = new TreeMerger(treeModel);
+    merger.merge(newRoot);
+    EMapOverviewPanel.log.fine("tree merged: " + merger.getInserted() + " inserted, "
+        + merger.getRemoved() + " removed, " + merger.getChanged() + " changed");
+
+    // update node maps
+    replaceNodes(regionNodes, build.regionNodes, merger);
+    replaceNodes(unitNodes, build.unitNodes, merger);
+    replaceNodes(buildingNodes, build.buildingNodes, merger);
+    replaceNodes(shipNodes, build.shipNodes, merger);
+
+    // forget expand/collapse info of removed nodes
+    retainTreeNodes(lastExpanded);
+    retainTreeNodes(collapsedNodes);
+
+    // clear other buffers
+    selectedObjects.clear();
+    contexts.clear();
+    activeObject = null;
 
     tree.setShowsRootHandles(PropertiesHelper.getBoolean(settings,
         "EMapOverviewPanel.treeRootHandles", true));
 
-    treeModel.reload();
-
     if (oldActiveObject != null) {
       dispatcher.fire(SelectionEvent.create(treeModel, oldActiveObject, SelectionEvent.ST_DEFAULT));
     } else {
@@ -503,6 +521,90 @@ public class EMapOverviewPanel extends InternationalizedDataPanel implements Tre
     }
   }
 
+  /**
+   * Builds the region tree in a background thread and merges it into the current tree in the event
+   * dispatch thread. The regions and units of the report are copied when the build is created. If
+   * the report changes while the tree is built, the result is discarded and the tree is built
+   * again.
+   */
+  private class TreeBuild extends SwingWorker<DefaultMutableTreeNode, Object> {
+    private TreeBuilder builder;
+    private GameData data;
+    private Collection<Region> regions;
+    private Collection<Unit> units;
+    private Collection<Unit> oldUnits;
+    private Map<ID, TreeNode> regionNodes = new Hashtable<ID, TreeNode>();
+    private Map<ID, TreeNode> unitNodes = new Hashtable<ID, TreeNode>();
+    private Map<ID, TreeNode> buildingNodes = new Hashtable<ID, TreeNode>();
+    private Map<ID, TreeNode> shipNodes = new Hashtable<ID, TreeNode>();
+
+    TreeBuild(TreeBuilder builder, GameData data) {
+      this.builder = builder;
+      this.data = data;
+      if (data != null) {
+        regions = new ArrayList<Region>(data.getRegions());
+        units = new ArrayList<Unit>(data.getUnits());
+        oldUnits = new ArrayList<Unit>(data.getOldUnits());
+      }
+    }
+
+    @Override
+    protected DefaultMutableTreeNode doInBackground() {
+      DefaultMutableTreeNode newRoot = new DefaultMutableTreeNode(null);
+      if (data != null) {
+        builder.buildTree(newRoot, data, regions, units, oldUnits, regionNodes, unitNodes,
+            buildingNodes, shipNodes);
+      }
+      return newRoot;
+    }
+
+    @Override
+    protected void done() {
+      treeBuild = null;
+      if (rebuildPending) {
+        // the tree is outdated
+        rebuildTree();
+        return;
+      }
+      try {
+        applyTree(this, get());
+      } catch (InterruptedException e) {
+        EMapOverviewPanel.log.warn(e);
+      } catch (ExecutionException e) {
+        EMapOverviewPanel.log.error("error building the tree", e.getCause());
+      }
+    }
+  }
+
+  /**
+   * Notes that the tree has been changed directly. A tree that is being built right now might
+   * not contain these changes, so it must be built again.
+   */
+  private void treeChanged() {
+    if (treeBuild != null) {
+      rebuildPending = true;
+    }
+  }
+
+  private void replaceNodes(Map<ID, TreeNode> nodes, Map<ID, TreeNode> newNodes,
+      TreeMerger merger) {
+    merger.updateNodes(newNodes);
+    nodes.clear();
+    nodes.putAll(newNodes);
+  }
+
+  private void retainTreeNodes(Collection<TreeNode> nodes) {
+    for (Iterator<TreeNode> it = nodes.iterator(); it.hasNext();) {
+      TreeNode node = it.next();
+      while (node != null && node != rootNode) {
+        node = node.getParent();
+      }
+      if (node == null) {
+        it.remove();
+      }
+    }
+  }
+
   private void setLstHistory() {
     // Object[] historyItems = new Object[SelectionHistory.getHistory().size()];
     // int i = 0;
@@ -1515,6 +1617,7 @@ public class EMapOverviewPanel extends InternationalizedDataPanel implements Tre
    * Inserts a new ship into the tree.
    */
   public void tempShipCreated(Ship parent, Ship newShip) {
+    treeChanged();
     DefaultMutableTreeNode parentNode =
         (DefaultMutableTreeNode) shipNodes.get(parent.getID());
     if (parentNode != null) {
@@ -1555,6 +1658,7 @@ public class EMapOverviewPanel extends InternationalizedDataPanel implements Tre
    * @see magellan.client.event.TempUnitListener#tempUnitCreated(magellan.client.event.TempUnitEvent)
    */
   public void tempUnitCreated(TempUnitEvent e) {
+    treeChanged();
     DefaultMutableTreeNode parentNode =
         (DefaultMutableTreeNode) unitNodes.get(e.getTempUnit().getParent().getID());
 
@@ -1586,6 +1690,7 @@ public class EMapOverviewPanel extends InternationalizedDataPanel implements Tre
    * @see magellan.client.event.TempUnitListener#tempUnitDeleting(magellan.client.event.TempUnitEvent)
    */
   public void tempUnitDeleting(TempUnitEvent e) {
+    treeChanged();
     TempUnit t = e.getTempUnit();
     DefaultMutableTreeNode unitNode = (DefaultMutableTreeNode) unitNodes.get(t.getID());
     unitNodes.remove(t.getID());
@@ -14,18 +14,30 @@
 package magellan.client.actions.edit;
 
 import java.awt.event.ActionEvent;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+import javax.swing.SwingWorker;
 
 import magellan.client.Client;
 import magellan.client.actions.MenuAction;
 import magellan.client.event.SelectionEvent;
 import magellan.client.event.SelectionListener;
+import magellan.client.event.UnitOrdersEvent;
+import magellan.client.event.UnitOrdersListener;
 import magellan.client.swing.FindDialog;
+import magellan.library.GameData;
 import magellan.library.Region;
+import magellan.library.Unit;
 import magellan.library.event.GameDataEvent;
 import magellan.library.event.GameDataListener;
 import magellan.library.utils.Resources;
+import magellan.library.utils.SearchIndex;
+import magellan.library.utils.logging.Logger;
 
 /**
  * DOCUMENT ME!
@@ -33,9 +45,21 @@ import magellan.library.utils.Resources;
  * @author Andreas
  * @version 1.0
  */
-public class FindAction extends MenuAction implements SelectionListener, GameDataListener {
+public class FindAction extends MenuAction implements SelectionListener, GameDataListener,
+    UnitOrdersListener {
+  private static final Logger log = Logger.getInstance(FindAction.class);
+
   private Collection<Region> selectedRegions = new LinkedList<Region>();
 
+  /** the index of the current report, <code>null</code> if it has not been built yet */
+  private SearchIndex index;
+  /** the index that is built right now */
+  private SwingWorker<SearchIndex, Object> indexBuild;
+  /** units whose orders changed while the index is built */
+  private List<Unit> changedUnits = new ArrayList<Unit>();
+  /** true if the index that is built right now is already outdated */
+  private boolean indexOutdated;
+
   /**
    * Creates a new FindAction object.
    * 
@@ -45,6 +69,7 @@ public class FindAction extends MenuAction implements SelectionListener, GameDat
     super(client);
     client.getDispatcher().addGameDataListener(this);
     client.getDispatcher().addSelectionListener(this);
+    client.getDispatcher().addUnitOrdersListener(this);
   }
 
   /**
@@ -55,9 +80,84 @@ public class FindAction extends MenuAction implements SelectionListener, GameDat
     FindDialog f =
         new FindDialog(client, false, client.getDispatcher(), client.getData(), client
             .getProperties(), selectedRegions);
+    f.setIndexSource(new Supplier<SearchIndex>() {
+      public SearchIndex get() {
+        return getSearchIndex();
+      }
+    });
+    // start building the index while the user enters the pattern
+    getSearchIndex();
     f.setVisible(true);
   }
 
+  /**
+   * Returns the search index of the current report. If the index is not available, a new index is
+   * built in the background and <code>null</code> is returned.
+   */
+  public SearchIndex getSearchIndex() {
+    if (index != null && (index.getData() != client.getData() || index.isOutdated())) {
+      index = null;
+    }
+    if (index == null) {
+      buildIndex();
+    }
+    return index;
+  }
+
+  private void buildIndex() {
+    if (indexBuild != null)
+      return;
+    final GameData data = client.getData();
+    indexOutdated = false;
+    // the texts are read from the report here, only the trigrams are built in the background
+    final SearchIndex newIndex = new SearchIndex(data);
+    newIndex.collect();
+    indexBuild = new SwingWorker<SearchIndex, Object>() {
+      @Override
+      protected SearchIndex doInBackground() {
+        newIndex.index();
+        return newIndex;
+      }
+
+      @Override
+      protected void done() {
+        indexBuild = null;
+        if (indexOutdated || data != client.getData()) {
+          // the report changed during the build
+          changedUnits.clear();
+          buildIndex();
+          return;
+        }
+        try {
+          index = get();
+          for (Unit unit : changedUnits) {
+            index.update(unit);
+          }
+        } catch (InterruptedException e) {
+          FindAction.log.warn(e);
+        } catch (ExecutionException e) {
+          FindAction.log.warn("error building search index", e.getCause());
+        }
+        changedUnits.clear();
+      }
+    };
+    indexBuild.execute();
+  }
+
+  /**
+   * Registers the unit with the search index.
+   *
+   * @see magellan.client.event.UnitOrdersListener#unitOrdersChanged(magellan.client.event.UnitOrdersEvent)
+   */
+  public void unitOrdersChanged(UnitOrdersEvent e) {
+    if (index != null) {
+      index.update(e.getUnit());
+    }
+    if (indexBuild != null) {
+      changedUnits.add(e.getUnit());
+    }
+  }
+
   /**
 	 * 
 	 */
@@ -80,6 +180,13 @@ public class FindAction extends MenuAction implements SelectionListener, GameDat
 	 */
   public void gameDataChanged(GameDataEvent e) {
     selectedRegions.clear();
+
+    // rebuild the index in the background if it has been used before
+    indexOutdated = true;
+    if (index != null) {
+      index = null;
+      buildIndex();
+    }
   }
 
   /**
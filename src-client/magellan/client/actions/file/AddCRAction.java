@@ -148,6 +148,8 @@ public class AddCRAction extends MenuAction implements GameDataListener {
           theclient.setReportChanged(true);
         }
       });
+      merger.setParallel(PropertiesHelper.getBoolean(settings,
+          PropertiesHelper.CLIENT_PARALLEL_MERGE, false));
       settings.setProperty(PropertiesHelper.CLIENT_LAST_CR_ADDED, files[files.length - 1]
           .getAbsolutePath());
 
@@ -22,12 +22,16 @@ import java.io.StreamTokenizer;
 import java.io.StringReader;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Properties;
+import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
@@ -51,18 +55,9 @@ import magellan.client.event.SelectionEvent;
 import magellan.client.event.SelectionListener;
 import magellan.client.utils.SwingUtils;
 import magellan.library.Building;
-import magellan.library.Described;
 import magellan.library.Faction;
 import magellan.library.GameData;
-import magellan.library.Group;
-import magellan.library.ID;
-import magellan.library.Item;
-import magellan.library.LuxuryPrice;
-import magellan.library.Message;
-import magellan.library.Named;
-import magellan.library.Order;
 import magellan.library.Region;
-import magellan.library.RegionResource;
 import magellan.library.Selectable;
 import magellan.library.Ship;
 import magellan.library.TempUnit;
@@ -72,6 +67,8 @@ import magellan.library.UnitContainer;
 import magellan.library.event.GameDataEvent;
 import magellan.library.utils.MagellanFactory;
 import magellan.library.utils.Resources;
+import magellan.library.utils.SearchIndex;
+import magellan.library.utils.SearchIndex.Field;
 import magellan.library.utils.comparator.IDComparator;
 import magellan.library.utils.comparator.NameComparator;
 import magellan.library.utils.logging.Logger;
@@ -112,6 +109,8 @@ public class FindDialog extends InternationalizedDataDialog implements
   // selected regions that are stored as region-objects!
   private List<Region> selectedRegions = new LinkedList<Region>();
 
+  private Supplier<SearchIndex> indexSource;
+
   /**
    * Creates the find dialog.
    * 
@@ -137,6 +136,14 @@ public class FindDialog extends InternationalizedDataDialog implements
     SwingUtils.setLocation(this, settings, "FindDialog.x", "FindDialog.y");
   }
 
+  /**
+   * Sets the source of the index that is used for searching literal strings. If it supplies
+   * <code>null</code> or an index for another report, all objects are searched one by one.
+   */
+  public void setIndexSource(Supplier<SearchIndex> indexSource) {
+    this.indexSource = indexSource;
+  }
+
   /**
    * Update the set of regions for finding objects.
    * 
@@ -578,61 +585,33 @@ public class FindDialog extends InternationalizedDataDialog implements
       }
     }
 
-    // create search pattern
-    Collection<Pattern> patterns = new LinkedList<Pattern>();
-    if (rbtRegexp.isSelected()) {
-      // just take the pattern
-      try {
-        patterns.add(Pattern.compile(chkCase.isSelected() ? ".*" + pattern + ".*" : ".*"
-            + pattern.toLowerCase(data.getLocale()) + ".*"));
-      } catch (PatternSyntaxException e) {
-        hits.add(e.getLocalizedMessage());
-        return wrap(hits);
-      }
-    } else if (rbtWord.isSelected()) {
-      // create pattern with search pattern surrounded by word separator characters or line
-      // start/end
-      String notword = "([^0-9a-zA-Z.-]|$|^)+";
-      try {
-        patterns.add(Pattern.compile(".*" + notword
-            + (chkCase.isSelected() ? pattern : pattern.toLowerCase(data.getLocale())) + notword
-            + ".*"));
-      } catch (PatternSyntaxException e) {
-        hits.add(e.getLocalizedMessage());
-        return wrap(hits);
-      }
-    } else { // if (rbtList.isSelected()){
-      // tokenize pattern
-      StreamTokenizer st = new StreamTokenizer(new StringReader(pattern));
-      st.ordinaryChars('0', '9');
-      st.ordinaryChar('.');
-      st.ordinaryChar('-');
-      st.wordChars('0', '9');
-      st.wordChars('.', '.');
-      st.wordChars('-', '-');
-      st.quoteChar('"');
-      st.lowerCaseMode(!chkCase.isSelected());
-
-      do {
-        try {
-          st.nextToken();
-        } catch (java.io.IOException e) {
-          FindDialog.log.error(e);
-        }
-        if ((st.ttype == StreamTokenizer.TT_WORD) || (st.ttype == '\'') || (st.ttype == '"')) {
-          // surround pattern with wildcard patterns
-          try {
-            patterns.add(Pattern.compile(".*" + st.sval + ".*"));
-          } catch (PatternSyntaxException e) {
-            hits.add(e.getLocalizedMessage());
-            return wrap(hits);
-          }
-        } else if (st.ttype != StreamTokenizer.TT_EOF) {
-          FindDialog.log.debug("Found unexpected TokenType (" + st.ttype
-              + ") in FindDialog.find() while parsing token: " + st.toString());
+    // create search terms
+    boolean caseSensitive = chkCase.isSelected();
+    List<Term> terms = new LinkedList<Term>();
+    try {
+      if (rbtRegexp.isSelected()) {
+        // just take the pattern
+        if (isLiteral(pattern)) {
+          terms.add(new Term(pattern, SearchIndex.containing(pattern, caseSensitive), false));
+        } else {
+          terms.add(new Term(null, regexFilter(".*"
+              + (caseSensitive ? pattern : pattern.toLowerCase(data.getLocale())) + ".*"), false));
         }
-      } while (st.ttype != StreamTokenizer.TT_EOF);
+      } else if (rbtWord.isSelected()) {
+        // create pattern with search pattern surrounded by word separator characters or line
+        // start/end
+        String notword = "([^0-9a-zA-Z.-]|$|^)+";
+        terms.add(new Term(isLiteral(pattern) ? pattern : null, regexFilter(".*" + notword
+            + (caseSensitive ? pattern : pattern.toLowerCase(data.getLocale())) + notword + ".*"),
+            false));
+      } else { // if (rbtList.isSelected()){
+        parseList(pattern, caseSensitive, terms);
+      }
+    } catch (PatternSyntaxException e) {
+      hits.add(e.getLocalizedMessage());
+      return wrap(hits);
     }
+
     // determine the items to search
     if (addUnits.isSelected() == true) {
       // items.addAll(data.getRegions()); TempUnits were forgotten...
@@ -711,45 +690,41 @@ public class FindDialog extends InternationalizedDataDialog implements
       items.addAll(data.getFactions());
     }
 
-    // determine the faction to limit the search to
-    Faction faction = getFactionFromCombo();
-
-    for (Unique item : items) {
-
-      if (chkItems.isSelected() && (filterItem(item, patterns) == true)) {
-        hits.add(item);
-      }
-
-      if (chkIDs.isSelected() && (filterId(item, patterns) == true)) {
-        hits.add(item);
-      }
-
-      if (chkNames.isSelected() && (filterName(item, patterns) == true)) {
-        hits.add(item);
-      }
-
-      if (chkDescs.isSelected() && (filterDesc(item, patterns) == true)) {
-        hits.add(item);
-      }
+    // search the items
+    Set<Field> fields = getFields();
+    Set<Unique> scope = new HashSet<Unique>(items);
+    SearchIndex index = indexSource != null ? indexSource.get() : null;
+    if (index != null && index.getData() != data) {
+      index = null;
+    }
 
-      if (chkGroups.isSelected() && (filterGroup(item, patterns) == true)) {
-        hits.add(item);
+    boolean positive = false;
+    for (Term term : terms) {
+      if (!term.negated) {
+        hits.addAll(find(term, scope, fields, index));
+        positive = true;
       }
-
-      if (chkCmds.isSelected() && (filterCmd(item, patterns) == true)) {
-        hits.add(item);
+    }
+    if (!positive) {
+      if (!terms.isEmpty() || chkIDs.isSelected() || chkItems.isSelected()) {
+        // NOT terms only or no terms at all: start with all items
+        hits.addAll(scope);
       }
-
-      if (chkMessages.isSelected() && (filterMessage(item, patterns) == true)) {
-        hits.add(item);
+    }
+    for (Term term : terms) {
+      if (term.negated) {
+        hits.removeAll(find(term, scope, fields, index));
       }
+    }
 
-      if (chkResources.isSelected() && (filterResource(item, patterns) == true)) {
-        hits.add(item);
-      }
+    // determine the faction to limit the search to
+    Faction faction = getFactionFromCombo();
 
-      if ((faction != null) && (filterFaction(item, faction) == false)) {
-        hits.remove(item);
+    if (faction != null) {
+      for (Iterator<Object> it = hits.iterator(); it.hasNext();) {
+        if (!filterFaction((Unique) it.next(), faction)) {
+          it.remove();
+        }
       }
     }
 
@@ -757,191 +732,159 @@ public class FindDialog extends InternationalizedDataDialog implements
   }
 
   /**
-   * Returns true if one of the patterns matches name (obeying the {@link #chkCase} option).
-   * 
-   * @param name
-   * @param patterns
+   * Parses the pattern of the list mode. Every word or quoted string is a term that must be
+   * contained in a text. A word followed by <code>*</code> must be the start of a word and a term
+   * preceded by <code>!</code> excludes the objects containing it.
    */
-  private boolean match(String name, Collection<Pattern> patterns) {
-    if (name != null) {
-      if (!chkCase.isSelected()) {
-        name = name.toLowerCase();
+  private void parseList(String pattern, boolean caseSensitive, List<Term> terms) {
+    // tokenize pattern
+    StreamTokenizer st = new StreamTokenizer(new StringReader(pattern));
+    st.ordinaryChars('0', '9');
+    st.ordinaryChar('.');
+    st.ordinaryChar('-');
+    st.wordChars('0', '9');
+    st.wordChars('.', '.');
+    st.wordChars('-', '-');
+    st.quoteChar('"');
+    st.lowerCaseMode(!caseSensitive);
+
+    boolean negated = false;
+    String last = null;
+    boolean lastNegated = false;
+    do {
+      try {
+        st.nextToken();
+      } catch (java.io.IOException e) {
+        FindDialog.log.error(e);
       }
-
-      for (Pattern p : patterns) {
-        if (p.matcher(name).matches())
-          return true;
+      if (st.ttype == '*' && last != null) {
+        terms.add(createTerm(last, true, lastNegated, caseSensitive));
+        last = null;
+        continue;
       }
-    }
-    return false;
+      if (last != null) {
+        terms.add(createTerm(last, false, lastNegated, caseSensitive));
+        last = null;
+      }
+      if ((st.ttype == StreamTokenizer.TT_WORD) || (st.ttype == '\'') || (st.ttype == '"')) {
+        last = st.sval;
+        lastNegated = negated;
+        negated = false;
+      } else if (st.ttype == '!') {
+        negated = true;
+      } else if (st.ttype != StreamTokenizer.TT_EOF) {
+        FindDialog.log.debug("Found unexpected TokenType (" + st.ttype
+            + ") in FindDialog.find() while parsing token: " + st.toString());
+      }
+    } while (st.ttype != StreamTokenizer.TT_EOF);
   }
 
-  /**
-   * Return true if item matches patterns.
-   * 
-   * @param item
-   * @param patterns
-   */
-  private boolean filterId(Unique item, Collection<Pattern> patterns) {
-    if (patterns.size() == 0)
-      return true;
-
-    boolean retVal = false;
-    String id = getID(item);
-
-    if (match(id, patterns))
-      return true;
-
-    if (item instanceof Region && !retVal) {
-      Region r = (Region) item;
-      String id1 = Integer.toString((int) r.getUID());
-      String id2 = Integer.toString((int) r.getUID(), 36);
-      if (match(id1, patterns) || match(id2, patterns))
-        return true;
-    }
-
-    return retVal;
+  private Term createTerm(String word, boolean prefix, boolean negated, boolean caseSensitive) {
+    if (isLiteral(word))
+      return new Term(word, prefix ? SearchIndex.wordPrefix(word, caseSensitive) : SearchIndex
+          .containing(word, caseSensitive), negated);
+    else
+      // surround pattern with wildcard patterns
+      return new Term(null, regexFilter((prefix ? "(^|.*[^\\p{L}\\p{N}])" : ".*") + word + ".*"),
+          negated);
   }
 
   /**
-   * Return true if item matches patterns.
-   * 
-   * @param item
-   * @param patterns
+   * Returns <code>true</code> if s contains no special characters of regular expressions.
    */
-  private boolean filterItem(Unique item, Collection<Pattern> patterns) {
-    if (patterns.size() == 0)
-      return true;
-
-    boolean retVal = false;
-
-    if (item instanceof Unit) {
-      Unit u = (Unit) item;
-
-      for (Item item2 : u.getItems()) {
-        String name = getName((item2).getItemType());
-        if (match(name, patterns))
-          return true;
-      }
-    }
-
-    return retVal;
-  }
-
-  private String getID(Object item) {
-    ID id = ((Unique) item).getID();
-
-    if (id != null)
-      return id.toString();
-    else {
-      FindDialog.log.error("Found Unique without id: " + item);
-
-      return "";
+  private boolean isLiteral(String s) {
+    for (int i = 0; i < s.length(); ++i) {
+      if ("\\.[]{}()*+?^$|".indexOf(s.charAt(i)) >= 0)
+        return false;
     }
+    return true;
   }
 
   /**
-   * Return true if item matches patterns.
-   * 
-   * @param item
-   * @param patterns
+   * Returns a filter that matches texts against the regular expression (obeying the
+   * {@link #chkCase} option).
    */
-  private boolean filterName(Unique item, Collection<Pattern> patterns) {
-    boolean retVal = false;
-    String name = getName(item);
-
-    if (name != null) {
-      if (match(name, patterns))
-        return true;
-    }
-
-    return retVal;
-  }
-
-  private String getName(Object item) {
-    String name = null;
-
-    if (item instanceof Named) {
-      name = ((Named) item).getName();
-    }
-
-    return name;
+  private Predicate<String> regexFilter(String regex) {
+    final Pattern p = Pattern.compile(regex);
+    final boolean caseSensitive = chkCase.isSelected();
+    return new Predicate<String>() {
+      public boolean test(String text) {
+        return p.matcher(caseSensitive ? text : text.toLowerCase()).matches();
+      }
+    };
   }
 
   /**
-   * Return true if item matches patterns.
-   * 
-   * @param item
-   * @param patterns
+   * Returns the fields selected by the check boxes.
    */
-  private boolean filterDesc(Unique item, Collection<Pattern> patterns) {
-    boolean retVal = false;
-    String desc = getDesc(item);
-
-    if (desc != null) {
-      if (match(desc, patterns))
-        return true;
-    }
-
-    return retVal;
+  private Set<Field> getFields() {
+    Set<Field> fields = EnumSet.noneOf(Field.class);
+    addField(fields, chkIDs, Field.ID);
+    addField(fields, chkNames, Field.NAME);
+    addField(fields, chkDescs, Field.DESCRIPTION);
+    addField(fields, chkGroups, Field.GROUP);
+    addField(fields, chkCmds, Field.ORDER);
+    addField(fields, chkMessages, Field.MESSAGE);
+    addField(fields, chkItems, Field.ITEM);
+    addField(fields, chkResources, Field.RESOURCE);
+    return fields;
   }
 
-  private String getDesc(Object item) {
-    String desc = null;
-
-    if (item instanceof Described) {
-      desc = ((Described) item).getDescription();
+  private void addField(Set<Field> fields, JCheckBox box, Field field) {
+    if (box.isSelected()) {
+      fields.add(field);
     }
-
-    return desc;
   }
 
   /**
-   * Return true if item matches patterns.
-   * 
-   * @param item
-   * @param patterns
+   * Returns the items of <code>scope</code> with a text in one of the fields that matches the
+   * term. Literal terms are looked up in the index, if there is one.
    */
-  private boolean filterGroup(Unique item, Collection<Pattern> patterns) {
-    boolean retVal = false;
-    String name = getGroup(item);
-
-    if (name != null) {
-      if (match(name, patterns))
-        return true;
+  private Set<Unique> find(Term term, Set<Unique> scope, Set<Field> fields, SearchIndex index) {
+    Set<Unique> result;
+    if (index != null && term.literal != null) {
+      result = index.find(term.literal, fields, term.filter);
+      result.retainAll(scope);
+      for (Unique item : scope) {
+        if (!index.contains(item) && matches(item, term, fields)) {
+          result.add(item);
+        }
+      }
+    } else {
+      result = new HashSet<Unique>();
+      for (Unique item : scope) {
+        if (matches(item, term, fields)) {
+          result.add(item);
+        }
+      }
     }
-
-    return retVal;
+    return result;
   }
 
-  private String getGroup(Unique item) {
-    if (item instanceof Unit) {
-      Group g = ((Unit) item).getGroup();
-      if (g != null)
-        return g.getName();
+  private boolean matches(Unique item, Term term, Set<Field> fields) {
+    for (Field field : fields) {
+      for (String text : SearchIndex.getTexts(data, item, field)) {
+        if (term.filter.test(text))
+          return true;
+      }
     }
-    return null;
+    return false;
   }
 
   /**
-   * Return true if item matches patterns.
-   * 
-   * @param item
-   * @param patterns
-   * 
+   * A part of a search pattern.
    */
-  private boolean filterCmd(Unique item, Collection<Pattern> patterns) {
-    boolean retVal = false;
-    Collection<Order> cmds = getCmds(item);
-
-    if (cmds != null) {
-      for (Order cmd : cmds) {
-        if (match(cmd.getText(), patterns))
-          return true;
-      }
+  private static class Term {
+    /** a string that every matching text contains, <code>null</code> for regular expressions */
+    String literal;
+    Predicate<String> filter;
+    boolean negated;
+
+    Term(String literal, Predicate<String> filter, boolean negated) {
+      this.literal = literal;
+      this.filter = filter;
+      this.negated = negated;
     }
-
-    return retVal;
   }
 
   private Collection<Unit> getAllTraitors() {
@@ -956,108 +899,6 @@ public class FindDialog extends InternationalizedDataDialog implements
     return retVal;
   }
 
-  /**
-   * Return true if item matches patterns.
-   * 
-   * @param item
-   */
-  private Collection<Order> getCmds(Object item) {
-    Collection<Order> retVal = null;
-
-    if (item instanceof Unit) {
-      retVal = ((Unit) item).getOrders2();
-    }
-
-    return retVal;
-  }
-
-  /**
-   * Returns true iff <code>item</code>'s messages contain one of the patterns.
-   * 
-   * @param item
-   * @param patterns
-   * @return <code>true</code> if <code>item</code>'s messages contain one of the patterns
-   */
-  private boolean filterMessage(Unique item, Collection<Pattern> patterns) {
-    boolean retVal = false;
-    Collection<Object> msgs = getMessages(item);
-
-    if (msgs != null) {
-      for (Object o : msgs) {
-        String msg = "";
-
-        if (o instanceof String) {
-          msg = (String) o;
-        } else if (o instanceof Message) {
-          msg = ((Message) o).getText();
-        }
-
-        if (match(msg, patterns))
-          return true;
-      }
-    }
-
-    return retVal;
-  }
-
-  private Collection<Object> getMessages(Unique item) {
-    Collection<Object> retVal = new LinkedList<Object>();
-
-    if (item instanceof Unit) {
-      Unit u = (Unit) item;
-
-      if (u.getUnitMessages() != null) {
-        retVal.addAll(u.getUnitMessages());
-      }
-
-      if (u.getEffects() != null) {
-        retVal.addAll(u.getEffects());
-      }
-    } else if (item instanceof UnitContainer) {
-      UnitContainer c = (UnitContainer) item;
-
-      if (c.getEffects() != null) {
-        retVal.addAll(c.getEffects());
-      }
-
-      if (c instanceof Region) {
-        Region r = (Region) c;
-
-        if (r.getMessages() != null) {
-          retVal.addAll(r.getMessages());
-        }
-
-        if (r.getEvents() != null) {
-          retVal.addAll(r.getEvents());
-        }
-
-        if (r.getPlayerMessages() != null) {
-          retVal.addAll(r.getPlayerMessages());
-        }
-
-        if (r.getTravelThru() != null) {
-          retVal.addAll(r.getTravelThru());
-        }
-
-        if (r.getTravelThruShips() != null) {
-          retVal.addAll(r.getTravelThruShips());
-        }
-      } else if (c instanceof Faction) {
-        Faction f = (Faction) c;
-
-        if (f.getMessages() != null) {
-          retVal.addAll(f.getMessages());
-        }
-
-        if (f.getErrors() != null) {
-          retVal.addAll(f.getErrors());
-        }
-      }
-    }
-
-    return retVal;
-  }
-
   /**
    * Return true if item matches patterns.
    * 
@@ -1095,34 +936,6 @@ public class FindDialog extends InternationalizedDataDialog implements
     return faction;
   }
 
-  /**
-   * Return true if item matches patterns.
-   * 
-   * @param item
-   * @param patterns
-   */
-  private boolean filterResource(Unique item, Collection<Pattern> patterns) {
-    if (item instanceof Region) {
-      Region region = (Region) item;
-      for (RegionResource res : region.resources()) {
-        if (match(res.getName(), patterns))
-          return true;
-      }
-
-      if (region.getHerb() != null && match(region.getHerb().getName(), patterns))
-        return true;
-      if (region.getPrices() != null) {
-        for (LuxuryPrice price : region.getPrices().values())
-          if (((price.getPrice() >= 0 && getData().getGameSpecificRules().getMaxTrade(region) < 0) || (price
-              .getPrice() < 0 && getData().getGameSpecificRules().getMaxTrade(region) >= 0))
-              && match(price.getItemType().getName(), patterns))
-            return true;
-      }
-    }
-
-    return false;
-  }
-
   /**
    * Surround each item with a wrapper
    * 
@@ -105,6 +105,7 @@ import magellan.library.Region;
 import magellan.library.TempUnit;
 import magellan.library.Unit;
 import magellan.library.gamebinding.GameSpecificOrderWriter;
+import magellan.library.gamebinding.RelationFactory;
 import magellan.library.io.file.FileBackup;
 import magellan.library.utils.Encoding;
 import magellan.library.utils.FileNameGeneratorFeed;
@@ -1808,6 +1809,20 @@ public class OrderWriterDialog extends InternationalizedDataDialog {
     return retVal;
   }
 
+  /**
+   * Makes sure that the relations of all regions are up to date before orders are written.
+   */
+  private void waitForRelations() {
+    RelationFactory factory = data.getGameSpecificStuff().getRelationFactory();
+    if (factory != null) {
+      try {
+        factory.waitForRelations();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
   private Object[] write(Writer out, boolean forceUnixLineBreaks, Faction faction, int type) {
     return write(out, forceUnixLineBreaks, true, false, faction, type);
   }
@@ -1840,6 +1855,7 @@ public class OrderWriterDialog extends InternationalizedDataDialog {
         stream = out;
       }
 
+      waitForRelations();
       GameSpecificOrderWriter cw = data.getGameSpecificStuff().getOrderWriter();
       cw.setGameData(data);
       cw.setFaction(faction);
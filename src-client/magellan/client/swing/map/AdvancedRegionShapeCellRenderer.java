@@ -33,6 +33,7 @@ import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
 import java.awt.Insets;
 import java.awt.Polygon;
+import java.awt.Rectangle;
 import java.awt.Stroke;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
@@ -91,9 +92,12 @@ import magellan.client.swing.context.ContextObserver;
 import magellan.client.swing.preferences.PreferencesAdapter;
 import magellan.client.utils.Colors;
 import magellan.client.utils.SwingUtils;
+import magellan.library.GameData;
 import magellan.library.Region;
 import magellan.library.event.GameDataEvent;
 import magellan.library.event.GameDataListener;
+import magellan.library.event.UnitChangeEvent;
+import magellan.library.event.UnitChangeListener;
 import magellan.library.utils.Locales;
 import magellan.library.utils.PropertiesHelper;
 import magellan.library.utils.Resources;
@@ -108,7 +112,7 @@ import magellan.library.utils.replacers.ReplacerSystem;
  * @version 1.0
  */
 public class AdvancedRegionShapeCellRenderer extends AbstractRegionShapeCellRenderer implements
-    GameDataListener, ContextChangeable, ActionListener, MapperAware {
+    GameDataListener, UnitChangeListener, ContextChangeable, ActionListener, MapperAware {
   private static final Logger log = Logger.getInstance(AdvancedRegionShapeCellRenderer.class);
 
   // current set information
@@ -526,6 +530,24 @@ public class AdvancedRegionShapeCellRenderer extends AbstractRegionShapeCellRend
     colors.clear();
   }
 
+  /**
+   * @see magellan.client.swing.map.HexCellRenderer#init(magellan.library.GameData,
+   *      java.awt.Graphics, java.awt.Rectangle)
+   */
+  @Override
+  public void init(GameData newData, Graphics g, Rectangle offset) {
+    if (data != newData) {
+      if (data != null) {
+        data.removeUnitChangeListener(this);
+      }
+      if (newData != null) {
+        newData.addUnitChangeListener(this);
+      }
+      invalidate(null);
+    }
+    super.init(newData, g, offset);
+  }
+
   /**
    * Invoked when the current game data object becomes invalid.
    */
@@ -533,6 +555,33 @@ public class AdvancedRegionShapeCellRenderer extends AbstractRegionShapeCellRend
     applySet(currentSett);
   }
 
+  /**
+   * Invalidates the values of the unit's region.
+   *
+   * @see magellan.library.event.UnitChangeListener#unitChanged(magellan.library.event.UnitChangeEvent)
+   */
+  public void unitChanged(UnitChangeEvent event) {
+    if (event.getUnit().getRegion() != null) {
+      invalidate(event.getUnit().getRegion());
+    }
+  }
+
+  /**
+   * Removes the cached replacer results of the region, or of all regions if r is
+   * <code>null</code>.
+   */
+  protected void invalidate(Region r) {
+    for (ReplacerSystem list : new ReplacerSystem[] { minList, curList, maxList }) {
+      if (list != null) {
+        if (r == null) {
+          list.invalidate();
+        } else {
+          list.invalidate(r);
+        }
+      }
+    }
+  }
+
   /**
    * Returns a list of all set names.
    */
@@ -570,6 +619,11 @@ public class AdvancedRegionShapeCellRenderer extends AbstractRegionShapeCellRend
     minList = ReplacerHelp.createReplacer(set.minDef, set.unknownString);
     curList = ReplacerHelp.createReplacer(set.curDef, set.unknownString);
     maxList = ReplacerHelp.createReplacer(set.maxDef, set.unknownString);
+    for (ReplacerSystem list : new ReplacerSystem[] { minList, curList, maxList }) {
+      if (list != null) {
+        list.setCaching(true);
+      }
+    }
 
     minEvalf = 0f;
     minEvalfed = true;
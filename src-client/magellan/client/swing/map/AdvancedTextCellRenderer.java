@@ -74,6 +74,8 @@ import magellan.library.GameData;
 import magellan.library.Region;
 import magellan.library.event.GameDataEvent;
 import magellan.library.event.GameDataListener;
+import magellan.library.event.UnitChangeEvent;
+import magellan.library.event.UnitChangeListener;
 import magellan.library.utils.CollectionFactory;
 import magellan.library.utils.PropertiesHelper;
 import magellan.library.utils.Resources;
@@ -91,7 +93,7 @@ import magellan.library.utils.replacers.ReplacerSystem;
  * @version 1.2
  */
 public class AdvancedTextCellRenderer extends TextCellRenderer implements GameDataListener,
-    ContextChangeable, ActionListener {
+    UnitChangeListener, ContextChangeable, ActionListener {
 
   protected static final String BLANK = "";
   protected boolean breakLines; // Line break style
@@ -150,9 +152,13 @@ public class AdvancedTextCellRenderer extends TextCellRenderer implements GameDa
     }
 
     if (this.data != data) {
-      if (currentSet != null) {
-        currentSet.clearCache();
+      if (this.data != null) {
+        this.data.removeUnitChangeListener(this);
       }
+      if (data != null) {
+        data.addUnitChangeListener(this);
+      }
+      clearResults();
     }
 
     super.init(data, g, offset);
@@ -271,8 +277,32 @@ public class AdvancedTextCellRenderer extends TextCellRenderer implements GameDa
    * @see magellan.library.event.GameDataListener#gameDataChanged(magellan.library.event.GameDataEvent)
    */
   public void gameDataChanged(GameDataEvent e) {
-    if (currentSet != null) {
-      currentSet.clearCache();
+    clearResults();
+  }
+
+  /**
+   * Invalidates the texts of the unit's region.
+   *
+   * @see magellan.library.event.UnitChangeListener#unitChanged(magellan.library.event.UnitChangeEvent)
+   */
+  public void unitChanged(UnitChangeEvent event) {
+    Region r = event.getUnit().getRegion();
+    if (r != null) {
+      // the map renders tiles in other threads while holding the renderer's lock
+      synchronized (this) {
+        for (ATRSet set : atrSets.values()) {
+          set.invalidate(r);
+        }
+      }
+    }
+  }
+
+  /**
+   * Invalidates the texts and replacer results of all sets.
+   */
+  protected synchronized void clearResults() {
+    for (ATRSet set : atrSets.values()) {
+      set.clearResults();
     }
   }
 
@@ -480,6 +510,7 @@ public class AdvancedTextCellRenderer extends TextCellRenderer implements GameDa
     protected String def;
     protected String unknown = "-?-";
     protected ReplacerSystem replacer = null;
+    /** the broken lines by region */
     protected Map<Region, String[]> cache;
 
     /**
@@ -501,7 +532,7 @@ public class AdvancedTextCellRenderer extends TextCellRenderer implements GameDa
     }
 
     /**
-     * invalidates cached replacement
+     * invalidates cached line breaks, but keeps the replacer results
      */
     private void clearCache() {
       if (cache != null) {
@@ -509,13 +540,40 @@ public class AdvancedTextCellRenderer extends TextCellRenderer implements GameDa
       }
     }
 
+    /**
+     * invalidates cached replacements
+     */
+    private void clearResults() {
+      clearCache();
+      if (replacer != null) {
+        replacer.invalidate();
+      }
+    }
+
+    /**
+     * invalidates the cached replacement of one region
+     */
+    private void invalidate(Region r) {
+      if (cache != null) {
+        cache.remove(r);
+      }
+      if (replacer != null) {
+        replacer.invalidate(r);
+      }
+    }
+
     /**
      * Returns replacement text for a region.
      */
     public String[] getReplacement(Region r, CellGeometry geo, AdvancedTextCellRenderer atr) {
       if (cache == null) {
         cache = new HashMap<Region, String[]>();
+      }
+      if (replacer == null) {
         replacer = ReplacerHelp.createReplacer(def, unknown);
+        if (replacer != null) {
+          replacer.setCaching(true);
+        }
       }
 
       if (cache.containsKey(r))
@@ -533,6 +591,7 @@ public class AdvancedTextCellRenderer extends TextCellRenderer implements GameDa
     public void setDef(String def) {
       this.def = def;
       clearCache();
+      replacer = null;
     }
 
     /**
@@ -574,6 +633,7 @@ public class AdvancedTextCellRenderer extends TextCellRenderer implements GameDa
       }
 
       clearCache();
+      replacer = null;
     }
 
     /**
@@ -0,0 +1,285 @@
+// class magellan.client.swing.map.MapTileCache
+// created on Oct 18, 2026
+//
+// Copyright 2003-2026 by magellan project team
+//
+// Author : $Author: $
+// $Id: $
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program (see doc/LICENCE.txt); if not, write to the
+// Free Software Foundation, Inc.,
+// 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+package magellan.client.swing.map;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * A cache of rendered map tiles. The map is divided into square tiles of a fixed size (in component
+ * coordinates). The cache is only valid for one render context (scale, level, renderers, ...);
+ * changing the context discards all tiles. Invalidating the cache or parts of it keeps the images
+ * of the tiles, so they can still be painted until they have been rendered again.
+ * <p>
+ * The least recently used tiles are discarded if the images need more than the given amount of
+ * memory. All methods are thread safe.
+ * </p>
+ */
+class MapTileCache {
+
+  /** default size of the tiles */
+  public static final int TILE_SIZE = 256;
+
+  /**
+   * A tile of the map.
+   */
+  static class Tile {
+    final int x;
+    final int y;
+    /** set under the cache's lock, but read by painting threads without it */
+    volatile BufferedImage image;
+    /** cache version and stamp of the image */
+    int imageVersion = -1;
+    int imageStamp = -1;
+    /** incremented each time the tile is invalidated */
+    int stamp;
+    boolean rendering;
+
+    Tile(int x, int y) {
+      this.x = x;
+      this.y = y;
+    }
+
+    /**
+     * Returns the tile's image, may be <code>null</code> if it has not been rendered yet.
+     */
+    public BufferedImage getImage() {
+      return image;
+    }
+  }
+
+  private final int tileSize;
+  private final long maxMemory;
+  private final LinkedHashMap<Long, Tile> tiles = new LinkedHashMap<Long, Tile>(64, 0.75f, true);
+  private long memory;
+  private Object context;
+  private int version;
+
+  /**
+   * Creates a cache.
+   *
+   * @param tileSize The width and height of the tiles
+   * @param maxMemory The maximum number of bytes used by the tile images
+   */
+  public MapTileCache(int tileSize, long maxMemory) {
+    this.tileSize = tileSize;
+    this.maxMemory = maxMemory;
+  }
+
+  /**
+   * Returns the width and height of the tiles.
+   */
+  public int getTileSize() {
+    return tileSize;
+  }
+
+  /**
+   * Sets the render context. If it is not equal to the current context, all tiles are discarded.
+   *
+   * @return <code>true</code> if the cache has been cleared
+   */
+  public synchronized boolean setContext(Object newContext) {
+    if (newContext == null ? context == null : newContext.equals(context))
+      return false;
+    clear();
+    context = newContext;
+    return true;
+  }
+
+  /**
+   * Returns the current render context.
+   */
+  public synchronized Object getContext() {
+    return context;
+  }
+
+  /**
+   * Discards all tiles.
+   */
+  public synchronized void clear() {
+    tiles.clear();
+    memory = 0;
+    ++version;
+  }
+
+  /**
+   * Marks all tiles as outdated.
+   */
+  public synchronized void invalidate() {
+    ++version;
+  }
+
+  /**
+   * Marks all tiles intersecting the given area as outdated.
+   */
+  public synchronized void invalidate(Rectangle area) {
+    if (area.isEmpty())
+      return;
+    int x1 = Math.floorDiv(area.x, tileSize), x2 = Math.floorDiv(area.x + area.width - 1, tileSize);
+    int y1 = Math.floorDiv(area.y, tileSize), y2 = Math.floorDiv(area.y + area.height - 1, tileSize);
+    for (int x = x1; x <= x2; ++x) {
+      for (int y = y1; y <= y2; ++y) {
+        Tile tile = tiles.get(key(x, y));
+        if (tile != null) {
+          ++tile.stamp;
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the tiles covering the given area, creating missing ones.
+   */
+  public synchronized List<Tile> getTiles(Rectangle area) {
+    List<Tile> result = new ArrayList<Tile>();
+    if (area.isEmpty())
+      return result;
+    int x1 = Math.floorDiv(area.x, tileSize), x2 = Math.floorDiv(area.x + area.width - 1, tileSize);
+    int y1 = Math.floorDiv(area.y, tileSize), y2 = Math.floorDiv(area.y + area.height - 1, tileSize);
+    for (int y = y1; y <= y2; ++y) {
+      for (int x = x1; x <= x2; ++x) {
+        Long key = key(x, y);
+        Tile tile = tiles.get(key);
+        if (tile == null) {
+          tile = new Tile(x, y);
+          tiles.put(key, tile);
+        }
+        result.add(tile);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the bounds of the tile in component coordinates.
+   */
+  public Rectangle getBounds(Tile tile) {
+    return new Rectangle(tile.x * tileSize, tile.y * tileSize, tileSize, tileSize);
+  }
+
+  /**
+   * Returns <code>true</code> if the tile's image is up to date.
+   */
+  public synchronized boolean isCurrent(Tile tile) {
+    return tile.imageVersion == version && tile.imageStamp == tile.stamp;
+  }
+
+  /**
+   * Returns <code>true</code> if the tile is outdated and nobody is rendering it.
+   */
+  public synchronized boolean needsRendering(Tile tile) {
+    return !tile.rendering && !isCurrent(tile);
+  }
+
+  /**
+   * Returns <code>true</code> if the tile still belongs to this cache and the given context.
+   */
+  public synchronized boolean isLive(Tile tile, Object tileContext) {
+    return tileContext == context && tiles.get(key(tile.x, tile.y)) == tile;
+  }
+
+  /**
+   * Marks the tile as being rendered.
+   *
+   * @return The version and the stamp the rendering is based on. Pass them to
+   *         {@link #finish(Tile, BufferedImage, int[])}.
+   */
+  public synchronized int[] start(Tile tile) {
+    tile.rendering = true;
+    return new int[] { version, tile.stamp };
+  }
+
+  /**
+   * Sets the rendered image of a tile. Images that are older than the tile's current image are
+   * ignored.
+   *
+   * @param tile The tile
+   * @param image The rendered image, <code>null</code> if rendering has been canceled
+   * @param versions The value returned by {@link #start(Tile)}
+   * @return <code>true</code> if the image is up to date
+   */
+  public synchronized boolean finish(Tile tile, BufferedImage image, int[] versions) {
+    tile.rendering = false;
+    if (image == null)
+      return false;
+    if (versions[0] < tile.imageVersion
+        || (versions[0] == tile.imageVersion && versions[1] < tile.imageStamp))
+      return false;
+
+    boolean cached = tiles.get(key(tile.x, tile.y)) == tile;
+    if (cached && tile.image != null) {
+      memory -= getMemory(tile.image);
+    }
+    tile.image = image;
+    tile.imageVersion = versions[0];
+    tile.imageStamp = versions[1];
+    if (cached) {
+      memory += getMemory(image);
+      evict(tile);
+    }
+    return isCurrent(tile);
+  }
+
+  /**
+   * Discards the least recently used tiles until the memory limit is kept, but never the given
+   * tile.
+   */
+  private void evict(Tile keep) {
+    for (Iterator<Tile> it = tiles.values().iterator(); memory > maxMemory && it.hasNext();) {
+      Tile tile = it.next();
+      if (tile != keep) {
+        it.remove();
+        if (tile.image != null) {
+          memory -= getMemory(tile.image);
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the number of bytes used by the cached images.
+   */
+  public synchronized long getMemory() {
+    return memory;
+  }
+
+  /**
+   * Returns the number of cached tiles.
+   */
+  public synchronized int size() {
+    return tiles.size();
+  }
+
+  private static long getMemory(BufferedImage image) {
+    return 4L * image.getWidth() * image.getHeight();
+  }
+
+  private static Long key(int x, int y) {
+    return Long.valueOf(((long) x << 32) | (y & 0xffffffffL));
+  }
+}
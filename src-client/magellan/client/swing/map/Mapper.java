@@ -13,10 +13,10 @@
 
 package magellan.client.swing.map;
 
+import java.awt.Color;
 import java.awt.Cursor;
 import java.awt.Dimension;
 import java.awt.Graphics;
-import java.awt.Image;
 import java.awt.MediaTracker;
 import java.awt.Point;
 import java.awt.Rectangle;
@@ -30,13 +30,28 @@ import java.awt.image.BufferedImage;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
 import java.util.Properties;
+import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import javax.swing.Scrollable;
 import javax.swing.SwingConstants;
@@ -65,6 +80,7 @@ import magellan.library.event.UnitChangeEvent;
 import magellan.library.event.UnitChangeListener;
 import magellan.library.rules.ItemType;
 import magellan.library.utils.PropertiesHelper;
+import magellan.library.utils.RegionIndex;
 import magellan.library.utils.Resources;
 import magellan.library.utils.Sorted;
 import magellan.library.utils.logging.Logger;
@@ -166,7 +182,10 @@ public class Mapper extends InternationalizedDataPanel implements SelectionListe
   private int showLevel = 0;
   private float scaleFactor = 1.0f;
   private Rectangle currentBounds = null;
-  private Image buffer = null;
+  // rendered tiles of the lower planes
+  private MapTileCache tiles;
+
+  private static ExecutorService tileRenderer;
 
   // The cell geometry used by the renderes, see setRenderer()
   private CellGeometry cellGeometry = null;
@@ -253,6 +272,10 @@ public class Mapper extends InternationalizedDataPanel implements SelectionListe
     availableRenderers = initAvailableRenderers(cellGeometry, settings, customRenderers);
     planes = initRenderingPlanes();
 
+    tiles =
+        new MapTileCache(MapTileCache.TILE_SIZE, PropertiesHelper.getInteger(settings,
+            "Mapper.tileCacheSize", 64) * 1024L * 1024L);
+
     // determine the size of the map in component coordinates
     mapToScreenBounds = getMapToScreenBounds();
 
@@ -700,6 +723,8 @@ public class Mapper extends InternationalizedDataPanel implements SelectionListe
 
     pathRegions.clear();
 
+    tiles.clear();
+
     reprocessTooltipDefinition();
   }
 
@@ -884,26 +909,41 @@ public class Mapper extends InternationalizedDataPanel implements SelectionListe
         yend -= 1;
       }
 
-      int yCounter = 0;
-
-      for (int y = ystart; y >= yend; y--) {
-        if ((++yCounter % 2) == 0) {
-          xstart += 1;
+      // only look at rows that contain regions; in row y, x starts at xstart + (ystart - y + 1) / 2
+      int z = upperLeft.getZ();
+      RegionIndex regions = getGameData().regionIndex();
+      RegionIndex wrappers = getGameData().wrapperIndex();
+      RegionIndex voids =
+          PropertiesHelper.getBoolean(settings, "map.creating.void", false) ? getGameData()
+              .voidIndex() : null;
+      NavigableSet<Integer> rows = regions.getRows(z, yend, ystart);
+      if (!wrappers.getRows(z, yend, ystart).isEmpty()
+          || (voids != null && !voids.getRows(z, yend, ystart).isEmpty())) {
+        rows = new TreeSet<Integer>(rows);
+        rows.addAll(wrappers.getRows(z, yend, ystart));
+        if (voids != null) {
+          rows.addAll(voids.getRows(z, yend, ystart));
         }
+      }
 
-        for (int x = xstart; x < xend; x++) {
-          CoordinateID c = CoordinateID.create(x, y, upperLeft.getZ());
-          Region r = getGameData().getRegion(c);
-          if (r == null) {
-            r = getGameData().wrappers().get(c);
-          }
-          if (r == null && PropertiesHelper.getBoolean(settings, "map.creating.void", false)) {
-            r = getGameData().voids().get(c);
-          }
+      for (int y : rows.descendingSet()) {
+        int xfrom = xstart + (ystart - y + 1) / 2;
+        Collection<Region> row = regions.getRow(z, y, xfrom, xend);
+        Collection<Region> wrapperRow = wrappers.getRow(z, y, xfrom, xend);
+        Collection<Region> voidRow =
+            voids == null ? Collections.<Region> emptyList() : voids.getRow(z, y, xfrom, xend);
 
-          if (r != null) {
-            main.add(r);
+        if (wrapperRow.isEmpty() && voidRow.isEmpty()) {
+          main.addAll(row);
+        } else {
+          // regions hide wrappers, wrappers hide voids
+          TreeMap<Integer, Region> merged = new TreeMap<Integer, Region>();
+          for (Collection<Region> part : Arrays.asList(voidRow, wrapperRow, row)) {
+            for (Region r : part) {
+              merged.put(r.getID().getX(), r);
+            }
           }
+          main.addAll(merged.values());
         }
       }
     }
@@ -913,21 +953,9 @@ public class Mapper extends InternationalizedDataPanel implements SelectionListe
      * FIX: Have to look at the level...
      */
     else {
-      for (Region r : getGameData().getRegions()) {
-        if (r.getCoordinate().getZ() == upperLeft.getZ()) {
-          main.add(r);
-        }
-      }
-      for (Region r : getGameData().wrappers().values()) {
-        if (r.getCoordinate().getZ() == upperLeft.getZ()) {
-          main.add(r);
-        }
-      }
-      for (Region r : getGameData().voids().values()) {
-        if (r.getCoordinate().getZ() == upperLeft.getZ()) {
-          main.add(r);
-        }
-      }
+      main.addAll(getGameData().regionIndex().getRegions(upperLeft.getZ()));
+      main.addAll(getGameData().wrapperIndex().getRegions(upperLeft.getZ()));
+      main.addAll(getGameData().voidIndex().getRegions(upperLeft.getZ()));
     }
 
     // sort out according to other states, use AND
@@ -1043,83 +1071,17 @@ public class Mapper extends InternationalizedDataPanel implements SelectionListe
       }
     }
 
-    // if nothing about the drawing area changed we can simply
-    // paint our buffer
-    if (!clipBounds.equals(currentBounds) || isRenderContextChanged()) {
+    // the lower planes are painted from cached tiles; only outdated tiles are rendered again
+    if (isRenderContextChanged()) {
       renderContextChanged = false;
-
-      if ((buffer == null) || !clipBounds.equals(currentBounds)) {
-        setLastRegionRenderingType(-1); // full redraw
-
-        if (buffer != null) {
-          buffer.flush();
-          buffer = null;
-        }
-
-        buffer =
-            new BufferedImage(clipBounds.width, clipBounds.height, BufferedImage.TYPE_INT_ARGB);
-      }
-
-      Graphics bg = buffer.getGraphics();
-      bg.setColor(getBackground());
-      bg.fillRect(0, 0, clipBounds.width, clipBounds.height);
-
-      for (int planeIndex = 0; (planeIndex < Mapper.PLANE_PATH)
-          && (planeIndex < planes.length); planeIndex++) {
-        if (planes[planeIndex] == null) {
-          continue;
-        }
-
-        MapCellRenderer renderer = planes[planeIndex].getRenderer();
-
-        if (renderer == null) {
-          continue;
-        }
-
-        if (planes[planeIndex].getRegionTypes() == RenderingPlane.ALWAYS_ONCE) {
-          renderer.init(getGameData(), bg, offset);
-          renderer.render(null, false, false);
-        } else {
-
-          // maybe another region set
-          if (planes[planeIndex].getRegionTypes() != getLastRegionRenderingType()) {
-            setLastRegionRenderingType(planes[planeIndex].getRegionTypes());
-            regList =
-                createSubList(getLastRegionRenderingType(), upperLeftCorner, lowerRightCorner,
-                    regList, duration, paintNumber);
-            duration++;
-          }
-
-          if ((regList == null) || (regList.size() == 0)) {
-            continue;
-          }
-
-          renderer.init(getGameData(), bg, offset);
-
-          for (Sorted obj : regList) {
-            boolean selected = false;
-            boolean active = false;
-
-            if (obj instanceof Region) {
-              Region r = (Region) obj;
-
-              selected = selectedRegions.containsKey(r.getID());
-
-              if (activeRegion != null) {
-                active = activeRegion.equals(r);
-              }
-            }
-
-            renderer.render(obj, active, selected);
-          }
-        }
-      }
-
-      bg.dispose();
-      bg = null;
+      tiles.invalidate();
+      setLastRegionRenderingType(-1);
+    }
+    if (tiles.setContext(new TileContext(this))) {
+      setLastRegionRenderingType(-1);
     }
 
-    g.drawImage(buffer, clipBounds.x, clipBounds.y, this);
+    paintTiles(g, clipBounds);
     // ThreadMXBean bean = java.lang.management.ManagementFactory.getThreadMXBean();
     // if (bean instanceof com.sun.management.ThreadMXBean) {
     // Thread[] list = new Thread[Thread.currentThread().getThreadGroup().activeCount() * 2];
@@ -1301,6 +1263,7 @@ public class Mapper extends InternationalizedDataPanel implements SelectionListe
                 log.warnOnce("Image tracker errors: " + errors.length + " (" + tracker + ")");
               }
               currentBounds.x = -1;
+              tiles.invalidate();
               SwingUtilities.invokeLater(new Runnable() {
 
                 public void run() {
@@ -1321,6 +1284,284 @@ public class Mapper extends InternationalizedDataPanel implements SelectionListe
     setCursor(Mapper.DEFAULT_CURSOR);
   }
 
+  /**
+   * Paints the tiles of the lower planes (up to {@link #PLANE_PATH}) covering the clip bounds.
+   * Outdated tiles are rendered by the tile renderer threads; until they are done, their previous
+   * image is painted and a repaint is triggered when they are finished. When not painting on the
+   * event dispatch thread (e.g., when saving the map as image), this method waits for the tiles.
+   */
+  protected void paintTiles(Graphics g, Rectangle clipBounds) {
+    TileContext tileContext = (TileContext) tiles.getContext();
+    ExecutorService executor = getTileRenderer(settings);
+    boolean wait = executor == null || !SwingUtilities.isEventDispatchThread();
+
+    List<MapTileCache.Tile> visible = tiles.getTiles(clipBounds);
+    List<Future<?>> jobs = new ArrayList<Future<?>>();
+    Set<CoordinateID> selected = null;
+    for (MapTileCache.Tile tile : visible) {
+      if (tiles.needsRendering(tile) || (wait && !tiles.isCurrent(tile))) {
+        if (selected == null) {
+          selected = new HashSet<CoordinateID>(selectedRegions.keySet());
+        }
+        TileContent content = new TileContent(tile, tileContext, selected, activeRegion);
+        TileJob job = new TileJob(tile, tileContext, content, tiles.start(tile), !wait);
+        if (executor == null) {
+          job.run();
+        } else {
+          jobs.add(executor.submit(job));
+        }
+      }
+    }
+    if (wait) {
+      for (Future<?> job : jobs) {
+        try {
+          job.get();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          break;
+        } catch (ExecutionException e) {
+          log.error("error rendering map", e.getCause());
+        }
+      }
+    }
+
+    for (MapTileCache.Tile tile : visible) {
+      Rectangle bounds = tiles.getBounds(tile);
+      BufferedImage image = tile.getImage();
+      if (image != null) {
+        g.drawImage(image, bounds.x, bounds.y, null);
+      } else {
+        g.setColor(tileContext.background);
+        g.fillRect(bounds.x, bounds.y, bounds.width, bounds.height);
+      }
+    }
+  }
+
+  /**
+   * Returns the area of the tile in map coordinates.
+   */
+  protected Rectangle getTileOffset(MapTileCache.Tile tile, TileContext tileContext) {
+    int size = tiles.getTileSize();
+    return new Rectangle(tileContext.origin.x + tile.x * size, tileContext.origin.y + tile.y
+        * size, size, size);
+  }
+
+  /**
+   * Renders the lower planes of a tile. The regions and the selection are taken from the content,
+   * which has been collected before.
+   */
+  protected BufferedImage renderTile(MapTileCache.Tile tile, TileContext tileContext,
+      TileContent content) {
+    int size = tiles.getTileSize();
+    BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+    Graphics g = image.getGraphics();
+    g.setColor(tileContext.background);
+    g.fillRect(0, 0, size, size);
+
+    Rectangle offset = getTileOffset(tile, tileContext);
+
+    for (int planeIndex = 0; planeIndex < tileContext.renderers.length; planeIndex++) {
+      MapCellRenderer renderer = tileContext.renderers[planeIndex];
+
+      if (renderer == null) {
+        continue;
+      }
+
+      // renderers are shared by all tiles, so only one tile at a time may use a renderer
+      synchronized (renderer) {
+        if (tileContext.regionTypes[planeIndex] == RenderingPlane.ALWAYS_ONCE) {
+          renderer.init(tileContext.data, g, offset);
+          renderer.render(null, false, false);
+        } else {
+          List<Sorted> regList = content.regions.get(tileContext.regionTypes[planeIndex]);
+          if (regList.isEmpty()) {
+            continue;
+          }
+
+          renderer.init(tileContext.data, g, offset);
+
+          for (Sorted obj : regList) {
+            boolean selected = false;
+            boolean active = false;
+
+            if (obj instanceof Region) {
+              Region r = (Region) obj;
+
+              selected = content.selected.contains(r.getID());
+
+              if (content.active != null) {
+                active = content.active.equals(r);
+              }
+            }
+
+            renderer.render(obj, active, selected);
+          }
+        }
+      }
+    }
+
+    g.dispose();
+    return image;
+  }
+
+  /**
+   * The regions of a tile and the selection. They are collected on the event dispatch thread before
+   * the tile is rendered in the background, so that the tile renderers do not read the selection or
+   * the region indices of the game data while they are changed.
+   */
+  protected class TileContent {
+    /** region types of the planes -> regions of the tile */
+    final Map<Integer, List<Sorted>> regions = new HashMap<Integer, List<Sorted>>();
+    final Set<CoordinateID> selected;
+    final Region active;
+
+    TileContent(MapTileCache.Tile tile, TileContext tileContext, Set<CoordinateID> selected,
+        Region active) {
+      this.selected = selected;
+      this.active = active;
+      Rectangle offset = getTileOffset(tile, tileContext);
+      CoordinateID upperLeftCorner =
+          tileContext.geometry.getCoordinate(offset.x, offset.y, tileContext.level);
+      CoordinateID lowerRightCorner =
+          tileContext.geometry.getCoordinate(offset.x + offset.width, offset.y + offset.height,
+              tileContext.level);
+      for (int planeIndex = 0; planeIndex < tileContext.renderers.length; planeIndex++) {
+        int regionTypes = tileContext.regionTypes[planeIndex];
+        if (tileContext.renderers[planeIndex] != null
+            && regionTypes != RenderingPlane.ALWAYS_ONCE && !regions.containsKey(regionTypes)) {
+          regions.put(regionTypes, createSubList(regionTypes, upperLeftCorner, lowerRightCorner,
+              new ArrayList<Sorted>(), 1, 0));
+        }
+      }
+    }
+  }
+
+  /**
+   * Marks the tiles showing the region with the given coordinate as outdated.
+   */
+  public void invalidateRegion(CoordinateID c) {
+    if ((cellGeometry == null) || (mapToScreenBounds == null) || (c.getZ() != showLevel))
+      return;
+
+    // texts and images may exceed the cell
+    Rectangle bounds = getCellRect(c);
+    bounds.grow(bounds.width, bounds.height);
+    tiles.invalidate(bounds);
+    repaint(bounds);
+  }
+
+  /**
+   * Returns the executor for rendering tiles or <code>null</code> if tiles should be rendered
+   * while painting. The number of threads is set by the property Mapper.renderThreads.
+   */
+  protected static synchronized ExecutorService getTileRenderer(Properties settings) {
+    if (tileRenderer == null) {
+      int threads =
+          PropertiesHelper.getInteger(settings, "Mapper.renderThreads", Math.min(4, Runtime
+              .getRuntime().availableProcessors()));
+      if (threads <= 0)
+        return null;
+      tileRenderer =
+          new ThreadPoolExecutor(threads, threads, 10, TimeUnit.SECONDS,
+              new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                public Thread newThread(Runnable r) {
+                  Thread t = new Thread(r, "MapTileRenderer");
+                  t.setDaemon(true);
+                  return t;
+                }
+              });
+      ((ThreadPoolExecutor) tileRenderer).allowCoreThreadTimeOut(true);
+    }
+    return tileRenderer;
+  }
+
+  /**
+   * Renders a tile and triggers a repaint of its area.
+   */
+  protected class TileJob implements Runnable {
+    private MapTileCache.Tile tile;
+    private TileContext tileContext;
+    private TileContent content;
+    private int[] versions;
+    private boolean repaint;
+
+    TileJob(MapTileCache.Tile tile, TileContext tileContext, TileContent content, int[] versions,
+        boolean repaint) {
+      this.tile = tile;
+      this.tileContext = tileContext;
+      this.content = content;
+      this.versions = versions;
+      this.repaint = repaint;
+    }
+
+    public void run() {
+      BufferedImage image = null;
+      try {
+        // skip tiles that are not needed any more
+        if (tiles.isLive(tile, tileContext)) {
+          image = renderTile(tile, tileContext, content);
+        }
+      } catch (RuntimeException e) {
+        log.error("error rendering map tile", e);
+      } finally {
+        tiles.finish(tile, image, versions);
+      }
+      if (repaint && image != null) {
+        repaint(tiles.getBounds(tile));
+      }
+    }
+  }
+
+  /**
+   * Everything the tiles depend on except for the map content. The tiles are discarded if any of
+   * these changes.
+   */
+  protected static class TileContext {
+    final GameData data;
+    final CellGeometry geometry;
+    final float scaleFactor;
+    final int level;
+    final Point origin;
+    final Color background;
+    final MapCellRenderer[] renderers;
+    final int[] regionTypes;
+
+    TileContext(Mapper mapper) {
+      data = mapper.getGameData();
+      geometry = mapper.cellGeometry;
+      scaleFactor = mapper.scaleFactor;
+      level = mapper.showLevel;
+      origin = mapper.mapToScreenBounds.getLocation();
+      background = mapper.getBackground();
+      int planeCount = Math.min(Mapper.PLANE_PATH, mapper.planes.length);
+      renderers = new MapCellRenderer[planeCount];
+      regionTypes = new int[planeCount];
+      for (int planeIndex = 0; planeIndex < planeCount; planeIndex++) {
+        if (mapper.planes[planeIndex] != null) {
+          renderers[planeIndex] = mapper.planes[planeIndex].getRenderer();
+          regionTypes[planeIndex] = mapper.planes[planeIndex].getRegionTypes();
+        }
+      }
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof TileContext))
+        return false;
+      TileContext other = (TileContext) obj;
+      return data == other.data && geometry == other.geometry && scaleFactor == other.scaleFactor
+          && level == other.level && origin.equals(other.origin)
+          && Objects.equals(background, other.background)
+          && Arrays.equals(renderers, other.renderers)
+          && Arrays.equals(regionTypes, other.regionTypes);
+    }
+
+    @Override
+    public int hashCode() {
+      return Arrays.hashCode(renderers) * 31 + level;
+    }
+  }
+
   /**
    * Returns the current scale or zoom factor. This value is a real factor, i.e. 1.0 means that the
    * components are painted according to the values supplied by the underlying CellGeometry object.
@@ -1366,7 +1607,9 @@ public class Mapper extends InternationalizedDataPanel implements SelectionListe
       MapCellRenderer renderer = plane.getRenderer();
 
       if (renderer != null) {
-        renderer.scale(this.scaleFactor);
+        synchronized (renderer) {
+          renderer.scale(this.scaleFactor);
+        }
       }
     }
   }
@@ -1586,16 +1829,14 @@ public class Mapper extends InternationalizedDataPanel implements SelectionListe
     Point upperLeft = new Point(Integer.MAX_VALUE, Integer.MAX_VALUE);
     Point lowerRight = new Point(Integer.MIN_VALUE, Integer.MIN_VALUE);
 
-    for (Region r : getGameData().getRegions()) {
+    for (Region r : getGameData().regionIndex().getRegions(showLevel)) {
       CoordinateID c = r.getCoordinate();
-      if (c.getZ() == showLevel) {
-        int x = cellGeometry.getCellPositionX(c.getX(), c.getY());
-        int y = cellGeometry.getCellPositionY(c.getX(), c.getY());
-        upperLeft.x = Math.min(x, upperLeft.x);
-        upperLeft.y = Math.min(y, upperLeft.y);
-        lowerRight.x = Math.max(x, lowerRight.x);
-        lowerRight.y = Math.max(y, lowerRight.y);
-      }
+      int x = cellGeometry.getCellPositionX(c.getX(), c.getY());
+      int y = cellGeometry.getCellPositionY(c.getX(), c.getY());
+      upperLeft.x = Math.min(x, upperLeft.x);
+      upperLeft.y = Math.min(y, upperLeft.y);
+      lowerRight.x = Math.max(x, lowerRight.x);
+      lowerRight.y = Math.max(y, lowerRight.y);
     }
     if (lowerRight.x == Integer.MIN_VALUE || lowerRight.y == Integer.MIN_VALUE
         || upperLeft.x == Integer.MAX_VALUE || upperLeft.y == Integer.MAX_VALUE) {
@@ -1815,6 +2056,10 @@ public class Mapper extends InternationalizedDataPanel implements SelectionListe
     tooltipDefinitionStrings[0] = name;
     tooltipDefinitionStrings[1] = tdef;
     tooltipDefinition = ReplacerHelp.createReplacer(tdef);
+    if (tooltipDefinition != null) {
+      // invalidated by unitChanged, replaced by gameDataChanged
+      tooltipDefinition.setCaching(true);
+    }
     settings.setProperty("Mapper.ToolTip.Definition", name + "~" + tdef);
   }
 
@@ -2018,6 +2263,13 @@ public class Mapper extends InternationalizedDataPanel implements SelectionListe
    * @see magellan.library.event.UnitChangeListener#unitChanged(magellan.library.event.UnitChangeEvent)
    */
   public void unitChanged(UnitChangeEvent event) {
+    if (event.getUnit().getRegion() != null) {
+      invalidateRegion(event.getUnit().getRegion().getCoordinate());
+      if (tooltipDefinition != null) {
+        tooltipDefinition.invalidate(event.getUnit().getRegion());
+      }
+    }
+
     // we need this for paths
     if (activeObject == event.getUnit()) {
       repaint();
@@ -84,6 +84,7 @@ import magellan.library.Unit;
 import magellan.library.event.GameDataEvent;
 import magellan.library.event.UnitChangeEvent;
 import magellan.library.event.UnitChangeListener;
+import magellan.library.gamebinding.RelationFactory;
 import magellan.library.tasks.AttackInspector;
 import magellan.library.tasks.BuildingInspector;
 import magellan.library.tasks.GameDataInspector;
@@ -1110,6 +1111,8 @@ public class TaskTablePanel extends InternationalizedDataPanel implements UnitCh
             while (queue.size() < 1) {
               Thread.sleep(200);
             }
+            // inspect the relations of the current orders
+            waitForRelations();
             synchronized (selectedProblems) {
               getSelection();
               while (!stop && queue.size() > 0) {
@@ -1697,6 +1700,18 @@ public class TaskTablePanel extends InternationalizedDataPanel implements UnitCh
 
   }
 
+  /**
+   * Waits until the relations of all changed regions are up to date. Must not be called on the
+   * event dispatch thread.
+   */
+  private void waitForRelations() throws InterruptedException {
+    GameData data = getGameData();
+    RelationFactory factory = data == null ? null : data.getGameSpecificStuff().getRelationFactory();
+    if (factory != null) {
+      factory.waitForRelations();
+    }
+  }
+
   /**
    * Reviews a region with all units within.
    */
@@ -0,0 +1,272 @@
+// class magellan.client.swing.tree.TreeMerger
+// created on Oct 18, 2026
+//
+// Copyright 2003-2026 by magellan project team
+//
+// Author : $Author: $
+// $Id: $
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program (see doc/LICENCE.txt); if not, write to the
+// Free Software Foundation, Inc.,
+// 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+package magellan.client.swing.tree;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import javax.swing.tree.DefaultMutableTreeNode;
+import javax.swing.tree.DefaultTreeModel;
+import javax.swing.tree.TreeNode;
+
+import magellan.library.Unique;
+
+/**
+ * Merges a freshly built tree into the nodes of an existing tree model. A child of the old tree
+ * that corresponds to a child of the new tree (a node wrapper of the same kind for an object with
+ * the same ID) is kept and gets the user object of the new node. Other old nodes are removed and
+ * the remaining new nodes are inserted. Only these differences are reported to the model, so the
+ * tree keeps the expansion state and the selection of all nodes that are kept.
+ *
+ * @author stm
+ */
+public class TreeMerger {
+
+  private DefaultTreeModel model;
+  private Map<TreeNode, TreeNode> replacements = new IdentityHashMap<TreeNode, TreeNode>();
+  private int inserted;
+  private int removed;
+  private int changed;
+
+  /**
+   * Creates a merger for the given model. The root of the model must be a
+   * {@link DefaultMutableTreeNode}.
+   */
+  public TreeMerger(DefaultTreeModel model) {
+    this.model = model;
+  }
+
+  /**
+   * Merges the children of <code>newRoot</code> into the root of the model. The new tree must not
+   * be used afterwards, its nodes are moved to the model.
+   */
+  public void merge(DefaultMutableTreeNode newRoot) {
+    mergeChildren((DefaultMutableTreeNode) model.getRoot(), newRoot);
+  }
+
+  /**
+   * Returns the node of the model that has replaced the given node of the new tree.
+   *
+   * @return The old node that has been kept instead of <code>newNode</code> or
+   *         <code>newNode</code> itself if it has been inserted
+   */
+  public TreeNode getNode(TreeNode newNode) {
+    TreeNode oldNode = replacements.get(newNode);
+    return oldNode != null ? oldNode : newNode;
+  }
+
+  /**
+   * Replaces all nodes of the new tree in the values of the map by the corresponding nodes of the
+   * model.
+   */
+  public <K> void updateNodes(Map<K, TreeNode> nodes) {
+    for (Entry<K, TreeNode> entry : nodes.entrySet()) {
+      entry.setValue(getNode(entry.getValue()));
+    }
+  }
+
+  /**
+   * Returns the number of nodes that have been inserted.
+   */
+  public int getInserted() {
+    return inserted;
+  }
+
+  /**
+   * Returns the number of nodes that have been removed.
+   */
+  public int getRemoved() {
+    return removed;
+  }
+
+  /**
+   * Returns the number of nodes that have been kept with a new user object.
+   */
+  public int getChanged() {
+    return changed;
+  }
+
+  private void mergeChildren(DefaultMutableTreeNode oldParent, DefaultMutableTreeNode newParent) {
+    int oldCount = oldParent.getChildCount();
+    int newCount = newParent.getChildCount();
+
+    // index the old children by key
+    Map<Object, List<DefaultMutableTreeNode>> oldChildren =
+        new HashMap<Object, List<DefaultMutableTreeNode>>();
+    Map<TreeNode, Integer> oldIndices = new IdentityHashMap<TreeNode, Integer>();
+    for (int i = 0; i < oldCount; ++i) {
+      DefaultMutableTreeNode child = (DefaultMutableTreeNode) oldParent.getChildAt(i);
+      Object key = TreeMerger.getKey(child.getUserObject());
+      List<DefaultMutableTreeNode> list = oldChildren.get(key);
+      if (list == null) {
+        oldChildren.put(key, list = new LinkedList<DefaultMutableTreeNode>());
+      }
+      list.add(child);
+      oldIndices.put(child, i);
+    }
+
+    // find the old node for every new node; old nodes must keep their order, otherwise they are
+    // moved
+    DefaultMutableTreeNode[] sources = new DefaultMutableTreeNode[newCount];
+    DefaultMutableTreeNode[] targets = new DefaultMutableTreeNode[newCount];
+    boolean[] kept = new boolean[oldCount];
+    int lastIndex = -1;
+    for (int i = 0; i < newCount; ++i) {
+      sources[i] = (DefaultMutableTreeNode) newParent.getChildAt(i);
+      List<DefaultMutableTreeNode> list = oldChildren.get(TreeMerger.getKey(sources[i].getUserObject()));
+      if (list != null && !list.isEmpty()) {
+        targets[i] = list.remove(0);
+        int index = oldIndices.get(targets[i]);
+        if (index > lastIndex) {
+          kept[index] = true;
+          lastIndex = index;
+        }
+        replacements.put(sources[i], targets[i]);
+      } else {
+        targets[i] = sources[i];
+      }
+    }
+
+    // remove old nodes that are not kept in place
+    int removedCount = 0;
+    for (int i = 0; i < oldCount; ++i) {
+      if (!kept[i]) {
+        removedCount++;
+      }
+    }
+    if (removedCount > 0) {
+      int[] indices = new int[removedCount];
+      Object[] children = new Object[removedCount];
+      for (int i = oldCount - 1, j = removedCount - 1; i >= 0; --i) {
+        if (!kept[i]) {
+          indices[j] = i;
+          children[j--] = oldParent.getChildAt(i);
+          oldParent.remove(i);
+        }
+      }
+      removed += removedCount;
+      model.nodesWereRemoved(oldParent, indices, children);
+    }
+
+    // insert new and moved nodes
+    List<Integer> insertedIndices = new ArrayList<Integer>();
+    for (int i = 0; i < newCount; ++i) {
+      if (i >= oldParent.getChildCount() || oldParent.getChildAt(i) != targets[i]) {
+        oldParent.insert(targets[i], i);
+        insertedIndices.add(i);
+      }
+    }
+    if (!insertedIndices.isEmpty()) {
+      inserted += insertedIndices.size();
+      model.nodesWereInserted(oldParent, toArray(insertedIndices));
+    }
+
+    // update the kept nodes
+    List<Integer> changedIndices = new ArrayList<Integer>();
+    for (int i = 0; i < newCount; ++i) {
+      if (targets[i] != sources[i]) {
+        targets[i].setUserObject(sources[i].getUserObject());
+        changedIndices.add(i);
+        mergeChildren(targets[i], sources[i]);
+      }
+    }
+    if (!changedIndices.isEmpty()) {
+      changed += changedIndices.size();
+      model.nodesChanged(oldParent, toArray(changedIndices));
+    }
+  }
+
+  private static int[] toArray(List<Integer> list) {
+    int[] result = new int[list.size()];
+    int i = 0;
+    for (Integer index : list) {
+      result[i++] = index;
+    }
+    return result;
+  }
+
+  /**
+   * Returns a key that identifies a node among its siblings. For the node wrappers of units,
+   * regions, containers, factions, groups, islands and borders this is the class of the wrapper
+   * and the ID of the object, for other objects it is their class and their string value.
+   */
+  public static Object getKey(Object userObject) {
+    if (userObject == null)
+      return null;
+    Object id = null;
+    if (userObject instanceof UnitNodeWrapper) {
+      id = getID(((UnitNodeWrapper) userObject).getUnit());
+    } else if (userObject instanceof RegionNodeWrapper) {
+      id = getID(((RegionNodeWrapper) userObject).getRegion());
+    } else if (userObject instanceof UnitContainerNodeWrapper) {
+      id = getID(((UnitContainerNodeWrapper) userObject).getUnitContainer());
+    } else if (userObject instanceof FactionNodeWrapper) {
+      id = getID(((FactionNodeWrapper) userObject).getFaction());
+    } else if (userObject instanceof GroupNodeWrapper) {
+      id = getID(((GroupNodeWrapper) userObject).getGroup());
+    } else if (userObject instanceof IslandNodeWrapper) {
+      id = getID(((IslandNodeWrapper) userObject).getIsland());
+    } else if (userObject instanceof BorderNodeWrapper) {
+      id = getID(((BorderNodeWrapper) userObject).getBorder());
+    } else if (userObject instanceof SimpleNodeWrapper) {
+      id = ((SimpleNodeWrapper) userObject).getObject();
+    }
+    if (id == null) {
+      id = userObject.toString();
+    }
+    return new Key(userObject.getClass(), id);
+  }
+
+  private static Object getID(Unique object) {
+    return object != null ? object.getID() : null;
+  }
+
+  private static final class Key {
+    private final Class<?> type;
+    private final Object id;
+
+    Key(Class<?> type, Object id) {
+      this.type = type;
+      this.id = id;
+    }
+
+    @Override
+    public int hashCode() {
+      return type.hashCode() * 31 + id.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof Key))
+        return false;
+      Key other = (Key) obj;
+      return type == other.type && id.equals(other.id);
+    }
+  }
+}
@@ -201,12 +201,35 @@ public class TreeBuilder {
    * constructs a region tree from scratch
    */
   public void buildTree(DefaultMutableTreeNode rootNode, GameData data) {
+    buildTree(rootNode, data, regionNodes, unitNodes, buildingNodes, shipNodes);
+  }
+
+  /**
+   * Constructs a region tree from scratch and puts the nodes into the given maps instead of the
+   * maps set by {@link #setRegionNodes(Map)} etc. This method does not change the state of the
+   * builder, so it may be called outside of the event dispatch thread.
+   */
+  public void buildTree(DefaultMutableTreeNode rootNode, GameData data,
+      Map<ID, TreeNode> regionNodes, Map<ID, TreeNode> unitNodes,
+      Map<ID, TreeNode> buildingNodes, Map<ID, TreeNode> shipNodes) {
     if (data == null)
       return;
 
-    buildTree(rootNode, sortRegions(data.getRegions()), data.getUnits(), data.getOldUnits(),
-        regionNodes, unitNodes, buildingNodes, shipNodes, unitComparator, activeAlliances,
-        treeStructure, data);
+    buildTree(rootNode, data, data.getRegions(), data.getUnits(), data.getOldUnits(),
+        regionNodes, unitNodes, buildingNodes, shipNodes);
+  }
+
+  /**
+   * Constructs a region tree from the given regions and units of the report and puts the nodes
+   * into the given maps. The regions are sorted according to the settings. Pass copies of the
+   * report's collections if this is called outside of the event dispatch thread.
+   */
+  public void buildTree(DefaultMutableTreeNode rootNode, GameData data,
+      Collection<Region> regions, Collection<Unit> units, Collection<Unit> oldUnits,
+      Map<ID, TreeNode> regionNodes, Map<ID, TreeNode> unitNodes,
+      Map<ID, TreeNode> buildingNodes, Map<ID, TreeNode> shipNodes) {
+    buildTree(rootNode, sortRegions(regions), units, oldUnits, regionNodes, unitNodes,
+        buildingNodes, shipNodes, unitComparator, activeAlliances, treeStructure, data);
   }
 
   /**
@@ -24,6 +24,7 @@ import magellan.library.tasks.GameDataInspector;
 import magellan.library.tasks.Problem.Severity;
 import magellan.library.tasks.ProblemFactory;
 import magellan.library.utils.CollectionFactory;
+import magellan.library.utils.RegionMap;
 import magellan.library.utils.Resources;
 import magellan.library.utils.Translations;
 
@@ -35,8 +36,8 @@ import magellan.library.utils.Translations;
  */
 public class CompleteData extends GameData {
 
-  protected Map<CoordinateID, Region> regions = CollectionFactory
-      .<CoordinateID, Region> createSyncOrderedMap();
+  private final RegionMap<Region> regionMap = CollectionFactory.<Region> createRegionMap();
+  protected Map<CoordinateID, Region> regions = Collections.synchronizedMap(regionMap);
   protected Map<UnitID, Unit> units = CollectionFactory.<UnitID, Unit> createSyncOrderedMap();
   protected Map<UnitID, Unit> oldUnits = CollectionFactory.<UnitID, Unit> createSyncOrderedMap();
   protected Map<UnitID, TempUnit> tempUnits = CollectionFactory
@@ -231,6 +232,18 @@ public class CompleteData extends GameData {
     return regions;
   }
 
+  /**
+   * Looks up the region without creating a CoordinateID.
+   * 
+   * @see magellan.library.GameData#getRegion(int, int, int)
+   */
+  @Override
+  public Region getRegion(int x, int y, int z) {
+    synchronized (regions) {
+      return regionMap.get(x, y, z);
+    }
+  }
+
   /**
    * @see magellan.library.GameData#shipView()
    */
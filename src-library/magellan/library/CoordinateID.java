@@ -13,10 +13,10 @@
 
 package magellan.library;
 
-import java.util.LinkedHashMap;
-import java.util.Map;
 import java.util.StringTokenizer;
 
+import magellan.library.utils.FlyweightTable;
+
 /**
  * A CoordinateID uniquely identifies a location in a three dimensional space by x-, y- and z-axis
  * components. This is an immutable object.
@@ -65,10 +65,29 @@ public final class CoordinateID implements ID {
   public static final CoordinateID INVALID = new CoordinateID(Integer.MIN_VALUE, Integer.MIN_VALUE,
       Integer.MIN_VALUE);
 
-  private static final Map<Integer, Map<Integer, CoordinateID>> lookup0 =
-      new LinkedHashMap<Integer, Map<Integer, CoordinateID>>();
-  private static final Map<Integer, Map<Integer, Map<Integer, CoordinateID>>> lookup =
-      new LinkedHashMap<Integer, Map<Integer, Map<Integer, CoordinateID>>>();
+  /** a static cache to use this class as flyweight factory */
+  private static final FlyweightTable<CoordinateID> lookup =
+      new FlyweightTable<CoordinateID>(4096) {
+        @Override
+        protected int hash(int x, int y, int z) {
+          return FlyweightTable.mix(x, y, z);
+        }
+
+        @Override
+        protected int hash(CoordinateID c) {
+          return FlyweightTable.mix(c.x, c.y, c.z);
+        }
+
+        @Override
+        protected boolean matches(CoordinateID c, int x, int y, int z) {
+          return c.x == x && c.y == y && c.z == z;
+        }
+
+        @Override
+        protected CoordinateID create(int x, int y, int z) {
+          return new CoordinateID(x, y, z);
+        }
+      };
 
   /**
    * The coordinate (0,0,0).
@@ -383,35 +402,15 @@ public final class CoordinateID implements ID {
    * @param z
    */
   private static CoordinateID createCoordinate(int x, int y, int z) {
-    if (x > 200 || y > 200 || x < -200 || y < -200)
-      return new CoordinateID(x, y, z);
-
-    // trying to improve performance -- does it work?
-    // if Coordinate is not too big, take instance from cache
-    Map<Integer, Map<Integer, CoordinateID>> mz;
-    if (z == 0) {
-      mz = lookup0;
-    } else {
-      mz = lookup.get(z);
-      if (mz == null) {
-        mz = new LinkedHashMap<Integer, Map<Integer, CoordinateID>>();
-        lookup.put(z, mz);
-      }
-    }
-    Map<Integer, CoordinateID> my = mz.get(y);
+    return lookup.get(x, y, z);
+  }
 
-    if (my == null) {
-      my = new LinkedHashMap<Integer, CoordinateID>();
-      mz.put(y, my);
-    }
-    CoordinateID mx = my.get(x);
-    if (mx == null) {
-      mx = new CoordinateID(x, y, z);
-      my.put(x, mx);
-    }
-    if (x != mx.x || y != mx.y || z != mx.z)
-      throw new IllegalStateException();
-    return mx;
+  /**
+   * Empties the cache of coordinates, for example after a report has been closed. Coordinates that
+   * are still in use stay valid, but coordinates created afterwards are new instances.
+   */
+  public static void clearCache() {
+    lookup.clear();
   }
 
   /**
@@ -7,23 +7,39 @@
 
 package magellan.library;
 
-import java.util.HashMap;
-import java.util.Map;
-
+import magellan.library.utils.FlyweightTable;
 import magellan.library.utils.IDBaseConverter;
-import magellan.library.utils.logging.Logger;
 
 /**
  * A class used to uniquely identify such objects as regions, ships or buildings by an integer. The
  * representation of the integer depends on the system default defined in the IDBaseConverter class.
  */
 public class EntityID extends IntegerID {
-  private static final Logger log = Logger.getInstance(EntityID.class);
 
   protected final int radix;
 
-  /** a static cache to use this class as flyweight factory */
-  private static Map<Integer, EntityID> idMap = new HashMap<Integer, EntityID>();
+  /** a static cache to use this class as flyweight factory, keyed by value and radix */
+  private static final FlyweightTable<EntityID> idMap = new FlyweightTable<EntityID>() {
+    @Override
+    protected int hash(int value, int radix, int unused) {
+      return FlyweightTable.mix(value, radix, 0);
+    }
+
+    @Override
+    protected int hash(EntityID id) {
+      return FlyweightTable.mix(id.intValue(), id.radix, 0);
+    }
+
+    @Override
+    protected boolean matches(EntityID id, int value, int radix, int unused) {
+      return id.intValue() == value && id.radix == radix;
+    }
+
+    @Override
+    protected EntityID create(int value, int radix, int unused) {
+      return new EntityID(value, radix);
+    }
+  };
 
   /**
    * Constructs a new entity id based on a new Integer object created from the specified int.
@@ -44,18 +60,15 @@ public class EntityID extends IntegerID {
    * @return An EntityID object matching the given value and radix
    */
   public static EntityID createEntityID(int value, int radix) {
-    EntityID id = EntityID.idMap.get(value);
-
-    if (id == null || id.radix != radix) {
-      if (id != null) {
-        EntityID.log.warn("changing radix of id " + id);
-      }
-
-      id = new EntityID(value, radix);
-      EntityID.idMap.put(value, id);
-    }
+    return EntityID.idMap.get(value, radix, 0);
+  }
 
-    return id;
+  /**
+   * Empties the cache of entity ids, for example after a report has been closed. IDs that are still
+   * in use stay valid, but IDs created afterwards are new instances.
+   */
+  public static void clearCache() {
+    EntityID.idMap.clear();
   }
 
   /**
@@ -30,11 +30,17 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 import magellan.library.Region.Visibility;
 import magellan.library.completion.OrderParser;
 import magellan.library.event.UnitChangeEvent;
 import magellan.library.event.UnitChangeListener;
+import magellan.library.gamebinding.CachingOrderParser;
 import magellan.library.gamebinding.GameSpecificRules;
 import magellan.library.gamebinding.GameSpecificStuff;
 import magellan.library.gamebinding.MapMergeEvaluator;
@@ -54,16 +60,20 @@ import magellan.library.tasks.Problem.Severity;
 import magellan.library.tasks.ProblemFactory;
 import magellan.library.utils.CollectionFactory;
 import magellan.library.utils.Direction;
+import magellan.library.utils.DistanceOracle;
 import magellan.library.utils.IDBaseConverter;
 import magellan.library.utils.Locales;
 import magellan.library.utils.MagellanFactory;
 import magellan.library.utils.MemoryManagment;
+import magellan.library.utils.RegionIndex;
+import magellan.library.utils.RegionMap;
 import magellan.library.utils.Regions;
 import magellan.library.utils.ReportMerger;
 import magellan.library.utils.ReportMerger.AssignData;
 import magellan.library.utils.Resources;
 import magellan.library.utils.TranslationType;
 import magellan.library.utils.Translations;
+import magellan.library.utils.UnitChangeRecorder;
 import magellan.library.utils.UserInterface;
 import magellan.library.utils.comparator.IDComparator;
 import magellan.library.utils.comparator.NameComparator;
@@ -125,6 +135,15 @@ public abstract class GameData implements Cloneable, Addeable {
 
   private OrderParser parser;
 
+  /** the order parsers of the threads of {@link #reparseOrders()} and of parallel readers */
+  private final ThreadLocal<OrderParser> threadParser = new ThreadLocal<OrderParser>();
+
+  /** the minimum number of units parsed by one thread of {@link #reparseOrders()} */
+  private static final int MIN_REPARSE_UNITS = 200;
+
+  /** the number of threads of {@link #reparseOrders()}, 0 for one per processor */
+  private static volatile int reparseThreads = 0;
+
   /** encoding */
   protected String encoding = FileType.DEFAULT_ENCODING.toString();
 
@@ -138,10 +157,21 @@ public abstract class GameData implements Cloneable, Addeable {
 
   private Map<ID, AllianceGroup> alliancegroups;
 
-  protected Map<CoordinateID, Region> wrappers = new LinkedHashMap<CoordinateID, Region>();
+  protected RegionMap<Region> wrappers = CollectionFactory.createRegionMap();
   protected Map<Region, Region> originals = new LinkedHashMap<Region, Region>();
 
-  protected Map<CoordinateID, Region> voids = new LinkedHashMap<CoordinateID, Region>();
+  protected RegionMap<Region> voids = CollectionFactory.createRegionMap();
+
+  /** spatial indexes of regions(), wrappers(), and voids() */
+  private RegionIndex regionIndex = new RegionIndex();
+  private RegionIndex wrapperIndex = new RegionIndex();
+  private RegionIndex voidIndex = new RegionIndex();
+
+  /** lower bounds for path searches, see {@link #setDistanceOracleEnabled(boolean)} */
+  private volatile DistanceOracle distanceOracle;
+  private volatile boolean distanceOracleEnabled;
+  private int distanceOracleVersion;
+  private final Object distanceOracleLock = new Object();
 
   /**
    * The current TempUnit-ID. This means, if a new TempUnit is created, it's suggested ID is usually
@@ -259,6 +289,14 @@ public abstract class GameData implements Cloneable, Addeable {
   /** Returns a modifiable view of the regions. */
   protected abstract Map<CoordinateID, Region> regionView();
 
+  /**
+   * Returns a spatial index of the regions. The index is kept up to date by
+   * {@link #addRegion(Region)} and {@link #removeRegion(Region)} and must not be modified.
+   */
+  public RegionIndex regionIndex() {
+    return regionIndex;
+  }
+
   /**
    * All factions in this game data. The keys are <kbd>Integer</kbd> objects containg the id of each
    * faction. The values consist of objects of class <kbd>Faction</kbd>. One of these factions can be
@@ -568,9 +606,11 @@ public abstract class GameData implements Cloneable, Addeable {
   public void addRegion(Region r) {
     if (wrappers.containsKey(r.getID())) {
       wrappers.remove(r.getID());
+      wrapperIndex.remove(r.getID());
     }
     if (voids.containsKey(r.getID())) {
       voids.remove(r.getID());
+      voidIndex.remove(r.getID());
     }
     Region old = regionView().put(r.getID(), r);
     if (old != null) {
@@ -585,6 +625,8 @@ public abstract class GameData implements Cloneable, Addeable {
         }
       }
     }
+    regionIndex.put(r);
+    invalidateDistanceOracle();
 
     Map<Direction, Region> neighbors = Regions.getCoordinateNeighbours(this, r.getCoordinate());
     for (Direction d : neighbors.keySet()) {
@@ -752,6 +794,16 @@ public abstract class GameData implements Cloneable, Addeable {
     return (regionView() == null) ? null : regionView().get(c);
   }
 
+  /**
+   * Retrieve a region from regions() by its coordinates. Subclasses may implement this without
+   * creating a CoordinateID.
+   * 
+   * @see #getRegion(CoordinateID)
+   */
+  public Region getRegion(int x, int y, int z) {
+    return getRegion(CoordinateID.create(x, y, z));
+  }
+
   /**
    * Retrieve a faction from factions() by id.
    * 
@@ -898,6 +950,7 @@ public abstract class GameData implements Cloneable, Addeable {
   public Region removeRegion(Region r) {
     Region removed = regionView().remove(r.getID());
     if (removed != null) {
+      regionIndex.remove(removed.getID());
       for (Direction d : removed.getNeighbors().keySet()) {
         if (removed.getNeighbors().get(d).getNeighbors().get(getMapMetric().opposite(d)) == removed) {
           removed.getNeighbors().get(d).removeNeighbor(getMapMetric().opposite(d));
@@ -999,6 +1052,7 @@ public abstract class GameData implements Cloneable, Addeable {
    * @param newTempID Temp ID
    */
   public void setCurTempID(int newTempID) {
+    UnitChangeRecorder.checkShared("the temp id counter");
     curTempID = Math.max(-1, Math.min(newTempID, IDBaseConverter.getMaxId(base)));
   }
 
@@ -1113,8 +1167,9 @@ public abstract class GameData implements Cloneable, Addeable {
   }
 
   /**
-   * Returns a clone of the game data (using CRWriter/CRParser trick encapsulated in Loader) and at
-   * the same time translates the new report.
+   * Returns a clone of the game data and at the same time translates the new report. The data is
+   * copied structurally (see {@link GameDataMerger#copy(GameData, ReportTransformer)}). If there is
+   * not enough memory or copying fails, the CRWriter/CRParser trick encapsulated in Loader is used.
    * 
    * @throws CloneNotSupportedException If cloning doesn't succeed
    */
@@ -1122,7 +1177,7 @@ public abstract class GameData implements Cloneable, Addeable {
     try {
       if (MemoryManagment.isFreeMemory(estimateSize() * 3)) {
         GameData.log.info("cloning in memory");
-        GameData clonedData = new Loader().cloneGameDataInMemory(this, coordinateTranslator);
+        GameData clonedData = GameDataMerger.copy(this, coordinateTranslator);
         if (clonedData == null || clonedData.isOutOfMemory()) {
           GameData.log.info("cloning externally after failed memory-clone-attempt");
           clonedData = new Loader().cloneGameData(this, coordinateTranslator);
@@ -1130,7 +1185,7 @@ public abstract class GameData implements Cloneable, Addeable {
         return clonedData;
       }
     } catch (Exception e) {
-      log.error("Loader.cloneGameData failed!", e);
+      log.error("cloning in memory failed!", e);
     }
     GameData.log.info("cloning externally");
     return new Loader().cloneGameData(this, coordinateTranslator);
@@ -1183,12 +1238,34 @@ public abstract class GameData implements Cloneable, Addeable {
    * @see GameSpecificStuff
    */
   public final OrderParser getOrderParser() {
+    OrderParser ownParser = threadParser.get();
+    if (ownParser != null)
+      return ownParser;
     if (parser == null) {
       parser = getGameSpecificStuff().getOrderParser(this);
     }
     return parser;
   }
 
+  /**
+   * Makes {@link #getOrderParser()} return an order parser of the calling thread's own until
+   * {@link #removeThreadOrderParser()} is called. Threads that add orders to units while other
+   * threads do the same, for example when a report is read in parallel, must call this first.
+   */
+  public void useThreadOrderParser() {
+    // the game specific stuff hands out one parser per thread
+    threadParser.set(getGameSpecificStuff().getOrderParser(this));
+  }
+
+  /**
+   * Makes {@link #getOrderParser()} return the common order parser to the calling thread again.
+   *
+   * @see #useThreadOrderParser()
+   */
+  public void removeThreadOrderParser() {
+    threadParser.remove();
+  }
+
   /**
    * This method can be called after loading or merging a report to avoid double messages and to set
    * some game specific stuff.
@@ -1202,9 +1279,7 @@ public abstract class GameData implements Cloneable, Addeable {
 
     // unfortunately, this is necessary because there are parse errors when orders are added to
     // units before the report has been completely read...
-    for (Unit u : getUnits()) {
-      u.reparseOrders();
-    }
+    reparseOrders();
     for (Region r : getRegions()) {
       r.refreshUnitRelations(true);
     }
@@ -1218,16 +1293,121 @@ public abstract class GameData implements Cloneable, Addeable {
 
     // unfortunately, this is necessary because there are parse errors when orders are added to
     // units before the report has been completely read...
-    for (Unit u : getUnits()) {
-      u.reparseOrders();
-    }
+    reparseOrders();
     for (Region r : getRegions()) {
       r.refreshUnitRelations(true);
     }
 
+    if (distanceOracleEnabled) {
+      rebuildDistanceOracle();
+    }
+
     log.fine("finished GameData postProcess");
   }
 
+  /**
+   * Parses the orders of all units again, for example after the report has been read or the order
+   * locale has changed. Identical order lines are parsed only once. If there are many units, they are
+   * split into parts that are parsed in parallel, each with its own order parser. The data must not
+   * be changed by other threads in the meantime. If the calling thread is interrupted, the parts
+   * that have not been started are parsed in the calling thread; all units are parsed when this
+   * method returns, and the interrupt status is set again.
+   *
+   * @see Unit#reparseOrders()
+   * @see CachingOrderParser
+   */
+  public void reparseOrders() {
+    final List<Unit> units = new ArrayList<Unit>(getUnits());
+    final CachingOrderParser.Cache cache = new CachingOrderParser.Cache();
+    int threads;
+    if (reparseThreads > 0) {
+      threads = Math.min(reparseThreads, units.size());
+    } else {
+      threads =
+          Math.min(Runtime.getRuntime().availableProcessors(), units.size() / MIN_REPARSE_UNITS);
+    }
+    if (threads <= 1) {
+      reparseOrders(units, cache);
+      return;
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+      public Thread newThread(Runnable r) {
+        Thread t = new Thread(r, "ReparseOrders");
+        t.setDaemon(true);
+        return t;
+      }
+    });
+    boolean interrupted = false;
+    try {
+      List<List<Unit>> parts = new ArrayList<List<Unit>>(threads);
+      List<Future<?>> futures = new ArrayList<Future<?>>(threads);
+      int partSize = (units.size() + threads - 1) / threads;
+      for (int start = 0; start < units.size(); start += partSize) {
+        final List<Unit> part = units.subList(start, Math.min(units.size(), start + partSize));
+        parts.add(part);
+        futures.add(executor.submit(() -> reparseOrders(part, cache)));
+      }
+      int i = 0;
+      while (i < futures.size()) {
+        try {
+          if (!futures.get(i).isCancelled()) {
+            futures.get(i).get();
+          }
+          ++i;
+        } catch (InterruptedException e) {
+          if (!interrupted) {
+            interrupted = true;
+            log.warn("interrupted while reparsing orders, parsing the remaining units sequentially");
+            // running parts are finished by their threads, the others are parsed here
+            for (int j = i; j < futures.size(); ++j) {
+              if (futures.get(j).cancel(false)) {
+                reparseOrders(parts.get(j), cache);
+              }
+            }
+          }
+        }
+      }
+    } catch (ExecutionException e) {
+      throw new RuntimeException(e.getCause());
+    } finally {
+      executor.shutdown();
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * Sets the number of threads that parse the orders in {@link #reparseOrders()}. 1 parses the
+   * orders in the calling thread. 0 (the default) uses up to one thread per processor, depending on
+   * the number of units.
+   */
+  public static void setReparseThreads(int threads) {
+    reparseThreads = Math.max(0, threads);
+  }
+
+  /**
+   * Returns the number of threads that parse the orders in {@link #reparseOrders()}.
+   *
+   * @see #setReparseThreads(int)
+   */
+  public static int getReparseThreads() {
+    return reparseThreads;
+  }
+
+  private void reparseOrders(List<Unit> units, CachingOrderParser.Cache cache) {
+    // the game specific stuff hands out one parser per thread
+    threadParser.set(new CachingOrderParser(getGameSpecificStuff().getOrderParser(this), cache));
+    try {
+      for (Unit u : units) {
+        u.reparseOrders();
+      }
+    } finally {
+      threadParser.remove();
+    }
+  }
+
   public void postProcessErrors() {
     Map<Long, Region> regionMap = new HashMap<Long, Region>(getRegions().size() * 5 / 4 + 5, .8f);
     Region original = null;
@@ -1781,6 +1961,7 @@ public abstract class GameData implements Cloneable, Addeable {
       throw new IllegalArgumentException("there is a region at " + c);
     Region aVoid = MagellanFactory.createVoid(c, this);
     voids.put(c, aVoid);
+    voidIndex.put(aVoid);
     return aVoid;
   }
 
@@ -1793,6 +1974,77 @@ public abstract class GameData implements Cloneable, Addeable {
     return Collections.unmodifiableMap(voids);
   }
 
+  /**
+   * Returns a spatial index of the "void" regions.
+   *
+   * @see #voids()
+   * @see #regionIndex()
+   */
+  public RegionIndex voidIndex() {
+    return voidIndex;
+  }
+
+  /**
+   * Switches the distance oracle on or off. If it is on, a {@link DistanceOracle} for the current
+   * regions is built in the background. It is discarded whenever regions are added or made wrappers
+   * and built again by {@link #postProcess()}, so it is built only once while a report is read.
+   */
+  public void setDistanceOracleEnabled(boolean enabled) {
+    distanceOracleEnabled = enabled;
+    rebuildDistanceOracle();
+  }
+
+  /**
+   * Returns <code>true</code> if the distance oracle is switched on.
+   */
+  public boolean isDistanceOracleEnabled() {
+    return distanceOracleEnabled;
+  }
+
+  /**
+   * Returns the distance oracle for the current regions, or <code>null</code> if it is switched off
+   * or not built yet.
+   */
+  public DistanceOracle getDistanceOracle() {
+    return distanceOracle;
+  }
+
+  /**
+   * Discards the distance oracle and any oracle that is being built.
+   */
+  private void invalidateDistanceOracle() {
+    synchronized (distanceOracleLock) {
+      if (distanceOracle != null || distanceOracleEnabled) {
+        distanceOracle = null;
+        ++distanceOracleVersion;
+      }
+    }
+  }
+
+  private void rebuildDistanceOracle() {
+    synchronized (distanceOracleLock) {
+      distanceOracle = null;
+      if (!distanceOracleEnabled)
+        return;
+      final int version = ++distanceOracleVersion;
+      DistanceOracle.buildLater(this, new DistanceOracle.Callback() {
+        public boolean isObsolete() {
+          synchronized (distanceOracleLock) {
+            return version != distanceOracleVersion;
+          }
+        }
+
+        public void built(DistanceOracle oracle) {
+          synchronized (distanceOracleLock) {
+            if (version == distanceOracleVersion && distanceOracleEnabled) {
+              distanceOracle = oracle;
+            }
+          }
+        }
+      });
+    }
+  }
+
   /**
    * Makes r a "wraparound" region, removing it as a normal region. A wrapper is a region which is
    * not a real region, but is only a placeholder for a another region (most probably to represent a
@@ -1833,7 +2085,9 @@ public abstract class GameData implements Cloneable, Addeable {
     }
     removeRegion(wrapper);
     wrappers.put(wrapper.getID(), wrapper);
+    wrapperIndex.put(wrapper);
     originals.put(wrapper, original);
+    invalidateDistanceOracle();
   }
 
   /**
@@ -1845,6 +2099,16 @@ public abstract class GameData implements Cloneable, Addeable {
     return Collections.unmodifiableMap(wrappers);
   }
 
+  /**
+   * Returns a spatial index of the "wraparound" regions.
+   *
+   * @see #wrappers()
+   * @see #regionIndex()
+   */
+  public RegionIndex wrapperIndex() {
+    return wrapperIndex;
+  }
+
   /**
    * Gets the real region for a wrapper region.
    * 
@@ -82,6 +82,54 @@ public class GameDataMerger {
     return merge(gd, new EmptyData(gd), transformer, new IdentityTransformer());
   }
 
+  /**
+   * Returns a structural copy of the given report, translated by the given transformer. In contrast
+   * to {@link #merge(GameData, ReportTransformer)}, the copy also keeps the unit order, the selected
+   * regions, the active region and buildings without region, so it is equivalent to writing and
+   * re-reading the report. No text is produced.
+   */
+  public static GameData copy(GameData gd, ReportTransformer transformer) {
+    GameData resultGD = merge(gd, transformer);
+
+    // units are added faction by faction, restore the original order
+    for (Unit unit : gd.getUnits()) {
+      Unit resultUnit = resultGD.getUnit(unit.getID());
+      if (resultUnit != null) {
+        resultUnit.setSortIndex(unit.getSortIndex());
+        if (unit.getBuilding() != null && resultUnit.getBuilding() == null) {
+          // the merger skips buildings without region
+          Building resultBuilding = resultGD.getBuilding(unit.getBuilding().getID());
+          if (resultBuilding == null) {
+            resultBuilding = MagellanFactory.createBuilding(unit.getBuilding().getID(), resultGD);
+            resultGD.addBuilding(resultBuilding);
+            GameDataMerger.mergeBuilding(gd, unit.getBuilding(), resultGD, resultBuilding,
+                transformer);
+          }
+          resultUnit.setBuilding(resultBuilding);
+        }
+      }
+    }
+    for (Unit unit : gd.getOldUnits()) {
+      Unit resultUnit = resultGD.getOldUnit(unit.getID());
+      if (resultUnit != null) {
+        resultUnit.setSortIndex(unit.getSortIndex());
+      }
+    }
+
+    for (CoordinateID id : gd.getSelectedRegionCoordinates().keySet()) {
+      Region resultRegion = resultGD.getRegion(transform(transformer, id));
+      if (resultRegion != null) {
+        resultGD.addSelectedRegionCoordinate(resultRegion);
+      }
+    }
+    if (gd.getActiveRegion() != null) {
+      resultGD.setActiveRegion(resultGD.getRegion(transform(transformer, gd.getActiveRegion()
+          .getID())));
+    }
+
+    return resultGD;
+  }
+
   /**
    * Returns a new report that is the given report translated by the given transformers. The first
    * transformer is applied to gd1, the second one to gd2.
@@ -55,7 +55,7 @@ public class LongID implements ID {
    * 
    * @throws NullPointerException If <code>o==null</code>
    */
-  public static LongID create(Long o) {
+  public static synchronized LongID create(Long o) {
     if (o == null)
       throw new NullPointerException();
 
@@ -60,7 +60,7 @@ public class StringID implements ID {
    * 
    * @throws NullPointerException If <code>o==null</code>
    */
-  public static StringID create(String o) {
+  public static synchronized StringID create(String o) {
     if (o == null)
       throw new NullPointerException();
 
@@ -7,14 +7,12 @@
 
 package magellan.library;
 
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Properties;
 
 import magellan.library.gamebinding.EresseaConstants;
 import magellan.library.gamebinding.atlantis.AtlantisConstants;
+import magellan.library.utils.FlyweightTable;
 import magellan.library.utils.IDBaseConverter;
-import magellan.library.utils.logging.Logger;
 
 /**
  * A class for identifying unit objects through an integer. This class makes equivalent assumptions
@@ -27,10 +25,29 @@ import magellan.library.utils.logging.Logger;
  * </p>
  */
 public class UnitID extends EntityID {
-  private static final Logger log = Logger.getInstance(UnitID.class);
 
-  /** a static cache to use this class as flyweight factory */
-  private static Map<Integer, UnitID> idMap = new HashMap<Integer, UnitID>();
+  /** a static cache to use this class as flyweight factory, keyed by value and radix */
+  private static final FlyweightTable<UnitID> idMap = new FlyweightTable<UnitID>() {
+    @Override
+    protected int hash(int value, int radix, int unused) {
+      return FlyweightTable.mix(value, radix, 0);
+    }
+
+    @Override
+    protected int hash(UnitID id) {
+      return FlyweightTable.mix(id.intValue(), id.radix, 0);
+    }
+
+    @Override
+    protected boolean matches(UnitID id, int value, int radix, int unused) {
+      return id.intValue() == value && id.radix == radix;
+    }
+
+    @Override
+    protected UnitID create(int value, int radix, int unused) {
+      return new UnitID(value, radix);
+    }
+  };
 
   /**
    * Constructs a new UnitID object based on an Integer object created from the specified int.
@@ -50,17 +67,15 @@ public class UnitID extends EntityID {
    * @return UnitID of the given int
    */
   public static UnitID createUnitID(int o, int radix) {
-    UnitID id = UnitID.idMap.get(o);
-
-    if (id == null || id.radix != radix) {
-      if (id != null) {
-        UnitID.log.warn("changing radix of id " + id);
-      }
-      id = new UnitID(o, radix);
-      UnitID.idMap.put(o, id);
-    }
+    return UnitID.idMap.get(o, radix, 0);
+  }
 
-    return id;
+  /**
+   * Empties the cache of unit ids, for example after a report has been closed. IDs that are still
+   * in use stay valid, but IDs created afterwards are new instances.
+   */
+  public static void clearCache() {
+    UnitID.idMap.clear();
   }
 
   /**
@@ -23,6 +23,8 @@
 //
 package magellan.library.gamebinding;
 
+import java.util.Collection;
+
 import magellan.library.Building;
 import magellan.library.GameData;
 import magellan.library.Item;
@@ -47,9 +49,17 @@ public class BuildingMaintenanceOrder {
    *      magellan.library.GameData, magellan.library.Unit, int)
    */
   public static void execute(Region region, ExecutionState state, GameData data) {
+    execute(region, state, data, region.buildings());
+  }
+
+  /**
+   * Pays building maintenance for the given buildings in the region.
+   */
+  public static void execute(Region region, ExecutionState state, GameData data,
+      Collection<Building> buildings) {
     EresseaExecutionState eState = (EresseaExecutionState) state;
 
-    for (Building b : region.buildings()) {
+    for (Building b : buildings) {
       boolean maintain = true;
       if (b.getEffects() != null) {
         for (String eff : b.getEffects()) {
@@ -0,0 +1,178 @@
+// class magellan.library.gamebinding.CachingOrderParser
+// created on Oct 18, 2026
+//
+// Copyright 2003-2026 by magellan project team
+//
+// Author : $Author: $
+// $Id: $
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program (see doc/LICENCE.txt); if not, write to the
+// Free Software Foundation, Inc.,
+// 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+package magellan.library.gamebinding;
+
+import java.io.Reader;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import magellan.library.Order;
+import magellan.library.completion.OrderParser;
+import magellan.library.utils.OrderToken;
+import magellan.library.utils.OrderTokenizer;
+
+/**
+ * An order parser that remembers the orders parsed by another parser in a {@link Cache}, so that
+ * identical order lines are parsed only once. The cached orders are never handed out; every call of
+ * {@link #parse(String, Locale)} returns a copy.
+ * <p>
+ * The result of parsing an order may depend on the game data, for example on the existence of the
+ * unit a FOLLOW order refers to. A cache must therefore only be used as long as the data does not
+ * change, and only with parsers of the same data and settings. Several parsers in different threads
+ * may share one cache.
+ */
+public class CachingOrderParser implements OrderParser {
+
+  /**
+   * Parsed orders by locale and text. The number of cached orders is limited.
+   */
+  public static class Cache {
+    /** Default maximum number of cached orders */
+    public static final int DEFAULT_SIZE = 20000;
+
+    private final int maxSize;
+    private final AtomicInteger size = new AtomicInteger();
+    private final Map<Locale, Map<String, SimpleOrder>> orders =
+        new ConcurrentHashMap<Locale, Map<String, SimpleOrder>>();
+
+    /**
+     * Creates a cache for up to {@value #DEFAULT_SIZE} orders.
+     */
+    public Cache() {
+      this(DEFAULT_SIZE);
+    }
+
+    /**
+     * Creates a cache for up to maxSize orders. Further orders are not cached.
+     */
+    public Cache(int maxSize) {
+      this.maxSize = maxSize;
+    }
+
+    SimpleOrder get(String text, Locale locale) {
+      Map<String, SimpleOrder> localeOrders = orders.get(locale);
+      return localeOrders == null ? null : localeOrders.get(text);
+    }
+
+    void put(String text, Locale locale, SimpleOrder order) {
+      if (size.get() >= maxSize)
+        return;
+      Map<String, SimpleOrder> localeOrders = orders.get(locale);
+      if (localeOrders == null) {
+        orders.putIfAbsent(locale, new ConcurrentHashMap<String, SimpleOrder>());
+        localeOrders = orders.get(locale);
+      }
+      if (localeOrders.putIfAbsent(text, order) == null) {
+        size.incrementAndGet();
+      }
+    }
+
+    /**
+     * Returns the number of cached orders.
+     */
+    public int size() {
+      return size.get();
+    }
+  }
+
+  private final OrderParser delegate;
+  private final Cache cache;
+
+  private String lastText;
+  private Locale lastLocale;
+  private boolean lastCached;
+
+  /**
+   * Creates a parser that caches the orders of <code>delegate</code> in <code>cache</code>.
+   */
+  public CachingOrderParser(OrderParser delegate, Cache cache) {
+    this.delegate = delegate;
+    this.cache = cache;
+  }
+
+  /**
+   * Returns a copy of the cached order for text and locale. Orders not in the cache are parsed by the
+   * delegate and cached if they are {@link SimpleOrder}s. A null locale is not cached.
+   *
+   * @see magellan.library.completion.OrderParser#parse(java.lang.String, java.util.Locale)
+   */
+  public Order parse(String text, Locale orderLocale) {
+    lastText = text;
+    lastLocale = orderLocale;
+    if (text == null || orderLocale == null) {
+      lastCached = false;
+      return delegate.parse(text, orderLocale);
+    }
+
+    SimpleOrder cached = cache.get(text, orderLocale);
+    if (cached != null) {
+      lastCached = true;
+      return cached.copy();
+    }
+
+    lastCached = false;
+    Order order = delegate.parse(text, orderLocale);
+    if (order instanceof SimpleOrder) {
+      SimpleOrder prototype = ((SimpleOrder) order).copy();
+      cache.put(text, orderLocale, prototype);
+    }
+    return order;
+  }
+
+  /**
+   * Returns the tokens of the last order. If it was taken from the cache, it is parsed again.
+   *
+   * @see magellan.library.completion.OrderParser#getTokens()
+   * @deprecated Use {@link #parse(String, Locale)}
+   */
+  @Deprecated
+  public List<OrderToken> getTokens() {
+    if (lastCached) {
+      delegate.parse(lastText, lastLocale);
+      lastCached = false;
+    }
+    return delegate.getTokens();
+  }
+
+  /**
+   * @see magellan.library.completion.OrderParser#read(java.io.Reader)
+   * @deprecated Use {@link #parse(String, Locale)}
+   */
+  @Deprecated
+  public boolean read(Reader in) {
+    lastCached = false;
+    return delegate.read(in);
+  }
+
+  /**
+   * @see magellan.library.completion.OrderParser#getOrderTokenizer(java.io.Reader)
+   */
+  public OrderTokenizer getOrderTokenizer(Reader reader) {
+    return delegate.getOrderTokenizer(reader);
+  }
+
+}
@@ -24,11 +24,14 @@
 package magellan.library.gamebinding;
 
 import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Hashtable;
+import java.util.List;
 import java.util.Map;
 import java.util.StringTokenizer;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.WeakHashMap;
 
 import magellan.library.Building;
 import magellan.library.CoordinateID;
@@ -50,6 +53,11 @@ import magellan.library.utils.logging.Logger;
  * the Message, the Messagetype and Translations Messagetypes look like this: MESSAGETYPE 5281483
  * "\"$unit($unit) bergibt $int($amount) $resource($resource,$amount) an $unit($target).\"";text
  * "economy";section
+ * <p>
+ * The pattern of a message type is parsed only once into a tree of literal segments, attribute
+ * lookups and function calls. This template is cached per message type and evaluated for every
+ * message of this type.
+ * </p>
  * 
  * @author ...
  * @version 1.0, 28.11.2007
@@ -58,15 +66,18 @@ public class EresseaMessageRenderer implements MessageRenderer {
   private static final Logger log = Logger.getInstance(EresseaMessageRenderer.class);
   private static final Map<MessageType, MessageType> loggedTypes =
       new Hashtable<MessageType, MessageType>();
+
   /**
-   * The GameData as we need a lot of "background" information from it.
+   * The compiled patterns of the message types. They are shared by all renderers because a renderer
+   * is usually created for each single message.
    */
-  private GameData gd = null;
+  private static final Map<MessageType, Template> templates =
+      Collections.synchronizedMap(new WeakHashMap<MessageType, Template>());
 
   /**
-   * A regexp pattern that will be initialzed in the constructor to find attributes and functions
+   * The GameData as we need a lot of "background" information from it.
    */
-  private Pattern literalsPattern;
+  private GameData gd = null;
 
   /**
    * A unit with id 1 is an unknown unit
@@ -81,7 +92,6 @@ public class EresseaMessageRenderer implements MessageRenderer {
   public EresseaMessageRenderer(GameData gd) {
     this.gd = gd;
     try {
-      literalsPattern = Pattern.compile("[a-z.]+\\(?");
       unknownUnit = EntityID.createEntityID(1, gd.base);
     } catch (Exception e) {
       EresseaMessageRenderer.log.error(e.getMessage(), e);
@@ -98,12 +108,13 @@ public class EresseaMessageRenderer implements MessageRenderer {
     if (pat == null)
       return null;
     try {
-      String rendered = renderString(new StringBuffer(pat), msg);
-      if ((rendered == null) || (rendered.equals("")))
+      StringBuilder rendered = new StringBuilder(pat.length() + 32);
+      getTemplate(msg.getMessageType(), pat).appendTo(rendered, this, msg);
+      if (rendered.length() == 0)
         // fix for empty strings, that cause trouble in the message panel
         return " ";
       else
-        return rendered;
+        return rendered.toString();
     } catch (ParseException e) {
       if (!EresseaMessageRenderer.loggedTypes.containsKey(msg.getMessageType())) {
         EresseaMessageRenderer.loggedTypes.put(msg.getMessageType(), msg.getMessageType());
@@ -123,95 +134,63 @@ public class EresseaMessageRenderer implements MessageRenderer {
   }
 
   /**
-   * Renders a String part of the message.
+   * Returns the compiled pattern of the message type. The pattern is compiled again if it has
+   * changed since the last call.
+   */
+  private static Node getTemplate(MessageType type, String pattern) {
+    Template template = EresseaMessageRenderer.templates.get(type);
+    if (template == null
+        || (template.pattern != pattern && !template.pattern.equals(pattern))) {
+      template = new Template(pattern);
+      EresseaMessageRenderer.templates.put(type, template);
+    }
+    return template.root;
+  }
+
+  /**
+   * Returns the value of a string argument.
    * 
-   * @param unparsed - the rightmost part that is not parsed up to now - the method manipulates
-   *          this!
-   * @param msg - the message
-   * @return a String containing the fully rendered String part
-   * @throws ParseException if any problem occurred parsing the msg
+   * @return a String, could also be NULL
    */
-  private String renderString(StringBuffer unparsed, Message msg)
-      throws ParseException {
-    // remove trailing spaces
-    while (unparsed.charAt(0) == ' ') {
-      unparsed.deleteCharAt(0);
-    }
-    if (unparsed.charAt(0) == '"') {
-      StringBuffer parsed = new StringBuffer();
-      unparsed.deleteCharAt(0);
-      // search first $ sign
-      int posd = unparsed.indexOf("$");
-      // search first " sign
-      int posq = unparsed.indexOf("\"");
-      // $ should be before " and both should be >=0
-      while ((0 <= posd) && (posd < posq)) {
-        // append all before $ to the return string
-        parsed.append(unparsed.substring(0, posd));
-        // delete from beginning to $ sign
-        unparsed.delete(0, posd + 1);
-        // append the returned string of the evaluated $ to the return string
-        parsed.append(renderDollar(unparsed, msg));
-        // find next $ and " sign
-        posd = unparsed.indexOf("$");
-        posq = unparsed.indexOf("\"");
-      }
-      // append remaining unparsed string up to "
-      if (posq >= 0) {
-        parsed.append(unparsed.substring(0, posq));
-        unparsed.delete(0, posq + 1);
-        return parsed.toString();
-      } else
-        throw new ParseException("no matching quote \"", unparsed.length());
-    } else if (unparsed.charAt(0) == '$') {
-      unparsed.deleteCharAt(0);
-      try {
-        return (String) renderDollar(unparsed, msg);
-      } catch (ClassCastException e) {
-        throw new ParseException("String expected", unparsed.length());
-      }
-    } else
-      throw new ParseException("No string found", unparsed.length());
+  private String renderString(Node arg, Message msg) throws ParseException {
+    return (String) arg.value(this, msg);
   }
 
   /**
-   * mainly decides if we have a attribute or function following the $ sign
+   * Returns the value of an integer argument. Attribute and function values that are strings are
+   * converted, commas are treated like spaces.
    * 
-   * @param unparsed - the rightmost part that is not parsed up to now - the method manipulates
-   *          this!
-   * @param msg - the message
-   * @return a String or Array of int could also be NULL
-   * @throws ParseException if any problem occurred parsing the msg
+   * @param arg the argument
+   * @param msg the message
+   * @param offset the parse position for error messages
+   * @return an Array of int, could also be NULL
+   * @throws ParseException if the value is not an integer constant
    */
-  private Object renderDollar(StringBuffer unparsed, Message msg)
-      throws ParseException {
-    if (unparsed.charAt(0) == '{') {
-      int pos = unparsed.indexOf("}");
-      if (pos > 0) {
-        String name = unparsed.substring(1, pos);
-        unparsed.delete(0, pos + 1);
-        return renderAttribute(name, msg);
-      } else
-        // ERROR: no matching }
-        throw new ParseException("no matching bracket '}'", unparsed.length());
-    } else {
-      Matcher m = literalsPattern.matcher(unparsed);
-      if (m.find() && m.start() == 0) {
-        String name = m.group();
-        if (unparsed.charAt(m.end() - 1) == '(') {
-          // a function
-          // delete function name and opening bracket (
-          unparsed.delete(0, m.end());
-          // note that we give the name including the opening bracket (
-          return renderFunction(name, unparsed, msg);
-        } else {
-          // an attribute
-          unparsed.delete(0, m.end());
-          return renderAttribute(name, msg);
-        }
-      } else
-        throw new ParseException("$ without literals", unparsed.length());
+  private int[] renderInteger(Node arg, Message msg, int offset) throws ParseException {
+    Object obj = arg.value(this, msg);
+    if (obj instanceof String) {
+      String str = ((String) obj).replace(',', ' ');
+      int end = EresseaMessageRenderer.matchIntegers(str, 0);
+      if (end < 0)
+        throw new ParseException("No Integer constant found", offset);
+      return EresseaMessageRenderer.parseIntegers(str.substring(0, end));
     }
+    return (int[]) obj;
+  }
+
+  /**
+   * Tries to render an id of a unit, faction, .... Calls renderInteger to obtain the value. If a
+   * null array is returned or an array of zero values this method returns null.
+   * 
+   * @return an EntityID
+   * @throws ParseException if any problem occured rendering the argument
+   */
+  private EntityID renderEntityID(Node arg, Message msg, int offset) throws ParseException {
+    int[] i_ar = renderInteger(arg, msg, offset);
+    if ((i_ar != null) && (i_ar.length >= 1))
+      return EntityID.createEntityID(i_ar[0], gd.base);
+    else
+      return null;
   }
 
   /**
@@ -232,27 +211,31 @@ public class EresseaMessageRenderer implements MessageRenderer {
 
   /**
    * Interpretes the functions. This is the most "complex" part of the message rendering. If a
-   * unknown function arises it has to be implemented here.
+   * unknown function arises it has to be implemented here and in {@link Function}.
    * 
+   * @param function - the function
    * @param name - the name of the function without dollar "$" but with the opening bracket "("
-   * @param unparsed - the rightmost part that is not parsed up to now - the method manipulates
-   *          this!
+   * @param args - the compiled arguments of the function
+   * @param offset - the parse position for error messages
    * @param msg - the message
    * @return a String or Array of int could also be NULL
-   * @throws ParseException if any problem occurred parsing the msg
+   * @throws ParseException if any problem occurred rendering the msg
    */
-  private Object renderFunction(String name, StringBuffer unparsed, Message msg)
-      throws ParseException {
+  private Object renderFunction(Function function, String name, Node[] args, int offset,
+      Message msg) throws ParseException {
     Object value;
+    switch (function) {
     // $int(<int>)
-    if (name.equals("int(")) {
-      int[] ar = renderInteger(unparsed, msg);
+    case INT: {
+      int[] ar = renderInteger(args[0], msg, offset);
       if (ar != null) {
         value = Integer.toString(ar[0]);
       } else
-        throw new ParseException("argument of int() returns NULL", unparsed.length());
-    } else if (name.equals("unit(") || name.equals("unit.dative(")) {
-      EntityID uid = renderEntityID(unparsed, msg);
+        throw new ParseException("argument of int() returns NULL", offset);
+      break;
+    }
+    case UNIT: {
+      EntityID uid = renderEntityID(args[0], msg, offset);
       if ((uid == null) || (uid.equals(unknownUnit))) {
         value = Resources.get("eresseamsgrenderer.func.unit.unknown");
       } else {
@@ -263,9 +246,11 @@ public class EresseaMessageRenderer implements MessageRenderer {
           value = Resources.get("eresseamsgrenderer.func.unit.unit") + " (" + uid.toString() + ")";
         }
       }
-      // $region(<int int int>)
-    } else if (name.equals("region(")) {
-      int[] i_ar = renderInteger(unparsed, msg);
+      break;
+    }
+    // $region(<int int int>)
+    case REGION: {
+      int[] i_ar = renderInteger(args[0], msg, offset);
       if ((i_ar != null) && (i_ar.length >= 2)) {
         CoordinateID rid;
         if (i_ar.length == 2) {
@@ -284,12 +269,14 @@ public class EresseaMessageRenderer implements MessageRenderer {
         if (i_ar == null) {
           value = Resources.get("eresseamsgrenderer.func.region.unknown");
         } else
-          throw new ParseException("wrong arguments for region()", unparsed.length());
+          throw new ParseException("wrong arguments for region()", offset);
       }
-      // $trail(<string>)
-    } else if (name.equals("trail(")) {
-      String trailparam = renderString(unparsed, msg);
-      StringBuffer trail = new StringBuffer();
+      break;
+    }
+    // $trail(<string>)
+    case TRAIL: {
+      String trailparam = renderString(args[0], msg);
+      StringBuilder trail = new StringBuilder();
       if (trailparam != null) {
         String[] regions = trailparam.split(",");
         for (int i = 0; i < regions.length; i++) {
@@ -332,9 +319,11 @@ public class EresseaMessageRenderer implements MessageRenderer {
       } else {
         value = "";
       }
-      // $faction(<ID>)
-    } else if (name.equals("faction(")) {
-      EntityID fid = renderEntityID(unparsed, msg);
+      break;
+    }
+    // $faction(<ID>)
+    case FACTION: {
+      EntityID fid = renderEntityID(args[0], msg, offset);
       if (fid == null) {
         value = Resources.get("eresseamsgrenderer.func.faction.unknown");
       } else {
@@ -347,9 +336,11 @@ public class EresseaMessageRenderer implements MessageRenderer {
                   + ")";
         }
       }
-      // $ship(<ID>)
-    } else if (name.equals("ship(")) {
-      EntityID sid = renderEntityID(unparsed, msg);
+      break;
+    }
+    // $ship(<ID>)
+    case SHIP: {
+      EntityID sid = renderEntityID(args[0], msg, offset);
       if (sid == null) {
         value = Resources.get("eresseamsgrenderer.func.ship.unknown");
       } else {
@@ -360,9 +351,11 @@ public class EresseaMessageRenderer implements MessageRenderer {
           value = Resources.get("eresseamsgrenderer.func.ship.ship") + " (" + sid.toString() + ")";
         }
       }
-      // $building(<ID>)
-    } else if (name.equals("building(")) {
-      EntityID bid = renderEntityID(unparsed, msg);
+      break;
+    }
+    // $building(<ID>)
+    case BUILDING: {
+      EntityID bid = renderEntityID(args[0], msg, offset);
       if (bid == null) {
         value = Resources.get("eresseamsgrenderer.func.building.unknown");
       } else {
@@ -375,67 +368,58 @@ public class EresseaMessageRenderer implements MessageRenderer {
                   + ")";
         }
       }
-      // $eq(<int>,<int>)
-    } else if (name.equals("eq(")) {
-      int[] ar = renderInteger(unparsed, msg);
-      int pos = unparsed.indexOf(",");
-      if (pos >= 0) {
-        unparsed.delete(0, pos + 1);
-        int[] i = new int[1];
+      break;
+    }
+    // $eq(<int>,<int>)
+    case EQ: {
+      int[] ar = renderInteger(args[0], msg, offset);
+      int[] i = new int[1];
+      if (ar == null) {
+        i[0] = 0;
+      } else {
+        int a = ar[0];
+        ar = renderInteger(args[1], msg, offset);
         if (ar == null) {
           i[0] = 0;
         } else {
-          int a = ar[0];
-          ar = renderInteger(unparsed, msg);
-          if (ar == null) {
-            i[0] = 0;
+          if (a == ar[0]) {
+            i[0] = 1;
           } else {
-            if (a == ar[0]) {
-              i[0] = 1;
-            } else {
-              i[0] = 0;
-            }
+            i[0] = 0;
           }
         }
-        value = i;
-      } else
-        throw new ParseException("wrong arguments for eq()", unparsed.length());
-    } else if (name.equals("add(")) {
-      int[] ar = renderInteger(unparsed, msg);
-      int pos = unparsed.indexOf(",");
-      if ((pos >= 0) && (ar != null)) {
-        unparsed.delete(0, pos + 1);
+      }
+      value = i;
+      break;
+    }
+    case ADD: {
+      int[] ar = renderInteger(args[0], msg, offset);
+      if (ar != null) {
         int a = ar[0];
-        ar = renderInteger(unparsed, msg);
+        ar = renderInteger(args[1], msg, offset);
         if (ar != null) {
           int[] i = new int[1];
           i[0] = a + ar[0];
           value = i;
         } else
-          throw new ParseException("second argument of add() returns NULL", unparsed.length());
+          throw new ParseException("second argument of add() returns NULL", offset);
       } else
-        throw new ParseException("wrong arguments for add()", unparsed.length());
-    } else if (name.equals("if(")) {
-      int cond = renderInteger(unparsed, msg)[0];
-      int pos = unparsed.indexOf(",");
-      if (pos >= 0) {
-        unparsed.delete(0, pos + 1);
-        String do_true = renderString(unparsed, msg);
-        pos = unparsed.indexOf(",");
-        if (pos >= 0) {
-          unparsed.delete(0, pos + 1);
-          String do_false = renderString(unparsed, msg);
-          if (cond > 0) {
-            value = do_true;
-          } else {
-            value = do_false;
-          }
-        } else
-          throw new ParseException("wrong arguments for if()", unparsed.length());
-      } else
-        throw new ParseException("wrong arguments for if()", unparsed.length());
-    } else if (name.equals("strlen(")) {
-      String content = renderString(unparsed, msg);
+        throw new ParseException("wrong arguments for add()", offset);
+      break;
+    }
+    case IF: {
+      int cond = renderInteger(args[0], msg, offset)[0];
+      String do_true = renderString(args[1], msg);
+      String do_false = renderString(args[2], msg);
+      if (cond > 0) {
+        value = do_true;
+      } else {
+        value = do_false;
+      }
+      break;
+    }
+    case STRLEN: {
+      String content = renderString(args[0], msg);
       int[] i = new int[1];
       if (content == null) {
         i[0] = 0;
@@ -443,12 +427,15 @@ public class EresseaMessageRenderer implements MessageRenderer {
         i[0] = content.length();
       }
       value = i;
-      // $order(<string>)
-    } else if (name.equals("order(")) {
-      value = renderString(unparsed, msg);
-      // $isnull(<any>)
-    } else if (name.equals("isnull(")) {
-      Object obj = renderNull(unparsed, msg);
+      break;
+    }
+    // $order(<string>)
+    case ORDER:
+      value = renderString(args[0], msg);
+      break;
+    // $isnull(<any>)
+    case ISNULL: {
+      Object obj = args[0].value(this, msg);
       int[] i = new int[1];
       if (obj == null) {
         i[0] = 1;
@@ -456,22 +443,21 @@ public class EresseaMessageRenderer implements MessageRenderer {
         i[0] = 0;
       }
       value = i;
-      // $resource(<string>,<int>)
-    } else if (name.equals("resource(")) {
-      String item = renderString(unparsed, msg);
-      int pos = unparsed.indexOf(",");
-      if (pos >= 0) {
-        unparsed.delete(0, pos + 1);
-        renderInteger(unparsed, msg);
-        // TODO use amount(=ar[0]) if possible to spell the item names correctly
-        value = gd.getTranslation(item);
-      } else
-        throw new ParseException("wrong arguments for resource()", unparsed.length());
-    } else if (name.equals("resources(")) {
+      break;
+    }
+    // $resource(<string>,<int>)
+    case RESOURCE: {
+      String item = renderString(args[0], msg);
+      renderInteger(args[1], msg, offset);
+      // TODO use amount(=ar[0]) if possible to spell the item names correctly
+      value = gd.getTranslation(item);
+      break;
+    }
+    case RESOURCES: {
       // the string has the following style: "<amount1> <item1>, <amount2> <item2>, ..."
       // beware <item> could include spaces!
-      String resparam = renderString(unparsed, msg);
-      StringBuffer res = new StringBuffer();
+      String resparam = renderString(args[0], msg);
+      StringBuilder res = new StringBuilder();
       if (resparam != null) {
         String[] resources = resparam.split(",");
         for (int i = 0; i < resources.length; i++) {
@@ -488,137 +474,472 @@ public class EresseaMessageRenderer implements MessageRenderer {
       } else {
         value = "";
       }
-      // $localize(<string>)
-      // $skill(<string>)
-      // $spell(<string>)
-      // $race(<string>)
-      // $terrain(<string>)
-    } else if (name.equals("localize(") || name.equals("skill(") || name.equals("spell(")
-        || name.equals("race(") || name.equals("terrain(")) {
-      String str = renderString(unparsed, msg);
-      value = gd.getTranslation(str);
-      // $weight(<int>)
-    } else if (name.equals("weight(")) {
-      int[] ar = renderInteger(unparsed, msg);
+      break;
+    }
+    // $localize(<string>)
+    // $skill(<string>)
+    // $spell(<string>)
+    // $race(<string>)
+    // $terrain(<string>)
+    case LOCALIZE:
+      value = gd.getTranslation(renderString(args[0], msg));
+      break;
+    // $weight(<int>)
+    case WEIGHT: {
+      int[] ar = renderInteger(args[0], msg, offset);
       if (ar != null) {
         value = (ar[0] / 100) + " GE";
       } else
-        throw new ParseException(name + ") requires an int parameter != NULL", unparsed.length());
-    } else if (name.equals("direction(")) {
-      int[] ar = renderInteger(unparsed, msg);
+        throw new ParseException(name + ") requires an int parameter != NULL", offset);
+      break;
+    }
+    case DIRECTION: {
+      int[] ar = renderInteger(args[0], msg, offset);
       if ((ar != null) && (ar.length > 0)) {
         if ((ar[0] >= 0) && (ar[0] <= 5)) {
           value = Resources.get("eresseamsgrenderer.func.direction." + ar[0]);
         } else
           throw new ParseException("direction() requires an int parameter between 0 and 5",
-              unparsed.length());
+              offset);
       } else
-        throw new ParseException("direction() requires an int parameter != NULL", unparsed.length());
-    } else {
-      value = "unknown:" + name + renderString(unparsed, msg) + ")";
-      // throw new ParseException("unknown token: "+name, unparsed.length());
+        throw new ParseException("direction() requires an int parameter != NULL", offset);
+      break;
+    }
+    default:
+      value = "unknown:" + name + renderString(args[0], msg) + ")";
+      // throw new ParseException("unknown token: "+name, offset);
+    }
+    return value;
+  }
+
+  /**
+   * Returns the end of the integer constant (<code>-?[0-9]+( +-?[0-9]+)*</code>) starting at
+   * <code>start</code> or -1 if there is none.
+   */
+  static int matchIntegers(CharSequence text, int start) {
+    int end = EresseaMessageRenderer.matchInteger(text, start);
+    while (end >= 0) {
+      int i = end;
+      while (i < text.length() && text.charAt(i) == ' ') {
+        ++i;
+      }
+      int next = i > end ? EresseaMessageRenderer.matchInteger(text, i) : -1;
+      if (next < 0) {
+        break;
+      }
+      end = next;
+    }
+    return end;
+  }
+
+  private static int matchInteger(CharSequence text, int start) {
+    int i = start;
+    if (i < text.length() && text.charAt(i) == '-') {
+      ++i;
+    }
+    int digits = i;
+    while (i < text.length() && text.charAt(i) >= '0' && text.charAt(i) <= '9') {
+      ++i;
+    }
+    return i > digits ? i : -1;
+  }
+
+  private static int[] parseIntegers(String constant) {
+    StringTokenizer st = new StringTokenizer(constant, " ,");
+    int[] ar = new int[st.countTokens()];
+    int i = 0;
+    while (st.hasMoreTokens()) {
+      ar[i] = Integer.parseInt(st.nextToken());
+      i++;
+    }
+    return ar;
+  }
+
+  /**
+   * The kinds of arguments of functions.
+   */
+  private static enum Argument {
+    /** An integer constant, attribute or function */
+    INT,
+    /** A string constant, attribute or function */
+    STRING,
+    /** NULL, an attribute or function */
+    NULL
+  }
+
+  /**
+   * The functions known by the renderer and the arguments they take.
+   */
+  private static enum Function {
+    INT(Argument.INT), UNIT(Argument.INT), REGION(Argument.INT), TRAIL(Argument.STRING),
+    FACTION(Argument.INT), SHIP(Argument.INT), BUILDING(Argument.INT),
+    EQ(Argument.INT, Argument.INT), ADD(Argument.INT, Argument.INT),
+    IF(Argument.INT, Argument.STRING, Argument.STRING), STRLEN(Argument.STRING),
+    ORDER(Argument.STRING), ISNULL(Argument.NULL), RESOURCE(Argument.STRING, Argument.INT),
+    RESOURCES(Argument.STRING), LOCALIZE(Argument.STRING), WEIGHT(Argument.INT),
+    DIRECTION(Argument.INT), UNKNOWN(Argument.STRING);
+
+    private static final Map<String, Function> byName = new HashMap<String, Function>();
+    static {
+      for (Function f : Function.values()) {
+        Function.byName.put(f.name().toLowerCase() + "(", f);
+      }
+      Function.byName.put("unit.dative(", UNIT);
+      Function.byName.put("skill(", LOCALIZE);
+      Function.byName.put("spell(", LOCALIZE);
+      Function.byName.put("race(", LOCALIZE);
+      Function.byName.put("terrain(", LOCALIZE);
+      Function.byName.remove("unknown(");
+    }
+
+    final Argument[] arguments;
+
+    private Function(Argument... arguments) {
+      this.arguments = arguments;
+    }
+
+    /**
+     * Returns the function with the given name (including the opening bracket), or UNKNOWN.
+     */
+    static Function get(String name) {
+      Function f = Function.byName.get(name);
+      return f == null ? UNKNOWN : f;
+    }
+  }
+
+  /**
+   * A part of a compiled pattern.
+   */
+  private abstract static class Node {
+    /**
+     * Returns the value of this node for the message.
+     * 
+     * @return a String or Array of int could also be NULL
+     * @throws ParseException if the message cannot be rendered
+     */
+    abstract Object value(EresseaMessageRenderer renderer, Message msg) throws ParseException;
+
+    /**
+     * Appends the value of this node to <code>rendered</code>.
+     */
+    void appendTo(StringBuilder rendered, EresseaMessageRenderer renderer, Message msg)
+        throws ParseException {
+      rendered.append(value(renderer, msg));
     }
+  }
 
-    // delete closing bracket before returning the value
-    int close = unparsed.indexOf(")");
-    if (close >= 0) {
-      unparsed.delete(0, close + 1);
+  /**
+   * A literal string or integer constant, or NULL.
+   */
+  private static class Constant extends Node {
+    private final Object value;
+
+    Constant(Object value) {
+      this.value = value;
+    }
+
+    @Override
+    Object value(EresseaMessageRenderer renderer, Message msg) {
       return value;
-    } else
-      throw new ParseException("no matching bracket ')'", unparsed.length());
+    }
   }
 
   /**
-   * Tries to render an id of a unit, faction, .... This could of course also be a return value of a
-   * function or an attribute value. Calls renderInteger to obtain the value. If a null array is
-   * returned or an array of zero values this method returns null.
-   * 
-   * @param unparsed - the rightmost part that is not parsed up to now - the method manipulates
-   *          this!
-   * @param msg - the message
-   * @return an EntityID
-   * @throws ParseException if any problem occured parsing the msg
+   * An attribute of the message like <code>$unit</code> or <code>${unit}</code>.
    */
+  private static class Attribute extends Node {
+    private final String name;
 
-  private EntityID renderEntityID(StringBuffer unparsed, Message msg)
-      throws ParseException {
-    int[] i_ar = renderInteger(unparsed, msg);
-    if ((i_ar != null) && (i_ar.length >= 1))
-      return EntityID.createEntityID(i_ar[0], gd.base);
-    else
-      return null;
+    Attribute(String name) {
+      this.name = name;
+    }
+
+    @Override
+    Object value(EresseaMessageRenderer renderer, Message msg) {
+      return renderer.renderAttribute(name, msg);
+    }
   }
 
   /**
-   * Tries to render an integer. This could of course also be a return value of a function or an
-   * attribute value. The return of attributes and functions are treated like constants.
-   * 
-   * @param unparsed - the rightmost part that is not parsed up to now - the method manipulates
-   *          this!
-   * @param msg - the message
-   * @return an Array of int
-   * @throws ParseException if any problem occured parsing the msg
+   * A function call like <code>$unit($unit)</code>.
    */
-  private int[] renderInteger(StringBuffer unparsed, Message msg)
-      throws ParseException {
-    // remove trailing spaces
-    while (unparsed.charAt(0) == ' ') {
-      unparsed.deleteCharAt(0);
-    }
-    if (unparsed.charAt(0) == '$') {
-      unparsed.deleteCharAt(0);
-      Object obj = renderDollar(unparsed, msg);
-      try {
-        return (int[]) obj;
-      } catch (ClassCastException eint) {
-        try {
-          unparsed.insert(0, ((String) obj).replaceAll(",", " "));
-        } catch (ClassCastException estr) {
-          throw new ParseException("Integer[] expected", unparsed.length());
-        }
+  private static class Call extends Node {
+    private final Function function;
+    private final String name;
+    private final Node[] args;
+    private final int offset;
+
+    Call(Function function, String name, Node[] args, int offset) {
+      this.function = function;
+      this.name = name;
+      this.args = args;
+      this.offset = offset;
+    }
+
+    @Override
+    Object value(EresseaMessageRenderer renderer, Message msg) throws ParseException {
+      return renderer.renderFunction(function, name, args, offset, msg);
+    }
+  }
+
+  /**
+   * A quoted string consisting of literal text, attributes and function calls.
+   */
+  private static class Quoted extends Node {
+    private final Node[] parts;
+
+    Quoted(List<Node> parts) {
+      this.parts = parts.toArray(new Node[parts.size()]);
+    }
+
+    @Override
+    Object value(EresseaMessageRenderer renderer, Message msg) throws ParseException {
+      StringBuilder parsed = new StringBuilder();
+      appendTo(parsed, renderer, msg);
+      return parsed.toString();
+    }
+
+    @Override
+    void appendTo(StringBuilder rendered, EresseaMessageRenderer renderer, Message msg)
+        throws ParseException {
+      for (Node part : parts) {
+        part.appendTo(rendered, renderer, msg);
       }
     }
-    final Pattern numbersPattern = Pattern.compile("-?[0-9]+( +-?[0-9]+)*");
-    // parse constant integers
-    Matcher m = numbersPattern.matcher(unparsed);
-    if (m.find() && m.start() == 0) {
-      StringTokenizer st = new StringTokenizer(m.group(), " ,");
-      int[] ar = new int[st.countTokens()];
-      int i = 0;
-      while (st.hasMoreTokens()) {
-        ar[i] = Integer.parseInt(st.nextToken());
-        i++;
+  }
+
+  /**
+   * An attribute or function used as string.
+   */
+  private static class StringValue extends Node {
+    private final Node node;
+    private final int offset;
+
+    StringValue(Node node, int offset) {
+      this.node = node;
+      this.offset = offset;
+    }
+
+    @Override
+    Object value(EresseaMessageRenderer renderer, Message msg) throws ParseException {
+      Object value = node.value(renderer, msg);
+      if (value instanceof int[])
+        throw new ParseException("String expected", offset);
+      return value;
+    }
+
+    @Override
+    void appendTo(StringBuilder rendered, EresseaMessageRenderer renderer, Message msg)
+        throws ParseException {
+      Object value = value(renderer, msg);
+      if (value != null) {
+        rendered.append(value);
       }
-      unparsed.delete(0, m.end());
-      return ar;
-    } else
-      throw new ParseException("No Integer constant found", unparsed.length());
+    }
   }
 
   /**
-   * Tries to render a constant value NULL or returns the value of an attribute or function.
-   * 
-   * @param unparsed - the rightmost part that is not parsed up to now - the method manipulates
-   *          this!
-   * @param msg - the message
-   * @return something that may be NULL
-   * @throws ParseException if any problem occurred parsing the msg, i.e. a constant STRING or
-   *           integer is found
+   * A pattern that could not be compiled.
    */
+  private static class Failure extends Node {
+    private final Exception error;
 
-  private Object renderNull(StringBuffer unparsed, Message msg)
-      throws ParseException {
-    // remove trailing spaces
-    while (unparsed.charAt(0) == ' ') {
-      unparsed.deleteCharAt(0);
-    }
-    if (unparsed.charAt(0) == '$') {
-      unparsed.deleteCharAt(0);
-      return renderDollar(unparsed, msg);
-    } else if (unparsed.indexOf("NULL") == 0) {
-      unparsed.delete(0, 4);
-      return null;
-    } else
-      throw new ParseException("Attribute expected for isnull()", unparsed.length());
+    Failure(Exception error) {
+      this.error = error;
+    }
+
+    @Override
+    Object value(EresseaMessageRenderer renderer, Message msg) throws ParseException {
+      if (error instanceof ParseException)
+        throw (ParseException) error;
+      throw (RuntimeException) error;
+    }
+  }
+
+  /**
+   * A compiled message type pattern.
+   */
+  private static class Template {
+    final String pattern;
+    final Node root;
+
+    Template(String pattern) {
+      this.pattern = pattern;
+      Node node;
+      try {
+        node = new Compiler(pattern).compileString();
+      } catch (ParseException e) {
+        node = new Failure(e);
+      } catch (RuntimeException e) {
+        node = new Failure(e);
+      }
+      root = node;
+    }
+  }
+
+  /**
+   * Parses a pattern into a tree of {@link Node}s. Error offsets are counted from the end of the
+   * pattern.
+   */
+  private static class Compiler {
+    private final String pattern;
+    private int pos;
+
+    Compiler(String pattern) {
+      this.pattern = pattern;
+    }
+
+    private int remaining() {
+      return pattern.length() - pos;
+    }
+
+    private void skipSpaces() {
+      while (pattern.charAt(pos) == ' ') {
+        ++pos;
+      }
+    }
+
+    /**
+     * Compiles a quoted string or an attribute or function used as string.
+     */
+    Node compileString() throws ParseException {
+      skipSpaces();
+      if (pattern.charAt(pos) == '"') {
+        List<Node> parts = new ArrayList<Node>();
+        ++pos;
+        // search first $ sign
+        int posd = pattern.indexOf('$', pos);
+        // search first " sign
+        int posq = pattern.indexOf('"', pos);
+        // $ should be before " and both should be >=0
+        while ((0 <= posd) && (posd < posq)) {
+          if (posd > pos) {
+            parts.add(new Constant(pattern.substring(pos, posd)));
+          }
+          pos = posd + 1;
+          parts.add(compileDollar());
+          // find next $ and " sign
+          posd = pattern.indexOf('$', pos);
+          posq = pattern.indexOf('"', pos);
+        }
+        // append remaining string up to "
+        if (posq >= 0) {
+          if (posq > pos) {
+            parts.add(new Constant(pattern.substring(pos, posq)));
+          }
+          pos = posq + 1;
+          if (parts.isEmpty())
+            return new Constant("");
+          if (parts.size() == 1 && parts.get(0) instanceof Constant)
+            return parts.get(0);
+          return new Quoted(parts);
+        } else
+          throw new ParseException("no matching quote \"", remaining());
+      } else if (pattern.charAt(pos) == '$') {
+        ++pos;
+        return new StringValue(compileDollar(), remaining());
+      } else
+        throw new ParseException("No string found", remaining());
+    }
+
+    /**
+     * Compiles the attribute or function following a $ sign.
+     */
+    private Node compileDollar() throws ParseException {
+      if (pattern.charAt(pos) == '{') {
+        int close = pattern.indexOf('}', pos);
+        if (close > pos) {
+          String name = pattern.substring(pos + 1, close);
+          pos = close + 1;
+          return new Attribute(name);
+        } else
+          // ERROR: no matching }
+          throw new ParseException("no matching bracket '}'", remaining());
+      } else {
+        int end = pos;
+        while (end < pattern.length()
+            && ((pattern.charAt(end) >= 'a' && pattern.charAt(end) <= 'z') || pattern.charAt(end) == '.')) {
+          ++end;
+        }
+        if (end == pos)
+          throw new ParseException("$ without literals", remaining());
+        if (end < pattern.length() && pattern.charAt(end) == '(') {
+          // a function, the name includes the opening bracket (
+          String name = pattern.substring(pos, end + 1);
+          pos = end + 1;
+          return compileFunction(name);
+        } else {
+          // an attribute
+          String name = pattern.substring(pos, end);
+          pos = end;
+          return new Attribute(name);
+        }
+      }
+    }
+
+    private Node compileFunction(String name) throws ParseException {
+      int offset = remaining();
+      Function function = Function.get(name);
+      Node[] args = new Node[function.arguments.length];
+      for (int i = 0; i < args.length; ++i) {
+        if (i > 0) {
+          int comma = pattern.indexOf(',', pos);
+          if (comma < 0)
+            throw new ParseException("wrong arguments for " + name + ")", remaining());
+          pos = comma + 1;
+        }
+        switch (function.arguments[i]) {
+        case INT:
+          args[i] = compileInteger();
+          break;
+        case NULL:
+          args[i] = compileNull();
+          break;
+        default:
+          args[i] = compileString();
+        }
+      }
+      // skip closing bracket
+      int close = pattern.indexOf(')', pos);
+      if (close >= 0) {
+        pos = close + 1;
+        return new Call(function, name, args, offset);
+      } else
+        throw new ParseException("no matching bracket ')'", remaining());
+    }
+
+    /**
+     * Compiles an integer constant or an attribute or function used as integer.
+     */
+    private Node compileInteger() throws ParseException {
+      skipSpaces();
+      if (pattern.charAt(pos) == '$') {
+        ++pos;
+        return compileDollar();
+      }
+      // parse constant integers
+      int end = EresseaMessageRenderer.matchIntegers(pattern, pos);
+      if (end >= 0) {
+        int[] ar = EresseaMessageRenderer.parseIntegers(pattern.substring(pos, end));
+        pos = end;
+        return new Constant(ar);
+      } else
+        throw new ParseException("No Integer constant found", remaining());
+    }
+
+    /**
+     * Compiles a constant value NULL or an attribute or function.
+     */
+    private Node compileNull() throws ParseException {
+      skipSpaces();
+      if (pattern.charAt(pos) == '$') {
+        ++pos;
+        return compileDollar();
+      } else if (pattern.startsWith("NULL", pos)) {
+        pos += 4;
+        return new Constant(null);
+      } else
+        throw new ParseException("Attribute expected for isnull()", remaining());
+    }
   }
 }
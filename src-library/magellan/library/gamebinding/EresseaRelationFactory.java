@@ -21,24 +21,38 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import javax.swing.SwingUtilities;
 import javax.swing.Timer;
 
+import magellan.library.Building;
 import magellan.library.Faction;
 import magellan.library.GameData;
+import magellan.library.HasCache;
 import magellan.library.Item;
 import magellan.library.Order;
 import magellan.library.Orders;
 import magellan.library.Region;
+import magellan.library.Related;
 import magellan.library.Rules;
+import magellan.library.Ship;
 import magellan.library.StringID;
 import magellan.library.Unit;
 import magellan.library.UnitContainer;
+import magellan.library.ZeroUnit;
+import magellan.library.impl.MagellanOrdersImplementation;
 import magellan.library.relation.ControlRelation;
 import magellan.library.relation.EnterRelation;
 import magellan.library.relation.FollowUnitRelation;
@@ -52,6 +66,8 @@ import magellan.library.rules.ItemCategory;
 import magellan.library.rules.ItemType;
 import magellan.library.tasks.OrderSyntaxInspector;
 import magellan.library.tasks.OrderSyntaxInspector.OrderSemanticsProblemTypes;
+import magellan.library.utils.CacheStage;
+import magellan.library.utils.CacheStage.NotInSnapshotException;
 import magellan.library.utils.Resources;
 import magellan.library.utils.Units;
 import magellan.library.utils.logging.Logger;
@@ -117,44 +133,144 @@ public class EresseaRelationFactory implements RelationFactory {
    */
   public static final int PROCESS_DELAY = 100;
 
+  /**
+   * Computes the relations of a region in the background. The units, orders and caches of the
+   * region and its neighbours are copied into a snapshot {@link CacheStage} on the event dispatch
+   * thread when the processor is created. The results are collected in the stage and published on
+   * the event dispatch thread, unless the region has been changed again in the meantime. If the
+   * computation fails, for example because the orders use objects outside the snapshot, the region
+   * is processed on the event dispatch thread instead.
+   */
   protected class Processor implements Runnable {
     private Region region;
+    private volatile boolean cancelled;
+    private final CacheStage stage;
+    private Collection<Region> affectedRegions = Collections.emptyList();
+    private RegionDependencies dependencies;
 
+    /**
+     * Creates a processor for the region. Must be called on the event dispatch thread.
+     */
     public Processor(Region r) {
       region = r;
+      stage = createSnapshot(r);
     }
 
     public void run() {
       // long time = System.currentTimeMillis();
       // log.finest(0);
       try {
-        processOrders(region);
-      } catch (Exception e) {
-        try {
-          Thread.sleep(100);
-        } catch (InterruptedException e1) {
-          // ignore
+        compute();
+      } catch (CancellationException e) {
+        return;
+      } catch (RuntimeException e) {
+        if (cancelled)
+          return;
+        if (e instanceof NotInSnapshotException) {
+          log.fine("processing orders of " + region + " in the foreground: " + e.getMessage());
+        } else {
+          log.warn("could not process orders of " + region + " in the background", e);
         }
-        processOrders(region);
+        SwingUtilities.invokeLater(new Runnable() {
+          public void run() {
+            processNow();
+          }
+        });
+        return;
       }
       // log.finest("rr " + (System.currentTimeMillis() - time));
+      SwingUtilities.invokeLater(new Runnable() {
+        public void run() {
+          publish();
+        }
+      });
+    }
+
+    private void compute() {
+      stage.activate();
+      try {
+        synchronized (EresseaRelationFactory.this) {
+          current = this;
+          try {
+            processOrders(region);
+          } finally {
+            current = null;
+          }
+        }
+      } finally {
+        stage.end();
+      }
+    }
+
+    /**
+     * Processes the orders of the region directly, after the background computation has failed.
+     * Must be called on the event dispatch thread.
+     */
+    protected void processNow() {
+      if (!updater.isCurrent(this))
+        return;
+      processOrders(region);
+      updater.done(this);
     }
 
+    /**
+     * Copies the new relations to the units and containers and notifies the listeners. Must be
+     * called on the event dispatch thread.
+     */
+    protected void publish() {
+      if (!updater.isCurrent(this))
+        return;
+      stage.publish();
+      if (dependencies != null) {
+        putDependencies(region, dependencies);
+      }
+      if (!updater.isStopped()) {
+        Object cause = new Object();
+        for (Region r2 : affectedRegions) {
+          region.getData().fireOrdersChanged(EresseaRelationFactory.this, r2, cause);
+        }
+      }
+      updater.done(this);
+    }
+
+    /**
+     * Stops the computation as soon as possible and discards its results.
+     */
+    public void cancel() {
+      cancelled = true;
+    }
+
+    /**
+     * Returns <code>true</code> if the computation has been cancelled.
+     */
+    public boolean isCancelled() {
+      return cancelled;
+    }
   }
 
+  /**
+   * Collects changed regions until no change has happened for {@link #PROCESS_DELAY} ms and then
+   * submits them to a background thread. A region that is changed again while it is processed is
+   * cancelled and processed again.
+   */
   protected class Updater implements ActionListener {
 
     Set<Region> regions;
+    /** submitted, but not yet published */
+    private Map<Region, Processor> jobs;
     private Timer timer;
     private boolean stopped;
+    private ThreadPoolExecutor executor;
 
     public Updater() {
       regions = new HashSet<Region>();
+      jobs = new HashMap<Region, Processor>();
       timer = new Timer(PROCESS_DELAY, this);
     }
 
     public synchronized void add(Region region) {
       regions.add(region);
+      cancel(region);
       if (!stopped) {
         timer.restart();
         // log.finer("add " + region);
@@ -170,18 +286,118 @@ public class EresseaRelationFactory implements RelationFactory {
       if (!regions.isEmpty()) {
         log.finer("updating " + regions.size());
         for (Region r : regions) {
-          SwingUtilities.invokeLater(new Processor(r));
+          Processor processor = new Processor(r);
+          jobs.put(r, processor);
+          getExecutor().execute(processor);
         }
       }
       regions.clear();
     }
 
+    private ThreadPoolExecutor getExecutor() {
+      if (executor == null) {
+        // processOrders is synchronized, so one thread is enough
+        executor =
+            new ThreadPoolExecutor(1, 1, 10, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactory() {
+                  public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "RelationUpdater");
+                    t.setDaemon(true);
+                    return t;
+                  }
+                });
+        executor.allowCoreThreadTimeOut(true);
+      }
+      return executor;
+    }
+
+    /**
+     * Cancels the computation of the region, if there is one.
+     */
+    public synchronized void cancel(Region region) {
+      Processor processor = jobs.remove(region);
+      if (processor != null) {
+        processor.cancel();
+        notifyAll();
+      }
+    }
+
+    /**
+     * Returns <code>true</code> if the processor's results are still valid.
+     */
+    public synchronized boolean isCurrent(Processor processor) {
+      return !processor.isCancelled() && jobs.get(processor.region) == processor;
+    }
+
+    /**
+     * Called when a processor has finished.
+     */
+    public synchronized void done(Processor processor) {
+      if (jobs.get(processor.region) == processor) {
+        jobs.remove(processor.region);
+      }
+      notifyAll();
+    }
+
+    /**
+     * Returns <code>true</code> if there are regions waiting for or being processed.
+     */
+    public synchronized boolean isPending() {
+      return !regions.isEmpty() || !jobs.isEmpty();
+    }
+
+    /**
+     * Cancels all waiting and running computations.
+     *
+     * @return The regions that have not been processed yet; empty if the updater is stopped.
+     */
+    public synchronized Collection<Region> flush() {
+      if (stopped)
+        return Collections.emptyList();
+      Set<Region> result = new HashSet<Region>(regions);
+      for (Processor processor : jobs.values()) {
+        processor.cancel();
+        result.add(processor.region);
+      }
+      regions.clear();
+      jobs.clear();
+      timer.stop();
+      notifyAll();
+      return result;
+    }
+
+    /**
+     * Waits until all changed regions have been processed and published or until the updater is
+     * stopped.
+     */
+    public synchronized void await() throws InterruptedException {
+      while (!stopped && isPending()) {
+        if (!regions.isEmpty() && timer.isRunning()) {
+          // do not wait for the timer, but take the snapshots on the event dispatch thread
+          timer.stop();
+          SwingUtilities.invokeLater(new Runnable() {
+            public void run() {
+              actionPerformed(null);
+            }
+          });
+        }
+        wait();
+      }
+    }
+
     /**
-     * Stop timer.
+     * Stop timer. Running computations are cancelled and their regions are processed again after a
+     * restart.
      */
     public synchronized void stop() {
       stopped = true;
       timer.stop();
+      for (Processor processor : jobs.values()) {
+        processor.cancel();
+        regions.add(processor.region);
+      }
+      jobs.clear();
+      notifyAll();
     }
 
     /**
@@ -229,6 +445,72 @@ public class EresseaRelationFactory implements RelationFactory {
     }
   }
 
+  /**
+   * Copies everything that the orders of the region may change or depend on and that may be
+   * changed by the user: the units, orders and caches of the region, of its neighbours and of their
+   * buildings and ships, and the caches of their factions. The units of the factions are not copied,
+   * because a large faction would make this expensive for every change of orders. The relations do
+   * not need them; if the orders read them anyway, the snapshot throws a
+   * {@link NotInSnapshotException} and the region is processed on the event dispatch thread.
+   */
+  protected CacheStage createSnapshot(Region r) {
+    CacheStage stage = CacheStage.createSnapshot();
+    addSnapshot(stage, r);
+    for (Region neighbour : r.getNeighbors().values()) {
+      addSnapshot(stage, neighbour);
+    }
+    return stage;
+  }
+
+  private void addSnapshot(CacheStage stage, Region r) {
+    stage.addSnapshot(r);
+    stage.addUnits(r);
+    addSnapshot(stage, r.getZeroUnit());
+    for (Unit u : r.units()) {
+      addSnapshot(stage, u);
+      if (u.getFaction() != null) {
+        stage.addSnapshot(u.getFaction());
+      }
+    }
+    for (UnitContainer uc : r.buildings()) {
+      stage.addSnapshot(uc);
+      stage.addUnits(uc);
+    }
+    for (UnitContainer uc : r.ships()) {
+      stage.addSnapshot(uc);
+      stage.addUnits(uc);
+    }
+  }
+
+  private void addSnapshot(CacheStage stage, Unit u) {
+    stage.addSnapshot(u);
+    stage.addOrders(u, new MagellanOrdersImplementation(u, Collections
+        .unmodifiableList(new ArrayList<Order>(u.getOrders2()))));
+  }
+
+  /**
+   * @see magellan.library.gamebinding.RelationFactory#isPending()
+   */
+  public boolean isPending() {
+    return updater.isPending();
+  }
+
+  /**
+   * Waits until the relations of all changed regions are up to date. If called from the event
+   * dispatch thread, the remaining regions are processed immediately.
+   *
+   * @see magellan.library.gamebinding.RelationFactory#waitForRelations()
+   */
+  public void waitForRelations() throws InterruptedException {
+    if (SwingUtilities.isEventDispatchThread()) {
+      for (Region r : updater.flush()) {
+        processOrders(r);
+      }
+    } else {
+      updater.await();
+    }
+  }
+
   /**
    * @return true, if updater is stopped
    */
@@ -270,6 +552,20 @@ public class EresseaRelationFactory implements RelationFactory {
   }
 
   private Set<Region> affected;
+  /** the background computation running processOrders, if any */
+  private Processor current;
+
+  /** Maximum number of regions whose dependencies are remembered */
+  public static final int MAX_TRACKED_REGIONS = 16;
+
+  private boolean tracking;
+  private final Map<Region, RegionDependencies> dependencies =
+      new LinkedHashMap<Region, RegionDependencies>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Region, RegionDependencies> eldest) {
+          return size() > MAX_TRACKED_REGIONS;
+        }
+      };
 
   /**
    * Ensures that {@link ReserveRelation}s are sorted before all other relations.
@@ -309,20 +605,71 @@ public class EresseaRelationFactory implements RelationFactory {
   }
 
   protected synchronized void processOrders(Region r) {
+    if (!isDependencyTracking()) {
+      executeOrders(r, null, null, null);
+      return;
+    }
+
+    CacheStage stage = CacheStage.getActive();
+    boolean recordOnly = stage == null;
+    if (recordOnly) {
+      stage = CacheStage.begin(false);
+    }
+    try {
+      RegionDependencies deps = takeDependencies(r);
+      if (deps == null || !executeChangedOrders(r, deps, stage)) {
+        deps = new RegionDependencies(r);
+        deps.setStage(stage);
+        executeOrders(r, null, null, deps);
+      }
+      deps.setStage(null);
+      if (current != null) {
+        // becomes valid when the relations are published
+        current.dependencies = deps;
+      } else {
+        putDependencies(r, deps);
+      }
+    } finally {
+      stage.setRecorder(null);
+      if (recordOnly) {
+        stage.end();
+      }
+    }
+  }
+
+  /**
+   * Executes the orders of the given units in the region and pays maintenance of the given
+   * buildings.
+   *
+   * @param r The region
+   * @param units The units whose orders are executed, or <code>null</code> for all units. If not
+   *          <code>null</code>, the relations of the units must already have been cleared.
+   * @param buildings The buildings that pay maintenance, or <code>null</code> for all buildings
+   * @param deps If not <code>null</code>, the accesses of every unit (and building) are recorded
+   */
+  private void executeOrders(Region r, Collection<Unit> units, Collection<Building> buildings,
+      RegionDependencies deps) {
     // long time = System.currentTimeMillis();
     GameData data = r.getData();
     affected = new HashSet<Region>();
     affected.add(r);
+    boolean all = units == null;
+    if (all) {
+      units = r.units();
+      buildings = r.buildings();
+    }
 
     // count orders
     int count = 0; // two for maintenance orders
-    for (Unit u : r.units()) {
+    for (Unit u : units) {
       Orders uo = u.getOrders2();
       if (uo.isEmpty()) {
         // ++count;
       } else {
         count += u.getOrders2().size();
       }
+    }
+    for (Unit u : r.units()) {
       if (u.getNewRegion() != null) {
         affected.add(data.getRegion(u.getNewRegion()));
         // for (Order o : u.getOrders2()) {
@@ -340,7 +687,7 @@ public class EresseaRelationFactory implements RelationFactory {
     UnitOrdering orders = new UnitOrdering();
     orders.reset(count);
 
-    for (Unit u : r.units()) {
+    for (Unit u : units) {
       int line = 0;
       Orders uo = u.getOrders2();
       if (uo.isEmpty()) {
@@ -357,20 +704,24 @@ public class EresseaRelationFactory implements RelationFactory {
         }
       }
 
-      u.clearRelations();
-      if (u.getFaction() != null) {
-        u.getFaction().clearRelations();
+      if (all) {
+        u.clearRelations();
+        if (u.getFaction() != null) {
+          u.getFaction().clearRelations();
+        }
       }
     }
 
-    r.getZeroUnit().clearRelations();
-    for (UnitContainer uc : r.buildings()) {
-      uc.clearRelations();
-    }
-    for (UnitContainer uc : r.ships()) {
-      uc.clearRelations();
+    if (all) {
+      r.getZeroUnit().clearRelations();
+      for (UnitContainer uc : r.buildings()) {
+        uc.clearRelations();
+      }
+      for (UnitContainer uc : r.ships()) {
+        uc.clearRelations();
+      }
+      r.clearRelations();
     }
-    r.clearRelations();
 
     orders.sort(r.units());
     // Arrays.sort(orders);
@@ -378,53 +729,426 @@ public class EresseaRelationFactory implements RelationFactory {
     boolean bmExecuted = false, umExecuted = false, resExecuted = false;
     for (; orders.hasNext(); orders.consume()) {
       if (!bmExecuted && orders.getPriority() > P_BUILDING_MAINTENANCE) {
-        BuildingMaintenanceOrder.execute(r, state, r.getData());
+        payBuildingMaintenance(r, state, buildings, deps);
         bmExecuted = true;
       }
       if (!umExecuted && orders.getPriority() > P_UNIT_MAINTENANCE) {
-        UnitMaintenanceOrder.execute(r, state, r.getData());
+        payUnitMaintenance(r, state, units, deps);
         umExecuted = true;
       }
       if (orders.getPriority() == P_RESERVIERE && !resExecuted) {
-        ReserveOwnOrder.execute(r, state, r.getData());
+        reserveOwn(r, state, units, deps);
         resExecuted = true;
       }
+      if (current != null && current.isCancelled())
+        throw new CancellationException();
       Order o = orders.getOrder();
+      if (deps != null) {
+        deps.record(orders.getUnit());
+      }
       o.setProblem(null);
       o.execute(state, data, orders.getUnit(), orders.getLine());
+      if (deps != null) {
+        deps.record(null);
+      }
     }
     if (!bmExecuted) {
-      BuildingMaintenanceOrder.execute(r, state, r.getData());
+      payBuildingMaintenance(r, state, buildings, deps);
       bmExecuted = true;
     }
     if (!umExecuted) {
-      UnitMaintenanceOrder.execute(r, state, r.getData());
+      payUnitMaintenance(r, state, units, deps);
       umExecuted = true;
     }
     if (!resExecuted) {
-      ReserveOwnOrder.execute(r, state, r.getData());
+      reserveOwn(r, state, units, deps);
       resExecuted = true;
     }
 
-    postProcess(r);
+    if (all && deps == null) {
+      postProcess(r);
+    } else {
+      postProcess(r, units, deps);
+    }
+  }
+
+  private void payBuildingMaintenance(Region r, EresseaExecutionState state,
+      Collection<Building> buildings, RegionDependencies deps) {
+    if (deps == null) {
+      BuildingMaintenanceOrder.execute(r, state, r.getData(), buildings);
+    } else {
+      for (Building b : buildings) {
+        deps.record(b);
+        BuildingMaintenanceOrder.execute(r, state, r.getData(), Collections.singletonList(b));
+      }
+      deps.record(null);
+    }
+  }
+
+  private void payUnitMaintenance(Region r, EresseaExecutionState state, Collection<Unit> units,
+      RegionDependencies deps) {
+    if (deps == null) {
+      UnitMaintenanceOrder.execute(r, state, r.getData(), units);
+    } else {
+      for (Unit u : units) {
+        deps.record(u);
+        UnitMaintenanceOrder.execute(r, state, r.getData(), Collections.singletonList(u));
+      }
+      deps.record(null);
+    }
+  }
+
+  private void reserveOwn(Region r, EresseaExecutionState state, Collection<Unit> units,
+      RegionDependencies deps) {
+    if (deps == null) {
+      ReserveOwnOrder.execute(r, state, r.getData(), units);
+    } else {
+      for (Unit u : units) {
+        deps.record(u);
+        ReserveOwnOrder.execute(r, state, r.getData(), Collections.singletonList(u));
+      }
+      deps.record(null);
+    }
+  }
+
+  /**
+   * Re-executes only the orders of the units that may be affected by the units whose orders have
+   * changed since the last pass.
+   *
+   * @return <code>false</code> if the dependencies are unknown and all orders of the region have to
+   *         be executed.
+   */
+  private boolean executeChangedOrders(Region r, RegionDependencies deps, CacheStage stage) {
+    Collection<Unit> changed = deps.getChangedUnits();
+    if (changed == null || changed.isEmpty())
+      return false;
+    Set<Object> executors = deps.getDependentExecutors(changed);
+    int last = 0;
+    deps.setStage(stage);
+    while (true) {
+      if (executors == null || executors.size() <= last
+          || executors.size() >= deps.getExecutorCount())
+        return false;
+
+      List<Unit> units = new ArrayList<Unit>();
+      for (Unit u : r.units()) {
+        if (executors.contains(u)) {
+          units.add(u);
+        }
+      }
+      List<Building> buildings = new ArrayList<Building>();
+      for (Building b : r.buildings()) {
+        if (executors.contains(b)) {
+          buildings.add(b);
+        }
+      }
+      Set<HasCache> owners = deps.getAccessed(executors);
+      deps.remove(executors);
+      stage.setRecorder(null);
+      for (HasCache owner : owners) {
+        ((Related) owner).clearRelations();
+      }
+      executeOrders(r, units, buildings, deps);
+      if (deps.isCovered(owners, executors)) {
+        deps.updateOrders(units);
+        return true;
+      }
+      // the new orders use other objects, try again with the units depending on them
+      last = executors.size();
+      executors = deps.getDependentExecutors(executors);
+    }
+  }
+
+  /**
+   * Records which units, containers and factions are used by the orders of each unit of a region.
+   * Orders only interact via the caches (relations, modified items, ...) of these objects. Units
+   * that do not share any of these objects, directly or indirectly, can be processed independently
+   * of each other.
+   */
+  protected static class RegionDependencies {
+    private final Region region;
+    private final List<Unit> units;
+    private Map<Unit, List<String>> orders;
+    private final Set<HasCache> localOwners;
+    /** units and buildings -> the objects that they access */
+    private final Map<Object, Set<HasCache>> accesses = new IdentityHashMap<Object, Set<HasCache>>();
+    private CacheStage stage;
+
+    /**
+     * Creates empty dependencies for the current units and orders of the region.
+     */
+    public RegionDependencies(Region region) {
+      this.region = region;
+      units = new ArrayList<Unit>(region.units());
+      orders = new IdentityHashMap<Unit, List<String>>();
+      updateOrders(units);
+
+      localOwners = newSet();
+      localOwners.add(region);
+      localOwners.add(region.getZeroUnit());
+      for (Unit u : units) {
+        localOwners.add(u);
+        if (u.getFaction() != null) {
+          localOwners.add(u.getFaction());
+        }
+      }
+      localOwners.addAll(region.buildings());
+      localOwners.addAll(region.ships());
+    }
+
+    private static Set<HasCache> newSet() {
+      return Collections.newSetFromMap(new IdentityHashMap<HasCache, Boolean>());
+    }
+
+    /**
+     * Returns the region.
+     */
+    public Region getRegion() {
+      return region;
+    }
+
+    /**
+     * Sets the stage that records the accesses.
+     */
+    public void setStage(CacheStage stage) {
+      this.stage = stage;
+    }
+
+    /**
+     * Attributes all following accesses to the given unit or building.
+     *
+     * @param executor A unit or building, or <code>null</code> to stop recording
+     */
+    public void record(Object executor) {
+      if (executor == null) {
+        stage.setRecorder(null);
+      } else {
+        Set<HasCache> set = accesses.get(executor);
+        if (set == null) {
+          set = newSet();
+          accesses.put(executor, set);
+        }
+        stage.setRecorder(set);
+      }
+    }
+
+    /**
+     * Forgets the accesses of the executors.
+     */
+    public void remove(Collection<Object> executors) {
+      for (Object executor : executors) {
+        accesses.remove(executor);
+      }
+    }
+
+    /**
+     * Returns the number of units and buildings with recorded accesses.
+     */
+    public int getExecutorCount() {
+      return accesses.size();
+    }
+
+    /**
+     * Remembers the current orders of the units.
+     */
+    public void updateOrders(Collection<Unit> changed) {
+      for (Unit u : changed) {
+        orders.put(u, getOrderTexts(u));
+      }
+    }
+
+    private static List<String> getOrderTexts(Unit u) {
+      List<String> texts = new ArrayList<String>(u.getOrders2().size());
+      for (Order o : u.getOrders2()) {
+        texts.add(o.getText());
+      }
+      return texts;
+    }
+
+    /**
+     * Returns the units whose orders have changed.
+     *
+     * @return The changed units, or <code>null</code> if units have been added or removed.
+     */
+    public Collection<Unit> getChangedUnits() {
+      if (region.units().size() != units.size())
+        return null;
+      Iterator<Unit> it = units.iterator();
+      for (Unit u : region.units()) {
+        if (it.next() != u)
+          return null;
+      }
+      List<Unit> result = new ArrayList<Unit>();
+      for (Unit u : units) {
+        if (!getOrderTexts(u).equals(orders.get(u))) {
+          result.add(u);
+        }
+      }
+      return result;
+    }
+
+    /**
+     * Returns all units and buildings that share objects with the given units, directly or
+     * indirectly.
+     *
+     * @return The dependent executors, or <code>null</code> if one of them accesses objects outside
+     *         the region.
+     */
+    public Set<Object> getDependentExecutors(Collection<?> changed) {
+      Map<HasCache, List<Object>> accessors = new IdentityHashMap<HasCache, List<Object>>();
+      for (Map.Entry<Object, Set<HasCache>> entry : accesses.entrySet()) {
+        for (HasCache owner : entry.getValue()) {
+          List<Object> list = accessors.get(owner);
+          if (list == null) {
+            list = new ArrayList<Object>(2);
+            accessors.put(owner, list);
+          }
+          list.add(entry.getKey());
+        }
+      }
+
+      Set<Object> result = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+      Set<HasCache> visited = newSet();
+      LinkedList<Object> todo = new LinkedList<Object>(changed);
+      result.addAll(changed);
+      while (!todo.isEmpty()) {
+        Set<HasCache> used = accesses.get(todo.removeFirst());
+        if (used == null)
+          return null;
+        for (HasCache owner : used) {
+          if (!localOwners.contains(owner) && isShared(owner))
+            return null;
+          if (visited.add(owner)) {
+            for (Object executor : accessors.get(owner)) {
+              if (result.add(executor)) {
+                todo.add(executor);
+              }
+            }
+          }
+        }
+      }
+      return result;
+    }
+
+    /**
+     * Returns <code>true</code> if the executors only access the given objects or objects that are
+     * not part of the game data.
+     */
+    public boolean isCovered(Set<HasCache> owners, Collection<Object> executors) {
+      for (HasCache owner : getAccessed(executors)) {
+        if (!owners.contains(owner) && isShared(owner))
+          return false;
+      }
+      return true;
+    }
+
+    /**
+     * Returns <code>false</code> for objects that are not part of the game data, like the null
+     * containers of maintenance relations. Other units can not access them.
+     */
+    private boolean isShared(HasCache owner) {
+      GameData data = region.getData();
+      if (owner instanceof ZeroUnit)
+        return true;
+      else if (owner instanceof Unit)
+        return data.getUnit(((Unit) owner).getID()) == owner;
+      else if (owner instanceof Building)
+        return data.getBuilding(((Building) owner).getID()) == owner;
+      else if (owner instanceof Ship)
+        return data.getShip(((Ship) owner).getID()) == owner;
+      else if (owner instanceof Region)
+        return data.getRegion(((Region) owner).getID()) == owner;
+      else if (owner instanceof Faction)
+        return data.getFaction(((Faction) owner).getID()) == owner;
+      return false;
+    }
+
+    /**
+     * Returns all objects accessed by the executors.
+     */
+    public Set<HasCache> getAccessed(Collection<Object> executors) {
+      Set<HasCache> result = newSet();
+      for (Object executor : executors) {
+        Set<HasCache> used = accesses.get(executor);
+        if (used != null) {
+          result.addAll(used);
+        }
+      }
+      return result;
+    }
+  }
+
+  /**
+   * Switches dependency tracking on or off. If it is on, the factory records which objects are used
+   * by the orders of each unit. When orders change, only the orders of the units that depend on
+   * the changed units are executed again. All orders of the region are executed if the
+   * dependencies are unknown, for example because units have been added or orders use objects of
+   * other regions.
+   */
+  public synchronized void setDependencyTracking(boolean tracking) {
+    this.tracking = tracking;
+    synchronized (dependencies) {
+      dependencies.clear();
+    }
+  }
+
+  /**
+   * Returns <code>true</code> if dependency tracking is on.
+   */
+  public synchronized boolean isDependencyTracking() {
+    return tracking;
+  }
+
+  private RegionDependencies takeDependencies(Region r) {
+    synchronized (dependencies) {
+      if (!dependencies.isEmpty()
+          && dependencies.values().iterator().next().getRegion().getData() != r.getData()) {
+        // new report
+        dependencies.clear();
+      }
+      RegionDependencies deps = dependencies.remove(r);
+      return deps == null || deps.getRegion() != r ? null : deps;
+    }
+  }
+
+  private void putDependencies(Region r, RegionDependencies deps) {
+    synchronized (dependencies) {
+      dependencies.put(r, deps);
+    }
   }
 
   protected void postProcess(Region r) {
+    postProcess(r, r.units(), null);
+  }
+
+  private void postProcess(Region r, Collection<Unit> units, RegionDependencies deps) {
     // long time = System.currentTimeMillis();
     // log.finest(0);
-    for (Unit u : r.units()) {
+    for (Unit u : units) {
+      if (deps != null) {
+        deps.record(u);
+      }
       checkTransport(u);
       // updateSilver(u);
     }
+    if (deps != null) {
+      deps.record(null);
+    }
 
     GameData data = r.getData();
 
     // log.finest(System.currentTimeMillis() - time);
-    Object cause = new Object();
-    for (Region r2 : affected) {
-      if (r2 != null) {
-        if (!updater.isStopped()) {
-          data.fireOrdersChanged(this, r2, cause);
+    if (current != null) {
+      // listeners are notified after the relations have been published
+      current.affectedRegions = new ArrayList<Region>(affected);
+      current.affectedRegions.remove(null);
+    } else {
+      Object cause = new Object();
+      for (Region r2 : affected) {
+        if (r2 != null) {
+          if (!updater.isStopped()) {
+            data.fireOrdersChanged(this, r2, cause);
+          }
         }
       }
     }
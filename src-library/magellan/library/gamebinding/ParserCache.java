@@ -27,7 +27,8 @@ import magellan.library.GameData;
 import magellan.library.completion.Completer;
 
 /**
- * Caches an OrderParser based on data and completer.
+ * Caches an OrderParser based on data and completer. Parsers without completer are cached per
+ * thread, so that several threads can parse orders of the same data at the same time.
  */
 public class ParserCache<T> {
 
@@ -41,17 +42,23 @@ public class ParserCache<T> {
   }
 
   private GameData cachedData;
-  private T nullParser;
+  private ThreadLocal<T> nullParser = new ThreadLocal<T>();
   private Completer cachedCompleter;
   private T completerParser;
 
-  public T getOrderParser(GameData data, Completer completer, Factory<T> factory) {
+  public synchronized T getOrderParser(GameData data, Completer completer, Factory<T> factory) {
+    if (cachedData != data) {
+      // forget the parsers of all threads
+      nullParser = new ThreadLocal<T>();
+    }
     if (completer == null) {
-      if (cachedData != data || nullParser == null) {
-        nullParser = factory.create();
+      T parser = nullParser.get();
+      if (cachedData != data || parser == null) {
+        parser = factory.create();
+        nullParser.set(parser);
         cachedData = data;
       }
-      return nullParser;
+      return parser;
     } else {
       if (cachedCompleter != completer || cachedData != data || completerParser == null) {
         completerParser = factory.create();
@@ -31,4 +31,18 @@ public interface RelationFactory {
 
   public void createRelations(Region region);
 
+  /**
+   * Returns <code>true</code> if there are regions whose relations are not up to date yet, because
+   * they are waiting to be processed or are being processed in the background.
+   */
+  public boolean isPending();
+
+  /**
+   * Waits until the relations of all changed regions are up to date. Returns immediately if
+   * updating is stopped.
+   * 
+   * @throws InterruptedException if the current thread is interrupted while waiting
+   */
+  public void waitForRelations() throws InterruptedException;
+
 }
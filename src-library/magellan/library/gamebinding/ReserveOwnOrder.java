@@ -23,6 +23,8 @@
 //
 package magellan.library.gamebinding;
 
+import java.util.Collection;
+
 import magellan.library.GameData;
 import magellan.library.Order;
 import magellan.library.Region;
@@ -42,7 +44,15 @@ public class ReserveOwnOrder {
    *      magellan.library.GameData, magellan.library.Unit, int)
    */
   public static void execute(Region region, ExecutionState state, GameData data) {
-    for (Unit u : region.units()) {
+    execute(region, state, data, region.units());
+  }
+
+  /**
+   * The given units in the region reserve their own items.
+   */
+  public static void execute(Region region, ExecutionState state, GameData data,
+      Collection<Unit> units) {
+    for (Unit u : units) {
       for (Order order : u.getOrders2()) {
         if (order instanceof ReserveOrder) {
           ((ReserveOrder) order).setOwn(true);
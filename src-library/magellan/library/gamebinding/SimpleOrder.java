@@ -36,12 +36,13 @@ import magellan.library.tasks.Problem;
 import magellan.library.tasks.Problem.Severity;
 import magellan.library.tasks.ProblemFactory;
 import magellan.library.tasks.SimpleProblem;
+import magellan.library.utils.CacheStage;
 import magellan.library.utils.OrderToken;
 
 /**
  * Magellan's standard order implementation.
  */
-public class SimpleOrder implements Order {
+public class SimpleOrder implements Order, Cloneable {
 
   private List<OrderToken> tokens;
   private String text;
@@ -95,6 +96,18 @@ public class SimpleOrder implements Order {
     text = atext;
   }
 
+  /**
+   * Returns a copy of this order. The copy shares the tokens and the parsed arguments with this
+   * order, but it has its own problem and flags, which may change when the order is executed.
+   */
+  public SimpleOrder copy() {
+    try {
+      return (SimpleOrder) clone();
+    } catch (CloneNotSupportedException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
   /**
    * @see magellan.library.Order#setPersistent(boolean)
    */
@@ -193,6 +206,11 @@ public class SimpleOrder implements Order {
    * @see magellan.library.Order#getProblem()
    */
   public Problem getProblem() {
+    Problem problem = this.problem;
+    CacheStage stage = CacheStage.getActive();
+    if (stage != null && stage.hasProblem(this)) {
+      problem = stage.getProblem(this);
+    }
     if (problem != null)
       return problem;
     else if (!isValid())
@@ -205,6 +223,9 @@ public class SimpleOrder implements Order {
    * @see magellan.library.Order#setProblem(magellan.library.tasks.Problem)
    */
   public void setProblem(Problem problem) {
+    CacheStage stage = CacheStage.getActive();
+    if (stage != null && stage.setProblem(this, problem))
+      return;
     this.problem = problem;
   }
 
@@ -23,6 +23,7 @@
 //
 package magellan.library.gamebinding;
 
+import java.util.Collection;
 import java.util.List;
 
 import magellan.library.CoordinateID;
@@ -46,7 +47,15 @@ public class UnitMaintenanceOrder {
    *      magellan.library.GameData, magellan.library.Unit, int)
    */
   public static void execute(Region region, ExecutionState state, GameData data) {
-    for (Unit u : region.units()) {
+    execute(region, state, data, region.units());
+  }
+
+  /**
+   * Pays maintenance for the given units in the region.
+   */
+  public static void execute(Region region, ExecutionState state, GameData data,
+      Collection<Unit> units) {
+    for (Unit u : units) {
       CoordinateID destination = u.getRegion().getCoordinate();
 
       List<MovementRelation> movements = u.getRelations(MovementRelation.class);
@@ -2,7 +2,6 @@ package magellan.library.impl;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -11,6 +10,7 @@ import magellan.library.ID;
 import magellan.library.Related;
 import magellan.library.relation.RenameNamedRelation;
 import magellan.library.relation.UnitRelation;
+import magellan.library.utils.CollectionFactory;
 
 /**
  * A RelatedObject knows concepts of relations
@@ -84,7 +84,7 @@ public abstract class MagellanRelatedImpl extends MagellanDescribedImpl implemen
    */
   public void addAttribute(String key, String value) {
     if (attributes == null) {
-      attributes = new LinkedHashMap<String, String>();
+      attributes = CollectionFactory.<String, String> createOrderedMap();
     }
     attributes.put(key, value);
   }
@@ -479,7 +479,8 @@ public class MagellanShipImpl extends MagellanUnitContainerImpl implements Ship,
   public int getMaxPersons() {
     /* max persons are not modified by damage */
     /* return (maxPersons != -1) ? maxPersons : getMaxCapacity(getShipType().getMaxPersons()); */
-    return (maxPersons != -1) ? maxPersons : getShipType().getMaxPersons();
+    return (maxPersons != -1 || getShipType() == null) ? maxPersons : getShipType()
+        .getMaxPersons();
   }
 
   /**
@@ -17,6 +17,7 @@ import magellan.library.Spell;
 import magellan.library.StringID;
 import magellan.library.gamebinding.EresseaConstants;
 import magellan.library.rules.ItemType;
+import magellan.library.rules.ObjectType;
 import magellan.library.utils.CollectionFactory;
 import magellan.library.utils.Locales;
 import magellan.library.utils.Resources;
@@ -540,4 +541,15 @@ public class MagellanSpellImpl extends MagellanDescribedImpl implements Spell {
     return 0;
   }
 
+  @Override
+  protected void copyReferences(Map<ObjectType, ObjectType> copies) {
+    super.copyReferences(copies);
+    if (components != null) {
+      Map<String, String> oldComponents = components;
+      components = CollectionFactory.<String, String> createSyncOrderedMap();
+      components.putAll(oldComponents);
+    }
+    parsedComponents = null;
+  }
+
 }
@@ -16,8 +16,6 @@ package magellan.library.impl;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Hashtable;
-import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -38,6 +36,7 @@ import magellan.library.relation.UnitRelation;
 import magellan.library.rules.CastleType;
 import magellan.library.rules.UnitContainerType;
 import magellan.library.utils.Cache;
+import magellan.library.utils.CacheStage;
 import magellan.library.utils.CacheHandler;
 import magellan.library.utils.CollectionFactory;
 import magellan.library.utils.Sorted;
@@ -221,6 +220,12 @@ public abstract class MagellanUnitContainerImpl extends MagellanRelatedImpl impl
     // null now we create an empty collection, but if units are
     // added later we have to create a new collection object
     // see addUnit()
+    CacheStage stage = CacheStage.getActive();
+    if (stage != null) {
+      Collection<Unit> staged = stage.getUnits(this);
+      if (staged != null)
+        return staged;
+    }
     if (units == null)
       return Collections.emptyList();
 
@@ -363,7 +368,7 @@ public abstract class MagellanUnitContainerImpl extends MagellanRelatedImpl impl
     }
 
     if (cache1.modifiedContainerUnits == null) {
-      cache1.modifiedContainerUnits = new Hashtable<EntityID, Unit>();
+      cache1.modifiedContainerUnits = CollectionFactory.<EntityID, Unit> createSyncMap();
     }
 
     if (units != null) {
@@ -511,7 +516,7 @@ public abstract class MagellanUnitContainerImpl extends MagellanRelatedImpl impl
    */
   public String putTag(String tag, String value) {
     if (tagMap == null) {
-      tagMap = new LinkedHashMap<String, String>(1);
+      tagMap = CollectionFactory.<String, String> createOrderedMap(1);
     }
 
     return tagMap.put(tag, value);
@@ -552,7 +557,7 @@ public abstract class MagellanUnitContainerImpl extends MagellanRelatedImpl impl
    */
   public Map<String, String> getTagMap() {
     if (tagMap == null) {
-      tagMap = new LinkedHashMap<String, String>(1);
+      tagMap = CollectionFactory.<String, String> createOrderedMap(1);
     }
 
     return Collections.unmodifiableMap(tagMap);
@@ -606,6 +611,9 @@ public abstract class MagellanUnitContainerImpl extends MagellanRelatedImpl impl
    */
   public boolean hasCache() {
     // return cacheReference!=null && cacheReference.get()!=null;
+    CacheStage stage = CacheStage.getActive();
+    if (stage != null && stage.access(this))
+      return stage.hasCache(this, cache);
     return cache != null;
   }
 
@@ -623,6 +631,9 @@ public abstract class MagellanUnitContainerImpl extends MagellanRelatedImpl impl
     // cacheReference = new SoftReference<Cache>(c);
     // return c;
     // }
+    CacheStage stage = CacheStage.getActive();
+    if (stage != null && stage.access(this))
+      return stage.getCache(this, cache);
     if (cache == null) {
       cache = new Cache();
     }
@@ -636,6 +647,11 @@ public abstract class MagellanUnitContainerImpl extends MagellanRelatedImpl impl
    */
   public void setCache(Cache cache) {
     // cacheReference = new SoftReference<Cache>(cache);
+    CacheStage stage = CacheStage.getActive();
+    if (stage != null && stage.access(this)) {
+      stage.setCache(this, cache);
+      return;
+    }
     this.cache = cache;
   }
 
@@ -650,6 +666,11 @@ public abstract class MagellanUnitContainerImpl extends MagellanRelatedImpl impl
     // c.clear();
     // cacheReference.clear();
     // cacheReference = null;
+    CacheStage stage = CacheStage.getActive();
+    if (stage != null && stage.access(this)) {
+      stage.setCache(this, null);
+      return;
+    }
     if (cache == null)
       return;
     cache.clear();
@@ -698,8 +719,9 @@ public abstract class MagellanUnitContainerImpl extends MagellanRelatedImpl impl
     Cache cache1 = getCache();
 
     if (cache1.modifiedContainerUnits == null) {
-      cache1.modifiedContainerUnits = units == null ? new Hashtable<EntityID, Unit>()
-          : new Hashtable<EntityID, Unit>(units);
+      cache1.modifiedContainerUnits =
+          units == null ? CollectionFactory.<EntityID, Unit> createSyncMap() : CollectionFactory
+              .createSyncOrderedMap(units);
     }
     return cache1;
   }
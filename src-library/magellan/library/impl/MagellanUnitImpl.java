@@ -16,8 +16,6 @@ package magellan.library.impl;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Hashtable;
-import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
@@ -64,6 +62,7 @@ import magellan.library.rules.ItemType;
 import magellan.library.rules.Race;
 import magellan.library.rules.SkillType;
 import magellan.library.utils.Cache;
+import magellan.library.utils.CacheStage;
 import magellan.library.utils.CacheHandler;
 import magellan.library.utils.CollectionFactory;
 import magellan.library.utils.Locales;
@@ -71,6 +70,7 @@ import magellan.library.utils.MagellanFactory;
 import magellan.library.utils.OrderWriter;
 import magellan.library.utils.Regions;
 import magellan.library.utils.Resources;
+import magellan.library.utils.UnitChangeRecorder;
 import magellan.library.utils.guiwrapper.CacheableOrderEditor;
 import magellan.library.utils.logging.Logger;
 
@@ -224,6 +224,7 @@ public class MagellanUnitImpl extends MagellanRelatedImpl implements Unit {
    * @see magellan.library.Unit#ordersAreNull()
    */
   public boolean ordersAreNull() {
+    UnitChangeRecorder.checkRead(this);
     return ordersObject == null;
   }
 
@@ -243,6 +244,7 @@ public class MagellanUnitImpl extends MagellanRelatedImpl implements Unit {
    * @see magellan.library.Unit#clearOrders()
    */
   public void clearOrders() {
+    UnitChangeRecorder.checkWrite(this);
     if (!ordersAreNull()) {
       ordersObject.clear();
     }
@@ -268,6 +270,7 @@ public class MagellanUnitImpl extends MagellanRelatedImpl implements Unit {
    * @see magellan.library.Unit#removeOrderAt(int)
    */
   public void removeOrderAt(int i) {
+    UnitChangeRecorder.checkWrite(this);
     ordersObject.remove(i);
 
     processOrders();
@@ -289,6 +292,7 @@ public class MagellanUnitImpl extends MagellanRelatedImpl implements Unit {
    * @see magellan.library.Unit#removeOrder(java.lang.String, int)
    */
   public boolean removeOrder(String order, int length) {
+    UnitChangeRecorder.checkWrite(this);
     if (ordersAreNull())
       return false;
     boolean retVal = getOrdersObject().removeOrder(createOrder(order), length);
@@ -325,6 +329,7 @@ public class MagellanUnitImpl extends MagellanRelatedImpl implements Unit {
    * @see magellan.library.Unit#addOrder(java.lang.String)
    */
   public boolean addOrder(String order) {
+    UnitChangeRecorder.checkWrite(this);
     if ((order == null) || order.trim().equals(""))
       return false;
     addOrderAt(-1, createOrder(order));
@@ -361,6 +366,7 @@ public class MagellanUnitImpl extends MagellanRelatedImpl implements Unit {
    * @see magellan.library.Unit#addOrder(java.lang.String, boolean, int)
    */
   public boolean addOrder(String order, boolean replace, int length) {
+    UnitChangeRecorder.checkWrite(this);
     if ((order == null) || order.trim().equals("") || (replace && (length < 1)))
       return false;
 
@@ -422,6 +428,7 @@ public class MagellanUnitImpl extends MagellanRelatedImpl implements Unit {
    * @see magellan.library.Unit#addOrderAt(int, magellan.library.Order)
    */
   public void addOrderAt(int pos, Order newOrder) {
+    UnitChangeRecorder.checkWrite(this);
     if (pos < 0) {
       getOrdersObject().add(newOrder);
     } else {
@@ -444,6 +451,7 @@ public class MagellanUnitImpl extends MagellanRelatedImpl implements Unit {
    * @see magellan.library.Unit#replaceOrder(int, Order)
    */
   public void replaceOrder(int pos, Order newOrder) {
+    UnitChangeRecorder.checkWrite(this);
     ordersObject.set(pos, newOrder);
 
     processOrders();
@@ -472,6 +480,7 @@ public class MagellanUnitImpl extends MagellanRelatedImpl implements Unit {
    * @see magellan.library.Unit#addOrders(java.util.Collection)
    */
   public void addOrders(Collection<String> newOrders) {
+    UnitChangeRecorder.checkWrite(this);
     final int newPos = getOrdersObject().size();
     for (String line : newOrders) {
       getOrdersObject().add(createOrder(line));
@@ -506,6 +515,7 @@ public class MagellanUnitImpl extends MagellanRelatedImpl implements Unit {
    * @see magellan.library.Unit#addOrders2(java.util.Collection, boolean)
    */
   public void addOrders2(Collection<Order> newOrders) {
+    UnitChangeRecorder.checkWrite(this);
     getOrdersObject().addAll(newOrders);
     processOrders();
   }
@@ -517,6 +527,7 @@ public class MagellanUnitImpl extends MagellanRelatedImpl implements Unit {
    * @see magellan.library.Unit#setOrders(java.util.Collection)
    */
   public void setOrders(Collection<String> newOrders) {
+    UnitChangeRecorder.checkWrite(this);
     if (newOrders == null) {
       ordersObject = null;
       return;
@@ -544,6 +555,7 @@ public class MagellanUnitImpl extends MagellanRelatedImpl implements Unit {
    * @see magellan.library.Unit#setOrders2(java.util.Collection)
    */
   public void setOrders2(Collection<Order> newOrders) {
+    UnitChangeRecorder.checkWrite(this);
     if (newOrders == null) {
       ordersObject = null;
     } else {
@@ -568,6 +580,7 @@ public class MagellanUnitImpl extends MagellanRelatedImpl implements Unit {
    */
   @Deprecated
   public List<String> getOrders() {
+    UnitChangeRecorder.checkRead(this);
     if (ordersAreNull())
       return Collections.emptyList();
     List<String> list = new ArrayList<String>(getOrders2().size());
@@ -581,6 +594,13 @@ public class MagellanUnitImpl extends MagellanRelatedImpl implements Unit {
    * @see magellan.library.Unit#getOrders2()
    */
   public Orders getOrders2() {
+    UnitChangeRecorder.checkRead(this);
+    CacheStage stage = CacheStage.getActive();
+    if (stage != null) {
+      Orders staged = stage.getOrders(this);
+      if (staged != null)
+        return staged;
+    }
     if (ordersAreNull())
       return new MagellanOrdersImplementation(this);
     return ordersObject.getView();
@@ -954,7 +974,7 @@ public class MagellanUnitImpl extends MagellanRelatedImpl implements Unit {
    */
   private TempUnit addTemp(TempUnit u) {
     if (tempUnits == null) {
-      tempUnits = new LinkedHashMap<ID, TempUnit>();
+      tempUnits = CollectionFactory.<ID, TempUnit> createOrderedMap();
 
       // enforce the creation of a new collection view
       tempUnitCollection = null;
@@ -1009,6 +1029,7 @@ public class MagellanUnitImpl extends MagellanRelatedImpl implements Unit {
    *          Vorlage comments
    */
   public Orders getCompleteOrders(boolean writeUnitTagsAsVorlageComment) {
+    UnitChangeRecorder.checkRead(this);
     final List<Order> cmds = new LinkedList<Order>();
     if (!ordersAreNull()) {
       cmds.addAll(ordersObject);
@@ -1040,6 +1061,7 @@ public class MagellanUnitImpl extends MagellanRelatedImpl implements Unit {
    * @throws IllegalArgumentException If <code>key</code> is negative
    */
   public TempUnit createTemp(GameData gdata, UnitID key) {
+    UnitChangeRecorder.checkShared("the list of temp units");
     if ((key).intValue() >= 0)
       throw new IllegalArgumentException(
           "Unit.createTemp(): cannot create temp unit with non-negative ID.");
@@ -1095,6 +1117,7 @@ public class MagellanUnitImpl extends MagellanRelatedImpl implements Unit {
    * Removes a temp unit with this unit as the parent completely from the game data.
    */
   public void deleteTemp(UnitID key, GameData gdata) {
+    UnitChangeRecorder.checkShared("the list of temp units");
     final TempUnit t = (TempUnit) removeTemp(key);
 
     if (t != null) {
@@ -1555,7 +1578,8 @@ public class MagellanUnitImpl extends MagellanRelatedImpl implements Unit {
     }
 
     if (cache1.modifiedItems == null) {
-      cache1.modifiedItems = new Hashtable<StringID, Item>(getItems().size() + 1);
+      cache1.modifiedItems =
+          CollectionFactory.<StringID, Item> createSyncMap(getItems().size() + 1);
     }
 
     // 1. check whether there is anything to do at all
@@ -1972,6 +1996,8 @@ public class MagellanUnitImpl extends MagellanRelatedImpl implements Unit {
   }
 
   private void processOrders() {
+    if (UnitChangeRecorder.deferRelations(this))
+      return;
     if (ordersAreNull() || (getRegion() == null))
       return;
 
@@ -2048,6 +2074,7 @@ public class MagellanUnitImpl extends MagellanRelatedImpl implements Unit {
    * @see magellan.library.utils.Taggable#deleteAllTags()
    */
   public void deleteAllTags() {
+    UnitChangeRecorder.checkWrite(this);
     tagMap = null;
   }
 
@@ -2055,6 +2082,7 @@ public class MagellanUnitImpl extends MagellanRelatedImpl implements Unit {
    * @see magellan.library.utils.Taggable#putTag(java.lang.String, java.lang.String)
    */
   public String putTag(String tag, String value) {
+    UnitChangeRecorder.checkWrite(this);
     if (tag.equals("$tm_trigger")) {
       // Faction f = (this).getFaction();
       // (new E3CommandParser(data, ExtendedCommandsProvider.createHelper(null, data, null, f)))
@@ -2062,7 +2090,7 @@ public class MagellanUnitImpl extends MagellanRelatedImpl implements Unit {
     }
 
     if (tagMap == null) {
-      tagMap = new LinkedHashMap<String, String>(1);
+      tagMap = CollectionFactory.<String, String> createOrderedMap(1);
     }
 
     return tagMap.put(tag, value);
@@ -2072,6 +2100,7 @@ public class MagellanUnitImpl extends MagellanRelatedImpl implements Unit {
    * @see magellan.library.utils.Taggable#getTag(java.lang.String)
    */
   public String getTag(String tag) {
+    UnitChangeRecorder.checkRead(this);
     if (tagMap == null)
       return null;
 
@@ -2082,6 +2111,7 @@ public class MagellanUnitImpl extends MagellanRelatedImpl implements Unit {
    * @see magellan.library.utils.Taggable#removeTag(java.lang.String)
    */
   public String removeTag(String tag) {
+    UnitChangeRecorder.checkWrite(this);
     if (tagMap == null)
       return null;
 
@@ -2092,6 +2122,7 @@ public class MagellanUnitImpl extends MagellanRelatedImpl implements Unit {
    * @see magellan.library.utils.Taggable#containsTag(java.lang.String)
    */
   public boolean containsTag(String tag) {
+    UnitChangeRecorder.checkRead(this);
     if (tagMap == null)
       return false;
 
@@ -2102,8 +2133,9 @@ public class MagellanUnitImpl extends MagellanRelatedImpl implements Unit {
    * @see magellan.library.utils.Taggable#getTagMap()
    */
   public Map<String, String> getTagMap() {
+    UnitChangeRecorder.checkRead(this);
     if (tagMap == null) {
-      tagMap = new LinkedHashMap<String, String>(1);
+      tagMap = CollectionFactory.<String, String> createOrderedMap(1);
     }
 
     return Collections.unmodifiableMap(tagMap);
@@ -2113,6 +2145,7 @@ public class MagellanUnitImpl extends MagellanRelatedImpl implements Unit {
    * @see magellan.library.utils.Taggable#hasTags()
    */
   public boolean hasTags() {
+    UnitChangeRecorder.checkRead(this);
     return (tagMap != null) && !tagMap.isEmpty();
   }
 
@@ -2157,6 +2190,9 @@ public class MagellanUnitImpl extends MagellanRelatedImpl implements Unit {
    */
   public boolean hasCache() {
     // return cacheReference!=null && cacheReference.get()!=null;
+    CacheStage stage = CacheStage.getActive();
+    if (stage != null && stage.access(this))
+      return stage.hasCache(this, cache);
     return cache != null;
   }
 
@@ -2174,6 +2210,9 @@ public class MagellanUnitImpl extends MagellanRelatedImpl implements Unit {
     // cacheReference = new SoftReference<Cache>(c);
     // return c;
     // }
+    CacheStage stage = CacheStage.getActive();
+    if (stage != null && stage.access(this))
+      return stage.getCache(this, cache);
     if (cache == null) {
       cache = new Cache();
     }
@@ -2187,6 +2226,11 @@ public class MagellanUnitImpl extends MagellanRelatedImpl implements Unit {
    */
   public void setCache(Cache cache) {
     // cacheReference = new SoftReference<Cache>(cache);
+    CacheStage stage = CacheStage.getActive();
+    if (stage != null && stage.access(this)) {
+      stage.setCache(this, cache);
+      return;
+    }
     this.cache = cache;
   }
 
@@ -2201,6 +2245,11 @@ public class MagellanUnitImpl extends MagellanRelatedImpl implements Unit {
     // c.clear();
     // cacheReference.clear();
     // cacheReference = null;
+    CacheStage stage = CacheStage.getActive();
+    if (stage != null && stage.access(this)) {
+      stage.setCache(this, null);
+      return;
+    }
     if (cache == null)
       return;
     cache.clear();
@@ -2433,6 +2482,7 @@ public class MagellanUnitImpl extends MagellanRelatedImpl implements Unit {
    * @return Returns ordersConfirmed.
    */
   public boolean isOrdersConfirmed() {
+    UnitChangeRecorder.checkRead(this);
     return ordersConfirmed;
   }
 
@@ -2442,6 +2492,7 @@ public class MagellanUnitImpl extends MagellanRelatedImpl implements Unit {
    * @param ordersConfirmed The value for ordersConfirmed.
    */
   public void setOrdersConfirmed(boolean ordersConfirmed) {
+    UnitChangeRecorder.checkWrite(this);
     this.ordersConfirmed = ordersConfirmed;
   }
 
@@ -54,6 +54,7 @@ public abstract class AbstractReportParser implements ReportParser {
   protected Faction firstFaction;
   protected ReportTransformer transformer;
   protected int errors;
+  protected boolean parallel;
 
   protected static final String number = "[\\+\\-]?\\d+";
 
@@ -250,6 +251,10 @@ public abstract class AbstractReportParser implements ReportParser {
     transformer = coordinateTransformer;
   }
 
+  public void setParallel(boolean parallel) {
+    this.parallel = parallel;
+  }
+
   /**
    * @see magellan.library.io.ReportParser#read(magellan.library.io.file.FileType,
    *      magellan.library.Rules)
@@ -273,4 +278,4 @@ public abstract class AbstractReportParser implements ReportParser {
     }
   }
 
-}
\ No newline at end of file
+}
\ No newline at end of file
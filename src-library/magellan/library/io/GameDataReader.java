@@ -38,6 +38,7 @@ public class GameDataReader {
   private static final Logger log = Logger.getInstance(GameDataReader.class);
 
   protected UserInterface ui = null;
+  protected boolean parallel = false;
 
   /**
    * Constructs a new GameDataReader
@@ -51,6 +52,21 @@ public class GameDataReader {
     this.ui = ui;
   }
 
+  /**
+   * Enables or disables parsing reports on several threads. The resulting GameData is the same
+   * either way, parallel parsing only uses more cores (and a bit more memory).
+   */
+  public void setParallel(boolean parallel) {
+    this.parallel = parallel;
+  }
+
+  /**
+   * Returns <code>true</code> if reports are parsed on several threads.
+   */
+  public boolean isParallel() {
+    return parallel;
+  }
+
   /**
    * Read a gamedata from a given File. At the beginning the game name is read by a
    * <code>GameNameReader</code>. With this name the corresponding rules and game
@@ -123,6 +139,7 @@ public class GameDataReader {
 
     parser.setUI(ui);
     parser.setTransformer(coordinateTransformer);
+    parser.setParallel(parallel);
     GameData data = parser.read(aFileType, rules);
 
     if (data != null) {
@@ -178,6 +195,7 @@ public class GameDataReader {
     try {
       GameDataReader.log.info("Loading report " + aFileType.getName());
       CRParser parser = new CRParser(ui, coordinateTranslator);
+      parser.setParallel(parallel);
       parser.read(reader, newData);
     } finally {
       try {
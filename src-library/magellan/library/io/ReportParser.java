@@ -32,4 +32,10 @@ public interface ReportParser extends GameDataIO {
 
   void setTransformer(ReportTransformer coordinateTransformer);
 
+  /**
+   * Enables or disables parsing on several threads. Parsers that cannot parse in parallel ignore
+   * this setting.
+   */
+  void setParallel(boolean parallel);
+
 }
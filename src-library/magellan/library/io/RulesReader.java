@@ -15,6 +15,8 @@ package magellan.library.io;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
 
 import magellan.library.Rules;
 import magellan.library.io.cr.CRParser;
@@ -25,7 +27,9 @@ import magellan.library.utils.Resources;
 import magellan.library.utils.logging.Logger;
 
 /**
- * DOCUMENT-ME
+ * Reads the rules of a game from etc/rules. Parsed rules are cached for the whole process, keyed by
+ * the game name and the path, time stamp and length of the rule file. Every call returns a fresh copy
+ * of the cached rules, because reports change their rules (by translations, for example).
  * 
  * @author $Author: $
  * @version $Revision: 305 $
@@ -33,6 +37,27 @@ import magellan.library.utils.logging.Logger;
 public class RulesReader {
   private static final Logger log = Logger.getInstance(RulesReader.class);
 
+  private static final Map<String, CachedRules> cache = new HashMap<String, CachedRules>();
+
+  private static class CachedRules {
+    private final File file;
+    private final long lastModified;
+    private final long length;
+    private final GenericRules rules;
+
+    CachedRules(File file, GenericRules rules) {
+      this.file = file;
+      lastModified = file.lastModified();
+      length = file.length();
+      this.rules = rules;
+    }
+
+    boolean isValid(File ruleFile) {
+      return file.equals(ruleFile) && lastModified == ruleFile.lastModified()
+          && length == ruleFile.length();
+    }
+  }
+
   /**
    * Creates a new RulesReader object.
    */
@@ -90,10 +115,33 @@ public class RulesReader {
       }
     }
 
+    String key = name + ending;
+    synchronized (RulesReader.cache) {
+      CachedRules cached = RulesReader.cache.get(key);
+      if (cached != null && cached.isValid(ruleFile))
+        return new GenericRules(cached.rules);
+    }
+
     FileType filetype = FileTypeFactory.singleton().createInputStreamSourceFileType(ruleFile);
 
     Rules rules = new CRParser(null).readRules(filetype);
     rules.setGameName(name);
+    if (rules instanceof GenericRules) {
+      // the cached object is never handed out, so it is never changed
+      synchronized (RulesReader.cache) {
+        RulesReader.cache.put(key, new CachedRules(ruleFile, (GenericRules) rules));
+      }
+      return new GenericRules((GenericRules) rules);
+    }
     return rules;
   }
+
+  /**
+   * Removes all rules from the cache, so that they are read from their files again.
+   */
+  public static void clearCache() {
+    synchronized (RulesReader.cache) {
+      RulesReader.cache.clear();
+    }
+  }
 }
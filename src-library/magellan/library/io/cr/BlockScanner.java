@@ -0,0 +1,234 @@
+// class magellan.library.io.cr.BlockScanner
+// created on Oct 18, 2026
+//
+// Copyright 2003-2026 by magellan project team
+//
+// Author : $Author: $
+// $Id: $
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program (see doc/LICENCE.txt); if not, write to the
+// Free Software Foundation, Inc.,
+// 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+package magellan.library.io.cr;
+
+import java.io.CharArrayReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * A Scanner that tokenizes its input in parallel. The input is read in chunks that are cut at the
+ * start of blocks (REGION, PARTEI, EINHEIT, ...), if possible. Each chunk is tokenized by its own
+ * {@link Scanner} on a ForkJoinPool while the parser consumes the tokens of the previous chunks in
+ * order. At most a few chunks are held in memory at any time.
+ */
+public class BlockScanner extends Scanner {
+
+  private static final int CHUNK_SIZE = 1 << 18;
+
+  private final Reader in;
+  private final ForkJoinPool pool;
+  private final int maxPending;
+  private final Deque<ForkJoinTask<Chunk>> pending = new ArrayDeque<ForkJoinTask<Chunk>>();
+
+  private char[] buf;
+  private int end;
+  private boolean inputDone;
+  /** line number of the first line of the next chunk */
+  private int nextLine = 1;
+
+  private Chunk current;
+  private int index;
+
+  /**
+   * Creates a scanner that tokenizes on the common pool.
+   *
+   * @param in The Reader used for reading input
+   */
+  public BlockScanner(Reader in) {
+    this(in, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Creates a scanner that tokenizes on the given pool.
+   *
+   * @param in The Reader used for reading input
+   * @param pool The pool executing the tokenizers
+   */
+  public BlockScanner(Reader in, ForkJoinPool pool) {
+    this(in, pool, CHUNK_SIZE);
+  }
+
+  BlockScanner(Reader in, ForkJoinPool pool, int chunkSize) {
+    this.in = in;
+    this.pool = pool;
+    maxPending = Math.max(2, pool.getParallelism() * 2);
+    buf = new char[chunkSize];
+  }
+
+  /**
+   * @see magellan.library.io.cr.Scanner#getNextToken()
+   */
+  @Override
+  public void getNextToken() throws IOException {
+    while (current == null || index >= current.tokens.size()) {
+      if (current != null && current.error != null)
+        throw current.error;
+      if (!nextChunk()) {
+        argv[0] = null;
+        argv[1] = null;
+        argc = 0;
+        isBlock = false;
+        isIdBlock = false;
+        lnr = current == null ? 1 : current.eofLine;
+        eof = true;
+        in.close();
+        return;
+      }
+    }
+
+    current.tokens.get(index, this);
+    ++index;
+  }
+
+  /**
+   * Fills the queue of pending chunks and waits for the first one.
+   *
+   * @return <code>false</code> if there are no more chunks.
+   */
+  private boolean nextChunk() throws IOException {
+    while (!inputDone && pending.size() < maxPending) {
+      Chunk chunk = readChunk();
+      if (chunk != null) {
+        pending.add(pool.submit(chunk::tokenize, chunk));
+      }
+    }
+    if (pending.isEmpty())
+      return false;
+
+    try {
+      Chunk chunk = pending.removeFirst().get();
+      current = chunk;
+      index = 0;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException(e);
+    } catch (ExecutionException e) {
+      throw new IOException(e.getCause());
+    }
+    return true;
+  }
+
+  /**
+   * Reads the next chunk of input, which ends before the start of a block, if possible.
+   */
+  private Chunk readChunk() throws IOException {
+    int cut = -1;
+    while (cut < 0) {
+      if (end == buf.length) {
+        char[] newBuf = new char[buf.length * 2];
+        System.arraycopy(buf, 0, newBuf, 0, end);
+        buf = newBuf;
+      }
+      int read = in.read(buf, end, buf.length - end);
+      if (read < 0) {
+        inputDone = true;
+        if (end == 0)
+          return null;
+        cut = end;
+      } else {
+        end += read;
+        cut = findCut();
+      }
+    }
+
+    char[] content = new char[cut];
+    System.arraycopy(buf, 0, content, 0, cut);
+    System.arraycopy(buf, cut, buf, 0, end - cut);
+    end -= cut;
+
+    Chunk chunk = new Chunk(content, nextLine);
+    nextLine += countLines(content);
+    return chunk;
+  }
+
+  /**
+   * Returns the start of the last block in the second half of the buffer, or, if there is none, the
+   * start of the last complete line. Returns -1 if there is no complete line in the buffer.
+   */
+  private int findCut() {
+    int lastLine = -1;
+    for (int i = end - 1; i > 0; --i) {
+      if (buf[i - 1] == '\n' || (buf[i - 1] == '\r' && buf[i] != '\n')) {
+        if (lastLine < 0) {
+          lastLine = i;
+        }
+        if (i < end / 2) {
+          break;
+        }
+        if (buf[i] >= 'A' && buf[i] <= 'Z')
+          return i;
+      }
+    }
+    return lastLine;
+  }
+
+  private static int countLines(char[] content) {
+    int lines = 0;
+    for (int i = 0; i < content.length; ++i) {
+      if (content[i] == '\n'
+          || (content[i] == '\r' && (i + 1 == content.length || content[i + 1] != '\n'))) {
+        ++lines;
+      }
+    }
+    return lines;
+  }
+
+  /**
+   * The tokens of a part of the input.
+   */
+  private static class Chunk {
+    private char[] content;
+    private final int firstLine;
+
+    final Tokens tokens;
+    int eofLine;
+    IOException error;
+
+    Chunk(char[] content, int firstLine) {
+      this.content = content;
+      this.firstLine = firstLine;
+      tokens = new Tokens(content.length / 16 + 1);
+    }
+
+    void tokenize() {
+      try {
+        Scanner sc = new Scanner(new CharArrayReader(content));
+        sc.lnr = firstLine - 1;
+        for (sc.getNextToken(); !sc.eof; sc.getNextToken()) {
+          tokens.add(sc);
+        }
+        eofLine = sc.lnr;
+      } catch (IOException e) {
+        error = e;
+      }
+      content = null;
+    }
+  }
+}
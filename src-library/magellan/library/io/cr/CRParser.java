@@ -12,6 +12,9 @@ import static org.apache.commons.beanutils.PropertyUtils.setProperty;
 import java.io.IOException;
 import java.io.Reader;
 import java.lang.reflect.InvocationTargetException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
@@ -22,6 +25,9 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 import magellan.library.Addeable;
 import magellan.library.Alliance;
@@ -119,7 +125,16 @@ public class CRParser extends AbstractReportParser implements RulesIO, GameDataI
   String configuration;
   String coordinates;
   boolean umlauts;
-  final Collection<String> warnedLines = new HashSet<String>();
+  final Collection<String> warnedLines;
+
+  /** the block this parser reads in parallel to others, <code>null</code> if it reads the report */
+  private Detached detached;
+
+  /** the maximum number of tokens of the REGION blocks that are parsed in parallel at a time */
+  private static final int REGION_BATCH_SIZE = 1 << 15;
+
+  /** the current number of tokens of the REGION blocks that are parsed in parallel at a time */
+  private int regionBatchSize = REGION_BATCH_SIZE;
 
   private BlockParser unitParser;
 
@@ -160,6 +175,24 @@ public class CRParser extends AbstractReportParser implements RulesIO, GameDataI
       this.ui = ui;
     }
     transformer = translator;
+    warnedLines = ConcurrentHashMap.newKeySet();
+  }
+
+  /**
+   * Creates a parser that reads one REGION block of the parent's report in parallel to others.
+   */
+  private CRParser(CRParser parent, Scanner scanner, Detached detached) {
+    ui = new NullUserInterface();
+    transformer = parent.transformer;
+    world = parent.world;
+    game = parent.game;
+    version = parent.version;
+    configuration = parent.configuration;
+    coordinates = parent.coordinates;
+    umlauts = parent.umlauts;
+    warnedLines = parent.warnedLines;
+    sc = scanner;
+    this.detached = detached;
   }
 
   /**
@@ -203,11 +236,10 @@ public class CRParser extends AbstractReportParser implements RulesIO, GameDataI
       }
     }
 
-    if (!warnedLines.contains(context + "_" + msg)) {
+    if (warnedLines.add(context + "_" + msg)) {
       // only warn once for context and message combination
       CRParser.log.log(logLevel, "unknown in line " + sc.lnr + ": (" + context + ")", null);
       CRParser.log.log(logLevel, msg, null);
-      warnedLines.add(context + "_" + msg);
     }
 
     if (fetch) {
@@ -362,6 +394,7 @@ public class CRParser extends AbstractReportParser implements RulesIO, GameDataI
       Spell s = world.getSpell(id);
 
       if (s == null) {
+        changesWorld();
         s = MagellanFactory.createSpell(id, world);
         s.setName(sc.argv[0]);
         world.addSpell(s);
@@ -402,6 +435,7 @@ public class CRParser extends AbstractReportParser implements RulesIO, GameDataI
         Spell spell = world.getSpell(spellID);
 
         if (spell == null) {
+          changesWorld();
           CRParser.log
               .warn(
                   "CRParser.parseUnitCombatSpells(): a combat spell refers to an unknown spell (line "
@@ -441,18 +475,11 @@ public class CRParser extends AbstractReportParser implements RulesIO, GameDataI
       // read message attributes
       sc.getNextToken(); // skip MESSAGE xx
 
+      IntegerID typeID = null;
       String section = null;
       while (!sc.eof && !sc.isBlock) {
         if ((sc.argc == 2) && sc.argv[1].equalsIgnoreCase("type")) {
-          final IntegerID typeID = IntegerID.create(sc.argv[0]);
-          MessageType mt = world.getMsgType(typeID);
-
-          if (mt == null) {
-            mt = new MessageType(typeID);
-            world.addMsgType(mt);
-          }
-
-          msg.setMessageType(mt);
+          typeID = IntegerID.create(sc.argv[0]);
         } else if ((sc.argc == 2) && sc.argv[1].equalsIgnoreCase("rendered")) {
           msg.setText(originTranslate(sc.argv[0]));
         } else if ((sc.argc == 2) && sc.argv[1].equalsIgnoreCase("toolacknowledged")) {
@@ -485,9 +512,9 @@ public class CRParser extends AbstractReportParser implements RulesIO, GameDataI
         sc.getNextToken();
       }
 
-      if (section != null && msg.getMessageType() != null && msg.getMessageType().getSection() == null) {
-        msg.getMessageType().setSection(section);
-      }
+      final IntegerID msgTypeID = typeID;
+      final String msgSection = section;
+      link(() -> setMessageType(msg, msgTypeID, msgSection));
       if (list == null) {
         list = new ArrayList<Message>();
       }
@@ -497,6 +524,30 @@ public class CRParser extends AbstractReportParser implements RulesIO, GameDataI
     return list;
   }
 
+  /**
+   * Sets the type of the message and the section of the type, if it has none. If there is no
+   * MessageType object for this type, a stub MessageType object is created and added to world.
+   *
+   * @param typeID The ID of the type, may be <code>null</code>
+   * @param section The section of the type, may be <code>null</code>
+   */
+  private void setMessageType(Message msg, IntegerID typeID, String section) {
+    if (typeID != null) {
+      MessageType mt = world.getMsgType(typeID);
+
+      if (mt == null) {
+        mt = new MessageType(typeID);
+        world.addMsgType(mt);
+      }
+
+      msg.setMessageType(mt);
+    }
+
+    if (section != null && msg.getMessageType() != null && msg.getMessageType().getSection() == null) {
+      msg.getMessageType().setSection(section);
+    }
+  }
+
   /**
    * Parse a battle block sequence. Currently this is a block of message blocks.
    *
@@ -903,7 +954,11 @@ public class CRParser extends AbstractReportParser implements RulesIO, GameDataI
       } else if ((sc.argc == 1) && sc.argv[0].startsWith("ISLAND ")) {
         parseIslands();
       } else if ((sc.argc == 1) && sc.argv[0].startsWith("REGION ")) {
-        parseRegion(regionSortIndex++);
+        if (parallel) {
+          regionSortIndex = parseRegions(regionSortIndex);
+        } else {
+          parseRegion(regionSortIndex++);
+        }
       } else if ((sc.argc == 1) && sc.argv[0].startsWith("SPEZIALREGION ")) {
         specialRegion = parseSpecialRegion(specialRegion);
       } else if ((sc.argc == 1) && sc.argv[0].equals("MESSAGETYPES")) {
@@ -2104,8 +2159,8 @@ public class CRParser extends AbstractReportParser implements RulesIO, GameDataI
       }
 
       final Skill skill =
-          new Skill(world.getRules().getSkillType(StringID.create(sc.argv[1]), true), points,
-              level, unit.getPersons(), world.noSkillPoints);
+          new Skill(known(world.getRules().getSkillType(StringID.create(sc.argv[1]), mayAdd())),
+              points, level, unit.getPersons(), world.noSkillPoints);
       skill.setChangeLevel(change);
       // skill.setLevelChanged(changed);
       unit.addSkill(skill);
@@ -2125,8 +2180,8 @@ public class CRParser extends AbstractReportParser implements RulesIO, GameDataI
 
     while (!sc.eof && (sc.argc == 2)) {
       final Item item =
-          new Item(world.getRules().getItemType(StringID.create(sc.argv[1]), true), Integer
-              .parseInt(sc.argv[0]));
+          new Item(known(world.getRules().getItemType(StringID.create(sc.argv[1]), mayAdd())),
+              Integer.parseInt(sc.argv[0]));
       if (unit != null) {
         unit.addItem(item);
       }
@@ -2143,8 +2198,8 @@ public class CRParser extends AbstractReportParser implements RulesIO, GameDataI
 
     while (!sc.eof && (sc.argc == 2)) {
       final Item item =
-          new Item(world.getRules().getItemType(StringID.create(sc.argv[1]), true), Integer
-              .parseInt(sc.argv[0]));
+          new Item(known(world.getRules().getItemType(StringID.create(sc.argv[1]), mayAdd())),
+              Integer.parseInt(sc.argv[0]));
       if (unitcontainer != null) {
         unitcontainer.addItem(item);
       }
@@ -2183,10 +2238,10 @@ public class CRParser extends AbstractReportParser implements RulesIO, GameDataI
         unit.setDescription(sc.argv[0]);
         sc.getNextToken();
       } else if ((sc.argc == 2) && sc.argv[1].equalsIgnoreCase("Typ")) {
-        unit.setRace(world.getRules().getRace(StringID.create(sc.argv[0]), true));
+        unit.setRace(known(world.getRules().getRace(StringID.create(sc.argv[0]), mayAdd())));
         sc.getNextToken();
       } else if ((sc.argc == 2) && sc.argv[1].equalsIgnoreCase("wahrerTyp")) {
-        unit.setRealRace(world.getRules().getRace(StringID.create(sc.argv[0]), true));
+        unit.setRealRace(known(world.getRules().getRace(StringID.create(sc.argv[0]), mayAdd())));
         sc.getNextToken();
       } else if ((sc.argc == 2) && sc.argv[1].equalsIgnoreCase("temp")) {
         unit.setTempID(UnitID.createUnitID(Integer.parseInt(sc.argv[0]), world.base));
@@ -2237,7 +2292,8 @@ public class CRParser extends AbstractReportParser implements RulesIO, GameDataI
       } else if ((sc.argc == 2) && sc.argv[1].equalsIgnoreCase("Silber")) {
         final int money = Integer.parseInt(sc.argv[0]);
         final Item item =
-            new Item(world.getRules().getItemType(EresseaConstants.I_USILVER, true), money);
+            new Item(known(world.getRules().getItemType(EresseaConstants.I_USILVER, mayAdd())),
+                money);
         unit.addItem(item);
         sc.getNextToken();
       } else if ((sc.argc == 2) && sc.argv[1].equalsIgnoreCase("Burg")) {
@@ -2322,19 +2378,7 @@ public class CRParser extends AbstractReportParser implements RulesIO, GameDataI
           && (sc.argv[1].equalsIgnoreCase("verkleidung") || sc.argv[1]
               .equalsIgnoreCase("anderepartei"))) {
         final EntityID fid = EntityID.createEntityID(Integer.parseInt(sc.argv[0]), world.base);
-
-        /*
-         * currently (2004-02) the cr is inconsistent with nr. There may be a situation where the
-         * corresponding faction of this tag does not exist in the game data so add it automagically
-         * (bugzilla bug 794).
-         */
-        Faction faction = world.getFaction(fid);
-
-        if (faction == null) {
-          faction = MagellanFactory.createFaction(fid, world);
-        }
-
-        unit.setGuiseFaction(faction);
+        link(() -> setGuiseFaction(unit, fid));
         sc.getNextToken();
       } else if ((sc.argc == 2) && sc.argv[1].equalsIgnoreCase("typprefix")) {
         unit.setRaceNamePrefix(sc.argv[0]);
@@ -2417,6 +2461,35 @@ public class CRParser extends AbstractReportParser implements RulesIO, GameDataI
     // can be restored
     unit.setSortIndex(sortIndex);
 
+    final EntityID unitFactionID = factionID;
+    final ID unitGroupID = groupID;
+    final boolean detach = oldUnit;
+    link(() -> setFaction(unit, unitFactionID, unitGroupID, detach));
+
+    return sortIndex;
+  }
+
+  /**
+   * Finds the guise faction of the unit in world. Currently (2004-02) the cr is inconsistent with
+   * nr. There may be a situation where the corresponding faction of this tag does not exist in the
+   * game data so add it automagically (bugzilla bug 794).
+   */
+  private void setGuiseFaction(Unit unit, EntityID fid) {
+    Faction faction = world.getFaction(fid);
+
+    if (faction == null) {
+      faction = MagellanFactory.createFaction(fid, world);
+    }
+
+    unit.setGuiseFaction(faction);
+  }
+
+  /**
+   * Adds the unit to its faction and group after the unit block has been read.
+   *
+   * @param oldUnit Whether the unit is an old unit that must be detached
+   */
+  private void setFaction(Unit unit, EntityID factionID, ID groupID, boolean oldUnit) {
     final Faction faction = getAddFaction(factionID);
 
     if (faction.getName() == null) {
@@ -2457,8 +2530,6 @@ public class CRParser extends AbstractReportParser implements RulesIO, GameDataI
     if (oldUnit) {
       unit.detach();
     }
-
-    return sortIndex;
   }
 
   /*
@@ -2471,6 +2542,7 @@ public class CRParser extends AbstractReportParser implements RulesIO, GameDataI
     while (!sc.eof && (sc.argc == 2)) {
       ItemType itemType = world.getRules().getItemType(StringID.create(sc.argv[1]));
       if (itemType == null) {
+        changesWorld();
         CRParser.log.warn("unknown price added: " + sc.argv[1] + ",maybe wrong coding?(actual:"
             + world.getEncoding() + ")");
         itemType = world.getRules().getItemType(StringID.create(sc.argv[1]), true);
@@ -2509,7 +2581,8 @@ public class CRParser extends AbstractReportParser implements RulesIO, GameDataI
         ship.setName(sc.argv[0]);
         sc.getNextToken();
       } else if ((sc.argc == 2) && sc.argv[1].equalsIgnoreCase("Typ")) {
-        final ShipType type = world.getRules().getShipType(StringID.create(sc.argv[0]), true);
+        final ShipType type =
+            known(world.getRules().getShipType(StringID.create(sc.argv[0]), mayAdd()));
         ship.setType(type);
         sc.getNextToken();
       } else if ((sc.argc == 2) && sc.argv[1].equalsIgnoreCase("Beschr")) {
@@ -2609,7 +2682,7 @@ public class CRParser extends AbstractReportParser implements RulesIO, GameDataI
         sc.getNextToken();
       } else if ((sc.argc == 2) && sc.argv[1].equalsIgnoreCase("Typ")) {
         final BuildingType bType =
-            world.getRules().getBuildingType(StringID.create(sc.argv[0]), true);
+            known(world.getRules().getBuildingType(StringID.create(sc.argv[0]), mayAdd()));
         bld.setType(bType);
         sc.getNextToken();
       } else if ((sc.argc == 2) && sc.argv[1].equalsIgnoreCase("Beschr")) {
@@ -2660,7 +2733,7 @@ public class CRParser extends AbstractReportParser implements RulesIO, GameDataI
     }
     if (object != null) {
       bm.setObject(object);
-      world.addBookmark(bm.getBookmark());
+      link(() -> world.addBookmark(bm.getBookmark()));
     }
     return bm;
   }
@@ -2826,11 +2899,7 @@ public class CRParser extends AbstractReportParser implements RulesIO, GameDataI
 
     sc.getNextToken(); // skip "REGION x y"
 
-    Region region = world.getRegion(c);
-
-    if (region == null) {
-      region = MagellanFactory.createRegion(c, world);
-    }
+    final Region region = getRegion(c);
 
     region.setSortIndex(sortIndex);
 
@@ -2852,22 +2921,13 @@ public class CRParser extends AbstractReportParser implements RulesIO, GameDataI
       } else if ((sc.argc == 2) && sc.argv[1].equalsIgnoreCase("Strasse")) {
         sc.getNextToken();
       } else if ((sc.argc == 2) && sc.argv[1].equalsIgnoreCase("ejcIsSelected")) {
-        world.addSelectedRegionCoordinate(region);
+        link(() -> world.addSelectedRegionCoordinate(region));
         sc.getNextToken();
       } else if ((sc.argc == 2) && sc.argv[1].equalsIgnoreCase("Insel")) {
         try {
           final IntegerID islandID = IntegerID.create(sc.argv[0]);
-          Island island = world.getIsland(islandID);
-
-          if (island == null) {
-            CRParser.log.warn("CRParser.parseRegion(): unknown island " + sc.argv[0]
-                + " with region " + region + " in line " + sc.lnr + ", creating it dynamically.");
-            island = new MagellanIslandImpl(islandID, world);
-            island.setName(islandID.toString());
-            world.addIsland(island);
-          }
-          region.setIsland(island);
-
+          final int line = sc.lnr;
+          link(() -> setIsland(region, islandID, line));
         } catch (final NumberFormatException nfe) {
           CRParser.log.warn("CRParser.parseRegion(): unknown island " + sc.argv[0]
               + " with region " + region + " in line " + sc.lnr);
@@ -2889,11 +2949,12 @@ public class CRParser extends AbstractReportParser implements RulesIO, GameDataI
         region.setOldWage(Integer.parseInt(sc.argv[0]));
         sc.getNextToken();
       } else if ((sc.argc == 2) && sc.argv[1].equalsIgnoreCase("aktiveRegion")) {
-        world.setActiveRegion(region);
+        link(() -> world.setActiveRegion(region));
         sc.getNextToken();
       } else if ((sc.argc == 2) && sc.argv[1].equalsIgnoreCase("Terrain")) {
         try {
-          final RegionType type = world.getRules().getRegionType(StringID.create(sc.argv[0]), true);
+          final RegionType type =
+              known(world.getRules().getRegionType(StringID.create(sc.argv[0]), mayAdd()));
           region.setType(type);
         } catch (final IllegalArgumentException e) {
           // can happen in StringID constructor if sc.argv[0] == ""
@@ -2920,9 +2981,8 @@ public class CRParser extends AbstractReportParser implements RulesIO, GameDataI
         iValidateFlags |= 1;
         sc.getNextToken();
       } else if ((sc.argc == 2) && sc.argv[1].equalsIgnoreCase("owner")) {
-        final Faction f =
-            world.getFaction(EntityID.createEntityID(Integer.parseInt(sc.argv[0]), world.base));
-        region.setOwnerFaction(f);
+        final EntityID ownerID = EntityID.createEntityID(Integer.parseInt(sc.argv[0]), world.base);
+        link(() -> region.setOwnerFaction(world.getFaction(ownerID)));
         sc.getNextToken();
       } else if ((sc.argc == 2) && sc.argv[1].equalsIgnoreCase("morale")) {
         region.setMorale(Integer.parseInt(sc.argv[0]));
@@ -3000,7 +3060,8 @@ public class CRParser extends AbstractReportParser implements RulesIO, GameDataI
 
         sc.getNextToken();
       } else if ((sc.argc == 2) && sc.argv[1].equalsIgnoreCase("herb")) {
-        final ItemType type = world.getRules().getItemType(StringID.create(sc.argv[0]), true);
+        final ItemType type =
+            known(world.getRules().getItemType(StringID.create(sc.argv[0]), mayAdd()));
         region.setHerb(type);
         sc.getNextToken();
       } else if ((sc.argc == 2) && sc.argv[1].equalsIgnoreCase("herbamount")) {
@@ -3108,9 +3169,318 @@ public class CRParser extends AbstractReportParser implements RulesIO, GameDataI
             + "' - it is ignored.");
         region.setType(RegionType.unknown);
       }
+    }
+    if (detached == null) {
       world.addRegion(region);
     } else {
+      detached.region = region;
+    }
+  }
+
+  /**
+   * Returns the region at c. If it is not in world, a new region is returned.
+   */
+  private Region getRegion(CoordinateID c) {
+    final Region region = world.getRegion(c);
+
+    if (region == null)
+      return MagellanFactory.createRegion(c, world);
+    changesWorld();
+    return region;
+  }
+
+  /**
+   * Sets the island of the region. If the island is unknown, it is created and added to world.
+   *
+   * @param line The line of the island tag
+   */
+  private void setIsland(Region region, IntegerID islandID, int line) {
+    Island island = world.getIsland(islandID);
+
+    if (island == null) {
+      CRParser.log.warn("CRParser.parseRegion(): unknown island " + islandID + " with region "
+          + region + " in line " + line + ", creating it dynamically.");
+      island = new MagellanIslandImpl(islandID, world);
+      island.setName(islandID.toString());
+      world.addIsland(island);
+    }
+    region.setIsland(island);
+  }
+
+  /**
+   * Parses consecutive REGION blocks in parallel. The tokens of a batch of blocks are recorded and
+   * each block is parsed by a {@link Detached} parser in its own task, without changing world. Then
+   * the results are added to world in the order of the report. Blocks that could not be parsed on
+   * their own, for example because they refer to objects of an earlier block of the same batch, are
+   * parsed again sequentially.
+   *
+   * @param sortIndex The sort index of the first region
+   * @return The sort index of the next region
+   * @throws IOException if the scanner throws an IOException
+   */
+  private int parseRegions(int sortIndex) throws IOException {
+    // create the lazily initialized objects before the tasks use them
+    world.getGameSpecificStuff().getRelationFactory();
+    world.getNullFaction();
+    if (sc instanceof Tokens.Replay) {
+      sc = ((Tokens.Replay) sc).unwrap();
+    }
+
+    final Tokens tokens = new Tokens(Math.max(regionBatchSize, 1024));
+    final List<Detached> blocks = new ArrayList<Detached>();
+    do {
+      final int start = tokens.size();
+      do {
+        tokens.add(sc);
+        sc.getNextToken();
+      } while (!sc.eof && !isRegionEnd());
+      blocks.add(new Detached(tokens, sortIndex + blocks.size(), start, tokens.size()));
+    } while (!sc.eof && sc.argv[0].startsWith("REGION ") && tokens.size() < regionBatchSize);
+
+    final List<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>(blocks.size());
+    for (Detached block : blocks) {
+      tasks.add(ForkJoinPool.commonPool().submit(block));
+    }
+    for (ForkJoinTask<?> task : tasks) {
+      task.join();
+    }
+
+    final Scanner rest = sc;
+    for (Detached block : blocks) {
+      if (!block.wire()) {
+        final Tokens.Replay replay = tokens.replay(block.start, rest);
+        sc = replay;
+        parseRegion(block.sortIndex);
+        if (replay.getIndex() != block.end) {
+          // the region did not end where expected, the top level goes on from here and the
+          // following blocks are discarded; parse only one block next time
+          regionBatchSize = 0;
+          return block.sortIndex + 1;
+        }
+        sc = rest;
+      }
+    }
+    regionBatchSize = Math.min(REGION_BATCH_SIZE, tokens.size() * 2);
+    return sortIndex + blocks.size();
+  }
+
+  /**
+   * Returns <code>true</code> if the current token starts a block that ends a REGION block: the
+   * next region or one of the blocks that follow the regions.
+   */
+  private boolean isRegionEnd() {
+    return sc.isBlock
+        && (sc.argv[0].startsWith("REGION ") || sc.argv[0].startsWith("SPEZIALREGION ")
+            || sc.argv[0].startsWith("MESSAGETYPE") || sc.argv[0].equals("TRANSLATION"));
+  }
+
+  /**
+   * Returns <code>false</code> while parsing a REGION block in parallel to others. Then types of the
+   * rules must not be added.
+   */
+  private boolean mayAdd() {
+    return detached == null;
+  }
+
+  /**
+   * Returns the value. If it is <code>null</code> while parsing a REGION block in parallel to
+   * others, the block is given up, because the object would have to be added to world.
+   */
+  private <T> T known(T value) {
+    if (value == null) {
+      changesWorld();
+    }
+    return value;
+  }
+
+  /**
+   * Gives up parsing a REGION block in parallel to others, because an object of world would be
+   * changed. The block is parsed again sequentially.
+   */
+  private void changesWorld() {
+    if (detached != null)
+      throw new ConflictException();
+  }
+
+  /**
+   * Runs a change of world. While parsing a REGION block in parallel to others, the change is
+   * deferred until the region is added to world.
+   */
+  private void link(Runnable change) {
+    if (detached == null) {
+      change.run();
+    } else {
+      detached.links.add(change);
+    }
+  }
+
+  /**
+   * Helper function: Find a unit in world. If not found, create one and insert it. While parsing a
+   * REGION block in parallel to others, new units are kept by the block until it is added to world.
+   */
+  @Override
+  protected Unit getAddUnit(UnitID id, boolean old) {
+    if (detached == null)
+      return super.getAddUnit(id, old);
+
+    final Map<UnitID, Unit> units = old ? detached.oldUnits : detached.units;
+    Unit unit = units.get(id);
+
+    if (unit == null) {
+      if ((old ? world.getOldUnit(id) : world.getUnit(id)) != null) {
+        changesWorld();
+      }
+      unit = MagellanFactory.createUnit(id, world);
+      units.put(id, unit);
+    }
+
+    return unit;
+  }
+
+  /**
+   * Helper function: Find a building in world. If not found, create one and insert it. While
+   * parsing a REGION block in parallel to others, new buildings are kept by the block.
+   */
+  @Override
+  protected Building getAddBuilding(EntityID id) {
+    if (detached == null)
+      return super.getAddBuilding(id);
+
+    Building building = detached.buildings.get(id);
+
+    if (building == null) {
+      if (world.getBuilding(id) != null) {
+        changesWorld();
+      }
+      building = MagellanFactory.createBuilding(id, world);
+      detached.buildings.put(id, building);
+    }
+
+    return building;
+  }
+
+  /**
+   * Helper function: Find a ship in world. If not found, create one and insert it. While parsing a
+   * REGION block in parallel to others, new ships are kept by the block.
+   */
+  @Override
+  protected Ship getAddShip(EntityID id) {
+    if (detached == null)
+      return super.getAddShip(id);
+
+    Ship ship = detached.ships.get(id);
+
+    if (ship == null) {
+      if (world.getShip(id) != null) {
+        changesWorld();
+      }
+      ship = MagellanFactory.createShip(id, world);
+      detached.ships.put(id, ship);
+    }
+
+    return ship;
+  }
+
+  /**
+   * Thrown if a REGION block that is parsed in parallel to others would change world.
+   */
+  private static class ConflictException extends RuntimeException {
+    ConflictException() {
+      // thrown often, so without stack trace
+      super(null, null, false, false);
+    }
+  }
+
+  /**
+   * A REGION block that is parsed in parallel to other blocks. Its parser creates the region and
+   * the new units, buildings and ships of the block without adding them to world and defers all
+   * changes of world to {@link #wire()}.
+   */
+  private class Detached implements Runnable {
+    final Tokens tokens;
+    final int sortIndex;
+    final int start;
+    final int end;
+
+    final Map<UnitID, Unit> units = new LinkedHashMap<UnitID, Unit>();
+    final Map<UnitID, Unit> oldUnits = new LinkedHashMap<UnitID, Unit>();
+    final Map<EntityID, Building> buildings = new LinkedHashMap<EntityID, Building>();
+    final Map<EntityID, Ship> ships = new LinkedHashMap<EntityID, Ship>();
+    final List<Runnable> links = new ArrayList<Runnable>();
+    Region region;
+
+    private CRParser parser;
+    private boolean complete;
+
+    Detached(Tokens tokens, int sortIndex, int start, int end) {
+      this.tokens = tokens;
+      this.sortIndex = sortIndex;
+      this.start = start;
+      this.end = end;
+    }
+
+    public void run() {
+      world.useThreadOrderParser();
+      try {
+        parser = new CRParser(CRParser.this, tokens.replay(start, end), this);
+        parser.parseRegion(sortIndex);
+        complete = parser.sc.eof;
+      } catch (Exception e) {
+        // conflicts and errors in the data are left to the sequential parser
+        complete = false;
+      } finally {
+        world.removeThreadOrderParser();
+      }
+    }
+
+    /**
+     * Adds the region and the new objects of the block to world and applies the deferred changes.
+     *
+     * @return <code>false</code> if the block must be parsed again sequentially, because it was not
+     *         parsed completely or world already contains one of its objects.
+     */
+    boolean wire() {
+      if (!complete || region == null || world.getRegion(region.getCoordinate()) != null)
+        return false;
+      for (UnitID id : units.keySet()) {
+        if (world.getUnit(id) != null)
+          return false;
+      }
+      for (UnitID id : oldUnits.keySet()) {
+        if (world.getOldUnit(id) != null)
+          return false;
+      }
+      for (EntityID id : buildings.keySet()) {
+        if (world.getBuilding(id) != null)
+          return false;
+      }
+      for (EntityID id : ships.keySet()) {
+        if (world.getShip(id) != null)
+          return false;
+      }
+
+      for (Unit unit : units.values()) {
+        world.addUnit(unit);
+      }
+      for (Unit unit : oldUnits.values()) {
+        world.addOldUnit(unit);
+      }
+      for (Building building : buildings.values()) {
+        world.addBuilding(building);
+      }
+      for (Ship ship : ships.values()) {
+        world.addShip(ship);
+      }
+      parser.detached = null;
+      for (Runnable link : links) {
+        link.run();
+      }
       world.addRegion(region);
+      if (region.getName() != null) {
+        ui.setProgress(Resources.get("progressdialog.loadcr.step03", new Object[] { region
+            .getName() }), 2);
+      }
+      return true;
     }
   }
 
@@ -3182,7 +3552,7 @@ public class CRParser extends AbstractReportParser implements RulesIO, GameDataI
     while (!sc.eof && !sc.isBlock) {
       if ((sc.argc == 2) && sc.argv[1].equalsIgnoreCase("type")) {
         if (r == null) {
-          type = rules.getItemType(StringID.create(sc.argv[0]), true);
+          type = known(rules.getItemType(StringID.create(sc.argv[0]), mayAdd()));
 
           if (type != null) {
             r = new RegionResource(id, type);
@@ -3246,7 +3616,15 @@ public class CRParser extends AbstractReportParser implements RulesIO, GameDataI
       }
     }
 
-    // add scheme region as a normal region with unknown region type
+    final CoordinateID schemeID = c;
+    link(() -> addSchemeRegion(schemeID, scheme));
+  }
+
+  /**
+   * Adds the scheme region as a normal region with unknown region type, if world does not contain
+   * the region yet.
+   */
+  private void addSchemeRegion(CoordinateID c, Scheme scheme) {
     if (world.getRegion(c) == null) {
       final Region newRegion = MagellanFactory.createRegion(c, world);
       newRegion.setName(scheme.getName());
@@ -3265,6 +3643,55 @@ public class CRParser extends AbstractReportParser implements RulesIO, GameDataI
    * @see magellan.library.io.GameDataIO#read(java.io.Reader, magellan.library.GameData)
    */
   public synchronized GameData read(Reader in, GameData data) throws IOException {
+    return read(parallel ? new BlockScanner(in) : new Scanner(in), data);
+  }
+
+  /**
+   * Reads plain report files directly through a {@link java.nio.channels.FileChannel}, all other
+   * files and all files that are parsed in parallel through {@link FileType#createReader()}.
+   *
+   * @see magellan.library.io.AbstractReportParser#read(magellan.library.io.file.FileType,
+   *      magellan.library.Rules)
+   */
+  @Override
+  public GameData read(FileType aFileType, Rules rules) throws IOException {
+    final FileChannel channel = parallel ? null : aFileType.createChannel();
+    if (channel == null)
+      return super.read(aFileType, rules);
+
+    try {
+      final String encoding = aFileType.getEncoding();
+      final ByteBuffer bom = ByteBuffer.allocate(3);
+      channel.read(bom);
+      if (encoding == null || !Charset.isSupported(encoding) || isUTF16BOM(bom))
+        return super.read(aFileType, rules);
+      // skip UTF-8 byte order mark
+      channel.position(isUTF8BOM(bom) ? 3 : 0);
+
+      final GameData newData =
+          rules.getGameSpecificStuff().createGameData(rules.getGameSpecificStuff().getName());
+      newData.setFileType(aFileType);
+      log.info("Loading report " + aFileType.getName());
+      synchronized (this) {
+        return read(new Scanner(channel, Charset.forName(encoding)), newData);
+      }
+    } finally {
+      channel.close();
+    }
+  }
+
+  private static boolean isUTF8BOM(ByteBuffer bom) {
+    return bom.position() == 3 && bom.get(0) == (byte) 0xEF && bom.get(1) == (byte) 0xBB
+        && bom.get(2) == (byte) 0xBF;
+  }
+
+  private static boolean isUTF16BOM(ByteBuffer bom) {
+    return bom.position() >= 2
+        && ((bom.get(0) == (byte) 0xFE && bom.get(1) == (byte) 0xFF) || (bom.get(0) == (byte) 0xFF
+            && bom.get(1) == (byte) 0xFE));
+  }
+
+  private GameData read(Scanner scanner, GameData data) throws IOException {
     boolean bCorruptReportMsg = false;
     int regionSortIndex = 0;
     // Fiete 20061208
@@ -3280,7 +3707,7 @@ public class CRParser extends AbstractReportParser implements RulesIO, GameDataI
 
     try {
       world = data;
-      sc = new Scanner(in);
+      sc = scanner;
       sc.getNextToken();
       boolean oome = false;
 
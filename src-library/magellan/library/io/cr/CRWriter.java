@@ -8,12 +8,15 @@
 package magellan.library.io.cr;
 
 import java.io.BufferedWriter;
+import java.io.CharArrayWriter;
 import java.io.IOException;
 import java.io.Writer;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -21,6 +24,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 import magellan.library.Addeable;
 import magellan.library.Alliance;
@@ -101,6 +107,12 @@ public class CRWriter extends BufferedWriter {
   private GameData world;
   private Map<Region, List<Unit>> oldUnitMap;
 
+  /** number of regions that are formatted together in parallel mode */
+  private static final int CHUNK_REGIONS = 32;
+  private boolean parallel = false;
+  /** the target of a writer created by {@link #createChunkWriter()} */
+  private CharArrayWriter chunkBuffer;
+
   /**
    * Creates a CR writer which uses the specified writer.
    *
@@ -1724,6 +1736,11 @@ public class CRWriter extends BufferedWriter {
     if (regions == null)
       return;
 
+    if (parallel && regions.size() > CHUNK_REGIONS) {
+      writeRegionsParallel(regions);
+      return;
+    }
+
     ui.setMaximum(regions.size());
     int counter = 0;
 
@@ -1741,6 +1758,94 @@ public class CRWriter extends BufferedWriter {
     ui.setProgress(Resources.get("crwriterdialog.progress.07"), counter++);
   }
 
+  /**
+   * Formats chunks of regions into separate buffers on the common ForkJoinPool and writes the
+   * buffers in the order of the collection, so the output is the same as that of the sequential
+   * mode. Only a few chunks are held in memory at any time.
+   */
+  private void writeRegionsParallel(Collection<Region> regions) throws IOException {
+    ForkJoinPool pool = ForkJoinPool.commonPool();
+    int maxPending = Math.max(2, pool.getParallelism() * 2);
+    Deque<ForkJoinTask<CRWriter>> pending = new ArrayDeque<ForkJoinTask<CRWriter>>();
+    Deque<Region> lastRegions = new ArrayDeque<Region>();
+
+    ui.setMaximum(regions.size());
+    int counter = 0;
+
+    Iterator<Region> it = regions.iterator();
+    while (it.hasNext() || !pending.isEmpty()) {
+      while (it.hasNext() && pending.size() < maxPending) {
+        final List<Region> chunk = new ArrayList<Region>(CHUNK_REGIONS);
+        while (it.hasNext() && chunk.size() < CHUNK_REGIONS) {
+          chunk.add(it.next());
+        }
+        lastRegions.add(chunk.get(chunk.size() - 1));
+        pending.add(pool.submit(() -> {
+          CRWriter chunkWriter = createChunkWriter();
+          for (Region region : chunk) {
+            chunkWriter.writeRegion(region);
+          }
+          chunkWriter.flush();
+          return chunkWriter;
+        }));
+      }
+
+      CRWriter chunkWriter;
+      try {
+        chunkWriter = pending.removeFirst().get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException(e);
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof IOException)
+          throw (IOException) e.getCause();
+        throw new IOException(e.getCause());
+      }
+      chunkWriter.chunkBuffer.writeTo(this);
+      unitsWritten += chunkWriter.unitsWritten;
+
+      Region region = lastRegions.removeFirst();
+      counter = Math.min(regions.size(), counter + CHUNK_REGIONS);
+      if (region.getName() != null) {
+        ui.setProgress(Resources.get("crwriterdialog.progress.07a",
+            new Object[] { region.getName() }), counter);
+      } else {
+        ui.setProgress(Resources.get("crwriterdialog.progress.07"), counter);
+      }
+    }
+    ui.setMaximum(11);
+    ui.setProgress(Resources.get("crwriterdialog.progress.07"), counter);
+  }
+
+  /**
+   * Returns a writer into a CharArrayWriter with the same settings as this writer.
+   */
+  private CRWriter createChunkWriter() {
+    CharArrayWriter buffer = new CharArrayWriter(1 << 16);
+    CRWriter chunkWriter = new CRWriter(world, null, buffer);
+    chunkWriter.chunkBuffer = buffer;
+    chunkWriter.encoding = encoding;
+    chunkWriter.useTildesForQuotes = useTildesForQuotes;
+    chunkWriter.oldUnitMap = oldUnitMap;
+    chunkWriter.includeRegions = includeRegions;
+    chunkWriter.includeBuildings = includeBuildings;
+    chunkWriter.includeShips = includeShips;
+    chunkWriter.includeUnits = includeUnits;
+    chunkWriter.includeUnitDetails = includeUnitDetails;
+    chunkWriter.includeSkills = includeSkills;
+    chunkWriter.includeOrders = includeOrders;
+    chunkWriter.includeItems = includeItems;
+    chunkWriter.includeRegionDetails = includeRegionDetails;
+    chunkWriter.includeIslands = includeIslands;
+    chunkWriter.includeMessages = includeMessages;
+    chunkWriter.exportHotspots = exportHotspots;
+    chunkWriter.includeSpellsAndPotions = includeSpellsAndPotions;
+    chunkWriter.serverConformance = serverConformance;
+    chunkWriter.regions = regions;
+    chunkWriter.units = units;
+    return chunkWriter;
+  }
+
   /**
    * Write the cr representation of a <kbd>Region</kbd> object to the underlying stream.
    *
@@ -2680,6 +2785,21 @@ public class CRWriter extends BufferedWriter {
     this.serverConformance = serverConformance;
   }
 
+  /**
+   * Enables or disables formatting regions on several threads. The output is the same either way,
+   * parallel writing only uses more cores (and a bit more memory).
+   */
+  public void setParallel(boolean parallel) {
+    this.parallel = parallel;
+  }
+
+  /**
+   * Returns <code>true</code> if regions are formatted on several threads.
+   */
+  public boolean isParallel() {
+    return parallel;
+  }
+
   /**
    * Write a sequence of island blocks to the underlying stream.
    *
@@ -13,12 +13,17 @@
 
 package magellan.library.io.cr;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
 
 import magellan.library.utils.StringFactory;
-import magellan.library.utils.Umlaut;
 import magellan.library.utils.logging.Logger;
 
 /**
@@ -27,13 +32,43 @@ import magellan.library.utils.logging.Logger;
  * <kbd>"string";key</kbd> are parsed as two tokens,<br/>
  * <kbd>BLOCK</kbd> are parsed as a block,<br/>
  * <kbd>BLOCK id</kbd> are parsed as a block with ID.<br/>
+ * <p>
+ * The scanner reads its input into a reusable character buffer and tokenizes the lines in place.
+ * Short tokens (tags, numbers, block names, item names, ...) are looked up in a small table of
+ * already seen tokens directly from the buffer, so that only tokens that haven't been seen before
+ * are materialized as (interned) Strings.
+ * </p>
  * 
  * @author $Author: $
  * @version $Revision: 389 $
  */
 public class Scanner {
   private static final Logger log = Logger.getInstance(Scanner.class);
-  private BufferedReader stream;
+
+  /** initial size of the character buffer; grows for longer lines */
+  private static final int BUFFER_SIZE = 1 << 16;
+  /** size of the token table, must be a power of 2 */
+  private static final int TOKEN_CACHE_SIZE = 1 << 12;
+  /** only tokens up to this length are looked up in the token table */
+  private static final int MAX_CACHED_LENGTH = 40;
+
+  private Reader stream;
+  private ReadableByteChannel channel;
+  private ByteBuffer bytes;
+  private boolean channelDone;
+  private CharsetDecoder decoder;
+  private CharBuffer target;
+  private boolean decoded;
+
+  private char[] buf;
+  /** start of the unread input in buf */
+  private int pos;
+  /** end of the valid input in buf */
+  private int end;
+  private boolean inputDone;
+  private char[] unescaped;
+
+  private String[] tokenCache;
 
   /** number of tokens */
   public int argc;
@@ -63,7 +98,35 @@ public class Scanner {
    * @throws IOException Never thrown
    */
   public Scanner(Reader in) throws IOException {
-    stream = new BufferedReader(in);
+    this();
+    stream = in;
+    buf = new char[BUFFER_SIZE];
+  }
+
+  /**
+   * Creates a new Scanner object that decodes its input directly from a byte channel, for example a
+   * plain report file. The channel's position should point behind a byte order mark, if there is
+   * one.
+   * 
+   * @param in The channel providing the encoded input
+   * @param charset The encoding of the input
+   * @throws IOException Never thrown
+   */
+  public Scanner(ReadableByteChannel in, Charset charset) throws IOException {
+    this();
+    channel = in;
+    buf = new char[BUFFER_SIZE];
+    bytes = ByteBuffer.allocate(BUFFER_SIZE);
+    bytes.flip();
+    decoder =
+        charset.newDecoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(
+            CodingErrorAction.REPLACE);
+  }
+
+  /**
+   * Creates a Scanner without input for subclasses that provide their own tokens.
+   */
+  protected Scanner() {
     argv = new String[2];
     isString = new boolean[2];
     lnr = 0;
@@ -76,118 +139,295 @@ public class Scanner {
    * @throws IOException If an I/O error occurs
    */
   public void getNextToken() throws IOException {
-    String line;
-    char buf[];
-    int len;
-    int i;
-    int start;
-
     argv[0] = null;
     argv[1] = null;
     argc = 0;
     isBlock = false;
     isIdBlock = false;
-    lnr++;
-    line = stream.readLine();
-    if (line == null) {
-      eof = true;
-      stream.close();
 
-      return;
-    }
+    int start;
+    int len;
+    do {
+      lnr++;
+      start = nextLine();
+      if (start < 0) {
+        eof = true;
+        close();
 
-    len = line.length();
+        return;
+      }
+      len = pos - start;
+      skipLineBreak();
+      // skip empty lines
+    } while (len == 0);
 
-    // skip empty lines
-    if (line.length() == 0) {
-      getNextToken();
+    tokenize(start, start + len);
+  }
 
-      return;
-    }
-    buf = line.toCharArray();
+  /**
+   * Tokenizes the line buf[lineStart, lineEnd).
+   */
+  private void tokenize(int lineStart, int lineEnd) throws IOException {
+    final char[] line = buf;
 
-    if (('A' <= buf[0]) && (buf[0] <= 'Z')) {
+    if (('A' <= line[lineStart]) && (line[lineStart] <= 'Z')) {
       isBlock = true;
 
-      if (line.indexOf(' ') >= 0) {
+      if (indexOf(' ', lineStart, lineEnd) >= 0) {
         isIdBlock = true;
       }
     }
 
-    i = 0;
+    int i = lineStart;
 
-    while ((i < len) && (buf[i] != '\r') && (buf[i] != '\n')) {
+    while (i < lineEnd) {
       if (argc > 1)
         throw new IOException("Scanner.getNextToken(): invalid token format in line " + lnr);
 
-      if (buf[i] == '"') {
+      if (line[i] == '"') {
         // quoted string, all until the last '"' is the string content; escaped quotes are replaced
         i++; // skip start "
-        if (line.lastIndexOf('"') != -1) {
-          int lastQuote = line.lastIndexOf('"');
-          if (lastQuote < i) {
-            // TODO throw IOException?
-            Scanner.log.warn("Error parsing line " + lnr + ": " + line);
-            break;
-          }
-
-          String str = line.substring(i, lastQuote);
-          if (str.contains("\\")) {
-            if (str.matches(".*[^\\\\][\\\\][^\\\\\"].*")) {
-              Scanner.log.warn("Wrong escape in line " + lnr + ": " + line);
-            }
-            str = Umlaut.replace(str, "\\\"", "\"");
-            str = Umlaut.replace(str, "\\\\", "\\");
-          }
-          argv[argc] = StringFactory.getFactory().intern(str);
-          i = lastQuote;
+        int lastQuote = lastIndexOf('"', lineStart, lineEnd);
+        if (lastQuote < i) {
+          // TODO throw IOException?
+          Scanner.log.warn("Error parsing line " + lnr + ": "
+              + new String(line, lineStart, lineEnd - lineStart));
+          break;
+        }
+
+        if (indexOf('\\', i, lastQuote) >= 0) {
+          argv[argc] = unescape(line, i, lastQuote, lineStart, lineEnd);
         } else {
-          // old code: May be better but we wont use it
-          char outbuf[] = new char[len];
-          int outPtr = 0;
-          start = i; // marker for begin of string
-
-          while (i < len) {
-            if (buf[i] == '"') {
-              if (buf[i - 1] == '\\') { // escaped quotation mark
-                outbuf[outPtr - 1] = '"';
-                i++;
-              } else { // unescaped quotation mark, stop reading
-
-                break;
-              }
-            } else if ((buf[i] != '\r') && (buf[i] != '\n')) {
-              outbuf[outPtr++] = buf[i++];
-            }
-          }
-
-          if (i == len) {
-            Scanner.log.warn("Missing \" in line " + lnr);
-          }
-
-          // pavkovic 2003.07.02: use String.intern() method to reduce memory consumption
-          argv[argc] = StringFactory.getFactory().intern(new String(outbuf, 0, outPtr));
+          argv[argc] = token(line, i, lastQuote);
         }
+        i = lastQuote;
         isString[argc] = true;
         argc++;
         i++; // skip "
       } else {
         // normal token
-        start = i;
+        int start = i;
 
-        while ((i < len) && (buf[i] != ';') && (buf[i] != '\r') && (buf[i] != '\n')) {
+        while ((i < lineEnd) && (line[i] != ';')) {
           i++;
         }
 
-        // pavkovic 2003.07.02: use String.intern() method to reduce memory consumption
-        argv[argc] = StringFactory.getFactory().intern(line.substring(start, i));
+        argv[argc] = token(line, start, i);
         isString[argc] = false;
         argc++;
       }
 
-      if ((i < len) && (buf[i] == ';')) {
+      if ((i < lineEnd) && (line[i] == ';')) {
         i++; /* skip ; */
       }
     }
   }
+
+  /**
+   * Replaces escaped quotes and backslashes in chars[from, to) and returns the result as interned
+   * String. Reports wrong escape sequences.
+   */
+  private String unescape(char[] chars, int from, int to, int lineStart, int lineEnd) {
+    // a backslash that is neither escaped nor escapes a backslash or a quote
+    for (int k = from + 1; k < to - 1; ++k) {
+      if (chars[k] == '\\' && chars[k - 1] != '\\' && chars[k + 1] != '\\' && chars[k + 1] != '"') {
+        Scanner.log.warn("Wrong escape in line " + lnr + ": "
+            + new String(chars, lineStart, lineEnd - lineStart));
+        break;
+      }
+    }
+
+    if (unescaped == null || unescaped.length < to - from) {
+      unescaped = new char[to - from];
+    }
+    // first replace all \" by ", then all \\ by \ (left to right, not overlapping)
+    int length = 0;
+    for (int k = from; k < to; ++k) {
+      if (chars[k] == '\\' && k + 1 < to && chars[k + 1] == '"') {
+        unescaped[length++] = '"';
+        ++k;
+      } else {
+        unescaped[length++] = chars[k];
+      }
+    }
+    int length2 = 0;
+    for (int k = 0; k < length; ++k) {
+      if (unescaped[k] == '\\' && k + 1 < length && unescaped[k + 1] == '\\') {
+        ++k;
+      }
+      unescaped[length2++] = unescaped[k];
+    }
+    return token(unescaped, 0, length2);
+  }
+
+  /**
+   * Returns the interned String with the content chars[from, to). Short tokens are taken from the
+   * token table without creating a temporary String, if possible.
+   */
+  private String token(char[] chars, int from, int to) {
+    int length = to - from;
+    if (length > MAX_CACHED_LENGTH)
+      // pavkovic 2003.07.02: use String.intern() method to reduce memory consumption
+      return StringFactory.getFactory().intern(new String(chars, from, length));
+
+    int hash = length;
+    for (int k = from; k < to; ++k) {
+      hash = 31 * hash + chars[k];
+    }
+    if (tokenCache == null) {
+      tokenCache = new String[TOKEN_CACHE_SIZE];
+    }
+    int slot = (hash ^ (hash >>> 12)) & (TOKEN_CACHE_SIZE - 1);
+    String cached = tokenCache[slot];
+    if (cached != null && equals(cached, chars, from, length))
+      return cached;
+
+    String result = StringFactory.getFactory().intern(new String(chars, from, length));
+    tokenCache[slot] = result;
+    return result;
+  }
+
+  private static boolean equals(String s, char[] chars, int from, int length) {
+    if (s.length() != length)
+      return false;
+    for (int k = 0; k < length; ++k) {
+      if (s.charAt(k) != chars[from + k])
+        return false;
+    }
+    return true;
+  }
+
+  private int indexOf(char c, int from, int to) {
+    for (int k = from; k < to; ++k) {
+      if (buf[k] == c)
+        return k;
+    }
+    return -1;
+  }
+
+  private int lastIndexOf(char c, int from, int to) {
+    for (int k = to - 1; k >= from; --k) {
+      if (buf[k] == c)
+        return k;
+    }
+    return -1;
+  }
+
+  /**
+   * Finds the next line in the buffer, reading more input if necessary. On return, pos points to
+   * the line break (or the end of input) behind the line.
+   * 
+   * @return The start of the line in buf, or -1 if the end of input has been reached.
+   */
+  private int nextLine() throws IOException {
+    int scan = pos;
+    while (true) {
+      while (scan < end) {
+        char c = buf[scan];
+        if (c == '\n' || c == '\r') {
+          int start = pos;
+          pos = scan;
+          return start;
+        }
+        ++scan;
+      }
+      if (inputDone) {
+        if (pos == end)
+          return -1;
+        int start = pos;
+        pos = end;
+        return start;
+      }
+      scan -= pos;
+      fill();
+    }
+  }
+
+  /**
+   * Skips the line break at pos. "\n", "\r", and "\r\n" are considered line breaks.
+   */
+  private void skipLineBreak() throws IOException {
+    if (pos < end || fillAfterLine()) {
+      if (buf[pos] == '\r') {
+        ++pos;
+        if ((pos < end || fillAfterLine()) && buf[pos] == '\n') {
+          ++pos;
+        }
+      } else if (buf[pos] == '\n') {
+        ++pos;
+      }
+    }
+  }
+
+  private boolean fillAfterLine() throws IOException {
+    if (inputDone)
+      return false;
+    fill();
+    return pos < end;
+  }
+
+  /**
+   * Moves the unread input to the start of the buffer (growing it if it is full) and appends more
+   * input.
+   */
+  private void fill() throws IOException {
+    if (pos > 0) {
+      System.arraycopy(buf, pos, buf, 0, end - pos);
+      end -= pos;
+      pos = 0;
+    } else if (end == buf.length) {
+      char[] newBuf = new char[buf.length * 2];
+      System.arraycopy(buf, 0, newBuf, 0, end);
+      buf = newBuf;
+    }
+
+    if (decoder != null) {
+      decode();
+    } else {
+      int read = stream.read(buf, end, buf.length - end);
+      if (read < 0) {
+        inputDone = true;
+      } else {
+        end += read;
+      }
+    }
+  }
+
+  private void decode() throws IOException {
+    if (target == null || target.array() != buf) {
+      target = CharBuffer.wrap(buf);
+    }
+    target.limit(buf.length);
+    target.position(end);
+    while (!decoded) {
+      CoderResult result = decoder.decode(bytes, target, channelDone);
+      if (result.isError()) {
+        result.throwException();
+      }
+      if (result.isOverflow() || target.position() > end) {
+        end = target.position();
+        return;
+      }
+      if (channelDone) {
+        decoded = true;
+      } else {
+        bytes.compact();
+        channelDone = channel.read(bytes) < 0;
+        bytes.flip();
+      }
+    }
+    inputDone = !decoder.flush(target).isOverflow();
+    end = target.position();
+  }
+
+  private void close() throws IOException {
+    inputDone = true;
+    pos = end = 0;
+    if (stream != null) {
+      stream.close();
+    }
+    if (channel != null) {
+      channel.close();
+    }
+  }
 }
@@ -0,0 +1,186 @@
+// class magellan.library.io.cr.Tokens
+// created on Oct 18, 2026
+//
+// Copyright 2003-2026 by magellan project team
+//
+// Author : $Author: $
+// $Id: $
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program (see doc/LICENCE.txt); if not, write to the
+// Free Software Foundation, Inc.,
+// 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+package magellan.library.io.cr;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A list of tokens recorded from a {@link Scanner}. The tokens can be read again by
+ * {@link Replay} scanners. After the recording is finished, several threads may replay the tokens
+ * at the same time.
+ */
+class Tokens {
+
+  private static final int FLAG_STRING0 = 1;
+  private static final int FLAG_STRING1 = 2;
+  private static final int FLAG_BLOCK = 4;
+  private static final int FLAG_IDBLOCK = 8;
+
+  private int size;
+  private int[] lines;
+  private int[] argc;
+  private String[] argv0;
+  private String[] argv1;
+  private byte[] flags;
+
+  /**
+   * Creates an empty list.
+   *
+   * @param capacity The initial capacity, must be positive
+   */
+  Tokens(int capacity) {
+    lines = new int[capacity];
+    argc = new int[capacity];
+    argv0 = new String[capacity];
+    argv1 = new String[capacity];
+    flags = new byte[capacity];
+  }
+
+  /**
+   * Returns the number of recorded tokens.
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Records the current token of the scanner.
+   */
+  void add(Scanner sc) {
+    if (size == lines.length) {
+      int capacity = size * 2;
+      lines = Arrays.copyOf(lines, capacity);
+      argc = Arrays.copyOf(argc, capacity);
+      argv0 = Arrays.copyOf(argv0, capacity);
+      argv1 = Arrays.copyOf(argv1, capacity);
+      flags = Arrays.copyOf(flags, capacity);
+    }
+    lines[size] = sc.lnr;
+    argc[size] = sc.argc;
+    argv0[size] = sc.argv[0];
+    argv1[size] = sc.argv[1];
+    flags[size] =
+        (byte) ((sc.argc > 0 && sc.isString[0] ? FLAG_STRING0 : 0)
+            | (sc.argc > 1 && sc.isString[1] ? FLAG_STRING1 : 0)
+            | (sc.isBlock ? FLAG_BLOCK : 0) | (sc.isIdBlock ? FLAG_IDBLOCK : 0));
+    ++size;
+  }
+
+  /**
+   * Makes the token at index the current token of the scanner.
+   */
+  void get(int index, Scanner sc) {
+    int flag = flags[index];
+    sc.argc = argc[index];
+    sc.argv[0] = argv0[index];
+    sc.argv[1] = argv1[index];
+    sc.isString[0] = (flag & FLAG_STRING0) != 0;
+    sc.isString[1] = (flag & FLAG_STRING1) != 0;
+    sc.isBlock = (flag & FLAG_BLOCK) != 0;
+    sc.isIdBlock = (flag & FLAG_IDBLOCK) != 0;
+    sc.lnr = lines[index];
+  }
+
+  /**
+   * Returns a scanner that reads the tokens from start (inclusive) to end (exclusive). Its current
+   * token is the token at start; after the last token it reports the end of file.
+   */
+  Replay replay(int start, int end) {
+    return new Replay(start, end, null);
+  }
+
+  /**
+   * Returns a scanner that reads the tokens from start on and continues with the current and the
+   * following tokens of rest. Its current token is the token at start.
+   */
+  Replay replay(int start, Scanner rest) {
+    return new Replay(start, size, rest);
+  }
+
+  /**
+   * A scanner reading recorded tokens.
+   */
+  class Replay extends Scanner {
+    private final int end;
+    private final Scanner rest;
+    private int index;
+
+    Replay(int start, int end, Scanner rest) {
+      this.end = end;
+      this.rest = rest;
+      index = start;
+      load();
+    }
+
+    /**
+     * @see magellan.library.io.cr.Scanner#getNextToken()
+     */
+    @Override
+    public void getNextToken() throws IOException {
+      if (++index > end && rest != null) {
+        rest.getNextToken();
+      }
+      load();
+    }
+
+    private void load() {
+      if (index < end) {
+        get(index, this);
+      } else if (rest != null) {
+        argc = rest.argc;
+        argv[0] = rest.argv[0];
+        argv[1] = rest.argv[1];
+        isString[0] = rest.isString[0];
+        isString[1] = rest.isString[1];
+        isBlock = rest.isBlock;
+        isIdBlock = rest.isIdBlock;
+        lnr = rest.lnr;
+        eof = rest.eof;
+      } else {
+        argv[0] = null;
+        argv[1] = null;
+        argc = 0;
+        isBlock = false;
+        isIdBlock = false;
+        eof = true;
+      }
+    }
+
+    /**
+     * Returns the index of the current token. Indices from the end on are tokens of the rest.
+     */
+    int getIndex() {
+      return index;
+    }
+
+    /**
+     * Returns the rest if all recorded tokens have been read, otherwise this scanner. Both are at
+     * the same token.
+     */
+    Scanner unwrap() {
+      return rest != null && index >= end ? rest : this;
+    }
+  }
+}
@@ -21,7 +21,7 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.lang.ref.WeakReference;
+import java.nio.channels.FileChannel;
 
 import org.apache.tools.bzip2.CBZip2InputStream;
 import org.apache.tools.bzip2.CBZip2OutputStream;
@@ -38,44 +38,51 @@ public class BZip2FileType extends FileType {
   }
 
   /**
-   * the tmpfile used for reading the BZIP2 content. Note that it will be nullified if
-   * createOutputStream is called or if the garbage collector decides to.
+   * Returns a stream of the decompressed content. The file is decompressed in a separate thread
+   * while the stream is read.
+   *
+   * @see ReadAheadInputStream
    */
-  private WeakReference<File> tmpfileRef;
-
   @Override
   protected InputStream createInputStream() throws IOException {
-    // normally the following lines would be ok. But somehow it does not work, so we copy the
-    // content of the
-    // bzip2file into a tmpfile for reading with deleteonexit set.
-    // return new CBZip2InputStream(new FileInputStream(fileName));
-    File tmpfile = tmpfileRef != null ? (File) tmpfileRef.get() : null;
-    if (tmpfile == null) {
-      tmpfile = CopyFile.createTempFile();
-      tmpfileRef = new WeakReference<File>(tmpfile);
-      InputStream fis = new FileInputStream(filename);
-      int magic3 = fis.read();
-      int magic4 = fis.read();
-
-      if ((magic3 != 'B') || (magic4 != 'Z')) {
-        fis.close();
-        throw new IOException("File " + filename + " is missing bzip2 header BZ.");
-      }
+    // CBZip2InputStream expects the stream after the header "BZ"
+    InputStream fis = new BufferedInputStream(new FileInputStream(filename));
+    int magic3 = fis.read();
+    int magic4 = fis.read();
 
-      CopyFile.copyStreams(new CBZip2InputStream(new BufferedInputStream(fis)),
-          new BufferedOutputStream(new FileOutputStream(tmpfile)));
+    if ((magic3 != 'B') || (magic4 != 'Z')) {
+      fis.close();
+      throw new IOException("File " + filename + " is missing bzip2 header BZ.");
     }
 
-    return new BufferedInputStream(new FileInputStream(tmpfile));
+    return new ReadAheadInputStream(new CBZip2InputStream(fis), getName());
   }
 
+  /**
+   * Returns <code>null</code>, the compressed file cannot be read directly.
+   * 
+   * @see magellan.library.io.file.FileType#createChannel()
+   */
+  @Override
+  public FileChannel createChannel() throws IOException {
+    return null;
+  }
+
+  /**
+   * Returns a compressing stream. If compression threads are configured, the data is compressed
+   * on a separate thread while the stream is written. bzip2 compression cannot be split over
+   * several threads, because the bzip2 reader cannot read concatenated streams.
+   *
+   * @see #setCompressionThreads(int)
+   */
   @Override
   protected OutputStream createOutputStream() throws IOException {
-    tmpfileRef = null;
     BufferedOutputStream bos = new BufferedOutputStream(new FileOutputStream(filename));
     bos.write('B');
     bos.write('Z');
 
+    if (getCompressionThreads() > 0)
+      return new BlockCompressorOutputStream.BZip2(bos, getName());
     return new CBZip2OutputStream(bos);
   }
 
@@ -0,0 +1,276 @@
+// class magellan.library.io.file.BlockCompressorOutputStream
+// created on Oct 18, 2026
+//
+// Copyright 2003-2026 by magellan project team
+//
+// Author : $Author: $
+// $Id: $
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program (see doc/LICENCE.txt); if not, write to the
+// Free Software Foundation, Inc.,
+// 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+package magellan.library.io.file;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.tools.bzip2.CBZip2OutputStream;
+
+/**
+ * An output stream that collects its data in blocks and compresses the blocks on a pool of worker
+ * threads while the caller keeps writing. The compressed blocks are written to the underlying
+ * stream in their original order by the thread that writes to this stream.
+ * <p>
+ * Only a limited number of blocks is in progress at the same time, so a write blocks while all
+ * workers are busy.
+ */
+abstract class BlockCompressorOutputStream extends OutputStream {
+
+  /** The default size of the uncompressed blocks */
+  public static final int BLOCK_SIZE = 256 * 1024;
+
+  private final OutputStream out;
+  private final ExecutorService pool;
+  private final int maxPending;
+  private final int blockSize;
+  private final Deque<Future<byte[]>> pending = new ArrayDeque<Future<byte[]>>();
+
+  private byte[] block;
+  private int count;
+  private boolean closed;
+
+  /**
+   * Creates a stream that compresses blocks of <code>blockSize</code> bytes on
+   * <code>threads</code> worker threads.
+   *
+   * @param out The stream that receives the compressed data
+   * @param name The name of the target, used for the name of the threads
+   * @param threads The number of worker threads, at least 1
+   * @param blockSize The size of the uncompressed blocks
+   */
+  protected BlockCompressorOutputStream(OutputStream out, final String name, int threads,
+      int blockSize) {
+    if (threads < 1)
+      throw new IllegalArgumentException("threads must be positive: " + threads);
+    this.out = out;
+    this.blockSize = blockSize;
+    maxPending = 2 * threads;
+    block = new byte[blockSize];
+    pool = Executors.newFixedThreadPool(threads, r -> {
+      Thread t = new Thread(r, "Compress " + name);
+      t.setDaemon(true);
+      return t;
+    });
+  }
+
+  /**
+   * Compresses a block. Called by a worker thread.
+   *
+   * @param data The block, owned by the caller of this method
+   * @param length The number of valid bytes in <code>data</code>
+   * @return The compressed data to write for this block
+   * @throws IOException if compression fails
+   */
+  protected abstract byte[] compress(byte[] data, int length) throws IOException;
+
+  /**
+   * Returns the data that follows the last block. Called by a worker thread after the last block
+   * has been submitted. The default implementation returns no data.
+   *
+   * @throws IOException if compression fails
+   */
+  protected byte[] finish() throws IOException {
+    return new byte[0];
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    ensureOpen();
+    block[count++] = (byte) b;
+    if (count == blockSize) {
+      submitBlock();
+    }
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    ensureOpen();
+    if (off < 0 || len < 0 || off + len > b.length)
+      throw new IndexOutOfBoundsException();
+    while (len > 0) {
+      int n = Math.min(len, blockSize - count);
+      System.arraycopy(b, off, block, count, n);
+      count += n;
+      off += n;
+      len -= n;
+      if (count == blockSize) {
+        submitBlock();
+      }
+    }
+  }
+
+  /**
+   * Writes all blocks that have been compressed so far and flushes the underlying stream. Data of
+   * the current, incomplete block is not flushed.
+   */
+  @Override
+  public void flush() throws IOException {
+    ensureOpen();
+    while (!pending.isEmpty() && pending.peek().isDone()) {
+      writeResult(pending.poll());
+    }
+    out.flush();
+  }
+
+  /**
+   * Compresses the remaining data, writes all blocks and closes the underlying stream.
+   */
+  @Override
+  public void close() throws IOException {
+    if (closed)
+      return;
+    try {
+      if (count > 0) {
+        submitBlock();
+      }
+      pending.add(pool.submit(this::finish));
+      while (!pending.isEmpty()) {
+        writeResult(pending.poll());
+      }
+    } finally {
+      closed = true;
+      for (Future<byte[]> f : pending) {
+        f.cancel(true);
+      }
+      pending.clear();
+      pool.shutdown();
+      out.close();
+    }
+  }
+
+  private void ensureOpen() throws IOException {
+    if (closed)
+      throw new IOException("stream closed");
+  }
+
+  private void submitBlock() throws IOException {
+    final byte[] data = block;
+    final int length = count;
+    pending.add(pool.submit(() -> compress(data, length)));
+    block = new byte[blockSize];
+    count = 0;
+
+    while (pending.size() > maxPending || (!pending.isEmpty() && pending.peek().isDone())) {
+      writeResult(pending.poll());
+    }
+  }
+
+  private void writeResult(Future<byte[]> result) throws IOException {
+    try {
+      out.write(result.get());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("interrupted while compressing");
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException)
+        throw (IOException) e.getCause();
+      throw new IOException(e.getCause());
+    }
+  }
+
+  /**
+   * Compresses every block to an independent gzip member. The result is a valid gzip file that
+   * decompresses to the concatenation of the blocks, like the output of <code>pigz</code>.
+   */
+  static class GZip extends BlockCompressorOutputStream {
+
+    /**
+     * Creates a stream that compresses {@link #BLOCK_SIZE} blocks on <code>threads</code> threads.
+     */
+    public GZip(OutputStream out, String name, int threads) {
+      this(out, name, threads, BLOCK_SIZE);
+    }
+
+    /**
+     * Creates a stream that compresses blocks of <code>blockSize</code> bytes on
+     * <code>threads</code> threads.
+     */
+    public GZip(OutputStream out, String name, int threads, int blockSize) {
+      super(out, name, threads, blockSize);
+    }
+
+    @Override
+    protected byte[] compress(byte[] data, int length) throws IOException {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream(length / 4 + 64);
+      GZIPOutputStream gzip = new GZIPOutputStream(bytes, 8192);
+      gzip.write(data, 0, length);
+      gzip.close();
+      return bytes.toByteArray();
+    }
+  }
+
+  /**
+   * Compresses all blocks into a single bzip2 stream on one background thread. The bzip2 reader
+   * cannot read concatenated streams, so the blocks cannot be compressed independently; this
+   * still takes the compression off the thread that produces the data.
+   * <p>
+   * The stream does not write the bzip2 magic bytes "BZ".
+   */
+  static class BZip2 extends BlockCompressorOutputStream {
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(BLOCK_SIZE);
+    private CBZip2OutputStream bzip;
+
+    /**
+     * Creates a stream that compresses on one background thread.
+     */
+    public BZip2(OutputStream out, String name) {
+      super(out, name, 1, BLOCK_SIZE);
+    }
+
+    @Override
+    protected byte[] compress(byte[] data, int length) throws IOException {
+      getCompressor().write(data, 0, length);
+      return drain();
+    }
+
+    @Override
+    protected byte[] finish() throws IOException {
+      getCompressor().close();
+      return drain();
+    }
+
+    private CBZip2OutputStream getCompressor() throws IOException {
+      if (bzip == null) {
+        bzip = new CBZip2OutputStream(bytes);
+      }
+      return bzip;
+    }
+
+    private byte[] drain() {
+      byte[] result = bytes.toByteArray();
+      bytes.reset();
+      return result;
+    }
+  }
+}
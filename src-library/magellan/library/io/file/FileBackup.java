@@ -15,11 +15,33 @@ package magellan.library.io.file;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.DosFileAttributes;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import magellan.library.utils.logging.Logger;
 
 /**
  * Handles backup generation for files.
+ * <p>
+ * Backups are named <code>name~revision~</code>. The latest revision of every file is stored in an
+ * index file <code>name~index~</code> in the backup directory, so the directory has to be scanned
+ * only if the index is missing or out of date.
  */
 public class FileBackup {
 
@@ -28,6 +50,46 @@ public class FileBackup {
   /** this is normally a bad idea, but we allow this global */
   public static int DEFAULT_BACKUP_LEVEL = 2;
 
+  private static final String INDEX = "index";
+
+  /**
+   * How a backup is created.
+   */
+  public enum Mode {
+    /** The file is copied; it remains unchanged. */
+    COPY,
+    /**
+     * The file is renamed to the backup if possible, otherwise it is copied. Use this mode only if
+     * the file is replaced by a new file right after the backup, without reading the old one. The
+     * file is also copied if it is a symbolic link or if a new file would not get its owner, group
+     * and permissions (or DOS attributes), because these would be lost for the replaced file.
+     */
+    MOVE
+  }
+
+  /**
+   * The thread that moves backups to other directories and removes obsolete revisions. It does not
+   * keep the application alive; call {@link #waitForBackground()} before exiting.
+   */
+  private static final ThreadPoolExecutor background = new ThreadPoolExecutor(1, 1, 10,
+      TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), r -> {
+        Thread t = new Thread(r, "FileBackup");
+        t.setDaemon(true);
+        return t;
+      });
+
+  static {
+    background.allowCoreThreadTimeOut(true);
+  }
+
+  private static Future<?> lastTask;
+
+  /** The latest revisions created by this process; they may still be moved in the background */
+  private static final Map<File, Integer> created = new HashMap<File, Integer>();
+
+  /** umask and effective group id of the process, -1 if unknown; read by readProcessStatus() */
+  private static int umask = -2, gid = -1;
+
   /**
    * Disable instantiation of class
    */
@@ -82,6 +144,29 @@ public class FileBackup {
    */
   public static synchronized File create(File file, File directory, int backupLevel)
       throws IOException {
+    return FileBackup.create(file, directory, backupLevel, Mode.COPY);
+  }
+
+  /**
+   * Returns the new backup file for the given file.
+   * <p>
+   * In {@link Mode#MOVE}, the file is renamed to the backup. If the backup directory is not the
+   * directory of the file, the file is renamed to a temporary name next to it and moved to the
+   * backup directory in the background. The file is copied if it cannot be renamed or if renaming
+   * would lose its link or attributes. Obsolete revisions are always removed in the background, see
+   * {@link #waitForBackground()}.
+   * 
+   * @param file the file to back up.
+   * @param directory the directory to copy the backup to. If the directory doesn't exist, it will
+   *          be created.
+   * @param backupLevel number of revisions to hold, ignored for the SIMPLE backup type.
+   * @param mode whether the file is copied or moved
+   * @return the created backup file or null if target file does not exist. In mode MOVE, the file
+   *         may be created in the background.
+   * @throws IOException if the file cannot be created
+   */
+  public static synchronized File create(File file, File directory, int backupLevel, Mode mode)
+      throws IOException {
     // ensure that file exists. If not, stop execution to create backup file
     if (!(file.exists()))
       return null;
@@ -98,23 +183,161 @@ public class FileBackup {
         throw new IOException("Could not create directory " + directory);
     }
 
-    File backup = null;
+    boolean writable = file.canWrite();
+    int revision = FileBackup.getLatestRevision(file.getName(), directory) + 1;
+    File backup = new File(directory, FileBackup.getVersionName(file.getName(), revision));
 
-    int highestBackup = FileBackup.getLatestRevision(file.getName(), directory);
-    backup =
-        new File(directory + File.separator
-            + FileBackup.getVersionName(file.getName(), highestBackup + 1));
-    FileBackup.copy(file, backup);
+    if (mode != Mode.MOVE || !FileBackup.move(file, backup)) {
+      FileBackup.copy(file, backup);
+    }
+    FileBackup.writeIndex(file.getName(), directory, revision);
 
-    if (file.canWrite()) {
-      FileBackup.removeObsoleteRevisions(highestBackup + 1, backupLevel, file.getName(), directory);
+    if (writable && backupLevel > 0) {
+      final String name = file.getName();
+      FileBackup.submit(() -> FileBackup.removeObsoleteRevisions(revision, backupLevel, name,
+          directory));
     }
 
     return backup;
   }
 
   /**
-   * Returns the revision number of the latest revision found for the given filename.
+   * Waits until all backups have been moved and obsolete revisions have been removed.
+   * 
+   * @throws InterruptedException if the current thread was interrupted while waiting
+   */
+  public static void waitForBackground() throws InterruptedException {
+    Future<?> task;
+    synchronized (FileBackup.class) {
+      task = lastTask;
+    }
+    if (task != null) {
+      try {
+        task.get();
+      } catch (ExecutionException e) {
+        FileBackup.log.warn("background task failed", e.getCause());
+      }
+    }
+  }
+
+  private static synchronized void submit(Runnable task) {
+    lastTask = background.submit(task);
+  }
+
+  /**
+   * Renames the file to the backup. If the backup is in another directory, the file is renamed
+   * within its directory and moved in the background, because moving may involve copying.
+   * 
+   * @return <code>false</code> if the file could not be renamed
+   */
+  private static boolean move(File file, final File backup) {
+    if (!keepsAttributes(file.toPath()))
+      return false;
+    final File target;
+    if (file.getAbsoluteFile().getParentFile().equals(backup.getAbsoluteFile().getParentFile())) {
+      target = backup;
+    } else {
+      target = new File(file.getAbsoluteFile().getParentFile(), backup.getName());
+      if (target.exists())
+        return false;
+    }
+    try {
+      Files.move(file.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException | UnsupportedOperationException e) {
+      FileBackup.log.debug("cannot rename " + file + ", copying: " + e);
+      return false;
+    }
+    if (target != backup) {
+      FileBackup.submit(() -> {
+        try {
+          Files.move(target.toPath(), backup.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+          FileBackup.log.warn("could not move backup " + target + " to " + backup, e);
+        }
+      });
+    }
+    return true;
+  }
+
+  /**
+   * Returns <code>true</code> if the file is no symbolic link and a new file in its directory gets
+   * the same owner, group and permissions (or, on DOS file systems, no special attributes), so
+   * that a file that replaces it after renaming looks the same. Nothing is written: a new file
+   * belongs to the current user, gets the permissions 666 without the umask and the group of the
+   * process, or of the directory if its set-group-ID bit is set. If the umask or group of the
+   * process are unknown, the directory's group and permissions without execute bits are expected.
+   */
+  private static boolean keepsAttributes(Path path) {
+    if (Files.isSymbolicLink(path))
+      return false;
+    try {
+      if (Files.getFileAttributeView(path, PosixFileAttributeView.class) == null) {
+        DosFileAttributes dos = Files.readAttributes(path, DosFileAttributes.class);
+        return !dos.isReadOnly() && !dos.isHidden() && !dos.isSystem();
+      }
+      PosixFileAttributes attributes = Files.readAttributes(path, PosixFileAttributes.class);
+      if (!attributes.owner().getName().equals(System.getProperty("user.name")))
+        return false;
+      Path dir = path.toAbsolutePath().getParent();
+      PosixFileAttributes dirAttributes = Files.readAttributes(dir, PosixFileAttributes.class);
+      int dirMode = (Integer) Files.getAttribute(dir, "unix:mode");
+      readProcessStatus();
+
+      boolean sameGroup;
+      if (gid < 0 || (dirMode & 02000) != 0) {
+        sameGroup = attributes.group().equals(dirAttributes.group());
+      } else {
+        sameGroup = (Integer) Files.getAttribute(path, "unix:gid") == gid;
+      }
+      int mode = umask < 0 ? dirMode & 0666 : 0666 & ~umask;
+      return sameGroup && attributes.permissions().equals(toPermissions(mode));
+    } catch (IOException | UnsupportedOperationException | IllegalArgumentException e) {
+      FileBackup.log.debug("cannot compare attributes of " + path + ", copying: " + e);
+      return false;
+    }
+  }
+
+  /**
+   * Reads the umask and effective group id of the process from /proc/self/status, if it exists.
+   */
+  private static synchronized void readProcessStatus() {
+    if (umask != -2)
+      return;
+    umask = -1;
+    Path status = Paths.get("/proc/self/status");
+    if (!Files.isReadable(status))
+      return;
+    try {
+      for (String line : Files.readAllLines(status, StandardCharsets.US_ASCII)) {
+        if (line.startsWith("Umask:")) {
+          umask = Integer.parseInt(line.substring(6).trim(), 8);
+        } else if (line.startsWith("Gid:")) {
+          gid = Integer.parseInt(line.substring(4).trim().split("\\s+")[1]);
+        }
+      }
+    } catch (IOException | RuntimeException e) {
+      FileBackup.log.debug("cannot read " + status + ": " + e);
+      umask = -1;
+      gid = -1;
+    }
+  }
+
+  private static Set<PosixFilePermission> toPermissions(int mode) {
+    Set<PosixFilePermission> result = EnumSet.noneOf(PosixFilePermission.class);
+    // the constants are ordered from OWNER_READ (0400) to OTHERS_EXECUTE (0001)
+    PosixFilePermission[] permissions = PosixFilePermission.values();
+    for (int i = 0; i < permissions.length; ++i) {
+      if ((mode & (0400 >> i)) != 0) {
+        result.add(permissions[i]);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the revision number of the latest revision for the given filename. Uses the index file
+   * if the backup of its revision exists and the next one does not, otherwise searches the
+   * directory.
    * 
    * @param filename filename to check for revision numbers.
    * @param dir directory to search.
@@ -122,6 +345,60 @@ public class FileBackup {
    *         found.
    */
   private static int getLatestRevision(String filename, File dir) {
+    int revision = FileBackup.readIndex(filename, dir);
+    if (revision >= 0) {
+      File current = new File(dir, FileBackup.getVersionName(filename, revision));
+      File next = new File(dir, FileBackup.getVersionName(filename, revision + 1));
+      Integer latest = created.get(new File(dir, FileBackup.getIndexName(filename)));
+      boolean exists =
+          revision == 0 || current.exists() || (latest != null && latest == revision);
+      if (exists && !next.exists())
+        return revision;
+    }
+    return FileBackup.findLatestRevision(filename, dir);
+  }
+
+  /**
+   * Returns the revision stored in the index file for the given filename.
+   * 
+   * @return the revision or <code>-1</code> if there is no valid index file
+   */
+  private static int readIndex(String filename, File dir) {
+    File index = new File(dir, FileBackup.getIndexName(filename));
+    if (!index.isFile())
+      return -1;
+    try {
+      return Integer.parseInt(new String(Files.readAllBytes(index.toPath()),
+          StandardCharsets.US_ASCII).trim());
+    } catch (IOException | NumberFormatException e) {
+      FileBackup.log.warn("invalid backup index " + index + ": " + e);
+      return -1;
+    }
+  }
+
+  /**
+   * Stores the latest revision in the index file. Failures are only logged, the index is an
+   * optimization.
+   */
+  private static void writeIndex(String filename, File dir, int revision) {
+    File index = new File(dir, FileBackup.getIndexName(filename));
+    created.put(index, revision);
+    try {
+      Files.write(index.toPath(), Integer.toString(revision).getBytes(StandardCharsets.US_ASCII));
+    } catch (IOException e) {
+      FileBackup.log.warn("could not write backup index " + index + ": " + e);
+    }
+  }
+
+  /**
+   * Searches the directory for the revision number of the latest revision of the given filename.
+   * 
+   * @param filename filename to check for revision numbers.
+   * @param dir directory to search.
+   * @return revision number of the latest backup; returns <code>0</code> if no backup could be
+   *         found.
+   */
+  private static int findLatestRevision(String filename, File dir) {
     if (dir == null)
       return 0;
 
@@ -187,6 +464,13 @@ public class FileBackup {
     return buf.toString();
   }
 
+  /**
+   * Returns the name of the index file for the given filename.
+   */
+  private static String getIndexName(String filename) {
+    return filename + '~' + INDEX + '~';
+  }
+
   /**
    * Copies the given source file to the given destination.
    * 
@@ -195,11 +479,13 @@ public class FileBackup {
    * @throws IOException if an I/O error occured.
    */
   private static void copy(File source, File target) throws IOException {
-    CopyFile.copy(source, target);
+    Files.copy(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.COPY_ATTRIBUTES);
   }
 
   /**
-   * Removes all obsolete revisions for the given filename in the given directory.
+   * Removes all obsolete revisions for the given filename in the given directory. Revisions are
+   * removed from <code>currentRevision - backupLevel</code> downwards until one is missing.
    * 
    * @param currentRevision revision number of the latest revision.
    * @param backupLevel number of revisions to hold.
@@ -208,18 +494,12 @@ public class FileBackup {
    */
   private static void removeObsoleteRevisions(int currentRevision, int backupLevel,
       String filename, File directory) {
-    File files[] = directory.listFiles();
-
     if (backupLevel > 0) {
       // delete old revisions
-      for (File file : files) {
-        String name = file.getName();
-
-        if (name.startsWith(filename)) {
-          int revision = FileBackup.getRevision(name);
-          if (revision > 0 && revision <= (currentRevision - backupLevel)) {
-            file.delete();
-          }
+      for (int revision = currentRevision - backupLevel; revision > 0; --revision) {
+        File file = new File(directory, FileBackup.getVersionName(filename, revision));
+        if (!file.delete()) {
+          break;
         }
       }
     }
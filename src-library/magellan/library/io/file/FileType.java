@@ -21,6 +21,8 @@ import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Reader;
 import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 
 import magellan.library.io.BOMReader;
 import magellan.library.utils.Encoding;
@@ -50,12 +52,17 @@ public class FileType {
   // basically identified compression types with multiple entries
   public static final String ZIP = ".zip";
 
+  /** The default number of threads that compress output: the number of available processors */
+  public static final int DEFAULT_COMPRESSION_THREADS = Runtime.getRuntime().availableProcessors();
+
   /** The file this file type identifies. */
   protected File filename;
 
   /** true iff file is readonly. */
   protected boolean readonly = false;
   protected boolean createBackup = true;
+  /** number of threads that compress the output, 0 if compressed on the writing thread */
+  protected int compressionThreads = DEFAULT_COMPRESSION_THREADS;
 
   private BOMReader reader;
 
@@ -89,6 +96,28 @@ public class FileType {
     createBackup = aCreateBackup;
   }
 
+  /**
+   * Sets the number of threads that compress the output of compressing file types. With 0, the
+   * output is compressed by the thread that writes it. Not every compression format can use more
+   * than one thread.
+   *
+   * @param threads The number of compressing threads, 0 or more
+   */
+  public void setCompressionThreads(int threads) {
+    if (threads < 0)
+      throw new IllegalArgumentException("negative thread count: " + threads);
+    compressionThreads = threads;
+  }
+
+  /**
+   * Returns the number of threads that compress the output.
+   *
+   * @see #setCompressionThreads(int)
+   */
+  public int getCompressionThreads() {
+    return compressionThreads;
+  }
+
   /**
    * Tests if an InputStream can be opened for this FileType.
    * 
@@ -193,7 +222,9 @@ public class FileType {
       throw new ReadOnlyException();
 
     if (createBackup && filename.exists() && filename.canWrite()) {
-      File backup = FileBackup.create(filename, numberOfBackups);
+      File backup =
+          FileBackup.create(filename, filename.getParentFile(), numberOfBackups,
+              replacesFile() ? FileBackup.Mode.MOVE : FileBackup.Mode.COPY);
       FileType.log.info("Created backupfile " + backup + " (FileType.java)");
     }
 
@@ -203,6 +234,14 @@ public class FileType {
     return FileType.createEncodingWriter(createOutputStream(), encoding);
   }
 
+  /**
+   * Returns <code>true</code> if {@link #createOutputStream()} replaces the underlying file without
+   * reading it. Backups of such files are created by renaming the file instead of copying it.
+   */
+  protected boolean replacesFile() {
+    return true;
+  }
+
   /**
    * Creates an InputStream for the underlying file.
    * 
@@ -213,6 +252,18 @@ public class FileType {
     return new BufferedInputStream(new FileInputStream(filename));
   }
 
+  /**
+   * Creates a channel for the raw bytes of the underlying file. This allows readers to decode the
+   * file without the overhead of an InputStream and a Reader.
+   * 
+   * @return a channel of the underlying file, or <code>null</code> if the file's content cannot be
+   *         read directly, for example because it is compressed.
+   * @throws IOException If the file cannot be opened for reading
+   */
+  public FileChannel createChannel() throws IOException {
+    return FileChannel.open(filename.toPath(), StandardOpenOption.READ);
+  }
+
   /**
    * Creates an OutputStream for the underlying file.
    * 
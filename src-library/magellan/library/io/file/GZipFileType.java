@@ -19,6 +19,7 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 
@@ -39,8 +40,28 @@ public class GZipFileType extends FileType {
     return new GZIPInputStream(new FileInputStream(filename));
   }
 
+  /**
+   * Returns <code>null</code>, the compressed file cannot be read directly.
+   * 
+   * @see magellan.library.io.file.FileType#createChannel()
+   */
+  @Override
+  public FileChannel createChannel() throws IOException {
+    return null;
+  }
+
+  /**
+   * Returns a compressing stream. If compression threads are configured, the data is compressed in
+   * blocks on these threads and written as a sequence of gzip members, which GZIPInputStream reads
+   * as one stream.
+   *
+   * @see #setCompressionThreads(int)
+   */
   @Override
   protected OutputStream createOutputStream() throws IOException {
+    if (getCompressionThreads() > 0)
+      return new BlockCompressorOutputStream.GZip(new FileOutputStream(filename), getName(),
+          getCompressionThreads());
     // TODO GZIPInputStream is already buffered (?)
     return new GZIPOutputStream(new FileOutputStream(filename));
   }
@@ -19,6 +19,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URL;
+import java.nio.channels.FileChannel;
 
 import magellan.library.utils.Resources;
 
@@ -47,6 +48,16 @@ public class InputStreamSourceFileType extends FileType {
     return new BufferedInputStream(url.openStream());
   }
 
+  /**
+   * Returns <code>null</code>, the stream cannot be read directly.
+   * 
+   * @see magellan.library.io.file.FileType#createChannel()
+   */
+  @Override
+  public FileChannel createChannel() throws IOException {
+    return null;
+  }
+
   @Override
   protected OutputStream createOutputStream() throws IOException {
     throw new IOException("InputStreamSourceFileType does not support writing to a resource.");
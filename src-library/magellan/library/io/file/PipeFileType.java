@@ -35,6 +35,7 @@ import java.io.PipedInputStream;
 import java.io.PipedOutputStream;
 import java.io.Reader;
 import java.io.Writer;
+import java.nio.channels.FileChannel;
 
 import magellan.library.utils.Encoding;
 
@@ -76,6 +77,16 @@ public class PipeFileType extends FileType {
     return inputStream;
   }
 
+  /**
+   * Returns <code>null</code>, the pipe cannot be read directly.
+   * 
+   * @see magellan.library.io.file.FileType#createChannel()
+   */
+  @Override
+  public FileChannel createChannel() throws IOException {
+    return null;
+  }
+
   /**
    * @see magellan.library.io.file.FileType#createOutputStream()
    */
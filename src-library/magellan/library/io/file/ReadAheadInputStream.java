@@ -0,0 +1,203 @@
+// class magellan.library.io.file.ReadAheadInputStream
+// created on Oct 18, 2026
+//
+// Copyright 2003-2026 by magellan project team
+//
+// Author : $Author: $
+// $Id: $
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program (see doc/LICENCE.txt); if not, write to the
+// Free Software Foundation, Inc.,
+// 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+package magellan.library.io.file;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import magellan.library.utils.logging.Logger;
+
+/**
+ * An input stream that reads another stream in a separate thread. The thread reads ahead a limited
+ * number of chunks, so that an expensive source stream, like a decompressing stream, and the
+ * consumer of this stream can work at the same time.
+ * <p>
+ * The source stream is read and closed only by the reading thread. Closing this stream stops the
+ * thread after it has finished its current read.
+ */
+class ReadAheadInputStream extends InputStream {
+  private static final Logger log = Logger.getInstance(ReadAheadInputStream.class);
+
+  /** The default number of bytes read from the source at once */
+  public static final int CHUNK_SIZE = 64 * 1024;
+  /** The default number of chunks that are read ahead */
+  public static final int CHUNKS = 4;
+
+  private static final byte[] EOF = new byte[0];
+
+  private final BlockingQueue<byte[]> chunks;
+  private volatile boolean closed;
+  private IOException error;
+
+  private byte[] current;
+  private int pos;
+
+  /**
+   * Creates a stream that reads ahead {@link #CHUNKS} chunks of {@link #CHUNK_SIZE} bytes.
+   *
+   * @param source The stream to read
+   * @param name The name of the source, used for the name of the thread
+   */
+  public ReadAheadInputStream(InputStream source, String name) {
+    this(source, name, CHUNK_SIZE, CHUNKS);
+  }
+
+  /**
+   * Creates a stream that reads ahead up to <code>numberOfChunks</code> chunks of
+   * <code>chunkSize</code> bytes.
+   */
+  public ReadAheadInputStream(final InputStream source, String name, final int chunkSize,
+      int numberOfChunks) {
+    chunks = new ArrayBlockingQueue<byte[]>(numberOfChunks);
+    Thread reader = new Thread(new Runnable() {
+      public void run() {
+        readSource(source, chunkSize);
+      }
+    }, "ReadAhead " + name);
+    reader.setDaemon(true);
+    reader.start();
+  }
+
+  private void readSource(InputStream source, int chunkSize) {
+    try {
+      boolean eof = false;
+      while (!eof && !closed) {
+        byte[] buffer = new byte[chunkSize];
+        int length = 0;
+        while (length < chunkSize) {
+          int n = source.read(buffer, length, chunkSize - length);
+          if (n < 0) {
+            eof = true;
+            break;
+          }
+          length += n;
+        }
+        if (length > 0) {
+          put(length == chunkSize ? buffer : Arrays.copyOf(buffer, length));
+        }
+      }
+    } catch (IOException e) {
+      // read by the consuming thread after it got EOF
+      error = e;
+    } catch (InterruptedException e) {
+      closed = true;
+    } finally {
+      try {
+        source.close();
+      } catch (IOException e) {
+        log.warn("could not close " + source, e);
+      }
+      try {
+        put(EOF);
+      } catch (InterruptedException e) {
+        closed = true;
+      }
+    }
+  }
+
+  private void put(byte[] chunk) throws InterruptedException {
+    while (!closed) {
+      if (chunks.offer(chunk, 100, TimeUnit.MILLISECONDS))
+        return;
+    }
+  }
+
+  /**
+   * Makes sure that current has unread bytes. Returns <code>false</code> at the end of the stream.
+   */
+  private boolean fill() throws IOException {
+    if (closed)
+      throw new IOException("stream closed");
+    if (current == EOF)
+      return false;
+    if (current != null && pos < current.length)
+      return true;
+    try {
+      current = chunks.take();
+    } catch (InterruptedException e) {
+      throw new InterruptedIOException();
+    }
+    pos = 0;
+    if (current == EOF) {
+      if (error != null)
+        throw error;
+      return false;
+    }
+    return true;
+  }
+
+  @Override
+  public int read() throws IOException {
+    if (!fill())
+      return -1;
+    return current[pos++] & 0xff;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (len == 0)
+      return 0;
+    if (!fill())
+      return -1;
+    int n = Math.min(len, current.length - pos);
+    System.arraycopy(current, pos, b, off, n);
+    pos += n;
+    return n;
+  }
+
+  @Override
+  public long skip(long n) throws IOException {
+    if (n <= 0 || !fill())
+      return 0;
+    int skipped = (int) Math.min(n, current.length - pos);
+    pos += skipped;
+    return skipped;
+  }
+
+  /**
+   * Returns the number of bytes that can be read without waiting for the reading thread.
+   */
+  @Override
+  public int available() throws IOException {
+    if (closed)
+      throw new IOException("stream closed");
+    if (current == null || current == EOF)
+      return 0;
+    return current.length - pos;
+  }
+
+  /**
+   * Stops the reading thread. The source stream is closed by the reading thread.
+   */
+  @Override
+  public void close() {
+    closed = true;
+    chunks.clear();
+  }
+}
@@ -20,6 +20,7 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Enumeration;
@@ -113,6 +114,21 @@ public class ZipFileType extends FileType {
       return delegate.read();
     }
 
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      return delegate.read(b, off, len);
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      return delegate.skip(n);
+    }
+
+    @Override
+    public int available() throws IOException {
+      return delegate.available();
+    }
+
     @Override
     public void close() throws IOException {
       if (closeRequested) {
@@ -144,6 +160,26 @@ public class ZipFileType extends FileType {
     return new BufferedInputStream(is);
   }
 
+  /**
+   * Returns <code>null</code>, the compressed file cannot be read directly.
+   * 
+   * @see magellan.library.io.file.FileType#createChannel()
+   */
+  @Override
+  public FileChannel createChannel() throws IOException {
+    return null;
+  }
+
+  /**
+   * Returns <code>false</code> if the other entries of an existing file are copied when writing.
+   * 
+   * @see magellan.library.io.file.FileType#replacesFile()
+   */
+  @Override
+  protected boolean replacesFile() {
+    return entryName != null;
+  }
+
   @Override
   protected OutputStream createOutputStream() throws IOException {
     if (entryName != null) {
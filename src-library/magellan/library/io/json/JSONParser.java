@@ -82,4 +82,13 @@ public class JSONParser implements RulesIO, GameDataIO, ReportParser { // extend
     transformer = coordinateTransformer;
   }
 
+  /**
+   * JSON reports are always parsed on the calling thread.
+   *
+   * @see magellan.library.io.ReportParser#setParallel(boolean)
+   */
+  public void setParallel(boolean parallel) {
+    // not supported
+  }
+
 }
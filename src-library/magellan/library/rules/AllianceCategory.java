@@ -15,6 +15,7 @@ package magellan.library.rules;
 
 import java.util.Collection;
 import java.util.LinkedHashSet;
+import java.util.Map;
 
 import magellan.library.StringID;
 
@@ -130,4 +131,17 @@ public class AllianceCategory extends ObjectType {
     return (StringID) id;
   }
 
+  @Override
+  protected void copyReferences(Map<ObjectType, ObjectType> copies) {
+    super.copyReferences(copies);
+    parent = getCopy(parent, copies);
+    if (children != null) {
+      Collection<AllianceCategory> oldChildren = children;
+      children = new LinkedHashSet<AllianceCategory>();
+      for (AllianceCategory child : oldChildren) {
+        children.add(getCopy(child, copies));
+      }
+    }
+  }
+
 }
@@ -114,4 +114,19 @@ public class BuildingType extends ConstructibleType {
   public void setMaintendByRegionOwner(boolean isMaintained) {
     maintenedByRegionOwner = isMaintained;
   }
+
+  @Override
+  protected void copyReferences(Map<ObjectType, ObjectType> copies) {
+    super.copyReferences(copies);
+    if (skillBonuses != null) {
+      skillBonuses = new LinkedHashMap<StringID, Integer>(skillBonuses);
+    }
+    if (regionTypes != null) {
+      Map<StringID, RegionType> oldTypes = regionTypes;
+      regionTypes = new LinkedHashMap<StringID, RegionType>();
+      for (Map.Entry<StringID, RegionType> entry : oldTypes.entrySet()) {
+        regionTypes.put(entry.getKey(), getCopy(entry.getValue(), copies));
+      }
+    }
+  }
 }
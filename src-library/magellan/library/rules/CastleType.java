@@ -15,6 +15,7 @@ package magellan.library.rules;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Map;
 
 import magellan.library.Item;
 import magellan.library.StringID;
@@ -150,4 +151,10 @@ public class CastleType extends BuildingType {
       return super.getRawMaterials();
   }
 
+  @Override
+  protected void copyReferences(Map<ObjectType, ObjectType> copies) {
+    super.copyReferences(copies);
+    stone = getCopy(stone, copies);
+  }
+
 }
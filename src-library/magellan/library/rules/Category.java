@@ -16,6 +16,7 @@ package magellan.library.rules;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
+import java.util.Map;
 
 import magellan.library.ID;
 
@@ -284,4 +285,20 @@ public abstract class Category extends ObjectType {
   public void setIconName(String iName) {
     iconName = iName;
   }
+
+  @Override
+  protected void copyReferences(Map<ObjectType, ObjectType> copies) {
+    super.copyReferences(copies);
+    parent = getCopy(parent, copies);
+    if (children != null) {
+      Collection<Category> oldChildren = children;
+      children = new LinkedHashSet<Category>();
+      for (Category child : oldChildren) {
+        children.add(getCopy(child, copies));
+      }
+    }
+    if (data != null) {
+      data = new LinkedHashSet<Object>(data);
+    }
+  }
 }
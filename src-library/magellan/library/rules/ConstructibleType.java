@@ -150,4 +150,11 @@ public abstract class ConstructibleType extends UnitContainerType {
     return (StringID) id;
   }
 
-}
\ No newline at end of file
+  @Override
+  protected void copyReferences(Map<ObjectType, ObjectType> copies) {
+    super.copyReferences(copies);
+    rawMaterials = copyItems(rawMaterials, copies);
+    maintenance = copyItems(maintenance, copies);
+  }
+
+}
\ No newline at end of file
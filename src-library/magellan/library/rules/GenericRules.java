@@ -10,9 +10,10 @@ package magellan.library.rules;
 import java.io.IOException;
 import java.lang.reflect.Constructor;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import magellan.library.CoordinateID;
 import magellan.library.EntityID;
@@ -41,23 +42,101 @@ public class GenericRules implements Rules {
 
   private static final Logger log = Logger.getInstance(GenericRules.class);
 
+  // concurrent, so that several threads of a parallel report reader can look up types
   private Map<Class<? extends ObjectType>, Map<String, ? extends ObjectType>> metaMap =
-      new HashMap<Class<? extends ObjectType>, Map<String, ? extends ObjectType>>();
+      new ConcurrentHashMap<Class<? extends ObjectType>, Map<String, ? extends ObjectType>>();
   private Map<Class<? extends ObjectType>, Map<String, ? extends ObjectType>> namesMetaMap =
-      new HashMap<Class<? extends ObjectType>, Map<String, ? extends ObjectType>>();
+      new ConcurrentHashMap<Class<? extends ObjectType>, Map<String, ? extends ObjectType>>();
 
   // Class with gamespecific things...
   private GameSpecificStuff gameSpecificStuff;
 
   private String orderFileStartingString = "ERESSEA";
 
+  /**
+   * Creates a new, empty rules object.
+   */
+  public GenericRules() {
+    // nothing to do
+  }
+
+  /**
+   * Creates a deep copy of the given rules. All object types are copied, so that changes of this
+   * object or of its types, for example by the translations or the RULES block of a report, do not
+   * affect <code>original</code>. The game specific stuff is not copied but created on demand. The
+   * name index of the copy contains the names and IDs of all types.
+   */
+  public GenericRules(GenericRules original) {
+    Map<ObjectType, ObjectType> copies = new IdentityHashMap<ObjectType, ObjectType>();
+    for (Map<String, ? extends ObjectType> map : original.metaMap.values()) {
+      for (ObjectType type : map.values()) {
+        if (!copies.containsKey(type)) {
+          copies.put(type, type.copy());
+        }
+      }
+    }
+    for (Map<String, ? extends ObjectType> map : original.namesMetaMap.values()) {
+      for (ObjectType type : map.values()) {
+        if (!copies.containsKey(type)) {
+          copies.put(type, type.copy());
+        }
+      }
+    }
+    for (ObjectType copy : copies.values()) {
+      copy.copyReferences(copies);
+    }
+
+    metaMap = GenericRules.copyMetaMap(original.metaMap, copies);
+    namesMetaMap = GenericRules.copyMetaMap(original.namesMetaMap, copies);
+    for (Class<? extends ObjectType> class1 : metaMap.keySet()) {
+      buildIndex(class1);
+    }
+
+    orderFileStartingString = original.orderFileStartingString;
+    gameSpecificStuffClassName = original.gameSpecificStuffClassName;
+    gameName = original.gameName;
+  }
+
+  private static Map<Class<? extends ObjectType>, Map<String, ? extends ObjectType>> copyMetaMap(
+      Map<Class<? extends ObjectType>, Map<String, ? extends ObjectType>> original,
+      Map<ObjectType, ObjectType> copies) {
+    Map<Class<? extends ObjectType>, Map<String, ? extends ObjectType>> result =
+        new ConcurrentHashMap<Class<? extends ObjectType>, Map<String, ? extends ObjectType>>();
+    for (Class<? extends ObjectType> class1 : original.keySet()) {
+      Map<String, ObjectType> map = CollectionFactory.<String, ObjectType> createSyncOrderedMap();
+      for (Map.Entry<String, ? extends ObjectType> entry : original.get(class1).entrySet()) {
+        map.put(entry.getKey(), copies.get(entry.getValue()));
+      }
+      result.put(class1, map);
+    }
+    return result;
+  }
+
+  /**
+   * Puts the normalized IDs and names of all types of the given class into the names map, so that
+   * {@link #getObjectType(Map, Map, String)} finds them without scanning. Names take precedence
+   * over IDs.
+   */
+  private <T extends ObjectType> void buildIndex(Class<T> class1) {
+    Map<String, T> map = getMap(class1);
+    Map<String, T> mapNames = getNamesMap(class1);
+    for (T type : map.values()) {
+      mapNames.put(Umlaut.normalize(type.getID().toString()), type);
+    }
+    for (T type : map.values()) {
+      if (type.getName() != null) {
+        mapNames.put(Umlaut.normalize(type.getName()), type);
+      }
+    }
+  }
+
   // this is the only point where metaMap is changed, so unchecked cast is safe
   @SuppressWarnings("unchecked")
   protected <T extends ObjectType> Map<String, T> getMap(Class<T> class1) {
     Map<String, T> result = (Map<String, T>) metaMap.get(class1);
     if (result == null) {
-      result = CollectionFactory.<String, T> createSyncOrderedMap();
-      metaMap.put(class1, result);
+      metaMap.putIfAbsent(class1, CollectionFactory.<String, T> createSyncOrderedMap());
+      result = (Map<String, T>) metaMap.get(class1);
     }
     return result;
   }
@@ -67,8 +146,8 @@ public class GenericRules implements Rules {
   protected <T extends ObjectType> Map<String, T> getNamesMap(Class<T> class1) {
     Map<String, T> result = (Map<String, T>) namesMetaMap.get(class1);
     if (result == null) {
-      result = CollectionFactory.<String, T> createSyncOrderedMap();
-      namesMetaMap.put(class1, result);
+      namesMetaMap.putIfAbsent(class1, CollectionFactory.<String, T> createSyncOrderedMap());
+      result = (Map<String, T>) namesMetaMap.get(class1);
     }
     return result;
   }
@@ -819,11 +898,15 @@ public class GenericRules implements Rules {
           + ")");
     }
 
-    mapObjectType.put(Umlaut.normalize(o.getID().toString()), o);
+    String key = Umlaut.normalize(o.getID().toString());
+    mapObjectType.put(key, o);
 
     if (o.getName() != null) {
       mapObjectTypeNames.put(Umlaut.normalize(o.getName()), o);
     }
+    if (!mapObjectTypeNames.containsKey(key)) {
+      mapObjectTypeNames.put(key, o);
+    }
 
   }
 
@@ -226,4 +226,20 @@ public class ItemType extends ObjectType {
   public void setHorse(short horse) {
     isHorse = horse;
   }
+
+  @Override
+  protected void copyReferences(Map<ObjectType, ObjectType> copies) {
+    super.copyReferences(copies);
+    makeSkill = copySkill(makeSkill, copies);
+    useSkill = copySkill(useSkill, copies);
+    category = getCopy(category, copies);
+    resources = copyItems(resources, copies);
+  }
+
+  private static Skill copySkill(Skill skill, Map<ObjectType, ObjectType> copies) {
+    if (skill == null)
+      return null;
+    return new Skill(getCopy(skill.getSkillType(), copies), skill.getPoints(), skill.getLevel(), 0,
+        skill.noSkillPoints());
+  }
 }
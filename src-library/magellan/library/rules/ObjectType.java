@@ -13,7 +13,12 @@
 
 package magellan.library.rules;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import magellan.library.ID;
+import magellan.library.Item;
+import magellan.library.StringID;
 import magellan.library.impl.MagellanNamedImpl;
 
 /**
@@ -51,4 +56,53 @@ public abstract class ObjectType extends MagellanNamedImpl {
     iconNameEvaluated = false;
   }
 
+  /**
+   * Returns a shallow copy of this type. The copy shares all fields with this type until
+   * {@link #copyReferences(Map)} is called on it.
+   *
+   * @see GenericRules#GenericRules(GenericRules)
+   */
+  protected ObjectType copy() {
+    try {
+      return (ObjectType) clone();
+    } catch (CloneNotSupportedException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Replaces the references of a {@link #copy()} to other object types by their copies and replaces
+   * mutable collections by copies, so that changing the copy does not change the original. Subclasses
+   * with such fields must override this method and call the super method.
+   *
+   * @param copies Maps every type of the original rules to its copy
+   */
+  protected void copyReferences(Map<ObjectType, ObjectType> copies) {
+    // nothing to do here
+  }
+
+  /**
+   * Returns the copy of <code>type</code> or <code>type</code> itself if it has not been copied.
+   */
+  @SuppressWarnings("unchecked")
+  protected static <T extends ObjectType> T getCopy(T type, Map<ObjectType, ObjectType> copies) {
+    ObjectType copy = type == null ? null : copies.get(type);
+    return copy == null ? type : (T) copy;
+  }
+
+  /**
+   * Returns a copy of the map with new items of the copied item types.
+   */
+  protected static Map<StringID, Item> copyItems(Map<StringID, Item> items,
+      Map<ObjectType, ObjectType> copies) {
+    if (items == null)
+      return null;
+    Map<StringID, Item> result = new LinkedHashMap<StringID, Item>();
+    for (Map.Entry<StringID, Item> entry : items.entrySet()) {
+      Item item = entry.getValue();
+      result.put(entry.getKey(), new Item(getCopy(item.getItemType(), copies), item.getAmount()));
+    }
+    return result;
+  }
+
 }
@@ -153,4 +153,14 @@ public class OrderType extends ObjectType {
       return null;
   }
 
+  @Override
+  protected void copyReferences(Map<ObjectType, ObjectType> copies) {
+    super.copyReferences(copies);
+    Map<String, List<String>> oldNames = names;
+    names = CollectionFactory.createMap(2, .8f);
+    for (Map.Entry<String, List<String>> entry : oldNames.entrySet()) {
+      names.put(entry.getKey(), new ArrayList<String>(entry.getValue()));
+    }
+  }
+
 }
@@ -200,4 +200,19 @@ public class Race extends UnitContainerType {
     return (StringID) id;
   }
 
+  @Override
+  protected void copyReferences(Map<ObjectType, ObjectType> copies) {
+    super.copyReferences(copies);
+    if (skillBonuses != null) {
+      skillBonuses = new LinkedHashMap<ID, Integer>(skillBonuses);
+    }
+    if (skillRegionBonuses != null) {
+      Map<ID, Map<ID, Integer>> oldBonuses = skillRegionBonuses;
+      skillRegionBonuses = new LinkedHashMap<ID, Map<ID, Integer>>();
+      for (Map.Entry<ID, Map<ID, Integer>> entry : oldBonuses.entrySet()) {
+        skillRegionBonuses.put(entry.getKey(), new LinkedHashMap<ID, Integer>(entry.getValue()));
+      }
+    }
+  }
+
 }
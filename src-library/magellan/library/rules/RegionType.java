@@ -16,6 +16,7 @@ package magellan.library.rules;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
 import magellan.library.StringID;
 import magellan.library.gamebinding.EresseaConstants;
@@ -200,4 +201,16 @@ public class RegionType extends UnitContainerType {
     return (StringID) id;
   }
 
+  @Override
+  protected void copyReferences(Map<ObjectType, ObjectType> copies) {
+    super.copyReferences(copies);
+    List<Resource> oldResources = resources;
+    resources = new LinkedList<Resource>();
+    for (Resource resource : oldResources) {
+      Resource copy = new Resource(resource.getAmount());
+      copy.setObjectType(getCopy(resource.getObjectType(), copies));
+      resources.add(copy);
+    }
+  }
+
 }
@@ -9,6 +9,7 @@ package magellan.library.rules;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Map;
 
 import magellan.library.Item;
 import magellan.library.StringID;
@@ -193,4 +194,10 @@ public class ShipType extends ConstructibleType {
     return (StringID) id;
   }
 
+  @Override
+  protected void copyReferences(Map<ObjectType, ObjectType> copies) {
+    super.copyReferences(copies);
+    wood = getCopy(wood, copies);
+  }
+
 }
@@ -87,4 +87,11 @@ public class SkillType extends ObjectType {
     return (StringID) id;
   }
 
+  @Override
+  protected void copyReferences(Map<ObjectType, ObjectType> copies) {
+    super.copyReferences(copies);
+    category = getCopy(category, copies);
+    costMap = new LinkedHashMap<Integer, Integer>(costMap);
+  }
+
 }
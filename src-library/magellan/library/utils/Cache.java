@@ -13,6 +13,7 @@
 
 package magellan.library.utils;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
@@ -144,6 +145,31 @@ public class Cache {
     }
   }
 
+  /**
+   * Replaces the information that depends on the unit orders (relations, modified persons, modified
+   * container, ...) by the information of the given cache. The relations are copied into a new list.
+   * Modified skills, items and container units are not copied, because they may be modified in
+   * place; they are recomputed from the relations when they are needed.
+   *
+   * @param from The cache to copy from
+   */
+  public void copyModified(Cache from) {
+    relations = from.relations == null ? null : new ArrayList<UnitRelation>(from.relations);
+    modifiedName = from.modifiedName;
+    modifiedSkills = null;
+    modifiedItems = null;
+    modifiedPersons = from.modifiedPersons;
+    modifiedGuard = from.modifiedGuard;
+    modifiedCombatStatus = from.modifiedCombatStatus;
+    modifiedUnaided = from.modifiedUnaided;
+    modifiedUnaidedValidated = from.modifiedUnaidedValidated;
+    modifiedContainer = from.modifiedContainer;
+    modifiedAmount = from.modifiedAmount;
+    modifiedSize = from.modifiedSize;
+    modifiedContainerUnits = null;
+    modifiedOwner = from.modifiedOwner;
+  }
+
   /**
    * Clears all members of this Cache.
    */
@@ -0,0 +1,350 @@
+// class magellan.library.utils.CacheStage
+// created on Oct 18, 2026
+//
+// Copyright 2003-2026 by magellan project team
+//
+// Author : $Author: $
+// $Id: $
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program (see doc/LICENCE.txt); if not, write to the
+// Free Software Foundation, Inc.,
+// 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+package magellan.library.utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import magellan.library.HasCache;
+import magellan.library.Identifiable;
+import magellan.library.Order;
+import magellan.library.Orders;
+import magellan.library.Unit;
+import magellan.library.UnitContainer;
+import magellan.library.tasks.Problem;
+
+/**
+ * Collects the caches of units and containers that are modified by a thread, so that they can be
+ * computed in the background and be published all at once later. While a stage is active for the
+ * current thread, {@link HasCache#getCache()} and related methods of the standard implementations
+ * return a private copy of the object's cache. Other threads still see the original caches until
+ * {@link #publish()} is called.
+ * <p>
+ * A stage can also record which objects' caches are accessed, see {@link #setRecorder(Set)}. A stage
+ * that is begun with <code>staging == false</code> only records the accesses and lets the objects
+ * use their own caches.
+ * </p>
+ * <p>
+ * A stage that is created by {@link #createSnapshot()} is filled by the thread that owns the data,
+ * usually the event dispatch thread, before it is activated for another thread by
+ * {@link #activate()}. It holds copies of the caches, of the units of containers and of the unit
+ * orders, and the problems of orders are set in the stage, too. The other thread never reads or
+ * changes the original objects. Accessing an object that is not in the snapshot throws a
+ * {@link NotInSnapshotException}.
+ * </p>
+ */
+public class CacheStage {
+
+  /**
+   * Thrown if an object is used in a snapshot stage that has not been added to the snapshot.
+   */
+  public static class NotInSnapshotException extends RuntimeException {
+    /**
+     * Creates an exception for the given object.
+     */
+    public NotInSnapshotException(Object owner) {
+      // toString() of units and containers may use the snapshot, too
+      super(owner.getClass().getSimpleName()
+          + (owner instanceof Identifiable ? " " + ((Identifiable) owner).getID() : "")
+          + " is not in the snapshot");
+    }
+  }
+
+  private static final ThreadLocal<CacheStage> current = new ThreadLocal<CacheStage>();
+  /** number of active stages, avoids the thread local lookup in the common case */
+  private static volatile int active;
+
+  private final Map<HasCache, Cache> caches = new IdentityHashMap<HasCache, Cache>();
+  private final boolean staging;
+  private final boolean snapshot;
+  private Map<UnitContainer, Collection<Unit>> units;
+  private Map<Unit, Orders> orders;
+  private Map<Order, Problem> problems;
+  private Set<HasCache> recorder;
+  private boolean ended;
+
+  private CacheStage(boolean staging, boolean snapshot) {
+    this.staging = staging;
+    this.snapshot = snapshot;
+    if (snapshot) {
+      units = new IdentityHashMap<UnitContainer, Collection<Unit>>();
+      orders = new IdentityHashMap<Unit, Orders>();
+      problems = new IdentityHashMap<Order, Problem>();
+    }
+  }
+
+  /**
+   * Returns the stage of the current thread.
+   *
+   * @return The active stage or <code>null</code> if there is none.
+   */
+  public static CacheStage getActive() {
+    if (active == 0)
+      return null;
+    return current.get();
+  }
+
+  /**
+   * Starts a new stage for the current thread.
+   *
+   * @throws IllegalStateException if there is already a stage for this thread
+   */
+  public static CacheStage begin() {
+    return begin(true);
+  }
+
+  /**
+   * Starts a new stage for the current thread.
+   *
+   * @param staging If <code>false</code>, the stage only records accesses.
+   * @throws IllegalStateException if there is already a stage for this thread
+   */
+  public static CacheStage begin(boolean staging) {
+    CacheStage stage = new CacheStage(staging, false);
+    stage.activate();
+    return stage;
+  }
+
+  /**
+   * Creates a snapshot stage that is not active yet. Objects are added by
+   * {@link #addSnapshot(HasCache)}, {@link #addUnits(UnitContainer)} and
+   * {@link #addOrders(Unit, Orders)}.
+   */
+  public static CacheStage createSnapshot() {
+    return new CacheStage(true, true);
+  }
+
+  /**
+   * Makes this stage the stage of the current thread.
+   *
+   * @throws IllegalStateException if there is already a stage for this thread
+   */
+  public void activate() {
+    if (current.get() != null)
+      throw new IllegalStateException("stage already active");
+    synchronized (CacheStage.class) {
+      active++;
+    }
+    current.set(this);
+  }
+
+  /**
+   * Adds a copy of the object's cache to this snapshot. Must be called before the stage is
+   * activated, by the thread that owns the object.
+   */
+  public void addSnapshot(HasCache owner) {
+    if (!caches.containsKey(owner)) {
+      Cache cache = new Cache();
+      if (owner.hasCache()) {
+        cache.copyModified(owner.getCache());
+      }
+      caches.put(owner, cache);
+    }
+  }
+
+  /**
+   * Adds a copy of the container's units to this snapshot. Must be called before the stage is
+   * activated, by the thread that owns the container.
+   */
+  public void addUnits(UnitContainer container) {
+    if (!units.containsKey(container)) {
+      units.put(container, Collections.unmodifiableCollection(new ArrayList<Unit>(container
+          .units())));
+    }
+  }
+
+  /**
+   * Adds the orders of the unit to this snapshot. The orders must be a copy that is not changed
+   * afterwards.
+   */
+  public void addOrders(Unit unit, Orders copy) {
+    orders.put(unit, copy);
+  }
+
+  /**
+   * Returns the units of the container in this stage.
+   *
+   * @return The units, or <code>null</code> if this is not a snapshot and the container's own units
+   *         are to be used.
+   * @throws NotInSnapshotException if the container has not been added to the snapshot
+   */
+  public Collection<Unit> getUnits(UnitContainer container) {
+    if (!snapshot)
+      return null;
+    Collection<Unit> result = units.get(container);
+    if (result == null)
+      throw new NotInSnapshotException(container);
+    return result;
+  }
+
+  /**
+   * Returns the orders of the unit in this stage.
+   *
+   * @return The orders, or <code>null</code> if this is not a snapshot and the unit's own orders are
+   *         to be used.
+   * @throws NotInSnapshotException if the unit has not been added to the snapshot
+   */
+  public Orders getOrders(Unit unit) {
+    if (!snapshot)
+      return null;
+    Orders result = orders.get(unit);
+    if (result == null)
+      throw new NotInSnapshotException(unit);
+    return result;
+  }
+
+  /**
+   * Returns <code>true</code> if the problem of the order has been set in this stage.
+   */
+  public boolean hasProblem(Order order) {
+    return snapshot && problems.containsKey(order);
+  }
+
+  /**
+   * Returns the problem of the order that has been set in this stage.
+   */
+  public Problem getProblem(Order order) {
+    return problems.get(order);
+  }
+
+  /**
+   * Sets the problem of the order in this stage.
+   *
+   * @return <code>false</code> if this is not a snapshot and the order's own problem is to be set
+   */
+  public boolean setProblem(Order order, Problem problem) {
+    if (!snapshot)
+      return false;
+    problems.put(order, problem);
+    return true;
+  }
+
+  /**
+   * Ends this stage. Afterwards, the current thread sees the original caches again. The collected
+   * caches can still be published.
+   */
+  public void end() {
+    if (ended)
+      return;
+    ended = true;
+    current.remove();
+    synchronized (CacheStage.class) {
+      active--;
+    }
+  }
+
+  /**
+   * Sets the set that all objects are added to whose cache is accessed from now on.
+   *
+   * @param recorder The set, or <code>null</code> to stop recording
+   */
+  public void setRecorder(Set<HasCache> recorder) {
+    this.recorder = recorder;
+  }
+
+  /**
+   * Records an access to the object's cache. Called by the standard implementations of
+   * {@link HasCache} before any access to their cache.
+   *
+   * @return <code>true</code> if the object must use its cache in this stage (via
+   *         {@link #getCache(HasCache, Cache)} etc.) instead of its own cache
+   */
+  public boolean access(HasCache owner) {
+    if (recorder != null) {
+      recorder.add(owner);
+    }
+    return staging;
+  }
+
+  /**
+   * Returns <code>true</code> if the object has a cache in this stage.
+   *
+   * @param owner The object
+   * @param live The object's own cache, may be <code>null</code>
+   */
+  public boolean hasCache(HasCache owner, Cache live) {
+    if (snapshot)
+      return caches.containsKey(owner);
+    return caches.containsKey(owner) || live != null;
+  }
+
+  /**
+   * Returns the cache of the object in this stage. The first time this is called for an object, a
+   * copy of the object's own cache is made, unless this is a snapshot.
+   *
+   * @param owner The object
+   * @param live The object's own cache, may be <code>null</code>
+   * @throws NotInSnapshotException if the object has not been added to the snapshot
+   */
+  public Cache getCache(HasCache owner, Cache live) {
+    Cache cache = caches.get(owner);
+    if (cache == null) {
+      if (snapshot)
+        throw new NotInSnapshotException(owner);
+      cache = new Cache();
+      if (live != null) {
+        cache.copyModified(live);
+      }
+      caches.put(owner, cache);
+    }
+    return cache;
+  }
+
+  /**
+   * Replaces the cache of the object in this stage.
+   */
+  public void setCache(HasCache owner, Cache cache) {
+    caches.put(owner, cache != null ? cache : new Cache());
+  }
+
+  /**
+   * Returns the number of objects whose caches have been touched.
+   */
+  public int size() {
+    return caches.size();
+  }
+
+  /**
+   * Copies the order dependent information of all collected caches to the objects' own caches and
+   * sets the problems of the orders. Must not be called while the stage is active.
+   */
+  public void publish() {
+    if (getActive() == this)
+      throw new IllegalStateException("stage still active");
+    for (Map.Entry<HasCache, Cache> entry : caches.entrySet()) {
+      entry.getKey().getCache().copyModified(entry.getValue());
+    }
+    caches.clear();
+    if (snapshot) {
+      for (Map.Entry<Order, Problem> entry : problems.entrySet()) {
+        entry.getKey().setProblem(entry.getValue());
+      }
+      problems.clear();
+    }
+  }
+}
@@ -35,56 +35,83 @@ import java.util.Map;
  */
 public class CollectionFactory {
 
-  public static <K, V> Map<K, V> createMap(int i, float f) {
+  /**
+   * Returns a compact map for small capacities (that grows into a hash map if needed), and a
+   * LinkedHashMap otherwise.
+   */
+  private static <K, V> Map<K, V> create(int i, float f) {
+    if (i <= SmallMap.THRESHOLD)
+      return new SmallMap<K, V>(i);
     return new LinkedHashMap<K, V>(i, f);
   }
 
+  public static <K, V> Map<K, V> createMap(int i, float f) {
+    return create(i, f);
+  }
+
   public static <K, V> Map<K, V> createMap(int i) {
-    return new LinkedHashMap<K, V>(i);
+    return create(i, .75f);
   }
 
   public static <K, V> Map<K, V> createMap() {
-    return new LinkedHashMap<K, V>();
+    return new SmallMap<K, V>();
   }
 
   public static <K, V> Map<K, V> createOrderedMap(int i, float f) {
-    return new LinkedHashMap<K, V>(i, f);
+    return create(i, f);
   }
 
   public static <K, V> Map<K, V> createOrderedMap(int i) {
-    return new LinkedHashMap<K, V>(i);
+    return create(i, .75f);
   }
 
   public static <K, V> Map<K, V> createOrderedMap() {
-    return new LinkedHashMap<K, V>();
+    return new SmallMap<K, V>();
+  }
+
+  public static <K, V> Map<K, V> createOrderedMap(Map<? extends K, ? extends V> map) {
+    Map<K, V> copy = create(map.size(), .75f);
+    copy.putAll(map);
+    return copy;
   }
 
   public static <K, V> Map<K, V> createSyncMap(int i, float f) {
-    return Collections.synchronizedMap(new LinkedHashMap<K, V>(i, f));
+    return Collections.synchronizedMap(CollectionFactory.<K, V> create(i, f));
   }
 
   public static <K, V> Map<K, V> createSyncMap(int i) {
-    return Collections.synchronizedMap(new LinkedHashMap<K, V>(i));
+    return Collections.synchronizedMap(CollectionFactory.<K, V> create(i, .75f));
   }
 
   public static <K, V> Map<K, V> createSyncMap() {
-    return Collections.synchronizedMap(new LinkedHashMap<K, V>());
+    return Collections.synchronizedMap(new SmallMap<K, V>());
   }
 
   public static <K, V> Map<K, V> createSyncOrderedMap(int i, float f) {
-    return Collections.synchronizedMap(new LinkedHashMap<K, V>(i, f));
+    return Collections.synchronizedMap(CollectionFactory.<K, V> create(i, f));
   }
 
   public static <K, V> Map<K, V> createSyncOrderedMap(int i) {
-    return Collections.synchronizedMap(new LinkedHashMap<K, V>(i));
+    return Collections.synchronizedMap(CollectionFactory.<K, V> create(i, .75f));
   }
 
   public static <K, V> Map<K, V> createSyncOrderedMap() {
-    return Collections.synchronizedMap(new LinkedHashMap<K, V>());
+    return Collections.synchronizedMap(new SmallMap<K, V>());
   }
 
   public static <K, V> Map<K, V> createSyncOrderedMap(Map<K, V> map) {
-    return Collections.synchronizedMap(new LinkedHashMap<K, V>(map));
+    return Collections.synchronizedMap(CollectionFactory.<K, V> createOrderedMap(map));
+  }
+
+  /**
+   * Returns an ordered map for coordinate keys that supports lookups without CoordinateID objects.
+   */
+  public static <V> RegionMap<V> createRegionMap(int i) {
+    return new RegionMap<V>(i);
+  }
+
+  public static <V> RegionMap<V> createRegionMap() {
+    return new RegionMap<V>();
   }
 
 }
@@ -0,0 +1,331 @@
+// class magellan.library.utils.DistanceOracle
+// created on Oct 18, 2026
+//
+// Copyright 2003-2026 by magellan project team
+//
+// Author : $Author: $
+// $Id: $
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program (see doc/LICENCE.txt); if not, write to the
+// Free Software Foundation, Inc.,
+// 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+package magellan.library.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import magellan.library.CoordinateID;
+import magellan.library.GameData;
+import magellan.library.Region;
+import magellan.library.utils.logging.Logger;
+
+/**
+ * Lower bounds for the number of steps between two regions, computed with landmarks (ALT). For a
+ * few landmark regions, the step distances to all other regions are computed once. By the triangle
+ * inequality, |d(L, a) - d(L, b)| is a lower bound for d(a, b) for every landmark L.
+ * <p>
+ * The bounds are used as potentials for the goal-directed searches of
+ * {@link Regions.MultidimensionalMetric}s. They are valid for every metric that moves along the
+ * edges of the graph and needs at least one distance unit per step. The bounds stay valid if
+ * regions are removed, but not if regions are added or their neighbours change; {@link GameData}
+ * discards its oracle in that case and builds a new one after the report has been processed.
+ * </p>
+ */
+public class DistanceOracle {
+  private static final Logger log = Logger.getInstance(DistanceOracle.class);
+
+  /** The default number of landmarks */
+  public static final int LANDMARKS = 8;
+
+  /**
+   * The graphs for which distances are known.
+   */
+  public enum Graph {
+    /** All regions and their neighbours */
+    ALL,
+    /** Steps between neighbours where at least one of them is an ocean, as made by ships */
+    OCEAN
+  }
+
+  private static ExecutorService executor;
+
+  private final RegionMap<Integer> index;
+  private final int landmarks;
+  /** per graph: the distances of node i to the landmarks at i*landmarks..., -1 if unreachable */
+  private final int[][] distances = new int[Graph.values().length][];
+  /** per graph: the connected component of each node, -1 if the node is not in the graph */
+  private final int[][] components = new int[Graph.values().length][];
+
+  /**
+   * Computes the landmark distances for the regions of the report.
+   *
+   * @param data The report
+   * @param landmarks The number of landmarks per graph
+   */
+  public DistanceOracle(GameData data, int landmarks) {
+    this(new Snapshot(data), landmarks);
+  }
+
+  private DistanceOracle(Snapshot snapshot, int landmarks) {
+    this.landmarks = landmarks;
+    index = snapshot.index;
+    for (Graph graph : Graph.values()) {
+      int[][] adjacency = snapshot.adjacency[graph.ordinal()];
+      components[graph.ordinal()] = getComponents(adjacency);
+      distances[graph.ordinal()] = getLandmarkDistances(adjacency, components[graph.ordinal()]);
+    }
+  }
+
+  /**
+   * Returns a lower bound for the number of steps from one region to the other in the given graph.
+   * Returns 0 if one of the regions is unknown.
+   */
+  public int getLowerBound(Graph graph, CoordinateID from, CoordinateID to) {
+    Integer f = index.get(from);
+    Integer t = index.get(to);
+    if (f == null || t == null)
+      return 0;
+    int[] dist = distances[graph.ordinal()];
+    int bound = 0;
+    for (int l = 0, fi = f * landmarks, ti = t * landmarks; l < landmarks; ++l) {
+      int a = dist[fi + l], b = dist[ti + l];
+      if (a >= 0 && b >= 0) {
+        bound = Math.max(bound, Math.abs(a - b));
+      }
+    }
+    return bound;
+  }
+
+  /**
+   * Returns <code>false</code> if there is certainly no path from one region to the other in the
+   * given graph.
+   */
+  public boolean isConnected(Graph graph, CoordinateID from, CoordinateID to) {
+    Integer f = index.get(from);
+    Integer t = index.get(to);
+    if (f == null || t == null)
+      return true;
+    if (f.equals(t))
+      return true;
+    int[] comp = components[graph.ordinal()];
+    return comp[f] >= 0 && comp[f] == comp[t];
+  }
+
+  /**
+   * The regions of a report as node indexes and the neighbour lists of the graphs. This is all the
+   * oracle needs from the report, so it can be computed without access to the report.
+   */
+  private static class Snapshot {
+    final RegionMap<Integer> index;
+    final int[][][] adjacency = new int[Graph.values().length][][];
+
+    Snapshot(GameData data) {
+      List<Region> regions = new ArrayList<Region>(data.getRegions());
+      index = CollectionFactory.createRegionMap(regions.size());
+      for (Region r : regions) {
+        index.put(r.getID(), index.size());
+      }
+      for (Graph graph : Graph.values()) {
+        adjacency[graph.ordinal()] = getAdjacency(regions, graph);
+      }
+    }
+
+    /**
+     * Returns the neighbour lists of the graph's edges as node indexes.
+     */
+    private int[][] getAdjacency(List<Region> regions, Graph graph) {
+      int[][] result = new int[regions.size()][];
+      int[] buffer = new int[16];
+      for (int i = 0; i < result.length; ++i) {
+        Region r = regions.get(i);
+        int count = 0;
+        for (Region n : r.getNeighbors().values()) {
+          Integer j = index.get(n.getID());
+          if (j != null
+              && j != i
+              && (graph == Graph.ALL || r.getRegionType().isOcean() || n.getRegionType().isOcean())) {
+            if (count == buffer.length) {
+              buffer = Arrays.copyOf(buffer, count * 2);
+            }
+            buffer[count++] = j;
+          }
+        }
+        result[i] = Arrays.copyOf(buffer, count);
+      }
+      return result;
+    }
+  }
+
+  /**
+   * Numbers the connected components. Nodes without edges get -1.
+   */
+  private static int[] getComponents(int[][] adjacency) {
+    int[] comp = new int[adjacency.length];
+    Arrays.fill(comp, -1);
+    int[] queue = new int[adjacency.length];
+    int next = 0;
+    for (int s = 0; s < adjacency.length; ++s) {
+      if (comp[s] < 0 && adjacency[s].length > 0) {
+        int head = 0, tail = 0;
+        queue[tail++] = s;
+        comp[s] = next;
+        while (head < tail) {
+          for (int n : adjacency[queue[head++]]) {
+            if (comp[n] < 0) {
+              comp[n] = next;
+              queue[tail++] = n;
+            }
+          }
+        }
+        ++next;
+      }
+    }
+    return comp;
+  }
+
+  /**
+   * Chooses the landmarks in the largest component by farthest point selection and returns their
+   * distances to all nodes.
+   */
+  private int[] getLandmarkDistances(int[][] adjacency, int[] comp) {
+    int n = adjacency.length;
+    int[] result = new int[n * landmarks];
+    Arrays.fill(result, -1);
+
+    int[] sizes = new int[n + 1];
+    int largest = -1;
+    for (int c : comp) {
+      if (c >= 0) {
+        ++sizes[c];
+        if (largest < 0 || sizes[c] > sizes[largest]) {
+          largest = c;
+        }
+      }
+    }
+    if (largest < 0)
+      return result;
+    int start = 0;
+    while (comp[start] != largest) {
+      ++start;
+    }
+
+    int[] dist = new int[n];
+    int[] queue = new int[n];
+    int[] minDist = new int[n];
+    Arrays.fill(minDist, Integer.MAX_VALUE);
+    // the node farthest from an arbitrary start is the first landmark
+    int landmark = queue[bfs(adjacency, start, dist, queue) - 1];
+    for (int l = 0; l < landmarks; ++l) {
+      int reached = bfs(adjacency, landmark, dist, queue);
+      for (int k = 0; k < reached; ++k) {
+        int node = queue[k];
+        result[node * landmarks + l] = dist[node];
+        minDist[node] = Math.min(minDist[node], dist[node]);
+      }
+      int next = queue[0];
+      for (int k = 1; k < reached; ++k) {
+        if (minDist[queue[k]] > minDist[next]) {
+          next = queue[k];
+        }
+      }
+      landmark = next;
+    }
+    return result;
+  }
+
+  /**
+   * Breadth first search from start. On return, queue[0..result) holds the reached nodes in order of
+   * their distance and dist holds their distances.
+   */
+  private static int bfs(int[][] adjacency, int start, int[] dist, int[] queue) {
+    Arrays.fill(dist, -1);
+    int head = 0, tail = 0;
+    queue[tail++] = start;
+    dist[start] = 0;
+    while (head < tail) {
+      int node = queue[head++];
+      for (int n : adjacency[node]) {
+        if (dist[n] < 0) {
+          dist[n] = dist[node] + 1;
+          queue[tail++] = n;
+        }
+      }
+    }
+    return tail;
+  }
+
+  /**
+   * Builds an oracle for the report. The regions and their neighbours are copied in the calling
+   * thread, which must be allowed to read the report. The distances are computed in a background
+   * thread that does not access the report.
+   *
+   * @param callback Receives the oracle, or <code>null</code> if building failed
+   */
+  public static void buildLater(GameData data, final Callback callback) {
+    final Snapshot snapshot = new Snapshot(data);
+    getExecutor().execute(new Runnable() {
+      public void run() {
+        if (callback.isObsolete())
+          return;
+        DistanceOracle oracle = null;
+        try {
+          oracle = new DistanceOracle(snapshot, LANDMARKS);
+        } catch (RuntimeException e) {
+          log.error("building distance oracle failed", e);
+        }
+        callback.built(oracle);
+      }
+    });
+  }
+
+  /**
+   * Receives an oracle built in the background.
+   */
+  public interface Callback {
+    /**
+     * Returns <code>true</code> if the oracle is no longer needed, for example because the report has
+     * changed since the oracle was requested.
+     */
+    public boolean isObsolete();
+
+    /**
+     * Called by the background thread when the oracle is complete.
+     */
+    public void built(DistanceOracle oracle);
+  }
+
+  private static synchronized ExecutorService getExecutor() {
+    if (executor == null) {
+      executor =
+          new ThreadPoolExecutor(1, 1, 10, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+              new ThreadFactory() {
+                public Thread newThread(Runnable r) {
+                  Thread t = new Thread(r, "DistanceOracle");
+                  t.setDaemon(true);
+                  t.setPriority(Thread.MIN_PRIORITY);
+                  return t;
+                }
+              });
+      ((ThreadPoolExecutor) executor).allowCoreThreadTimeOut(true);
+    }
+    return executor;
+  }
+}
@@ -0,0 +1,214 @@
+// class magellan.library.utils.FlyweightTable
+// created on Oct 18, 2026
+//
+// Copyright 2003-2026 by magellan project team
+//
+// Author : $Author: $
+// $Id: $
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program (see doc/LICENCE.txt); if not, write to the
+// Free Software Foundation, Inc.,
+// 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+package magellan.library.utils;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A thread-safe table of shared immutable objects that are identified by up to three ints, like
+ * the IDs of the library. The table is an open-addressed hash table whose slots hold the shared
+ * objects themselves, so looking up or creating an object allocates nothing except the new object
+ * and never boxes the key.
+ * <p>
+ * Lookups and insertions are lock-free: new objects are published by a compare-and-set on their
+ * slot. Only growing the table takes a lock. The old table's slots are marked as moved while they
+ * are copied, and threads that hit a moved slot wait until the new table is complete. Therefore
+ * every key is mapped to exactly one object at any time.
+ *
+ * @param <T> The type of the shared objects
+ */
+public abstract class FlyweightTable<T> {
+
+  private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(Object[].class);
+
+  /** marks a slot whose content has been copied to the next table */
+  private static final Object MOVED = new Object();
+
+  private static final int DEFAULT_CAPACITY = 1024;
+
+  private static final class Table {
+    final Object[] slots;
+    final int mask;
+    final int threshold;
+    final AtomicInteger size = new AtomicInteger();
+
+    Table(int capacity) {
+      slots = new Object[capacity];
+      mask = capacity - 1;
+      threshold = capacity / 2;
+    }
+  }
+
+  private final int initialCapacity;
+  private volatile Table table;
+
+  /**
+   * Creates an empty table with a default initial capacity.
+   */
+  protected FlyweightTable() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Creates an empty table for about <code>capacity</code> objects.
+   */
+  protected FlyweightTable(int capacity) {
+    int c = 16;
+    while (c < 2 * capacity && c < 1 << 30) {
+      c <<= 1;
+    }
+    initialCapacity = c;
+    table = new Table(c);
+  }
+
+  /**
+   * Returns the hash of the key <code>(a, b, c)</code>. Subclasses should use
+   * {@link #mix(int, int, int)}.
+   */
+  protected abstract int hash(int a, int b, int c);
+
+  /**
+   * Returns the hash of the key of <code>value</code>. Must be the same as the hash of the key the
+   * value was created for.
+   */
+  protected abstract int hash(T value);
+
+  /**
+   * Returns <code>true</code> if <code>value</code> is the object for the key
+   * <code>(a, b, c)</code>.
+   */
+  protected abstract boolean matches(T value, int a, int b, int c);
+
+  /**
+   * Creates the object for the key <code>(a, b, c)</code>. May be called more than once for the
+   * same key if threads race for it; only one of the objects is returned by the table.
+   */
+  protected abstract T create(int a, int b, int c);
+
+  /**
+   * Returns a well distributed hash of three ints.
+   */
+  public static int mix(int a, int b, int c) {
+    int h = a * 0x9E3779B1 + b * 0x85EBCA77 + c * 0xC2B2AE3D;
+    return h ^ (h >>> 16);
+  }
+
+  /**
+   * Returns the shared object for the key <code>(a, b, c)</code>, creating it if necessary.
+   */
+  public T get(int a, int b, int c) {
+    int hash = hash(a, b, c);
+    T created = null;
+    for (;;) {
+      Table t = table;
+      Object[] slots = t.slots;
+      int i = hash & t.mask;
+      for (int probes = 0; probes <= t.mask; ++probes, i = (i + 1) & t.mask) {
+        Object v = SLOTS.getAcquire(slots, i);
+        if (v == null) {
+          if (created == null) {
+            created = create(a, b, c);
+          }
+          if (SLOTS.compareAndSet(slots, i, null, created)) {
+            if (t.size.incrementAndGet() > t.threshold) {
+              grow(t);
+            }
+            return created;
+          }
+          v = SLOTS.getAcquire(slots, i);
+        }
+        if (v == MOVED) {
+          break;
+        }
+        @SuppressWarnings("unchecked")
+        T value = (T) v;
+        if (matches(value, a, b, c))
+          return value;
+      }
+      awaitGrowth(t);
+    }
+  }
+
+  /**
+   * Removes all objects. Objects that are handed out afterwards are new instances, so the old ones
+   * can be garbage collected if they are not used any more.
+   */
+  public synchronized void clear() {
+    Table t = table;
+    for (int i = 0; i < t.slots.length; ++i) {
+      SLOTS.getAndSet(t.slots, i, MOVED);
+    }
+    table = new Table(initialCapacity);
+  }
+
+  /**
+   * Returns the number of objects in the table.
+   */
+  public int size() {
+    return table.size.get();
+  }
+
+  /**
+   * Copies the full table <code>t</code> to a table of twice the size, unless another thread has
+   * already done so.
+   */
+  private synchronized void grow(Table t) {
+    if (table != t)
+      return;
+    Table next = new Table(t.slots.length * 2);
+    Object[] slots = next.slots;
+    int count = 0;
+    for (int i = 0; i < t.slots.length; ++i) {
+      Object v = SLOTS.getAndSet(t.slots, i, MOVED);
+      if (v != null) {
+        @SuppressWarnings("unchecked")
+        T value = (T) v;
+        int j = hash(value) & next.mask;
+        while (slots[j] != null) {
+          j = (j + 1) & next.mask;
+        }
+        slots[j] = v;
+        ++count;
+      }
+    }
+    next.size.set(count);
+    // the volatile write publishes the new table and its content
+    table = next;
+  }
+
+  /**
+   * Waits until the table <code>t</code> has been replaced. The replacing thread holds the lock of
+   * this object while it moves slots.
+   */
+  private void awaitGrowth(Table t) {
+    synchronized (this) {
+      if (table == t) {
+        // table is full without a moved slot; should not happen because it grows at half size
+        grow(t);
+      }
+    }
+  }
+}
@@ -0,0 +1,195 @@
+// class magellan.library.utils.IndexedHeap
+// created on Oct 18, 2026
+//
+// Copyright 2003-2026 by magellan project team
+//
+// Author : $Author: $
+// $Id: $
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program (see doc/LICENCE.txt); if not, write to the
+// Free Software Foundation, Inc.,
+// 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+package magellan.library.utils;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A binary min-heap that supports changing the key of an element in logarithmic time. Each element
+ * stores its own position in the heap, so an element can be contained in at most one heap at a
+ * time.
+ *
+ * @param <E> The type of the elements
+ */
+public class IndexedHeap<E extends IndexedHeap.Element & Comparable<? super E>> {
+
+  /**
+   * An element of an IndexedHeap. A new element must have the index -1.
+   */
+  public interface Element {
+    /**
+     * Returns the position of this element in the heap, or -1 if it is not in a heap.
+     */
+    public int getHeapIndex();
+
+    /**
+     * Sets the position of this element in the heap.
+     */
+    public void setHeapIndex(int index);
+  }
+
+  private Object[] heap;
+  private int size;
+
+  /**
+   * Creates an empty heap.
+   */
+  public IndexedHeap() {
+    heap = new Object[16];
+  }
+
+  /**
+   * Returns the number of elements.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns <code>true</code> if the heap has no elements.
+   */
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Returns <code>true</code> if the element is in this heap.
+   */
+  public boolean contains(E e) {
+    int index = e.getHeapIndex();
+    return index >= 0 && index < size && heap[index] == e;
+  }
+
+  /**
+   * Adds an element.
+   *
+   * @throws IllegalArgumentException if the element is already in a heap
+   */
+  public void add(E e) {
+    if (e.getHeapIndex() >= 0)
+      throw new IllegalArgumentException("element is already in a heap: " + e);
+    if (size == heap.length) {
+      heap = Arrays.copyOf(heap, size * 2);
+    }
+    siftUp(size++, e);
+  }
+
+  /**
+   * Returns the smallest element without removing it.
+   *
+   * @return The smallest element or <code>null</code> if the heap is empty
+   */
+  public E peek() {
+    return size == 0 ? null : elementAt(0);
+  }
+
+  /**
+   * Removes and returns the smallest element.
+   *
+   * @throws NoSuchElementException if the heap is empty
+   */
+  public E poll() {
+    if (size == 0)
+      throw new NoSuchElementException();
+    E result = elementAt(0);
+    E last = elementAt(--size);
+    heap[size] = null;
+    if (size > 0) {
+      siftDown(0, last);
+    }
+    result.setHeapIndex(-1);
+    return result;
+  }
+
+  /**
+   * Restores the heap order after the key of the element has decreased.
+   */
+  public void decreaseKey(E e) {
+    siftUp(e.getHeapIndex(), e);
+  }
+
+  /**
+   * Restores the heap order after the key of the element has changed.
+   */
+  public void update(E e) {
+    int index = e.getHeapIndex();
+    siftUp(index, e);
+    if (e.getHeapIndex() == index) {
+      siftDown(index, e);
+    }
+  }
+
+  /**
+   * Removes all elements.
+   */
+  public void clear() {
+    for (int i = 0; i < size; ++i) {
+      elementAt(i).setHeapIndex(-1);
+      heap[i] = null;
+    }
+    size = 0;
+  }
+
+  @SuppressWarnings("unchecked")
+  private E elementAt(int index) {
+    return (E) heap[index];
+  }
+
+  private void siftUp(int index, E e) {
+    while (index > 0) {
+      int parent = (index - 1) >>> 1;
+      E p = elementAt(parent);
+      if (e.compareTo(p) >= 0) {
+        break;
+      }
+      heap[index] = p;
+      p.setHeapIndex(index);
+      index = parent;
+    }
+    heap[index] = e;
+    e.setHeapIndex(index);
+  }
+
+  private void siftDown(int index, E e) {
+    int half = size >>> 1;
+    while (index < half) {
+      int child = 2 * index + 1;
+      E c = elementAt(child);
+      int right = child + 1;
+      if (right < size && c.compareTo(elementAt(right)) > 0) {
+        child = right;
+        c = elementAt(child);
+      }
+      if (e.compareTo(c) <= 0) {
+        break;
+      }
+      heap[index] = c;
+      c.setHeapIndex(index);
+      index = child;
+    }
+    heap[index] = e;
+    e.setHeapIndex(index);
+  }
+}
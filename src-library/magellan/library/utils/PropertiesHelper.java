@@ -183,6 +183,30 @@ public class PropertiesHelper {
 
   public static final String CLIENT_LAST_SELECTED_OPEN_CR_FILEFILTER_ID = "Client.lastSelectedOpenCRFileFilterId";
 
+  /** Property type boolean: compute landmark distances for path searches in the background */
+  public static final String CLIENT_DISTANCE_ORACLE = "Client.distanceOracle";
+
+  /** Property type boolean: format regions on several threads when saving reports */
+  public static final String CLIENT_PARALLEL_SAVE = "Client.parallelSave";
+
+  /**
+   * Property type int: number of threads that parse the orders after a report has been read, 1 to
+   * parse them in the reading thread, 0 for one per processor
+   */
+  public static final String CLIENT_REPARSE_THREADS = "Client.reparseThreads";
+
+  /** Property type boolean: tokenize the blocks of reports on several threads when reading */
+  public static final String CLIENT_PARALLEL_READ = "Client.parallelRead";
+
+  /** Property type boolean: only update the relations of units whose dependencies changed */
+  public static final String CLIENT_DEPENDENCY_TRACKING = "Client.dependencyTracking";
+
+  /** Property type boolean: load added reports concurrently and merge them in a tree */
+  public static final String CLIENT_PARALLEL_MERGE = "Client.parallelMerge";
+
+  /** Property type int: number of threads that compress saved reports, 0 to compress while writing */
+  public static final String CLIENT_COMPRESSION_THREADS = "Client.compressionThreads";
+
   public static final String BUILDINGRENDERER_RENDER = "BuildingTypeRenderer.Render.";
 
   /** prefix of OrderWriter's property, not a property itself */
@@ -0,0 +1,178 @@
+// class magellan.library.utils.RegionIndex
+// created on Oct 18, 2026
+//
+// Copyright 2003-2026 by magellan project team
+//
+// Author : $Author: $
+// $Id: $
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program (see doc/LICENCE.txt); if not, write to the
+// Free Software Foundation, Inc.,
+// 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+package magellan.library.utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import magellan.library.CoordinateID;
+import magellan.library.Region;
+
+/**
+ * A spatial index of regions. The regions of each layer (z coordinate) are kept in rows sorted by
+ * their y coordinate, each row is sorted by x coordinate. Looking up the regions in a part of a row
+ * takes time proportional to the number of regions found (plus a logarithmic term).
+ * <p>
+ * The index is thread safe: the map renderers query it while regions are added on the event
+ * dispatch thread. The collections returned by the queries are copies that do not reflect later
+ * changes.
+ * </p>
+ */
+public class RegionIndex {
+
+  private final Map<Integer, NavigableMap<Integer, NavigableMap<Integer, Region>>> layers =
+      new HashMap<Integer, NavigableMap<Integer, NavigableMap<Integer, Region>>>();
+  private int size;
+
+  /**
+   * Adds a region at its coordinate, replacing any region that was there before.
+   *
+   * @return The region previously at this coordinate, or <code>null</code>
+   */
+  public synchronized Region put(Region r) {
+    CoordinateID c = r.getID();
+    NavigableMap<Integer, NavigableMap<Integer, Region>> layer = layers.get(c.getZ());
+    if (layer == null) {
+      layer = new TreeMap<Integer, NavigableMap<Integer, Region>>();
+      layers.put(c.getZ(), layer);
+    }
+    NavigableMap<Integer, Region> row = layer.get(c.getY());
+    if (row == null) {
+      row = new TreeMap<Integer, Region>();
+      layer.put(c.getY(), row);
+    }
+    Region old = row.put(c.getX(), r);
+    if (old == null) {
+      ++size;
+    }
+    return old;
+  }
+
+  /**
+   * Removes the region at the given coordinate.
+   *
+   * @return The removed region, or <code>null</code> if there was none
+   */
+  public synchronized Region remove(CoordinateID c) {
+    NavigableMap<Integer, NavigableMap<Integer, Region>> layer = layers.get(c.getZ());
+    if (layer == null)
+      return null;
+    NavigableMap<Integer, Region> row = layer.get(c.getY());
+    if (row == null)
+      return null;
+    Region old = row.remove(c.getX());
+    if (old != null) {
+      --size;
+      if (row.isEmpty()) {
+        layer.remove(c.getY());
+        if (layer.isEmpty()) {
+          layers.remove(c.getZ());
+        }
+      }
+    }
+    return old;
+  }
+
+  /**
+   * Returns the region at the given coordinate, or <code>null</code> if there is none.
+   */
+  public synchronized Region get(CoordinateID c) {
+    NavigableMap<Integer, NavigableMap<Integer, Region>> layer = layers.get(c.getZ());
+    if (layer == null)
+      return null;
+    NavigableMap<Integer, Region> row = layer.get(c.getY());
+    return row == null ? null : row.get(c.getX());
+  }
+
+  /**
+   * Removes all regions.
+   */
+  public synchronized void clear() {
+    layers.clear();
+    size = 0;
+  }
+
+  /**
+   * Returns the number of regions in the index.
+   */
+  public synchronized int size() {
+    return size;
+  }
+
+  /**
+   * Returns the z coordinates of all non-empty layers.
+   */
+  public synchronized Set<Integer> getLayers() {
+    return Collections.unmodifiableSet(new HashSet<Integer>(layers.keySet()));
+  }
+
+  /**
+   * Returns the y coordinates of the non-empty rows of layer z between fromY and toY (both
+   * inclusive) in ascending order.
+   */
+  public synchronized NavigableSet<Integer> getRows(int z, int fromY, int toY) {
+    NavigableMap<Integer, NavigableMap<Integer, Region>> layer = layers.get(z);
+    if (layer == null || fromY > toY)
+      return Collections.emptyNavigableSet();
+    return Collections.unmodifiableNavigableSet(new TreeSet<Integer>(layer.navigableKeySet()
+        .subSet(fromY, true, toY, true)));
+  }
+
+  /**
+   * Returns the regions of row y of layer z with x coordinates between fromX (inclusive) and toX
+   * (exclusive) sorted by x coordinate.
+   */
+  public synchronized Collection<Region> getRow(int z, int y, int fromX, int toX) {
+    NavigableMap<Integer, NavigableMap<Integer, Region>> layer = layers.get(z);
+    NavigableMap<Integer, Region> row = layer == null ? null : layer.get(y);
+    if (row == null || fromX >= toX)
+      return Collections.emptyList();
+    return Collections.unmodifiableList(new ArrayList<Region>(row.subMap(fromX, true, toX, false)
+        .values()));
+  }
+
+  /**
+   * Returns all regions of layer z, sorted by y and then by x coordinate.
+   */
+  public synchronized Collection<Region> getRegions(int z) {
+    NavigableMap<Integer, NavigableMap<Integer, Region>> layer = layers.get(z);
+    if (layer == null)
+      return Collections.emptyList();
+    List<Region> result = new ArrayList<Region>();
+    for (NavigableMap<Integer, Region> row : layer.values()) {
+      result.addAll(row.values());
+    }
+    return Collections.unmodifiableList(result);
+  }
+}
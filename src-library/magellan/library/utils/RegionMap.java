@@ -0,0 +1,515 @@
+// class magellan.library.utils.RegionMap
+// created on Oct 18, 2026
+//
+// Copyright 2003-2026 by magellan project team
+//
+// Author : $Author: $
+// $Id: $
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program (see doc/LICENCE.txt); if not, write to the
+// Free Software Foundation, Inc.,
+// 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+package magellan.library.utils;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+import magellan.library.CoordinateID;
+
+/**
+ * A map with coordinate keys that is cheaper than a LinkedHashMap in memory and lookup time. The
+ * entries are stored in parallel arrays in insertion order (like a LinkedHashMap, re-inserting a key
+ * does not change its position). An open addressing hash table of array indexes is used for
+ * lookups. The x and y coordinates of each key are packed into a long, the z coordinate is stored
+ * separately, so lookups by coordinates with {@link #get(int, int, int)} do not need a CoordinateID
+ * object.
+ * <p>
+ * Like a LinkedHashMap, this class is not synchronized. Its iterators are fail-fast.
+ * </p>
+ *
+ * @param <V> The type of the values
+ */
+public class RegionMap<V> extends AbstractMap<CoordinateID, V> {
+
+  private static final int DEFAULT_CAPACITY = 16;
+
+  /** packed x and y coordinates of the entries */
+  private long[] xys;
+  /** z coordinates of the entries */
+  private int[] zs;
+  /** keys of the entries, <code>null</code> for removed entries */
+  private CoordinateID[] keys;
+  private Object[] values;
+  /** number of used array entries (including removed entries) */
+  private int end;
+  private int size;
+
+  /** hash table of array indexes + 1; 0 denotes a free slot; at most half full */
+  private int[] table;
+
+  private int modCount;
+
+  private Set<CoordinateID> keySet;
+  private Collection<V> valueCollection;
+  private Set<Map.Entry<CoordinateID, V>> entrySet;
+
+  /**
+   * Creates an empty map.
+   */
+  public RegionMap() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Creates an empty map with room for the given number of entries.
+   */
+  public RegionMap(int capacity) {
+    init(Math.max(capacity, 4));
+  }
+
+  /**
+   * Creates a map with the entries of the given map, in the order of its iteration.
+   */
+  public RegionMap(Map<? extends CoordinateID, ? extends V> map) {
+    this(map.size());
+    putAll(map);
+  }
+
+  private void init(int capacity) {
+    xys = new long[capacity];
+    zs = new int[capacity];
+    keys = new CoordinateID[capacity];
+    values = new Object[capacity];
+    table = new int[tableSize(capacity)];
+    end = 0;
+    size = 0;
+  }
+
+  private static int tableSize(int capacity) {
+    return Integer.highestOneBit(capacity * 2 - 1) << 1;
+  }
+
+  private static long pack(int x, int y) {
+    return ((long) x << 32) | (y & 0xffffffffL);
+  }
+
+  private static int hash(long xy, int z) {
+    long h = (xy ^ ((long) z << 21)) * 0x9E3779B97F4A7C15L;
+    return (int) (h ^ (h >>> 32));
+  }
+
+  /**
+   * Returns the array index of the entry with the given coordinates, or -1.
+   */
+  private int indexOf(long xy, int z) {
+    int mask = table.length - 1;
+    for (int slot = hash(xy, z) & mask;; slot = (slot + 1) & mask) {
+      int index = table[slot] - 1;
+      if (index < 0)
+        return -1;
+      if (xys[index] == xy && zs[index] == z && keys[index] != null)
+        return index;
+    }
+  }
+
+  private int indexOf(Object key) {
+    if (!(key instanceof CoordinateID))
+      return -1;
+    CoordinateID c = (CoordinateID) key;
+    return indexOf(pack(c.getX(), c.getY()), c.getZ());
+  }
+
+  /**
+   * Returns the value at the given coordinates without creating a CoordinateID.
+   *
+   * @return The value or <code>null</code> if there is no entry at these coordinates
+   */
+  @SuppressWarnings("unchecked")
+  public V get(int x, int y, int z) {
+    int index = indexOf(pack(x, y), z);
+    return index < 0 ? null : (V) values[index];
+  }
+
+  /**
+   * @see java.util.AbstractMap#get(java.lang.Object)
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public V get(Object key) {
+    int index = indexOf(key);
+    return index < 0 ? null : (V) values[index];
+  }
+
+  /**
+   * @see java.util.AbstractMap#containsKey(java.lang.Object)
+   */
+  @Override
+  public boolean containsKey(Object key) {
+    return indexOf(key) >= 0;
+  }
+
+  /**
+   * @see java.util.AbstractMap#put(java.lang.Object, java.lang.Object)
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public V put(CoordinateID key, V value) {
+    if (key == null)
+      throw new NullPointerException();
+    long xy = pack(key.getX(), key.getY());
+    int z = key.getZ();
+    int index = indexOf(xy, z);
+    if (index >= 0) {
+      V old = (V) values[index];
+      values[index] = value;
+      return old;
+    }
+    if (end == keys.length) {
+      resize();
+    }
+    index = end++;
+    xys[index] = xy;
+    zs[index] = z;
+    keys[index] = key;
+    values[index] = value;
+    insert(index);
+    ++size;
+    ++modCount;
+    return null;
+  }
+
+  private void insert(int index) {
+    int mask = table.length - 1;
+    int slot = hash(xys[index], zs[index]) & mask;
+    while (table[slot] != 0) {
+      slot = (slot + 1) & mask;
+    }
+    table[slot] = index + 1;
+  }
+
+  /**
+   * Makes room for another entry, either by dropping removed entries or by growing the arrays.
+   */
+  private void resize() {
+    int capacity = keys.length;
+    if (size <= capacity / 2) {
+      compact();
+    } else {
+      capacity *= 2;
+      xys = Arrays.copyOf(xys, capacity);
+      zs = Arrays.copyOf(zs, capacity);
+      keys = Arrays.copyOf(keys, capacity);
+      values = Arrays.copyOf(values, capacity);
+      table = new int[tableSize(capacity)];
+      for (int i = 0; i < end; ++i) {
+        if (keys[i] != null) {
+          insert(i);
+        }
+      }
+    }
+  }
+
+  /**
+   * Moves all entries to the start of the arrays, keeping their order, and rebuilds the hash table.
+   */
+  private void compact() {
+    int j = 0;
+    for (int i = 0; i < end; ++i) {
+      if (keys[i] != null) {
+        xys[j] = xys[i];
+        zs[j] = zs[i];
+        keys[j] = keys[i];
+        values[j] = values[i];
+        ++j;
+      }
+    }
+    Arrays.fill(keys, j, end, null);
+    Arrays.fill(values, j, end, null);
+    end = j;
+    Arrays.fill(table, 0);
+    for (int i = 0; i < end; ++i) {
+      insert(i);
+    }
+  }
+
+  /**
+   * @see java.util.AbstractMap#remove(java.lang.Object)
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public V remove(Object key) {
+    int index = indexOf(key);
+    if (index < 0)
+      return null;
+    V old = (V) values[index];
+    removeIndex(index);
+    return old;
+  }
+
+  /**
+   * Marks the entry as removed. Its slot in the hash table is kept until the next compaction so that
+   * probe sequences stay intact.
+   */
+  private void removeIndex(int index) {
+    keys[index] = null;
+    values[index] = null;
+    --size;
+    ++modCount;
+    if (size == 0) {
+      end = 0;
+      Arrays.fill(table, 0);
+    }
+  }
+
+  /**
+   * @see java.util.AbstractMap#clear()
+   */
+  @Override
+  public void clear() {
+    if (end > 0) {
+      Arrays.fill(keys, 0, end, null);
+      Arrays.fill(values, 0, end, null);
+      Arrays.fill(table, 0);
+      end = 0;
+      size = 0;
+      ++modCount;
+    }
+  }
+
+  /**
+   * @see java.util.AbstractMap#size()
+   */
+  @Override
+  public int size() {
+    return size;
+  }
+
+  /**
+   * @see java.util.AbstractMap#isEmpty()
+   */
+  @Override
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Iterates over the entries in insertion order without creating entry objects.
+   *
+   * @see java.util.Map#forEach(java.util.function.BiConsumer)
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public void forEach(BiConsumer<? super CoordinateID, ? super V> action) {
+    int expected = modCount;
+    for (int i = 0; i < end; ++i) {
+      if (keys[i] != null) {
+        action.accept(keys[i], (V) values[i]);
+      }
+      if (modCount != expected)
+        throw new ConcurrentModificationException();
+    }
+  }
+
+  /**
+   * @see java.util.AbstractMap#keySet()
+   */
+  @Override
+  public Set<CoordinateID> keySet() {
+    if (keySet == null) {
+      keySet = new AbstractSet<CoordinateID>() {
+        @Override
+        public Iterator<CoordinateID> iterator() {
+          return new ArrayIterator<CoordinateID>() {
+            @Override
+            CoordinateID get(int index) {
+              return keys[index];
+            }
+          };
+        }
+
+        @Override
+        public int size() {
+          return size;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+          return containsKey(o);
+        }
+
+        @Override
+        public boolean remove(Object o) {
+          int index = indexOf(o);
+          if (index < 0)
+            return false;
+          removeIndex(index);
+          return true;
+        }
+
+        @Override
+        public void clear() {
+          RegionMap.this.clear();
+        }
+      };
+    }
+    return keySet;
+  }
+
+  /**
+   * @see java.util.AbstractMap#values()
+   */
+  @Override
+  public Collection<V> values() {
+    if (valueCollection == null) {
+      valueCollection = new AbstractCollection<V>() {
+        @Override
+        public Iterator<V> iterator() {
+          return new ArrayIterator<V>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            V get(int index) {
+              return (V) values[index];
+            }
+          };
+        }
+
+        @Override
+        public int size() {
+          return size;
+        }
+
+        @Override
+        public void clear() {
+          RegionMap.this.clear();
+        }
+      };
+    }
+    return valueCollection;
+  }
+
+  /**
+   * @see java.util.AbstractMap#entrySet()
+   */
+  @Override
+  public Set<Map.Entry<CoordinateID, V>> entrySet() {
+    if (entrySet == null) {
+      entrySet = new AbstractSet<Map.Entry<CoordinateID, V>>() {
+        @Override
+        public Iterator<Map.Entry<CoordinateID, V>> iterator() {
+          return new ArrayIterator<Map.Entry<CoordinateID, V>>() {
+            @Override
+            Map.Entry<CoordinateID, V> get(int index) {
+              return new Entry(index);
+            }
+          };
+        }
+
+        @Override
+        public int size() {
+          return size;
+        }
+
+        @Override
+        public void clear() {
+          RegionMap.this.clear();
+        }
+      };
+    }
+    return entrySet;
+  }
+
+  /**
+   * An entry that writes through to the map as long as the map is not compacted.
+   */
+  private class Entry extends AbstractMap.SimpleEntry<CoordinateID, V> {
+    private static final long serialVersionUID = 1L;
+    private final int index;
+
+    Entry(int index) {
+      super(keys[index], RegionMap.this.<V> value(index));
+      this.index = index;
+    }
+
+    @Override
+    public V setValue(V value) {
+      if (keys[index] == getKey()) {
+        values[index] = value;
+      }
+      return super.setValue(value);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T> T value(int index) {
+    return (T) values[index];
+  }
+
+  /**
+   * Iterates over the used array entries, skipping removed ones.
+   */
+  private abstract class ArrayIterator<T> implements Iterator<T> {
+    private int next;
+    private int last = -1;
+    private int expected = modCount;
+
+    ArrayIterator() {
+      skip();
+    }
+
+    private void skip() {
+      while (next < end && keys[next] == null) {
+        ++next;
+      }
+    }
+
+    abstract T get(int index);
+
+    public boolean hasNext() {
+      return next < end;
+    }
+
+    public T next() {
+      if (modCount != expected)
+        throw new ConcurrentModificationException();
+      if (next >= end)
+        throw new NoSuchElementException();
+      last = next++;
+      skip();
+      return get(last);
+    }
+
+    public void remove() {
+      if (last < 0)
+        throw new IllegalStateException();
+      if (modCount != expected)
+        throw new ConcurrentModificationException();
+      removeIndex(last);
+      expected = modCount;
+      last = -1;
+      if (size == 0) {
+        next = 0;
+      }
+    }
+  }
+}
@@ -8,10 +8,12 @@
 package magellan.library.utils;
 
 import java.awt.geom.Point2D;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -158,6 +160,28 @@ public class Regions {
     return neighbours;
   }
 
+  /**
+   * Adds the coordinates of the regions directly connected with the center region (not the center
+   * itself) to <code>result</code>, like {@link #getAllNeighbours(Map, CoordinateID, Map)}, but
+   * without creating a map.
+   */
+  static void getAllNeighbours(Map<CoordinateID, Region> regions, CoordinateID center,
+      Map<ID, RegionType> excludedRegionTypes, List<CoordinateID> result) {
+    Region region = regions.get(center);
+    Collection<Region> allNeighbors =
+        region != null ? region.getNeighbors().values() : getCoordinateNeighbours(regions, center)
+            .values();
+    for (Region n : allNeighbors) {
+      if ((excludedRegionTypes == null) || !excludedRegionTypes.containsKey(n.getType().getID())) {
+        if (Regions.excludedRegions == null || !Regions.excludedRegions.contains(n)) {
+          if (!n.getID().equals(center) && !result.contains(n.getID())) {
+            result.add(n.getID());
+          }
+        }
+      }
+    }
+  }
+
   /**
    * Calculates the neighbors of a region based on coordinates, i.e., it tests all neighboring
    * coordinates and adds them if the region exists in the data. It follows wrappers if necessary.
@@ -171,12 +195,17 @@ public class Regions {
 
     Map<Direction, Region> neighbours = new HashMap<Direction, Region>(9, .9f);
     MapMetric metric = data.getGameSpecificStuff().getMapMetric();
+    boolean wrappers = !data.wrappers().isEmpty();
     for (Direction dir : metric.getDirections()) {
-      CoordinateID c = metric.translate(center, dir);
-
-      Region neighbour = data.getRegion(c);
-      if (neighbour == null) {
-        Region wrapper = data.wrappers().get(c);
+      // look up by coordinates; this is called for every region while loading a report
+      CoordinateID delta = dir.toCoordinate();
+      int x = center.getX() + delta.getX();
+      int y = center.getY() + delta.getY();
+      int z = center.getZ() + delta.getZ();
+
+      Region neighbour = data.getRegion(x, y, z);
+      if (neighbour == null && wrappers) {
+        Region wrapper = data.wrappers().get(CoordinateID.create(x, y, z));
         if (wrapper != null) {
           neighbour = data.getOriginal(wrapper);
           if (neighbour.getCoordX() != wrapper.getCoordX()
@@ -210,18 +239,24 @@ public class Regions {
    *         method.
    * @see Region#getNeighbors()
    */
+  @SuppressWarnings("unchecked")
   public static Map<Direction, Region> getCoordinateNeighbours(Map<CoordinateID, Region> regions,
       CoordinateID center) {
     int radius = 1;
 
     Map<Direction, Region> neighbours = new HashMap<Direction, Region>(9, .9f);
+    RegionMap<Region> regionMap = regions instanceof RegionMap<?> ? (RegionMap<Region>) regions : null;
 
     for (int dx = -radius; dx <= radius; dx++) {
       for (int dy = (-radius + Math.abs(dx)) - ((dx > 0) ? dx : 0); dy <= ((radius - Math.abs(dx)) - ((dx < 0)
           ? dx : 0)); dy++) {
-        CoordinateID c = CoordinateID.create(center.getX() + dx, center.getY() + dy, center.getZ());
-
-        Region neighbour = regions.get(c);
+        Region neighbour;
+        if (regionMap != null) {
+          neighbour = regionMap.get(center.getX() + dx, center.getY() + dy, center.getZ());
+        } else {
+          neighbour =
+              regions.get(CoordinateID.create(center.getX() + dx, center.getY() + dy, center.getZ()));
+        }
 
         if (neighbour != null && !neighbour.getID().equals(center)) {
           // if (neighbour.getVisibility().equals(Visibility.WRAP)) {
@@ -232,7 +267,7 @@ public class Regions {
           // }
           // }
           // }
-          neighbours.put(getMapMetric(neighbour).getDirection(center, c), neighbour);
+          neighbours.put(getMapMetric(neighbour).getDirection(center, neighbour.getID()), neighbour);
         }
       }
     }
@@ -503,6 +538,11 @@ public class Regions {
     if (!regions.containsKey(start) || (dest != null && !regions.containsKey(dest)))
       return;
 
+    if (metric instanceof MultidimensionalMetric) {
+      Regions.getDistances(start, dest, maxDist, (MultidimensionalMetric) metric);
+      return;
+    }
+
     // this method applies Dijkstra's algorithm
 
     // initialize queue
@@ -554,6 +594,74 @@ public class Regions {
     }
   }
 
+  /**
+   * Applies Dijkstra's algorithm like {@link #getDistances(Map, CoordinateID, CoordinateID, int,
+   * Metric)}, but with a heap that supports decrease-key and without creating neighbour maps.
+   * Regions with infinite distance are not queued, they would never decrease any distance.
+   */
+  private static void getDistances(CoordinateID start, CoordinateID dest, int maxDist,
+      MultidimensionalMetric metric) {
+    SearchState state = SearchState.acquire();
+    try {
+      IndexedHeap<MultiDimensionalInfo> queue = state.queue;
+      List<CoordinateID> neighbours = state.neighbours;
+      queue.add(metric.createZero(start));
+      if (dest != null && !metric.isConnected(start, dest)) {
+        queue.clear();
+      }
+
+      while (!queue.isEmpty() && queue.peek().getDistance() <= maxDist
+          && !queue.peek().getID().equals(dest)) {
+        MultiDimensionalInfo current = queue.poll();
+        current.setVisited();
+        neighbours.clear();
+        metric.getNeighbours(current.getID(), neighbours);
+        for (CoordinateID next : neighbours) {
+          MultiDimensionalInfo nextRecord = metric.get(next);
+          if (!nextRecord.isVisited() && metric.relax(current, nextRecord)) {
+            if (queue.contains(nextRecord)) {
+              queue.decreaseKey(nextRecord);
+            } else {
+              queue.add(nextRecord);
+            }
+          }
+        }
+      }
+    } finally {
+      state.release();
+    }
+  }
+
+  /**
+   * The queue and neighbour buffer of a search. They are pooled per thread; searches may be nested
+   * (see {@link LandMetric}), so each thread has a stack of them. The distance records are not
+   * pooled: they are the result of the search, which the metric hands out by
+   * {@link Metric#getDistances()} and which callers keep after the search.
+   */
+  private static class SearchState {
+    private static final ThreadLocal<Deque<SearchState>> pool =
+        new ThreadLocal<Deque<SearchState>>() {
+          @Override
+          protected Deque<SearchState> initialValue() {
+            return new ArrayDeque<SearchState>();
+          }
+        };
+
+    final IndexedHeap<MultiDimensionalInfo> queue = new IndexedHeap<MultiDimensionalInfo>();
+    final List<CoordinateID> neighbours = new ArrayList<CoordinateID>(8);
+
+    static SearchState acquire() {
+      SearchState state = pool.get().poll();
+      return state != null ? state : new SearchState();
+    }
+
+    void release() {
+      queue.clear();
+      neighbours.clear();
+      pool.get().push(this);
+    }
+  }
+
   /**
    * Returns a path from start to dest based on the predecessor information in the map.
    */
@@ -706,7 +814,8 @@ public class Regions {
    *
    * @author stm
    */
-  public static class MultiDimensionalInfo implements RegionInfo, Comparable<MultiDimensionalInfo> {
+  public static class MultiDimensionalInfo implements RegionInfo, Comparable<MultiDimensionalInfo>,
+      IndexedHeap.Element {
     public static long instanceCount = 0;
 
     MultidimensionalDistance dist;
@@ -719,6 +828,8 @@ public class Regions {
     /** <code>true</code> if this id's neighbors have been touched in the search */
     protected boolean visited;
 
+    private int heapIndex = -1;
+
     protected MultiDimensionalInfo(Region region, int d, int p, int r) {
       this(region, d, p, r, 0);
     }
@@ -838,6 +949,20 @@ public class Regions {
       visited = true;
     }
 
+    /**
+     * @see magellan.library.utils.IndexedHeap.Element#getHeapIndex()
+     */
+    public int getHeapIndex() {
+      return heapIndex;
+    }
+
+    /**
+     * @see magellan.library.utils.IndexedHeap.Element#setHeapIndex(int)
+     */
+    public void setHeapIndex(int index) {
+      heapIndex = index;
+    }
+
     /**
      * Returns a new info with infinite distance for the region.
      */
@@ -859,6 +984,8 @@ public class Regions {
     protected CoordinateID start;
     protected CoordinateID dest;
 
+    private final int[] newValues = new int[4];
+
     /**
      * @param dest may be null
      */
@@ -895,6 +1022,15 @@ public class Regions {
       return Collections.unmodifiableMap(records);
     }
 
+    /**
+     * Adds the coordinates of all neighbors of the provided coordinate to <code>result</code>. This
+     * implementation adds the keys of {@link #getNeighbours(CoordinateID)}; subclasses should
+     * override it if they can find the neighbours without creating a map.
+     */
+    protected void getNeighbours(CoordinateID id, List<CoordinateID> result) {
+      result.addAll(getNeighbours(id).keySet());
+    }
+
     /**
      * @see magellan.library.utils.Regions.Metric#createZero(magellan.library.CoordinateID)
      */
@@ -958,8 +1094,6 @@ public class Regions {
       MultiDimensionalInfo current2 = (MultiDimensionalInfo) current;
       MultiDimensionalInfo next2 = (MultiDimensionalInfo) next;
 
-      int[] newValues = new int[4];
-
       newValues[3] = getPotential(r1, r2);
 
       if (!getNewValue(r1, r2, current2, next2, newValues))
@@ -995,11 +1129,38 @@ public class Regions {
     protected int getPotential(Region r1, Region r2) {
       if (dest == null)
         return 0;
-      if (r1.getData().wrappers().isEmpty())
+      int potential = 0;
+      if (r1.getData().wrappers().isEmpty()) {
         // this potential does not work for wrapped coordinates!
-        return getDist(r2.getCoordinate(), dest);
-      else
-        return 0;
+        potential = getDist(r2.getCoordinate(), dest);
+      }
+      DistanceOracle oracle = r2.getData().getDistanceOracle();
+      if (oracle != null && getGraph() != null) {
+        potential = Math.max(potential, oracle.getLowerBound(getGraph(), r2.getID(), dest));
+      }
+      return potential;
+    }
+
+    /**
+     * Returns the graph of the {@link DistanceOracle} whose step distances are lower bounds of this
+     * metric's distances, or <code>null</code> if there is none. This implementation returns
+     * {@link DistanceOracle.Graph#ALL}, which is correct for metrics that need at least one unit per
+     * step between neighbours.
+     */
+    protected DistanceOracle.Graph getGraph() {
+      return DistanceOracle.Graph.ALL;
+    }
+
+    /**
+     * Returns <code>false</code> if the distance oracle knows that there is no path between the
+     * regions.
+     */
+    protected boolean isConnected(CoordinateID from, CoordinateID to) {
+      Region region = regions.get(from);
+      DistanceOracle oracle = region == null ? null : region.getData().getDistanceOracle();
+      if (oracle == null || getGraph() == null)
+        return true;
+      return oracle.isConnected(getGraph(), from, to);
     }
 
     /**
@@ -1103,6 +1264,16 @@ public class Regions {
       return true;
     }
 
+    /**
+     * Every step of a ship starts or ends in an ocean.
+     *
+     * @see magellan.library.utils.Regions.MultidimensionalMetric#getGraph()
+     */
+    @Override
+    protected DistanceOracle.Graph getGraph() {
+      return DistanceOracle.Graph.OCEAN;
+    }
+
     /**
      * Returns the direct neighbors of a coordinate.
      *
@@ -1119,6 +1290,15 @@ public class Regions {
       }
       return neighbors;
     }
+
+    @Override
+    protected void getNeighbours(CoordinateID id, List<CoordinateID> result) {
+      for (Region n : regions.get(id).getNeighbors().values()) {
+        if (regions.containsKey(n.getID()) || n.getID().equals(dest)) {
+          result.add(n.getID());
+        }
+      }
+    }
   }
 
   /**
@@ -1284,6 +1464,11 @@ public class Regions {
     public Map<CoordinateID, Region> getNeighbours(CoordinateID id) {
       return Regions.getAllNeighbours(regions, id, excludedRegionTypes);
     }
+
+    @Override
+    protected void getNeighbours(CoordinateID id, List<CoordinateID> result) {
+      Regions.getAllNeighbours(regions, id, excludedRegionTypes, result);
+    }
   }
 
   /**
@@ -1317,6 +1502,11 @@ public class Regions {
     public Map<CoordinateID, Region> getNeighbours(CoordinateID id) {
       return Regions.getAllNeighbours(regions, id, excludedRegionTypes);
     }
+
+    @Override
+    protected void getNeighbours(CoordinateID id, List<CoordinateID> result) {
+      Regions.getAllNeighbours(regions, id, excludedRegionTypes, result);
+    }
   }
 
   /**
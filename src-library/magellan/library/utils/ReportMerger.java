@@ -16,7 +16,19 @@ package magellan.library.utils;
 import java.awt.event.WindowEvent;
 import java.io.File;
 import java.lang.ref.SoftReference;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 
 import javax.swing.JOptionPane;
 
@@ -28,6 +40,7 @@ import magellan.library.rules.Date;
 import magellan.library.tasks.GameDataInspector;
 import magellan.library.tasks.Problem;
 import magellan.library.utils.logging.Logger;
+import magellan.library.utils.transformation.IdentityTransformer;
 import magellan.library.utils.transformation.ReportTransformer;
 import magellan.library.utils.transformation.TwoLevelTransformer;
 
@@ -220,6 +233,30 @@ public class ReportMerger extends Object {
     }
   }
 
+  /**
+   * A node of the merge tree: a single report together with its transformers, or the (future)
+   * result of merging two nodes.
+   */
+  private static class MergeNode {
+    private final int level;
+    private final CompletableFuture<GameData> data;
+    // the transformer to apply when merging this node
+    private final ReportTransformer transformer;
+    // transformers whose translations are stored after merging; empty for merged nodes
+    private final ReportTransformer[] transformers;
+    // number of permits held by this node: one for a loaded report or a merge result
+    private final int permits;
+
+    MergeNode(int level, CompletableFuture<GameData> data, ReportTransformer transformer,
+        ReportTransformer[] transformers, int permits) {
+      this.level = level;
+      this.data = data;
+      this.transformer = transformer;
+      this.transformers = transformers;
+      this.permits = permits;
+    }
+  }
+
   // merged data set
   protected GameData globalData = null;
 
@@ -241,6 +278,12 @@ public class ReportMerger extends Object {
 
   private boolean interactive = false;
 
+  private boolean parallel = false;
+
+  private int maxLoadedReports = 0;
+
+  private final Map<Integer, Long> mergeTimes = new TreeMap<Integer, Long>();
+
   /**
    * Creates new ReportMerger
    */
@@ -300,6 +343,42 @@ public class ReportMerger extends Object {
       return mergeThread();
   }
 
+  /**
+   * If <code>true</code>, reports are loaded concurrently and merged pairwise in a tree on a
+   * bounded pool. Only finding the coordinate translations is done in order. Reports that cannot be
+   * connected to the current report are merged one by one afterwards.
+   */
+  public void setParallel(boolean parallel) {
+    this.parallel = parallel;
+  }
+
+  /**
+   * Returns <code>true</code> if reports are merged in parallel.
+   */
+  public boolean isParallel() {
+    return parallel;
+  }
+
+  /**
+   * Sets the maximum number of loaded reports and intermediate merge results that are held at the
+   * same time when merging in parallel. If it is <code>0</code> (the default), the maximum is
+   * estimated from the free memory and the size of the first report. At least two reports are
+   * loaded.
+   */
+  public void setMaxLoadedReports(int maxLoadedReports) {
+    this.maxLoadedReports = maxLoadedReports;
+  }
+
+  /**
+   * Returns the time (in milliseconds) spent for merging on each level of the merge tree after
+   * merging in parallel. Level 1 are the merges of single reports.
+   */
+  public Map<Integer, Long> getMergeTimes() {
+    synchronized (mergeTimes) {
+      return Collections.unmodifiableMap(new TreeMap<Integer, Long>(mergeTimes));
+    }
+  }
+
   boolean error = false;
   Object lock = new Object();
 
@@ -322,17 +401,24 @@ public class ReportMerger extends Object {
       });
     }
 
-    if (sort) {
-      sortReports();
-    }
-
     /**
      * We merge reports one by one. If merging of a report fails, we try to merge all other reports.
      * We only break, if all reports, subsequently, have failed to merge.
      */
     try {
-      boolean cancel = false;
       int iFailedConnectivity = reports.length;
+      if (parallel && reports.length > 1) {
+        mergeTree();
+        for (ReportCache report : reports) {
+          if (report.isMerged()) {
+            iFailedConnectivity--;
+          }
+        }
+      } else if (sort) {
+        sortReports();
+      }
+
+      boolean cancel = false;
       do {
         for (int currentReport = 0; !error && !cancel && currentReport < reports.length; currentReport++) {
           if (!reports[currentReport].isMerged()) {
@@ -536,6 +622,193 @@ public class ReportMerger extends Object {
     return newReport.isMerged();
   }
 
+  /**
+   * Merges the reports in a tree. Reports are loaded concurrently. At most
+   * <code>maxLoadedReports</code> loaded reports and merge results are held at a time; if the limit
+   * is reached, merge results of different levels are merged, too. Coordinate translations are
+   * found in order relative to the current report; the translated reports are merged pairwise as
+   * soon as two merge results of the same level are available. Finally, the result is merged into
+   * the current report and the reports of the tree are marked as merged. Reports that cannot be
+   * connected to the current report are not merged.
+   */
+  private void mergeTree() throws InterruptedException, ExecutionException {
+    int threads = Math.max(1, Runtime.getRuntime().availableProcessors());
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    // at least two reports, so that a report waiting for its partner doesn't block loading
+    Semaphore permits = new Semaphore(2);
+    synchronized (mergeTimes) {
+      mergeTimes.clear();
+    }
+    try {
+      if (sort) {
+        // loading for sorting is done in parallel, too; the data is only softly referenced
+        List<CompletableFuture<?>> dates = new ArrayList<CompletableFuture<?>>(reports.length);
+        for (final ReportCache report : reports) {
+          permits.acquire();
+          dates.add(CompletableFuture.runAsync(() -> report.getRound(), pool).whenComplete(
+              (r, e) -> permits.release()));
+        }
+        CompletableFuture.allOf(dates.toArray(new CompletableFuture<?>[0])).get();
+        sortReports();
+      }
+
+      GameData reference = globalData;
+      ReportTransformer globalTransformer = null;
+      Deque<CompletableFuture<GameData>> loads = new ArrayDeque<CompletableFuture<GameData>>();
+      Deque<MergeNode> stack = new ArrayDeque<MergeNode>();
+      List<ReportCache> treeReports = new ArrayList<ReportCache>(reports.length);
+      int next = 0;
+      for (int i = 0; i < reports.length && !error; ++i) {
+        // load ahead as far as the limit allows
+        if (next == i) {
+          if (!permits.tryAcquire()) {
+            // the permits are held by merge results waiting for a partner of the same level;
+            // merge two of them, which frees a permit when done
+            if (stack.size() > 1) {
+              MergeNode b = stack.pop();
+              stack.push(combine(stack.pop(), b, permits, pool));
+            }
+            permits.acquire();
+          }
+          loads.add(load(reports[next++], pool));
+        }
+        while (next < reports.length && permits.tryAcquire()) {
+          loads.add(load(reports[next++], pool));
+        }
+
+        ReportCache newReport = reports[i];
+        GameData data = loads.poll().get();
+        if (i == 0 && data != null) {
+          int limit =
+              maxLoadedReports > 0 ? maxLoadedReports : estimateMaxLoadedReports(data, threads);
+          if (limit > 2) {
+            permits.release(limit - 2);
+          }
+        }
+
+        iProgress += 2;
+        if (ui != null) {
+          ui.setProgress(newReport.getFile().getName() + " - "
+              + Resources.get("util.reportmerger.status.connecting"), iProgress);
+        }
+
+        ReportTransformer[] transformers = null;
+        if (checkGameType(newReport)) {
+          transformers =
+              reference.getGameSpecificStuff().getTransformers(reference, data, ui, interactive);
+          if (transformers != null && !isIdentity(transformers[0], reference)) {
+            // the current report would have to be transformed, too
+            transformers = null;
+          }
+        }
+        newReport.release();
+
+        if (transformers == null) {
+          iProgress -= 2;
+          permits.release();
+        } else {
+          if (globalTransformer == null) {
+            globalTransformer = transformers[0];
+          }
+          treeReports.add(newReport);
+          stack.push(new MergeNode(0, CompletableFuture.completedFuture(data), transformers[1],
+              transformers, 1));
+          // combine merge results of the same level
+          while (stack.size() > 1 && stack.peek().level == second(stack).level) {
+            MergeNode b = stack.pop();
+            stack.push(combine(stack.pop(), b, permits, pool));
+          }
+        }
+      }
+
+      if (!stack.isEmpty()) {
+        MergeNode tree = stack.pop();
+        while (!stack.isEmpty()) {
+          tree = combine(stack.pop(), tree, permits, pool);
+        }
+        MergeNode global =
+            new MergeNode(0, CompletableFuture.completedFuture(globalData), globalTransformer,
+                new ReportTransformer[0], 0);
+        GameData result = combine(global, tree, permits, pool).data.get();
+        if (!error) {
+          globalData = result;
+          for (ReportCache report : treeReports) {
+            report.setMerged(true);
+          }
+        }
+        iProgress = Math.min(iProgress + reports.length, reports.length * 3);
+      }
+
+      synchronized (mergeTimes) {
+        for (Map.Entry<Integer, Long> entry : mergeTimes.entrySet()) {
+          log.info("merge level " + entry.getKey() + ": " + entry.getValue() + "ms");
+        }
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  private static MergeNode second(Deque<MergeNode> stack) {
+    MergeNode first = stack.pop();
+    MergeNode second = stack.peek();
+    stack.push(first);
+    return second;
+  }
+
+  private CompletableFuture<GameData> load(final ReportCache report, ExecutorService pool) {
+    return CompletableFuture.supplyAsync(report::getData, pool);
+  }
+
+  /**
+   * Returns a node that merges the given nodes on the pool as soon as both are available. The
+   * permits of the nodes are released after merging, except for the one held by the result.
+   */
+  private MergeNode combine(final MergeNode older, final MergeNode newer,
+      final Semaphore permits, ExecutorService pool) {
+    final int level = Math.max(older.level, newer.level) + 1;
+    CompletableFuture<GameData> result =
+        older.data.thenCombineAsync(newer.data, (olderData, newerData) -> {
+          long start = System.currentTimeMillis();
+          GameData merged =
+              GameDataMerger.merge(olderData, newerData, older.transformer, newer.transformer);
+          for (ReportTransformer t : older.transformers) {
+            t.storeTranslations(merged, olderData);
+          }
+          for (ReportTransformer t : newer.transformers) {
+            t.storeTranslations(merged, newerData);
+          }
+          long time = System.currentTimeMillis() - start;
+          synchronized (mergeTimes) {
+            Long total = mergeTimes.get(level);
+            mergeTimes.put(level, total == null ? time : total + time);
+          }
+          return merged;
+        }, pool);
+    final int held = older.permits + newer.permits > 0 ? 1 : 0;
+    result.whenComplete((r, e) -> permits.release(older.permits + newer.permits - held));
+    return new MergeNode(level, result, new IdentityTransformer(), new ReportTransformer[0], held);
+  }
+
+  /**
+   * Estimates how many reports like the given one can be held in memory at the same time.
+   */
+  private int estimateMaxLoadedReports(GameData data, int threads) {
+    Runtime runtime = MemoryManagment.getRuntime();
+    long available = runtime.maxMemory() - runtime.totalMemory() + runtime.freeMemory();
+    // the report, its share of the merge results and the current report
+    long needed = Math.max(1, data.estimateSize() * 3);
+    return (int) Math.max(2, Math.min(2 * threads + 1, available / needed));
+  }
+
+  private static boolean isIdentity(ReportTransformer transformer, GameData data) {
+    for (Region r : data.getRegions()) {
+      if (!transformer.transform(r.getID()).equals(r.getID()))
+        return false;
+    }
+    return true;
+  }
+
   private ReportTransformer[] getTransformers(ReportCache newReport) {
     return dataReport.getData().getGameSpecificStuff().getTransformers(dataReport.getData(),
         newReport.getData(), ui, interactive);
@@ -0,0 +1,493 @@
+// class magellan.library.utils.SearchIndex
+// created on Oct 18, 2026
+//
+// Copyright 2003-2026 by magellan project team
+//
+// Author : $Author: $
+// $Id: $
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program (see doc/LICENCE.txt); if not, write to the
+// Free Software Foundation, Inc.,
+// 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+package magellan.library.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import magellan.library.Described;
+import magellan.library.Faction;
+import magellan.library.GameData;
+import magellan.library.Group;
+import magellan.library.ID;
+import magellan.library.Item;
+import magellan.library.LuxuryPrice;
+import magellan.library.Message;
+import magellan.library.Named;
+import magellan.library.Order;
+import magellan.library.Region;
+import magellan.library.RegionResource;
+import magellan.library.Unique;
+import magellan.library.Unit;
+import magellan.library.UnitContainer;
+
+/**
+ * An inverted index over the searchable texts (IDs, names, descriptions, orders, messages etc.) of
+ * the units, regions, buildings, ships and factions of a report. Every text is split into
+ * trigrams (n-grams of three characters, ignoring case). A search for a literal string only
+ * considers the objects that contain all of the string's trigrams and tests their current texts
+ * with a filter, for example a substring, word prefix or regular expression filter.
+ * <p>
+ * Objects whose texts have changed are registered by {@link #update(Unique)}. They are tested on
+ * every search until the index is rebuilt. The index is not thread safe and must only be used by
+ * one thread at a time. To build it in a background thread, {@link #collect()} the texts in the
+ * thread that owns the report and {@link #index()} them in the background.
+ * </p>
+ *
+ * @author stm
+ */
+public class SearchIndex {
+
+  /**
+   * The searchable fields of an object.
+   */
+  public enum Field {
+    /** The ID (and, for regions, the UID) */
+    ID,
+    /** The name */
+    NAME,
+    /** The description */
+    DESCRIPTION,
+    /** The group name of units */
+    GROUP,
+    /** The orders of units */
+    ORDER,
+    /** Messages and effects */
+    MESSAGE,
+    /** The names of the items of units */
+    ITEM,
+    /** The resources, herbs and luxuries of regions */
+    RESOURCE
+  }
+
+  private static final int FIELDS = Field.values().length;
+  private static final Field[] FIELD_VALUES = Field.values();
+
+  /** objects that changed, relative to the size of the index, before the index is outdated */
+  private static final int OUTDATED_FRACTION = 8;
+
+  private GameData data;
+  private List<Unique> objects = new ArrayList<Unique>();
+  private Map<Unique, Integer> indices = new IdentityHashMap<Unique, Integer>();
+  /** maps trigrams to sorted lists of postings (object index * FIELDS + field ordinal) */
+  private Map<Long, Postings> grams = new HashMap<Long, Postings>();
+  private BitSet changed = new BitSet();
+  private int changedCount;
+  /** postings and lower case texts that have been collected, but not indexed yet */
+  private List<Integer> pendingPostings = new ArrayList<Integer>();
+  private List<String> pendingTexts = new ArrayList<String>();
+
+  /**
+   * Creates an empty index for the given report.
+   */
+  public SearchIndex(GameData data) {
+    this.data = data;
+  }
+
+  /**
+   * Adds all units (including temp units), regions, buildings, ships and factions of the report to
+   * the index.
+   */
+  public void build() {
+    collect();
+    index();
+  }
+
+  /**
+   * Collects the texts of all units (including temp units), regions, buildings, ships and factions
+   * of the report. This reads the report, so it must be called by the thread that may access it.
+   * The texts are only searchable after {@link #index()}.
+   */
+  public void collect() {
+    for (Unit unit : data.getUnits()) {
+      add(unit);
+      for (Unit tempUnit : unit.tempUnits()) {
+        add(tempUnit);
+      }
+    }
+    for (Region region : data.getRegions()) {
+      add(region);
+    }
+    for (UnitContainer building : data.getBuildings()) {
+      add(building);
+    }
+    for (UnitContainer ship : data.getShips()) {
+      add(ship);
+    }
+    for (Faction faction : data.getFactions()) {
+      add(faction);
+    }
+  }
+
+  /**
+   * Adds the texts collected by {@link #collect()} to the trigrams. This does not access the
+   * report, so it may be called by a background thread.
+   */
+  public void index() {
+    for (int i = 0; i < pendingTexts.size(); ++i) {
+      addGrams(pendingPostings.get(i), pendingTexts.get(i));
+    }
+    pendingPostings.clear();
+    pendingTexts.clear();
+  }
+
+  /**
+   * Returns the report of this index.
+   */
+  public GameData getData() {
+    return data;
+  }
+
+  /**
+   * Returns <code>true</code> if the object is in the index.
+   */
+  public boolean contains(Unique object) {
+    return indices.containsKey(object);
+  }
+
+  /**
+   * Returns the number of indexed objects.
+   */
+  public int size() {
+    return objects.size();
+  }
+
+  /**
+   * Registers an object whose texts (e.g. orders) have changed. Objects that are not yet known,
+   * like new temp units, are added to the index.
+   */
+  public void update(Unique object) {
+    Integer index = indices.get(object);
+    if (index == null) {
+      add(object);
+      index();
+    } else if (!changed.get(index)) {
+      changed.set(index);
+      changedCount++;
+    }
+  }
+
+  /**
+   * Returns <code>true</code> if so many objects have changed that the index should be rebuilt.
+   */
+  public boolean isOutdated() {
+    return changedCount * OUTDATED_FRACTION > objects.size();
+  }
+
+  private void add(Unique object) {
+    if (indices.containsKey(object))
+      return;
+    int index = objects.size();
+    objects.add(object);
+    indices.put(object, index);
+    for (Field field : FIELD_VALUES) {
+      int posting = index * FIELDS + field.ordinal();
+      for (String text : getTexts(data, object, field)) {
+        pendingPostings.add(posting);
+        pendingTexts.add(text.toLowerCase());
+      }
+    }
+  }
+
+  private void addGrams(int posting, String text) {
+    for (int i = 0; i + 3 <= text.length(); ++i) {
+      Long gram = gram(text, i);
+      Postings postings = grams.get(gram);
+      if (postings == null) {
+        grams.put(gram, postings = new Postings());
+      }
+      postings.add(posting);
+    }
+  }
+
+  private static Long gram(String text, int i) {
+    return ((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2);
+  }
+
+  /**
+   * Returns all objects with a text in one of the fields that is accepted by the filter. Only
+   * objects that contain the literal string (ignoring case) in one of their texts are tested,
+   * so the filter must not accept texts that do not contain it.
+   *
+   * @param literal A string that every accepted text contains
+   * @param fields The fields to search
+   * @param filter Tests the texts of the candidates
+   */
+  public Set<Unique> find(String literal, Collection<Field> fields, Predicate<String> filter) {
+    Set<Unique> result = new HashSet<Unique>();
+    if (fields.isEmpty())
+      return result;
+
+    EnumSet<Field> fieldSet = EnumSet.copyOf(fields);
+    String lower = literal.toLowerCase();
+    if (lower.length() < 3) {
+      // too short for the index
+      for (int index = 0; index < objects.size(); ++index) {
+        test(index, fieldSet, filter, result);
+      }
+      return result;
+    }
+
+    // intersect the postings of all trigrams, starting with the shortest list
+    List<Postings> lists = new ArrayList<Postings>(lower.length() - 2);
+    for (int i = 0; i + 3 <= lower.length(); ++i) {
+      Postings postings = grams.get(gram(lower, i));
+      if (postings == null) {
+        lists.clear();
+        break;
+      }
+      lists.add(postings);
+    }
+    if (!lists.isEmpty()) {
+      Collections.sort(lists);
+      Postings shortest = lists.get(0);
+      for (int i = 0; i < shortest.size; ++i) {
+        int posting = shortest.values[i];
+        Field field = FIELD_VALUES[posting % FIELDS];
+        if (!fieldSet.contains(field)) {
+          continue;
+        }
+        boolean found = true;
+        for (int j = 1; j < lists.size() && found; ++j) {
+          found = lists.get(j).contains(posting);
+        }
+        if (found) {
+          test(posting / FIELDS, EnumSet.of(field), filter, result);
+        }
+      }
+    }
+
+    // the postings of changed objects may be outdated
+    for (int index = changed.nextSetBit(0); index >= 0; index = changed.nextSetBit(index + 1)) {
+      test(index, fieldSet, filter, result);
+    }
+    return result;
+  }
+
+  private void test(int index, Set<Field> fields, Predicate<String> filter, Set<Unique> result) {
+    Unique object = objects.get(index);
+    if (result.contains(object))
+      return;
+    for (Field field : fields) {
+      for (String text : getTexts(data, object, field)) {
+        if (filter.test(text)) {
+          result.add(object);
+          return;
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns a filter that accepts texts containing <code>s</code>.
+   *
+   * @param caseSensitive If <code>false</code>, case is ignored.
+   */
+  public static Predicate<String> containing(final String s, final boolean caseSensitive) {
+    final String s2 = caseSensitive ? s : s.toLowerCase();
+    return new Predicate<String>() {
+      public boolean test(String text) {
+        return (caseSensitive ? text : text.toLowerCase()).contains(s2);
+      }
+    };
+  }
+
+  /**
+   * Returns a filter that accepts texts containing a word that starts with <code>s</code>.
+   *
+   * @param caseSensitive If <code>false</code>, case is ignored.
+   */
+  public static Predicate<String> wordPrefix(final String s, final boolean caseSensitive) {
+    final String s2 = caseSensitive ? s : s.toLowerCase();
+    return new Predicate<String>() {
+      public boolean test(String text) {
+        String text2 = caseSensitive ? text : text.toLowerCase();
+        for (int i = text2.indexOf(s2); i >= 0; i = text2.indexOf(s2, i + 1)) {
+          if (i == 0 || !Character.isLetterOrDigit(text2.charAt(i - 1)))
+            return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  /**
+   * Returns the searchable texts of a field of an object.
+   */
+  public static List<String> getTexts(GameData data, Unique object, Field field) {
+    List<String> texts = new ArrayList<String>(1);
+    switch (field) {
+    case ID:
+      ID id = object.getID();
+      if (id != null) {
+        texts.add(id.toString());
+      }
+      if (object instanceof Region) {
+        Region r = (Region) object;
+        texts.add(Integer.toString((int) r.getUID()));
+        texts.add(Integer.toString((int) r.getUID(), 36));
+      }
+      break;
+    case NAME:
+      if (object instanceof Named) {
+        add(texts, ((Named) object).getName());
+      }
+      break;
+    case DESCRIPTION:
+      if (object instanceof Described) {
+        add(texts, ((Described) object).getDescription());
+      }
+      break;
+    case GROUP:
+      if (object instanceof Unit) {
+        Group g = ((Unit) object).getGroup();
+        if (g != null) {
+          add(texts, g.getName());
+        }
+      }
+      break;
+    case ORDER:
+      if (object instanceof Unit) {
+        for (Order order : ((Unit) object).getOrders2()) {
+          add(texts, order.getText());
+        }
+      }
+      break;
+    case MESSAGE:
+      addMessages(texts, object);
+      break;
+    case ITEM:
+      if (object instanceof Unit) {
+        for (Item item : ((Unit) object).getItems()) {
+          add(texts, item.getItemType().getName());
+        }
+      }
+      break;
+    case RESOURCE:
+      if (object instanceof Region) {
+        addResources(texts, data, (Region) object);
+      }
+      break;
+    }
+    return texts;
+  }
+
+  private static void add(List<String> texts, String text) {
+    if (text != null) {
+      texts.add(text);
+    }
+  }
+
+  private static void addMessages(List<String> texts, Unique object) {
+    if (object instanceof Unit) {
+      Unit u = (Unit) object;
+      addMessages(texts, u.getUnitMessages());
+      addMessages(texts, u.getEffects());
+    } else if (object instanceof UnitContainer) {
+      UnitContainer c = (UnitContainer) object;
+      addMessages(texts, c.getEffects());
+
+      if (c instanceof Region) {
+        Region r = (Region) c;
+        addMessages(texts, r.getMessages());
+        addMessages(texts, r.getEvents());
+        addMessages(texts, r.getPlayerMessages());
+        addMessages(texts, r.getTravelThru());
+        addMessages(texts, r.getTravelThruShips());
+      } else if (c instanceof Faction) {
+        Faction f = (Faction) c;
+        addMessages(texts, f.getMessages());
+        addMessages(texts, f.getErrors());
+      }
+    }
+  }
+
+  private static void addMessages(List<String> texts, Collection<?> messages) {
+    if (messages == null)
+      return;
+    for (Object o : messages) {
+      if (o instanceof String) {
+        texts.add((String) o);
+      } else if (o instanceof Message) {
+        add(texts, ((Message) o).getText());
+      }
+    }
+  }
+
+  private static void addResources(List<String> texts, GameData data, Region region) {
+    for (RegionResource res : region.resources()) {
+      add(texts, res.getName());
+    }
+
+    if (region.getHerb() != null) {
+      add(texts, region.getHerb().getName());
+    }
+    if (region.getPrices() != null) {
+      int maxTrade = data.getGameSpecificRules().getMaxTrade(region);
+      for (LuxuryPrice price : region.getPrices().values()) {
+        if ((price.getPrice() >= 0 && maxTrade < 0) || (price.getPrice() < 0 && maxTrade >= 0)) {
+          add(texts, price.getItemType().getName());
+        }
+      }
+    }
+  }
+
+  /**
+   * A growing, sorted list of postings.
+   */
+  private static class Postings implements Comparable<Postings> {
+    int[] values = new int[2];
+    int size;
+
+    void add(int posting) {
+      if (size > 0 && values[size - 1] == posting)
+        return;
+      if (size == values.length) {
+        int[] newValues = new int[size * 2];
+        System.arraycopy(values, 0, newValues, 0, size);
+        values = newValues;
+      }
+      values[size++] = posting;
+    }
+
+    boolean contains(int posting) {
+      return Arrays.binarySearch(values, 0, size, posting) >= 0;
+    }
+
+    public int compareTo(Postings o) {
+      return size - o.size;
+    }
+  }
+}
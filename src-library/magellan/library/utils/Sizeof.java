@@ -13,8 +13,22 @@
 
 package magellan.library.utils;
 
+import java.io.File;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import magellan.library.GameData;
+import magellan.library.Unit;
+import magellan.library.io.GameDataReader;
+import magellan.library.io.file.FileTypeFactory;
+
 /**
- * DOCUMENT-ME
+ * Measures heap usage. Without arguments, the size of an object is measured. If report files are
+ * given as arguments, the heap used per unit of each report is measured, see
+ * {@link #measureReport(File, PrintStream)}.
  * 
  * @author $Author: $
  * @version $Revision: 171 $
@@ -26,6 +40,14 @@ public class Sizeof {
    * @throws Exception DOCUMENT-ME
    */
   public static void main(String args[]) throws Exception {
+    if (args.length > 0) {
+      for (String report : args) {
+        Sizeof.measureReport(new File(report), System.out);
+      }
+      // reading a report may start the event dispatch thread
+      System.exit(0);
+    }
+
     // Warm up all classes/methods we will use
     Sizeof.runGC();
     Sizeof.usedMemory();
@@ -72,6 +94,57 @@ public class Sizeof {
     objects = null;
   }
 
+  /**
+   * Loads a report and prints the heap used per unit. Then it copies the skill and item maps of all
+   * units once into LinkedHashMaps and once into maps from the {@link CollectionFactory} and prints
+   * the heap used per unit by either copy.
+   * 
+   * @return The heap used per unit by the report
+   */
+  public static long measureReport(File report, PrintStream out) throws Exception {
+    Sizeof.runGC();
+    long heap1 = Sizeof.usedMemory();
+    GameData data =
+        new GameDataReader(null).readGameData(FileTypeFactory.singleton().createFileType(report,
+            true));
+    Sizeof.runGC();
+    long heap2 = Sizeof.usedMemory();
+    int units = Math.max(1, data.getUnits().size());
+    long perUnit = (heap2 - heap1) / units;
+    out.println(report.getName() + ": " + data.getUnits().size() + " units, " + perUnit
+        + " bytes per unit");
+
+    List<Map<?, ?>> linked = new ArrayList<Map<?, ?>>(units * 2);
+    for (Unit u : data.getUnits()) {
+      if (u.getSkillMap() != null) {
+        linked.add(new LinkedHashMap<Object, Object>(u.getSkillMap()));
+      }
+      if (u.getItemMap() != null) {
+        linked.add(new LinkedHashMap<Object, Object>(u.getItemMap()));
+      }
+    }
+    Sizeof.runGC();
+    long heap3 = Sizeof.usedMemory();
+
+    List<Map<?, ?>> compact = new ArrayList<Map<?, ?>>(units * 2);
+    for (Unit u : data.getUnits()) {
+      if (u.getSkillMap() != null) {
+        compact.add(CollectionFactory.createOrderedMap(u.getSkillMap()));
+      }
+      if (u.getItemMap() != null) {
+        compact.add(CollectionFactory.createOrderedMap(u.getItemMap()));
+      }
+    }
+    Sizeof.runGC();
+    long heap4 = Sizeof.usedMemory();
+    out.println("skill and item maps per unit: LinkedHashMap " + (heap3 - heap2) / units
+        + " bytes, CollectionFactory " + (heap4 - heap3) / units + " bytes (" + linked.size()
+        + " maps)");
+    compact.clear();
+    linked.clear();
+    return perUnit;
+  }
+
   private static void runGC() throws Exception {
     // It helps to call Runtime.gc()
     // using several method calls:
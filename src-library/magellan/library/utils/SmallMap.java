@@ -0,0 +1,301 @@
+// class magellan.library.utils.SmallMap
+// created on Oct 18, 2026
+//
+// Copyright 2003-2026 by magellan project team
+//
+// Author : $Author: $
+// $Id: $
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program (see doc/LICENCE.txt); if not, write to the
+// Free Software Foundation, Inc.,
+// 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+package magellan.library.utils;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * An ordered map that needs little memory if it has only a few entries. Up to {@link #THRESHOLD}
+ * entries are kept in an array of alternating keys and values and looked up by linear search.
+ * When more entries are added, they are moved to a LinkedHashMap. Iteration order is insertion
+ * order in both cases; re-inserting a key does not change its position. Null keys and values are
+ * allowed.
+ * <p>
+ * Like a LinkedHashMap, this class is not synchronized. Its iterators are fail-fast.
+ * </p>
+ *
+ * @param <K> The type of the keys
+ * @param <V> The type of the values
+ */
+public class SmallMap<K, V> extends AbstractMap<K, V> {
+
+  /** maximum number of entries in the array */
+  public static final int THRESHOLD = 8;
+
+  private static final Object[] EMPTY = new Object[0];
+
+  /** keys at even, values at odd indexes; not used if map != null */
+  private Object[] table = EMPTY;
+  private int size;
+  private int capacity;
+  /** the entries if there are more than THRESHOLD of them */
+  private LinkedHashMap<K, V> map;
+  private int modCount;
+
+  private Set<Map.Entry<K, V>> entrySet;
+
+  /**
+   * Creates an empty map.
+   */
+  public SmallMap() {
+    this(2);
+  }
+
+  /**
+   * Creates an empty map. The array for the given number of entries is created when the first entry
+   * is added.
+   */
+  public SmallMap(int capacity) {
+    this.capacity = Math.max(1, Math.min(capacity, THRESHOLD));
+  }
+
+  /**
+   * Creates a map with the entries of the given map, in the order of its iteration.
+   */
+  public SmallMap(Map<? extends K, ? extends V> map) {
+    this(map.size());
+    putAll(map);
+  }
+
+  private int indexOf(Object key) {
+    Object[] tab = table;
+    for (int i = 0, n = size * 2; i < n; i += 2) {
+      if (Objects.equals(key, tab[i]))
+        return i;
+    }
+    return -1;
+  }
+
+  /**
+   * @see java.util.AbstractMap#size()
+   */
+  @Override
+  public int size() {
+    return map != null ? map.size() : size;
+  }
+
+  /**
+   * @see java.util.AbstractMap#isEmpty()
+   */
+  @Override
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  /**
+   * @see java.util.AbstractMap#containsKey(java.lang.Object)
+   */
+  @Override
+  public boolean containsKey(Object key) {
+    if (map != null)
+      return map.containsKey(key);
+    return indexOf(key) >= 0;
+  }
+
+  /**
+   * @see java.util.AbstractMap#get(java.lang.Object)
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public V get(Object key) {
+    if (map != null)
+      return map.get(key);
+    int index = indexOf(key);
+    return index < 0 ? null : (V) table[index + 1];
+  }
+
+  /**
+   * @see java.util.AbstractMap#put(java.lang.Object, java.lang.Object)
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public V put(K key, V value) {
+    if (map != null)
+      return map.put(key, value);
+    int index = indexOf(key);
+    if (index >= 0) {
+      V old = (V) table[index + 1];
+      table[index + 1] = value;
+      return old;
+    }
+    if (size == THRESHOLD) {
+      toHashMap();
+      return map.put(key, value);
+    }
+    if (size * 2 == table.length) {
+      Object[] newTable = new Object[2 * (size == 0 ? capacity : Math.min(size * 2, THRESHOLD))];
+      System.arraycopy(table, 0, newTable, 0, size * 2);
+      table = newTable;
+    }
+    table[size * 2] = key;
+    table[size * 2 + 1] = value;
+    ++size;
+    ++modCount;
+    return null;
+  }
+
+  @SuppressWarnings("unchecked")
+  private void toHashMap() {
+    LinkedHashMap<K, V> newMap = new LinkedHashMap<K, V>(THRESHOLD * 4);
+    for (int i = 0; i < size * 2; i += 2) {
+      newMap.put((K) table[i], (V) table[i + 1]);
+    }
+    map = newMap;
+    table = EMPTY;
+    size = 0;
+    ++modCount;
+  }
+
+  /**
+   * @see java.util.AbstractMap#remove(java.lang.Object)
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public V remove(Object key) {
+    if (map != null)
+      return map.remove(key);
+    int index = indexOf(key);
+    if (index < 0)
+      return null;
+    V old = (V) table[index + 1];
+    removeIndex(index);
+    return old;
+  }
+
+  private void removeIndex(int index) {
+    int end = size * 2;
+    System.arraycopy(table, index + 2, table, index, end - index - 2);
+    table[end - 2] = null;
+    table[end - 1] = null;
+    --size;
+    ++modCount;
+  }
+
+  /**
+   * Removes all entries. A map that has grown beyond the threshold falls back to the array.
+   *
+   * @see java.util.AbstractMap#clear()
+   */
+  @Override
+  public void clear() {
+    map = null;
+    table = EMPTY;
+    size = 0;
+    ++modCount;
+  }
+
+  /**
+   * @see java.util.AbstractMap#entrySet()
+   */
+  @Override
+  public Set<Map.Entry<K, V>> entrySet() {
+    if (entrySet == null) {
+      entrySet = new AbstractSet<Map.Entry<K, V>>() {
+        @Override
+        public Iterator<Map.Entry<K, V>> iterator() {
+          if (map != null)
+            return map.entrySet().iterator();
+          return new ArrayIterator();
+        }
+
+        @Override
+        public int size() {
+          return SmallMap.this.size();
+        }
+
+        @Override
+        public void clear() {
+          SmallMap.this.clear();
+        }
+      };
+    }
+    return entrySet;
+  }
+
+  /**
+   * Iterates over the array.
+   */
+  private class ArrayIterator implements Iterator<Map.Entry<K, V>> {
+    private int next;
+    private int last = -1;
+    private int expected = modCount;
+
+    public boolean hasNext() {
+      return next < size * 2;
+    }
+
+    public Map.Entry<K, V> next() {
+      if (modCount != expected)
+        throw new ConcurrentModificationException();
+      if (next >= size * 2)
+        throw new NoSuchElementException();
+      last = next;
+      next += 2;
+      return new Entry(last);
+    }
+
+    public void remove() {
+      if (last < 0)
+        throw new IllegalStateException();
+      if (modCount != expected)
+        throw new ConcurrentModificationException();
+      removeIndex(last);
+      expected = modCount;
+      next = last;
+      last = -1;
+    }
+  }
+
+  /**
+   * An entry that writes through to the array as long as the map is not modified structurally.
+   */
+  private class Entry extends AbstractMap.SimpleEntry<K, V> {
+    private static final long serialVersionUID = 1L;
+    private final int index;
+    private final int expected;
+
+    @SuppressWarnings("unchecked")
+    Entry(int index) {
+      super((K) table[index], (V) table[index + 1]);
+      this.index = index;
+      expected = modCount;
+    }
+
+    @Override
+    public V setValue(V value) {
+      if (modCount == expected) {
+        table[index + 1] = value;
+      }
+      return super.setValue(value);
+    }
+  }
+}
@@ -13,8 +13,8 @@
 
 package magellan.library.utils;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import magellan.library.utils.logging.Logger;
 
@@ -37,8 +37,9 @@ public final class StringFactory {
     return StringFactory.sf;
   }
 
-  private Map<String, String> strings = new HashMap<String, String>(); // new WeakHashMap<String, String>();
-  private int oldSize = 10;
+  // concurrent, because reports may be tokenized on several threads
+  private Map<String, String> strings = new ConcurrentHashMap<String, String>(); // new WeakHashMap<String, String>();
+  private volatile int oldSize = 10;
 
   /**
    * DOCUMENT-ME
@@ -49,7 +50,9 @@ public final class StringFactory {
 
     if (is == null) {
       is = getOptimizedString(s);
-      strings.put(is, is);
+      String other = strings.putIfAbsent(is, is);
+      if (other != null)
+        return other;
       if (strings.size() > oldSize) {
         oldSize *= 2;
         Logger.getInstance(Umlaut.class).finest("strings " + strings.size());
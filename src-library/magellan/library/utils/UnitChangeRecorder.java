@@ -0,0 +1,249 @@
+// class magellan.library.utils.UnitChangeRecorder
+// created on Oct 18, 2026
+//
+// Copyright 2003-2026 by magellan project team
+//
+// Author : $Author: $
+// $Id: $
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program (see doc/LICENCE.txt); if not, write to the
+// Free Software Foundation, Inc.,
+// 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+package magellan.library.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import magellan.library.Order;
+import magellan.library.Region;
+import magellan.library.Unit;
+
+/**
+ * Confines the unit changes of a thread to one region and records them, for example to run scripts
+ * of different regions at the same time.
+ * <p>
+ * While a recorder is active for a thread, units call {@link #checkRead(Unit)} before their orders
+ * or tags are read and {@link #checkWrite(Unit)} before their orders, tags or confirmation are
+ * changed. Changes of state that is shared by all units, like the temp id counter, call
+ * {@link #checkShared(String)}. If the unit is not in the region of the recorder, or shared state is
+ * to be changed, a {@link ConflictException} is thrown <em>before</em> the access, so a thread
+ * never touches units of other regions. The state of every unit is saved before its first change,
+ * so the changes of a thread can be undone by {@link #rollback()}. Relations are not refreshed
+ * while recording; {@link #refreshRelations()} does this once per region.
+ * </p>
+ */
+public class UnitChangeRecorder {
+
+  /**
+   * Thrown if a thread with an active recorder accesses a unit of another region or shared state.
+   */
+  public static class ConflictException extends RuntimeException {
+    /**
+     * Creates an exception with the given message.
+     */
+    public ConflictException(String message) {
+      super(message);
+    }
+  }
+
+  /**
+   * The state of a unit before its first change.
+   */
+  private static class Snapshot {
+    final List<Order> orders;
+    final Map<String, String> tags;
+    final boolean confirmed;
+
+    Snapshot(Unit unit) {
+      orders = unit.ordersAreNull() ? null : new ArrayList<Order>(unit.getOrders2());
+      tags = unit.hasTags() ? new LinkedHashMap<String, String>(unit.getTagMap()) : null;
+      confirmed = unit.isOrdersConfirmed();
+    }
+
+    void restore(Unit unit) {
+      unit.setOrders2(orders);
+      unit.deleteAllTags();
+      if (tags != null) {
+        for (Map.Entry<String, String> tag : tags.entrySet()) {
+          unit.putTag(tag.getKey(), tag.getValue());
+        }
+      }
+      unit.setOrdersConfirmed(confirmed);
+    }
+  }
+
+  private static final ThreadLocal<UnitChangeRecorder> current =
+      new ThreadLocal<UnitChangeRecorder>();
+  /** number of recording threads, avoids the thread local lookup in the common case */
+  private static volatile int active;
+
+  private final Region region;
+  private final Map<Unit, Snapshot> snapshots = new LinkedHashMap<Unit, Snapshot>();
+  private final Set<Region> changedRegions = new LinkedHashSet<Region>();
+  private String conflict;
+
+  private UnitChangeRecorder(Region region) {
+    this.region = region;
+  }
+
+  /**
+   * Starts recording the changes of the current thread, confined to the given region.
+   *
+   * @return the new recorder
+   * @throws IllegalStateException if the thread is already recording
+   */
+  public static UnitChangeRecorder start(Region region) {
+    if (current.get() != null)
+      throw new IllegalStateException("already recording");
+    UnitChangeRecorder recorder = new UnitChangeRecorder(region);
+    synchronized (UnitChangeRecorder.class) {
+      active++;
+    }
+    current.set(recorder);
+    return recorder;
+  }
+
+  /**
+   * Stops recording for the current thread. The recorded changes can still be undone.
+   */
+  public void stop() {
+    if (current.get() == this) {
+      current.remove();
+      synchronized (UnitChangeRecorder.class) {
+        active--;
+      }
+    }
+  }
+
+  private static UnitChangeRecorder getCurrent() {
+    if (active == 0)
+      return null;
+    return current.get();
+  }
+
+  /**
+   * Called by units before their orders or tags are read.
+   *
+   * @throws ConflictException if the current thread is recording for another region
+   */
+  public static void checkRead(Unit unit) {
+    UnitChangeRecorder recorder = getCurrent();
+    if (recorder != null) {
+      recorder.check(unit);
+    }
+  }
+
+  /**
+   * Called by units before their orders, tags or confirmation are changed.
+   *
+   * @throws ConflictException if the current thread is recording for another region
+   */
+  public static void checkWrite(Unit unit) {
+    UnitChangeRecorder recorder = getCurrent();
+    if (recorder != null) {
+      recorder.check(unit);
+      if (!recorder.snapshots.containsKey(unit)) {
+        recorder.snapshots.put(unit, new Snapshot(unit));
+      }
+    }
+  }
+
+  /**
+   * Called before state is changed that is shared by all units.
+   *
+   * @param what a description of the state, for the message of the exception
+   * @throws ConflictException if the current thread is recording
+   */
+  public static void checkShared(String what) {
+    UnitChangeRecorder recorder = getCurrent();
+    if (recorder != null) {
+      recorder.fail(what + " is shared by all regions");
+    }
+  }
+
+  /**
+   * Called by units instead of refreshing the relations of their region.
+   *
+   * @return <code>true</code> if the current thread is recording; the relations are refreshed by
+   *         {@link #refreshRelations()} in this case.
+   */
+  public static boolean deferRelations(Unit unit) {
+    UnitChangeRecorder recorder = getCurrent();
+    if (recorder == null)
+      return false;
+    if (unit.getRegion() != null) {
+      recorder.changedRegions.add(unit.getRegion());
+    }
+    return true;
+  }
+
+  private void check(Unit unit) {
+    if (unit.getRegion() != region) {
+      fail(unit + " is not in " + region);
+    }
+  }
+
+  private void fail(String message) {
+    if (conflict == null) {
+      conflict = message;
+    }
+    throw new ConflictException(message);
+  }
+
+  /**
+   * Returns the first conflict or <code>null</code> if there was none. Conflicts are remembered even
+   * if a script has caught the exception.
+   */
+  public String getConflict() {
+    return conflict;
+  }
+
+  /**
+   * Returns the units that have been changed.
+   */
+  public Set<Unit> getChangedUnits() {
+    return Collections.unmodifiableSet(snapshots.keySet());
+  }
+
+  /**
+   * Restores the state of all changed units. Must be called after {@link #stop()}.
+   */
+  public void rollback() {
+    if (current.get() == this)
+      throw new IllegalStateException("still recording");
+    for (Map.Entry<Unit, Snapshot> entry : snapshots.entrySet()) {
+      entry.getValue().restore(entry.getKey());
+    }
+    snapshots.clear();
+  }
+
+  /**
+   * Refreshes the relations of all regions whose units have been changed. Must be called after
+   * {@link #stop()}.
+   */
+  public void refreshRelations() {
+    if (current.get() == this)
+      throw new IllegalStateException("still recording");
+    for (Region r : changedRegions) {
+      r.getData().getGameSpecificStuff().getRelationFactory().createRelations(r);
+    }
+    changedRegions.clear();
+  }
+}
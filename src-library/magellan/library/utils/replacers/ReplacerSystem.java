@@ -13,10 +13,19 @@
 
 package magellan.library.utils.replacers;
 
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import magellan.library.Region;
 import magellan.library.utils.logging.Logger;
 
 /**
  * DOCUMENT ME!
+ * <p>
+ * The results for regions can be cached (see {@link #setCaching(boolean)}). A result depends only
+ * on the region and its units, so the owner has to call {@link #invalidate(Region)} if the region
+ * or one of its units changes and {@link #invalidate()} if the game data changes.
+ * </p>
  * 
  * @author Andreas
  * @version 1.0
@@ -24,6 +33,8 @@ import magellan.library.utils.logging.Logger;
 public class ReplacerSystem {
   protected ReplacerEnvironment environment;
   protected Replacer base;
+  /** The cached results by region, <code>null</code> if results are not cached */
+  protected Map<Region, Object> results;
 
   /**
    * DOCUMENT-ME
@@ -47,10 +58,58 @@ public class ReplacerSystem {
     base = replacer;
   }
 
+  /**
+   * Turns caching of the results for regions on or off.
+   */
+  public synchronized void setCaching(boolean caching) {
+    if (!caching) {
+      results = null;
+    } else if (results == null) {
+      // regions of different reports may be equal
+      results = new IdentityHashMap<Region, Object>();
+    }
+  }
+
+  /**
+   * Returns <code>true</code> if the results for regions are cached.
+   */
+  public synchronized boolean isCaching() {
+    return results != null;
+  }
+
+  /**
+   * Removes the cached result for the region.
+   */
+  public synchronized void invalidate(Region r) {
+    if (results != null) {
+      results.remove(r);
+    }
+  }
+
+  /**
+   * Removes all cached results.
+   */
+  public synchronized void invalidate() {
+    if (results != null) {
+      results.clear();
+    }
+  }
+
   /**
    * DOCUMENT-ME
    */
   public synchronized Object getReplacement(Object obj) {
+    if (results != null && obj instanceof Region) {
+      if (results.containsKey(obj))
+        return results.get(obj);
+      Object ret = evaluate(obj);
+      results.put((Region) obj, ret);
+      return ret;
+    }
+    return evaluate(obj);
+  }
+
+  private Object evaluate(Object obj) {
     if (environment != null) {
       environment.reset();
     }
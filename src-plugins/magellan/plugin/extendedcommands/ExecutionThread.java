@@ -23,29 +23,58 @@
 //
 package magellan.plugin.extendedcommands;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import javax.swing.SwingUtilities;
 
 import magellan.client.Client;
 import magellan.library.GameData;
+import magellan.library.HasRegion;
+import magellan.library.Region;
 import magellan.library.Unit;
 import magellan.library.UnitContainer;
 import magellan.library.event.GameDataEvent;
+import magellan.library.utils.PropertiesHelper;
+import magellan.library.utils.UnitChangeRecorder;
+import magellan.library.utils.UnitChangeRecorder.ConflictException;
 import magellan.library.utils.UserInterface;
 import magellan.library.utils.logging.Logger;
 
 /**
  * Executes all scripts for all units and containers.
- * 
+ * <p>
+ * If the property {@link #PARALLEL_PROPERTY} is set, consecutive scripts (in the order of their
+ * priority) of units and containers in a region are run in batches. The scripts of a batch are
+ * partitioned by region and the partitions are run on several threads. Each thread may only access
+ * the units of its region (see {@link UnitChangeRecorder}). If a script accesses another region or
+ * state shared by all regions, like the temp id counter, the changes of the whole batch are undone
+ * and its scripts are run again one after another. Scripts that cannot be compiled and containers
+ * without region are run on their own between the batches.
+ * </p>
+ *
  * @author Thoralf Rickert
  * @version 1.0, 12.04.2008
  */
 public class ExecutionThread extends Thread {
   private static final Logger log = Logger.getInstance(ExecutionThread.class);
 
+  /** Property type boolean: execute the scripts of different regions in parallel */
+  public static final String PARALLEL_PROPERTY = "extendedcommands.parallel";
+
   private Client client = null;
   private UserInterface ui = null;
   private ExtendedCommands commands = null;
+  private ExtendedCommandsDock dock = null;
 
   /**
    * 
@@ -56,44 +85,264 @@ public class ExecutionThread extends Thread {
     this.commands = commands;
   }
 
+  /**
+   * Sets the dock that shows the running times after execution.
+   */
+  public void setDock(ExtendedCommandsDock dock) {
+    this.dock = dock;
+  }
+
   /**
    * @see java.lang.Thread#run()
    */
   @Override
   public void run() {
-    List<Unit> units = commands.getUnitsWithCommands(client.getData());
-    List<UnitContainer> containers = commands.getUnitContainersWithCommands(client.getData());
+    long start = System.currentTimeMillis();
+    executeAll(client.getData(), PropertiesHelper.getBoolean(client.getProperties(),
+        PARALLEL_PROPERTY, false));
+
+    ExecutionThread.log.info("Fire event - gamedata changed");
+    client.getDispatcher().fire(new GameDataEvent(commands, client.getData()));
+    ui.ready();
 
-    GameData data = client.getData();
+    if (dock != null) {
+      final long time = System.currentTimeMillis() - start;
+      SwingUtilities.invokeLater(new Runnable() {
+        public void run() {
+          dock.showExecutionTimes(time);
+        }
+      });
+    }
+  }
+
+  /**
+   * Executes the scripts of all units and containers without firing events.
+   */
+  void executeAll(GameData data, boolean parallel) {
+    List<Unit> units = commands.getUnitsWithCommands(data);
+    List<UnitContainer> containers = commands.getUnitContainersWithCommands(data);
 
     ui.setMaximum(units.size() + containers.size());
     ui.show();
 
-    int counter = 0;
-
     commands.setFireChangeEvent(false);
     commands.setUseThread(false);
+    commands.clearExecutionTimes();
 
-    ExecutionThread.log.info("Executing commands for all configured containers...");
     Collections.sort(containers, new ContainerPriorityComparator(commands));
+    Collections.sort(units, new UnitPriorityComparator(commands));
+
+    // containers first, then units, as the sequential execution does
+    List<Object> scripts = new ArrayList<Object>(containers.size() + units.size());
+    scripts.addAll(containers);
+    scripts.addAll(units);
 
-    for (UnitContainer container : containers) {
-      commands.execute(data, container);
-      ui.setProgress(container.getName(), counter++);
+    try {
+      if (parallel) {
+        runParallel(data, scripts);
+      } else {
+        ExecutionThread.log.info("Executing commands for all configured containers and units...");
+        runSequential(data, scripts, 0);
+      }
+    } finally {
+      commands.setFireChangeEvent(true);
+      commands.setUseThread(true);
     }
+  }
 
-    ExecutionThread.log.info("Executing commands for all configured units...");
-    Collections.sort(units, new UnitPriorityComparator(commands));
+  private int runSequential(GameData data, List<Object> scripts, int counter) {
+    for (Object script : scripts) {
+      if (script instanceof Unit) {
+        commands.execute(data, (Unit) script);
+        ui.setProgress(((Unit) script).getName(), ++counter);
+      } else {
+        commands.execute(data, (UnitContainer) script);
+        ui.setProgress(((UnitContainer) script).getName(), ++counter);
+      }
+    }
+    return counter;
+  }
+
+  /**
+   * The scripts of one region in one batch and their results.
+   */
+  private class Partition {
+    final Region region;
+    final List<Object> scripts = new ArrayList<Object>();
+    final Map<Object, Throwable> errors = new HashMap<Object, Throwable>();
+    volatile UnitChangeRecorder recorder;
+    volatile String conflict;
 
-    for (Unit unit : units) {
-      commands.execute(data, unit);
-      ui.setProgress(unit.getName(), counter++);
+    Partition(Region region) {
+      this.region = region;
     }
 
-    commands.setFireChangeEvent(true);
-    commands.setUseThread(true);
-    ExecutionThread.log.info("Fire event - gamedata changed");
-    client.getDispatcher().fire(new GameDataEvent(commands, client.getData()));
-    ui.ready();
+    Partition call(GameData data) {
+      UnitChangeRecorder rec = UnitChangeRecorder.start(region);
+      recorder = rec;
+      try {
+        for (Object script : scripts) {
+          try {
+            boolean compiled;
+            if (script instanceof Unit) {
+              compiled = commands.executeCompiled(data, (Unit) script, null);
+            } else {
+              compiled = commands.executeCompiled(data, null, (UnitContainer) script);
+            }
+            if (!compiled) {
+              conflict = "cannot compile the script of " + script;
+            }
+          } catch (ConflictException e) {
+            // remembered by the recorder
+          } catch (Throwable t) {
+            errors.put(script, t);
+          }
+          // the script may have caught the exception
+          if (conflict == null) {
+            conflict = rec.getConflict();
+          }
+          if (conflict != null) {
+            break;
+          }
+        }
+      } finally {
+        rec.stop();
+      }
+      return this;
+    }
+  }
+
+  /**
+   * Runs the scripts in batches. A batch consists of consecutive scripts of units and containers
+   * with a region that can be compiled. The scripts of a batch are run in parallel, partitioned by
+   * region. All other scripts are run on their own between the batches, so every script sees the
+   * changes of the scripts with higher priority, like in the sequential execution.
+   */
+  private void runParallel(GameData data, List<Object> scripts) {
+    ExecutionThread.log.info("Executing commands in parallel...");
+
+    int threads = Math.max(1, Runtime.getRuntime().availableProcessors());
+    ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+      public Thread newThread(Runnable r) {
+        Thread t = new Thread(r, "ExtendedCommands");
+        t.setDaemon(true);
+        return t;
+      }
+    });
+    try {
+      List<Object> batch = new ArrayList<Object>();
+      int counter = 0;
+      for (Object script : scripts) {
+        if (getRegion(script) != null && canExecuteCompiled(script)) {
+          batch.add(script);
+        } else {
+          counter = runBatch(executor, data, batch, counter);
+          batch.clear();
+          counter = runSequential(data, Collections.singletonList(script), counter);
+        }
+        if (Thread.currentThread().isInterrupted()) {
+          log.warn("interrupted");
+          return;
+        }
+      }
+      runBatch(executor, data, batch, counter);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  private boolean canExecuteCompiled(Object script) {
+    if (script instanceof Unit)
+      return commands.canExecuteCompiled((Unit) script, null);
+    else
+      return commands.canExecuteCompiled(null, (UnitContainer) script);
+  }
+
+  /**
+   * Runs the scripts of a batch in parallel. If a script of any partition conflicts with another
+   * region or fails unexpectedly, the changes of the whole batch are undone and its scripts are run
+   * sequentially. If the thread is interrupted, the changes of the batch are undone and the
+   * interrupt flag is set.
+   */
+  private int runBatch(ExecutorService executor, final GameData data, List<Object> batch,
+      int counter) {
+    Map<Region, Partition> partitions = new LinkedHashMap<Region, Partition>();
+    for (Object script : batch) {
+      Region region = getRegion(script);
+      Partition partition = partitions.get(region);
+      if (partition == null) {
+        partitions.put(region, partition = new Partition(region));
+      }
+      partition.scripts.add(script);
+    }
+    if (partitions.size() < 2)
+      return runSequential(data, batch, counter);
+
+    List<Future<Partition>> futures = new ArrayList<Future<Partition>>(partitions.size());
+    for (final Partition partition : partitions.values()) {
+      futures.add(executor.submit(() -> partition.call(data)));
+    }
+
+    // wait for all partitions, even if interrupted, before their changes may be undone
+    boolean interrupted = false;
+    String failure = null;
+    int finished = counter;
+    for (Future<Partition> future : futures) {
+      while (true) {
+        try {
+          Partition partition = future.get();
+          finished += partition.scripts.size();
+          ui.setProgress(partition.region.getName(), finished);
+          if (failure == null && partition.conflict != null) {
+            failure = partition.conflict;
+          }
+          break;
+        } catch (InterruptedException e) {
+          interrupted = true;
+        } catch (ExecutionException e) {
+          log.error(e.getCause());
+          if (failure == null) {
+            failure = String.valueOf(e.getCause());
+          }
+          break;
+        }
+      }
+    }
+
+    if (interrupted || failure != null) {
+      for (Partition partition : partitions.values()) {
+        if (partition.recorder != null) {
+          partition.recorder.rollback();
+        }
+      }
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+        return counter;
+      }
+      log.info("running " + batch.size() + " scripts sequentially: " + failure);
+      ui.setProgress("", counter);
+      return runSequential(data, batch, counter);
+    }
+
+    for (Partition partition : partitions.values()) {
+      partition.recorder.refreshRelations();
+    }
+    for (Object script : batch) {
+      Throwable error = partitions.get(getRegion(script)).errors.get(script);
+      if (error != null) {
+        commands.showError(error);
+      }
+    }
+    return finished;
+  }
+
+  private Region getRegion(Object script) {
+    if (script instanceof Unit)
+      return ((Unit) script).getRegion();
+    if (script instanceof Region)
+      return (Region) script;
+    if (script instanceof HasRegion)
+      return ((HasRegion) script).getRegion();
+    return null;
   }
 }
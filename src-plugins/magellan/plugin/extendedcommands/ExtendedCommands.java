@@ -31,9 +31,12 @@ import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Hashtable;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
 
@@ -92,6 +95,7 @@ public class ExtendedCommands {
     private String message;
     private Stream<Diag> diagnostics;
     private StringBuilder source;
+    private String statement;
 
     /**
      * @param snippet
@@ -140,6 +144,16 @@ public class ExtendedCommands {
       this.source = source;
     }
 
+    /**
+     * @param cause an exception thrown by a compiled script
+     * @param statement the statement that has thrown it
+     */
+    public JShellException(Throwable cause, String statement) {
+      super(cause);
+      message = "Exception in snippet caused by " + cause.getClass().getName();
+      this.statement = statement;
+    }
+
     @Override
     public String getMessage() {
       return message;
@@ -159,6 +173,8 @@ public class ExtendedCommands {
         sb.append(snippet.toString());
       } else if (event != null) {
         descriptionFromEvent(sb);
+      } else if (statement != null) {
+        descriptionFromStatement(sb);
       } else if (source != null) {
         descriptionFromSource(sb);
       } else {
@@ -167,6 +183,17 @@ public class ExtendedCommands {
       return sb.toString();
     }
 
+    private void descriptionFromStatement(StringBuilder sb) {
+      sb.append("\nSNIPPET\n");
+      sb.append(statement);
+      sb.append("\nEXCEPTION ").append(getCause().getClass().getName()).append("\n");
+      StringWriter writer = new StringWriter();
+      PrintWriter wwriter = new PrintWriter(writer);
+      getCause().printStackTrace(wwriter);
+      sb.append(writer.toString());
+      wwriter.close();
+    }
+
     private void descriptionFromSource(StringBuilder sb) {
       sb.append("\nSOURCE\n");
       if (source.length() < 999) {
@@ -213,6 +240,9 @@ public class ExtendedCommands {
   protected boolean fireChangeEvent = true;
   protected boolean useThread = true;
 
+  private JShellPool pool = JShellPool.getDefault();
+  private Map<Object, Long> executionTimes = new ConcurrentHashMap<Object, Long>();
+
   /**
    * Constructor for the extended commands container object
    * 
@@ -233,6 +263,9 @@ public class ExtendedCommands {
     }
 
     read(unitCommandsFile);
+    if (hasCommands()) {
+      pool.warmUp();
+    }
   }
 
   /**
@@ -677,6 +710,10 @@ public class ExtendedCommands {
   }
 
   private void executeWithLib(Script commands, GameData world, Unit unit, UnitContainer container) {
+    execute(getScriptWithLib(commands), world, unit, container);
+  }
+
+  private String getScriptWithLib(Script commands) {
     StringBuilder script = new StringBuilder();
     if (getLibrary() != null) {
       script.append(getLibrary().getScript());
@@ -685,7 +722,7 @@ public class ExtendedCommands {
       script.append("\n");
     }
     script.append(commands.getScript());
-    execute(script.toString(), world, unit, container);
+    return script.toString();
   }
 
   /**
@@ -744,77 +781,111 @@ public class ExtendedCommands {
     // runBeanShell(script, world, unit, container, ui, helper);
   }
 
-  protected synchronized void runJShell(String script, GameData world, Unit unit,
+  protected void runJShell(String script, GameData world, Unit unit,
       UnitContainer container, UserInterface ui, ExtendedCommandsHelper helper) {
+    long start = System.nanoTime();
     try {
       log.finest("script:\n" + script);
-      final JShell sh = JShell.builder().compilerOptions("-Xlint:all")
-          .executionEngine("local").build();
-
-      RunHelper.world = world;
-      RunHelper.container = container;
-      RunHelper.unit = unit;
-      RunHelper.helper = helper;
-      RunHelper.logDock = DebugDock.getInstance();
-
-      StringBuilder incomplete = new StringBuilder();
-      CompletionInfo c = null;
-      for (String line : script.split("[\r\n]+")) {
-        c = sh.sourceCodeAnalysis().analyzeCompletion(line);
-        if (!c.completeness().equals(Completeness.EMPTY)) {
-          incomplete.append(line).append("\n");
+
+      if (pool.run(script, world, unit, container, helper, DebugDock.getInstance()))
+        return;
+
+      runFreshJShell(script, world, unit, container, helper);
+    } catch (Throwable throwable) {
+      showError(throwable);
+    } finally {
+      recordExecutionTime(unit, container, System.nanoTime() - start);
+      if (isFireChangeEvent()) {
+        if (client != null) {
+          client.getDispatcher().fire(new GameDataEvent(this, world));
         }
       }
-      if (c != null && c.completeness().equals(Completeness.DEFINITELY_INCOMPLETE))
-        throw new JShellException("source is incomplete", incomplete);
-
-      String remaining = script;
-      boolean firstStatement = true;
-      int restart = 1;
-      while (restart > 0) {
-        restart = 0;
-        for (List<Snippet> snippets = sh.sourceCodeAnalysis().sourceToSnippets(remaining); remaining
-            .trim().length() > 0; snippets = sh.sourceCodeAnalysis().sourceToSnippets(remaining)) {
-          for (Snippet snippet : snippets) {
-            if (restart > 1) {
-              break;
+      if (ui != null) {
+        ui.ready();
+      }
+    }
+  }
+
+  /**
+   * Evaluates the script statement by statement in a new JShell. The globals are handed to the
+   * JShell by the static fields of {@link RunHelper}, so only one script can be run this way at a
+   * time.
+   */
+  private synchronized void runFreshJShell(String script, GameData world, Unit unit,
+      UnitContainer container, ExtendedCommandsHelper helper) throws JShellException {
+    RunHelper.world = world;
+    RunHelper.container = container;
+    RunHelper.unit = unit;
+    RunHelper.helper = helper;
+    RunHelper.logDock = DebugDock.getInstance();
+
+    final JShell sh = JShell.builder().compilerOptions("-Xlint:all")
+        .executionEngine("local").build();
+
+    StringBuilder incomplete = new StringBuilder();
+    CompletionInfo c = null;
+    for (String line : script.split("[\r\n]+")) {
+      c = sh.sourceCodeAnalysis().analyzeCompletion(line);
+      if (!c.completeness().equals(Completeness.EMPTY)) {
+        incomplete.append(line).append("\n");
+      }
+    }
+    if (c != null && c.completeness().equals(Completeness.DEFINITELY_INCOMPLETE))
+      throw new JShellException("source is incomplete", incomplete);
+
+    String remaining = script;
+    boolean firstStatement = true;
+    int restart = 1;
+    while (restart > 0) {
+      restart = 0;
+      for (List<Snippet> snippets = sh.sourceCodeAnalysis().sourceToSnippets(remaining); remaining
+          .trim().length() > 0; snippets = sh.sourceCodeAnalysis().sourceToSnippets(remaining)) {
+        for (Snippet snippet : snippets) {
+          if (restart > 1) {
+            break;
+          }
+          Kind kind = snippet.kind();
+          switch (kind) {
+          case ERRONEOUS:
+            // throw new JShellException(snippet, sh.diagnostics(snippet));
+            if (firstStatement) {
+              defineGlobals(sh);
+              firstStatement = false;
+              restart = 1;
             }
-            Kind kind = snippet.kind();
-            switch (kind) {
-            case ERRONEOUS:
-              // throw new JShellException(snippet, sh.diagnostics(snippet));
-              if (firstStatement) {
-                defineGlobals(sh);
-                firstStatement = false;
-                restart = 1;
-              }
-              break;
-            case IMPORT:
-              if (!firstStatement) {
-                log.warn("ExtendedCommands: import statement after first code statement: " + snippet
-                    .source());
-                firstStatement = true;
-              }
-              break;
-            default:
-              if (firstStatement) {
-                defineGlobals(sh);
-                firstStatement = false;
-              }
-              break;
+            break;
+          case IMPORT:
+            if (!firstStatement) {
+              log.warn("ExtendedCommands: import statement after first code statement: " + snippet
+                  .source());
+              firstStatement = true;
+            }
+            break;
+          default:
+            if (firstStatement) {
+              defineGlobals(sh);
+              firstStatement = false;
             }
-          }
-          if (restart < 1) {
-            String old = remaining;
-            remaining = eval(sh, remaining);
-            log.finest("evaluated:\n" + old.substring(0, old.lastIndexOf(remaining)).trim());
-          } else {
             break;
           }
         }
+        if (restart < 1) {
+          String old = remaining;
+          remaining = eval(sh, remaining);
+          log.finest("evaluated:\n" + old.substring(0, old.lastIndexOf(remaining)).trim());
+        } else {
+          break;
+        }
       }
-    } catch (JShellException e) {
-      // TODO
+    }
+  }
+
+  /**
+   * Shows an exception thrown by a script.
+   */
+  protected void showError(Throwable throwable) {
+    if (throwable instanceof JShellException) {
+      JShellException e = (JShellException) throwable;
       if (client != null) {
         ErrorWindow errorWindow = new ErrorWindow(client, e.getMessage(), e.getDescription(), e);
         errorWindow.setShutdownOnCancel(false);
@@ -823,28 +894,83 @@ public class ExtendedCommands {
         log.error(e.getMessage());
         log.error(e.getDescription(), e);
       }
-    } catch (Throwable throwable) {
-      ExtendedCommands.log.info("", throwable);
+      return;
+    }
+    ExtendedCommands.log.info("", throwable);
 
-      if (client != null) {
-        ErrorWindow errorWindow = new ErrorWindow(client, throwable.getMessage(), "", throwable);
-        errorWindow.setShutdownOnCancel(false);
-        errorWindow.setVisible(true);
-      } else {
-        log.error(throwable.getMessage(), throwable);
-      }
+    if (client != null) {
+      ErrorWindow errorWindow = new ErrorWindow(client, throwable.getMessage(), "", throwable);
+      errorWindow.setShutdownOnCancel(false);
+      errorWindow.setVisible(true);
+    } else {
+      log.error(throwable.getMessage(), throwable);
+    }
+  }
+
+  /**
+   * Compiles the script of a unit or a container (and the library) without running it.
+   *
+   * @return <code>false</code> if {@link #executeCompiled(GameData, Unit, UnitContainer)} would not
+   *         be able to run the script
+   */
+  public boolean canExecuteCompiled(Unit unit, UnitContainer container) {
+    Script commands = unit != null ? getCommands(unit) : getCommands(container);
+    if (commands == null)
+      return true;
+    return pool.compile(getScriptWithLib(commands));
+  }
+
+  /**
+   * Runs the script of a unit or a container (and the library) as compiled method in the current
+   * thread, if possible. Unlike {@link #execute(GameData, Unit)}, this method may be called by
+   * several threads at the same time. It neither fires events nor shows errors.
+   *
+   * @return <code>false</code> if the script cannot be compiled. It has not been run in this case
+   *         and must be executed by {@link #execute(GameData, Unit)} or
+   *         {@link #execute(GameData, UnitContainer)}.
+   * @throws JShellException if the script throws an exception
+   */
+  public boolean executeCompiled(GameData world, Unit unit, UnitContainer container)
+      throws JShellException {
+    Script commands = unit != null ? getCommands(unit) : getCommands(container);
+    if (commands == null)
+      return true;
+    String script = getScriptWithLib(commands);
+    ExtendedCommandsHelper helper = new ExtendedCommandsHelper(client, world, unit, container);
+    long start = System.nanoTime();
+    boolean run = false;
+    try {
+      run = pool.run(script, world, unit, container, helper, DebugDock.getInstance());
+      return run;
     } finally {
-      if (isFireChangeEvent()) {
-        if (client != null) {
-          client.getDispatcher().fire(new GameDataEvent(this, world));
-        }
-      }
-      if (ui != null) {
-        ui.ready();
+      if (run) {
+        recordExecutionTime(unit, container, System.nanoTime() - start);
       }
     }
   }
 
+  private void recordExecutionTime(Unit unit, UnitContainer container, long nanos) {
+    Object key = unit != null ? unit : container;
+    if (key != null) {
+      executionTimes.put(key, nanos);
+    }
+  }
+
+  /**
+   * Returns the running times in nanoseconds of the scripts that have been executed since the last
+   * call of {@link #clearExecutionTimes()}, by unit or container.
+   */
+  public Map<Object, Long> getExecutionTimes() {
+    return Collections.unmodifiableMap(executionTimes);
+  }
+
+  /**
+   * Forgets the running times of scripts.
+   */
+  public void clearExecutionTimes() {
+    executionTimes.clear();
+  }
+
   private String eval(final JShell sh, String source) throws JShellException {
     CompletionInfo c = sh.sourceCodeAnalysis().analyzeCompletion(source);
     List<SnippetEvent> evaluation = sh.eval(c.source() != null ? c.source() : source);
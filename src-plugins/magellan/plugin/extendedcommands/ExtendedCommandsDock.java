@@ -27,10 +27,15 @@ import java.awt.BorderLayout;
 import java.awt.Component;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import javax.swing.JButton;
+import javax.swing.JLabel;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 
@@ -78,6 +83,7 @@ public class ExtendedCommandsDock extends JPanel implements ActionListener, Dock
   private Map<String, ExtendedCommandsDocument> docMap =
       new HashMap<String, ExtendedCommandsDocument>();
   private SelectionEvent selection;
+  private JLabel timesLabel;
 
   public ExtendedCommandsDock(ExtendedCommands commands) {
     this.commands = commands;
@@ -132,6 +138,53 @@ public class ExtendedCommandsDock extends JPanel implements ActionListener, Dock
         "button.help");
 
     add(north, BorderLayout.NORTH);
+
+    timesLabel = new JLabel();
+    add(timesLabel, BorderLayout.SOUTH);
+  }
+
+  /**
+   * Shows the running time of the last execution of all scripts and the slowest scripts.
+   *
+   * @param millis The total time of the execution
+   */
+  public void showExecutionTimes(long millis) {
+    List<Map.Entry<Object, Long>> times =
+        new ArrayList<Map.Entry<Object, Long>>(commands.getExecutionTimes().entrySet());
+    Collections.sort(times, new Comparator<Map.Entry<Object, Long>>() {
+      public int compare(Map.Entry<Object, Long> o1, Map.Entry<Object, Long> o2) {
+        return o2.getValue().compareTo(o1.getValue());
+      }
+    });
+
+    long total = 0;
+    for (Map.Entry<Object, Long> entry : times) {
+      total += entry.getValue();
+    }
+    StringBuilder slowest = new StringBuilder();
+    StringBuilder tooltip = new StringBuilder("<html>");
+    for (int i = 0; i < times.size() && i < 20; ++i) {
+      String time = getTimeText(times.get(i));
+      if (i < 3) {
+        slowest.append(i > 0 ? ", " : "").append(time);
+      }
+      tooltip.append(time).append("<br/>");
+    }
+    tooltip.append("</html>");
+
+    timesLabel.setText(Resources.get("extended_commands.times", times.size(), millis,
+        total / 1000000, slowest));
+    timesLabel.setToolTipText(times.isEmpty() ? null : tooltip.toString());
+  }
+
+  private String getTimeText(Map.Entry<Object, Long> time) {
+    String title;
+    if (time.getKey() instanceof Unit) {
+      title = createTitle((Unit) time.getKey(), null);
+    } else {
+      title = createTitle(null, (UnitContainer) time.getKey());
+    }
+    return Resources.get("extended_commands.times.script", title, time.getValue() / 1000000);
   }
 
   private void addButton(JPanel north, String caption, String icon, String tooltip, String command) {
@@ -305,6 +305,7 @@ public class ExtendedCommandsPlugIn implements MagellanPlugIn, UnitContextMenuPr
       ExtendedCommandsPlugIn.log.fine("Execute all...");
       ProgressBarUI progress = new ProgressBarUI(Client.INSTANCE);
       ExecutionThread thread = new ExecutionThread(client, progress, commands);
+      thread.setDock(dock);
       thread.start();
       break;
     }
@@ -348,6 +349,7 @@ public class ExtendedCommandsPlugIn implements MagellanPlugIn, UnitContextMenuPr
    */
   public void quit(boolean storeSettings) {
     commands.save();
+    JShellPool.getDefault().close();
   }
 
   /**
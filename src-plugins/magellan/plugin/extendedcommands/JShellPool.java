@@ -0,0 +1,461 @@
+// class magellan.plugin.extendedcommands.JShellPool
+// created on Oct 18, 2026
+//
+// Copyright 2003-2026 by magellan project team
+//
+// Author : $Author: $
+// $Id: $
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program (see doc/LICENCE.txt); if not, write to the
+// Free Software Foundation, Inc.,
+// 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+package magellan.plugin.extendedcommands;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jdk.jshell.JShell;
+import jdk.jshell.Snippet;
+import jdk.jshell.Snippet.Kind;
+import jdk.jshell.Snippet.Status;
+import jdk.jshell.SnippetEvent;
+import jdk.jshell.SourceCodeAnalysis;
+import jdk.jshell.SourceCodeAnalysis.Completeness;
+import jdk.jshell.SourceCodeAnalysis.CompletionInfo;
+import jdk.jshell.SourceCodeAnalysis.SnippetWrapper;
+import magellan.client.swing.DebugDock;
+import magellan.library.GameData;
+import magellan.library.Unit;
+import magellan.library.UnitContainer;
+import magellan.library.utils.logging.Logger;
+import magellan.plugin.extendedcommands.ExtendedCommands.JShellException;
+
+/**
+ * A pool of JShell sessions that run scripts as compiled methods. Every session has the global
+ * variables <code>world, unit, container, helper</code> and <code>log</code> defined. When a script
+ * is run for the first time in a session, its imports, methods and classes are evaluated and all
+ * other statements are compiled into one method. Running the same script again only calls this
+ * method.
+ * <p>
+ * A session runs one script at a time: its globals are set for the script and stay valid until the
+ * script returns. Scripts that run at the same time use different sessions.
+ * </p>
+ * <p>
+ * Scripts that cannot be compiled this way, because they contain errors, imports after statements
+ * or declarations that depend on top level variables of the script, are rejected by
+ * {@link #run(String, GameData, Unit, UnitContainer, ExtendedCommandsHelper, DebugDock)} and must
+ * be evaluated statement by statement in a fresh JShell.
+ * </p>
+ */
+public class JShellPool {
+  private static final Logger log = Logger.getInstance(JShellPool.class);
+
+  /** number of scripts a session compiles before it is replaced by a new one */
+  private static final int MAX_SCRIPTS = 200;
+  /** number of rejected scripts that are remembered */
+  private static final int MAX_REJECTED = 1000;
+
+  private static final String[] GLOBALS = {
+      "magellan.library.GameData world;",
+      "magellan.library.Unit unit;",
+      "magellan.library.UnitContainer container;",
+      "magellan.plugin.extendedcommands.ExtendedCommandsHelper helper;",
+      "magellan.client.swing.DebugDock log;" };
+
+  private static JShellPool defaultPool;
+
+  private static final AtomicInteger scriptCounter = new AtomicInteger();
+  private static final Map<String, Body> registered = new ConcurrentHashMap<String, Body>();
+
+  /**
+   * The compiled statements of a script.
+   */
+  public interface Body {
+    /**
+     * Sets the global variables and runs the statements.
+     */
+    public void run(GameData world, Unit unit, UnitContainer container,
+        ExtendedCommandsHelper helper, DebugDock logDock) throws Throwable;
+  }
+
+  private final int maxIdle;
+  private final Deque<Session> idle = new ArrayDeque<Session>();
+  private boolean warmingUp = false;
+  private final Map<String, Boolean> rejected = new LinkedHashMap<String, Boolean>(16, .75f,
+      true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+      return size() > MAX_REJECTED;
+    }
+  };
+
+  /**
+   * Creates a pool that keeps up to <code>maxIdle</code> sessions.
+   */
+  public JShellPool(int maxIdle) {
+    this.maxIdle = maxIdle;
+  }
+
+  /**
+   * Returns the pool that is shared by all ExtendedCommands.
+   */
+  public static synchronized JShellPool getDefault() {
+    if (defaultPool == null) {
+      defaultPool = new JShellPool(Math.max(1, Runtime.getRuntime().availableProcessors()));
+    }
+    return defaultPool;
+  }
+
+  /**
+   * Hands the compiled body of a script from a session to the pool. Only called by the sessions.
+   */
+  public static void register(String name, Body body) {
+    registered.put(name, body);
+  }
+
+  /**
+   * Starts a session in the background, if there is no idle session.
+   */
+  public void warmUp() {
+    synchronized (this) {
+      if (warmingUp || !idle.isEmpty())
+        return;
+      warmingUp = true;
+    }
+    Thread thread = new Thread(new Runnable() {
+      public void run() {
+        try {
+          release(new Session());
+        } catch (Throwable t) {
+          log.warn("could not start JShell", t);
+        } finally {
+          synchronized (JShellPool.this) {
+            warmingUp = false;
+          }
+        }
+      }
+    }, "JShellPool");
+    thread.setDaemon(true);
+    thread.setPriority(Thread.MIN_PRIORITY);
+    thread.start();
+  }
+
+  /**
+   * Runs the script as compiled method.
+   *
+   * @return <code>false</code> if the script cannot be compiled; it has not been run in this case.
+   * @throws JShellException if the script throws an exception. The exception is its cause, the
+   *           description names the statement that threw it.
+   */
+  public boolean run(String script, GameData world, Unit unit, UnitContainer container,
+      ExtendedCommandsHelper helper, DebugDock logDock) throws JShellException {
+    synchronized (this) {
+      if (rejected.containsKey(script))
+        return false;
+    }
+
+    // the body sets the globals of its session, so the session must not be used by another thread
+    // until the body has returned
+    Session session = acquire();
+    try {
+      Body body = session.getBody(script);
+      if (body == null) {
+        synchronized (this) {
+          rejected.put(script, Boolean.TRUE);
+        }
+        return false;
+      }
+
+      try {
+        body.run(world, unit, container, helper, logDock);
+      } catch (Throwable t) {
+        throw new JShellException(t, session.getStatement(script, t));
+      }
+      return true;
+    } finally {
+      release(session);
+    }
+  }
+
+  /**
+   * Compiles the script in a session without running it.
+   *
+   * @return <code>false</code> if the script cannot be compiled; {@link #run} would reject it.
+   */
+  public boolean compile(String script) {
+    synchronized (this) {
+      if (rejected.containsKey(script))
+        return false;
+    }
+
+    Session session = acquire();
+    try {
+      if (session.getBody(script) != null)
+        return true;
+      synchronized (this) {
+        rejected.put(script, Boolean.TRUE);
+      }
+      return false;
+    } finally {
+      release(session);
+    }
+  }
+
+  /**
+   * Closes all idle sessions.
+   */
+  public synchronized void close() {
+    for (Session session : idle) {
+      session.close();
+    }
+    idle.clear();
+  }
+
+  private Session acquire() {
+    synchronized (this) {
+      if (!idle.isEmpty())
+        return idle.removeFirst();
+    }
+    return new Session();
+  }
+
+  private void release(Session session) {
+    synchronized (this) {
+      if (session.compiled < MAX_SCRIPTS && idle.size() < maxIdle) {
+        idle.addFirst(session);
+        return;
+      }
+    }
+    session.close();
+  }
+
+  /**
+   * The compiled form of a script in a session.
+   */
+  private static class Script {
+    final List<Snippet> snippets;
+    final Body body;
+    /** the snippet of the method that holds the statements */
+    final Snippet method;
+    final String methodName;
+    final List<String> statements;
+
+    Script(List<Snippet> snippets, Body body, Snippet method, String methodName,
+        List<String> statements) {
+      this.snippets = snippets;
+      this.body = body;
+      this.method = method;
+      this.methodName = methodName;
+      this.statements = statements;
+    }
+  }
+
+  /**
+   * A JShell with the global variables and the scripts that it has compiled.
+   */
+  private static class Session {
+    private final JShell shell;
+    private final Map<String, Script> scripts = new HashMap<String, Script>();
+    /** the current snippets of the declarations that have been evaluated */
+    private final Map<String, Snippet> declarations = new HashMap<String, Snippet>();
+    int compiled;
+
+    Session() {
+      shell = JShell.builder().compilerOptions("-Xlint:all").executionEngine("local").build();
+      for (String global : GLOBALS) {
+        for (SnippetEvent event : shell.eval(global)) {
+          if (event.status() != Status.VALID)
+            throw new IllegalStateException("could not define " + global);
+        }
+      }
+    }
+
+    /**
+     * Returns the compiled body of the script, or <code>null</code> if it cannot be compiled.
+     * Compiled scripts whose declarations have been replaced by other scripts in the meantime are
+     * compiled again.
+     */
+    Body getBody(String script) {
+      Script compiledScript = scripts.get(script);
+      if (compiledScript != null && !isValid(compiledScript)) {
+        scripts.remove(script);
+        compiledScript = null;
+      }
+      if (compiledScript == null) {
+        compiledScript = compile(script);
+        if (compiledScript == null)
+          return null;
+        scripts.put(script, compiledScript);
+        ++compiled;
+      }
+      return compiledScript.body;
+    }
+
+    private boolean isValid(Script compiledScript) {
+      for (Snippet snippet : compiledScript.snippets) {
+        if (shell.status(snippet) != Status.VALID)
+          return false;
+      }
+      return true;
+    }
+
+    private Script compile(String script) {
+      List<Snippet> snippets = new ArrayList<Snippet>();
+      List<Snippet> added = new ArrayList<Snippet>();
+      List<String> statements = new ArrayList<String>();
+      SourceCodeAnalysis analysis = shell.sourceCodeAnalysis();
+
+      try {
+        String remaining = script;
+        while (remaining.trim().length() > 0) {
+          CompletionInfo info = analysis.analyzeCompletion(remaining);
+          if (info.completeness() == Completeness.EMPTY) {
+            break;
+          }
+          if (info.completeness() != Completeness.COMPLETE
+              && info.completeness() != Completeness.COMPLETE_WITH_SEMI)
+            return null;
+          String source = info.source();
+          remaining = info.remaining();
+
+          List<Snippet> parsed = analysis.sourceToSnippets(source);
+          Kind kind = parsed.isEmpty() ? Kind.ERRONEOUS : parsed.get(0).kind();
+          if (kind == Kind.IMPORT || kind == Kind.METHOD || kind == Kind.TYPE_DECL) {
+            if (kind == Kind.IMPORT && !statements.isEmpty())
+              return null;
+            Snippet snippet = declarations.get(source);
+            if (snippet == null || shell.status(snippet) != Status.VALID) {
+              snippet = eval(source, added);
+              if (snippet == null)
+                return null;
+              declarations.put(source, snippet);
+            }
+            snippets.add(snippet);
+          } else {
+            statements.add(source);
+          }
+        }
+
+        // declarations depending on variables of the script are not valid
+        for (Snippet snippet : snippets) {
+          if (shell.status(snippet) != Status.VALID)
+            return null;
+        }
+
+        String name = "__script" + scriptCounter.incrementAndGet();
+        StringBuilder methodSource = new StringBuilder(getHeader(name));
+        for (String statement : statements) {
+          methodSource.append(statement).append("\n");
+        }
+        Snippet method = eval(methodSource.append("}").toString(), added);
+        if (method == null)
+          return null;
+        snippets.add(method);
+        if (eval(JShellPool.class.getName() + ".register(\"" + name
+            + "\", (__world, __unit, __container, __helper, __log) -> { world = __world; "
+            + "unit = __unit; container = __container; helper = __helper; log = __log; " + name
+            + "(); });", added) == null)
+          return null;
+        Body body = registered.remove(name);
+        if (body == null)
+          return null;
+
+        added.clear();
+        return new Script(snippets, body, method, name, statements);
+      } finally {
+        for (Snippet snippet : added) {
+          shell.drop(snippet);
+        }
+      }
+    }
+
+    private static String getHeader(String name) {
+      return "void " + name + "() throws Throwable {\n";
+    }
+
+    /**
+     * Returns the statement of a compiled script that has thrown the exception, or the script if
+     * the statement cannot be found in the stack trace.
+     */
+    String getStatement(String script, Throwable t) {
+      Script compiledScript = scripts.get(script);
+      if (compiledScript == null)
+        return script;
+      for (StackTraceElement element : t.getStackTrace()) {
+        if (compiledScript.methodName.equals(element.getMethodName()))
+          return getStatement(compiledScript, element.getLineNumber());
+      }
+      return script;
+    }
+
+    /**
+     * Returns the statement at the line of the class that JShell has compiled for the method of the
+     * script.
+     */
+    private String getStatement(Script compiledScript, int line) {
+      SnippetWrapper wrapper = shell.sourceCodeAnalysis().wrapper(compiledScript.method);
+      String wrapped = wrapper.wrapped();
+      int wrappedPos = 0;
+      for (int l = 1; l < line && wrappedPos >= 0; ++l) {
+        wrappedPos = wrapped.indexOf('\n', wrappedPos);
+        if (wrappedPos >= 0) {
+          ++wrappedPos;
+        }
+      }
+      if (wrappedPos < 0)
+        return String.join("\n", compiledScript.statements);
+      while (wrappedPos < wrapped.length() && Character.isWhitespace(wrapped.charAt(wrappedPos))) {
+        ++wrappedPos;
+      }
+      int pos = wrapper.wrappedToSourcePosition(wrappedPos);
+      int start = getHeader(compiledScript.methodName).length();
+      if (pos < start)
+        return String.join("\n", compiledScript.statements);
+      for (String statement : compiledScript.statements) {
+        start += statement.length() + 1;
+        if (pos < start)
+          return statement.trim();
+      }
+      return String.join("\n", compiledScript.statements);
+    }
+
+    /**
+     * Evaluates the source and returns its snippet, or <code>null</code> if it is not valid.
+     */
+    private Snippet eval(String source, List<Snippet> added) {
+      Snippet result = null;
+      for (SnippetEvent event : shell.eval(source)) {
+        if (event.causeSnippet() == null) {
+          added.add(event.snippet());
+          if (event.status() != Status.VALID || event.exception() != null)
+            return null;
+          result = event.snippet();
+        }
+      }
+      return result;
+    }
+
+    void close() {
+      shell.close();
+    }
+  }
+}
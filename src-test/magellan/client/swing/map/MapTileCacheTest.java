@@ -0,0 +1,158 @@
+// class magellan.client.swing.map.MapTileCacheTest
+// created on Oct 18, 2026
+//
+// Copyright 2003-2026 by magellan project team
+//
+// Author : $Author: $
+// $Id: $
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program (see doc/LICENCE.txt); if not, write to the
+// Free Software Foundation, Inc.,
+// 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+package magellan.client.swing.map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link MapTileCache}.
+ */
+public class MapTileCacheTest {
+
+  private MapTileCache cache;
+
+  @Before
+  public void setUp() {
+    // room for four tiles
+    cache = new MapTileCache(10, 4 * 4 * 10 * 10);
+    cache.setContext("a");
+  }
+
+  private BufferedImage render(MapTileCache.Tile tile) {
+    int[] versions = cache.start(tile);
+    BufferedImage image = new BufferedImage(10, 10, BufferedImage.TYPE_INT_ARGB);
+    cache.finish(tile, image, versions);
+    return image;
+  }
+
+  @Test
+  public void testGetTiles() {
+    List<MapTileCache.Tile> tiles = cache.getTiles(new Rectangle(-5, 5, 20, 5));
+    assertEquals(3, tiles.size());
+    assertEquals(-1, tiles.get(0).x);
+    assertEquals(0, tiles.get(0).y);
+    assertEquals(1, tiles.get(2).x);
+    assertEquals(new Rectangle(-10, 0, 10, 10), cache.getBounds(tiles.get(0)));
+    assertSame(tiles.get(1), cache.getTiles(new Rectangle(0, 0, 10, 10)).get(0));
+    assertEquals(0, cache.getTiles(new Rectangle(0, 0, 0, 10)).size());
+  }
+
+  @Test
+  public void testRender() {
+    MapTileCache.Tile tile = cache.getTiles(new Rectangle(0, 0, 10, 10)).get(0);
+    assertTrue(cache.needsRendering(tile));
+    assertNull(tile.getImage());
+
+    int[] versions = cache.start(tile);
+    assertFalse(cache.needsRendering(tile));
+    assertFalse(cache.isCurrent(tile));
+    BufferedImage image = new BufferedImage(10, 10, BufferedImage.TYPE_INT_ARGB);
+    assertTrue(cache.finish(tile, image, versions));
+    assertSame(image, tile.getImage());
+    assertTrue(cache.isCurrent(tile));
+    assertFalse(cache.needsRendering(tile));
+    assertEquals(400, cache.getMemory());
+  }
+
+  @Test
+  public void testInvalidate() {
+    List<MapTileCache.Tile> tiles = cache.getTiles(new Rectangle(0, 0, 30, 10));
+    for (MapTileCache.Tile tile : tiles) {
+      render(tile);
+    }
+
+    cache.invalidate(new Rectangle(12, 5, 3, 3));
+    assertTrue(cache.isCurrent(tiles.get(0)));
+    assertFalse(cache.isCurrent(tiles.get(1)));
+    assertTrue(cache.isCurrent(tiles.get(2)));
+    // the old image is kept until the tile has been rendered again
+    assertTrue(tiles.get(1).getImage() != null);
+
+    cache.invalidate();
+    assertFalse(cache.isCurrent(tiles.get(0)));
+    assertTrue(cache.needsRendering(tiles.get(2)));
+  }
+
+  @Test
+  public void testInvalidateWhileRendering() {
+    MapTileCache.Tile tile = cache.getTiles(new Rectangle(0, 0, 10, 10)).get(0);
+    int[] versions = cache.start(tile);
+    cache.invalidate(new Rectangle(0, 0, 1, 1));
+    BufferedImage image = new BufferedImage(10, 10, BufferedImage.TYPE_INT_ARGB);
+    assertFalse(cache.finish(tile, image, versions));
+    assertSame(image, tile.getImage());
+    assertTrue(cache.needsRendering(tile));
+
+    // an older image does not replace a newer one
+    int[] old = cache.start(tile);
+    cache.invalidate(new Rectangle(0, 0, 1, 1));
+    BufferedImage newer = render(tile);
+    assertFalse(cache.finish(tile, image, old));
+    assertSame(newer, tile.getImage());
+    assertTrue(cache.isCurrent(tile));
+  }
+
+  @Test
+  public void testContext() {
+    MapTileCache.Tile tile = cache.getTiles(new Rectangle(0, 0, 10, 10)).get(0);
+    render(tile);
+    assertFalse(cache.setContext("a"));
+    assertTrue(cache.isLive(tile, "a"));
+    assertTrue(cache.setContext("b"));
+    assertFalse(cache.isLive(tile, "b"));
+    assertEquals(0, cache.size());
+    assertEquals(0, cache.getMemory());
+    assertNotSame(tile, cache.getTiles(new Rectangle(0, 0, 10, 10)).get(0));
+  }
+
+  @Test
+  public void testEvict() {
+    List<MapTileCache.Tile> tiles = cache.getTiles(new Rectangle(0, 0, 60, 10));
+    for (int i = 0; i < 4; ++i) {
+      render(tiles.get(i));
+    }
+    assertEquals(1600, cache.getMemory());
+    assertEquals(6, cache.size());
+
+    // touch the first tile, so the second one is the least recently used
+    cache.getTiles(new Rectangle(0, 0, 10, 10));
+    render(tiles.get(4));
+    assertEquals(1600, cache.getMemory());
+    assertTrue(cache.isLive(tiles.get(0), "a"));
+    assertFalse(cache.isLive(tiles.get(1), "a"));
+    assertTrue(cache.isLive(tiles.get(4), "a"));
+  }
+}
@@ -0,0 +1,220 @@
+// class magellan.client.swing.tree.TreeMergerTest
+// created on Oct 18, 2026
+//
+// Copyright 2003-2026 by magellan project team
+//
+// Author : $Author: $
+// $Id: $
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program (see doc/LICENCE.txt); if not, write to the
+// Free Software Foundation, Inc.,
+// 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+package magellan.client.swing.tree;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.swing.JTree;
+import javax.swing.event.TreeModelEvent;
+import javax.swing.event.TreeModelListener;
+import javax.swing.tree.DefaultMutableTreeNode;
+import javax.swing.tree.DefaultTreeModel;
+import javax.swing.tree.TreeNode;
+import javax.swing.tree.TreePath;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import magellan.library.GameData;
+import magellan.library.Unit;
+import magellan.test.GameDataBuilder;
+
+/**
+ * Tests for {@link TreeMerger}.
+ */
+public class TreeMergerTest {
+
+  private DefaultMutableTreeNode root;
+  private DefaultTreeModel model;
+  private JTree tree;
+  private int events;
+  private boolean structureChanged;
+
+  @Before
+  public void setUp() {
+    root = new DefaultMutableTreeNode(null);
+    model = new DefaultTreeModel(root);
+    tree = new JTree(model);
+    tree.setRootVisible(false);
+    model.addTreeModelListener(new TreeModelListener() {
+      public void treeStructureChanged(TreeModelEvent e) {
+        structureChanged = true;
+      }
+
+      public void treeNodesRemoved(TreeModelEvent e) {
+        events++;
+      }
+
+      public void treeNodesInserted(TreeModelEvent e) {
+        events++;
+      }
+
+      public void treeNodesChanged(TreeModelEvent e) {
+        events++;
+      }
+    });
+  }
+
+  /**
+   * Builds a tree from a string like "a(b c) d", which stands for the nodes a and d, a having the
+   * children b and c.
+   */
+  private DefaultMutableTreeNode build(String spec) {
+    DefaultMutableTreeNode newRoot = new DefaultMutableTreeNode(null);
+    DefaultMutableTreeNode parent = newRoot;
+    DefaultMutableTreeNode last = null;
+    for (String token : spec.replace("(", " ( ").replace(")", " ) ").trim().split(" +")) {
+      if (token.equals("(")) {
+        parent = last;
+      } else if (token.equals(")")) {
+        parent = (DefaultMutableTreeNode) parent.getParent();
+      } else {
+        parent.add(last = new DefaultMutableTreeNode(token));
+      }
+    }
+    return newRoot;
+  }
+
+  private String toString(DefaultMutableTreeNode node) {
+    StringBuilder result = new StringBuilder();
+    for (int i = 0; i < node.getChildCount(); ++i) {
+      DefaultMutableTreeNode child = (DefaultMutableTreeNode) node.getChildAt(i);
+      if (i > 0) {
+        result.append(" ");
+      }
+      result.append(child.getUserObject());
+      if (child.getChildCount() > 0) {
+        result.append("(").append(toString(child)).append(")");
+      }
+    }
+    return result.toString();
+  }
+
+  private DefaultMutableTreeNode find(String name) {
+    for (int i = 0; i < root.getChildCount(); ++i) {
+      DefaultMutableTreeNode child = (DefaultMutableTreeNode) root.getChildAt(i);
+      if (child.getUserObject().equals(name))
+        return child;
+    }
+    return null;
+  }
+
+  private void merge(String spec) {
+    events = 0;
+    new TreeMerger(model).merge(build(spec));
+    assertEquals(spec, toString(root));
+  }
+
+  /**
+   * Tests merging into an empty tree and merging an unchanged tree.
+   */
+  @Test
+  public void testMergeSame() {
+    merge("a(b c) d(e)");
+    assertEquals(1, events);
+    DefaultMutableTreeNode a = find("a");
+    merge("a(b c) d(e)");
+    assertSame(a, find("a"));
+    assertFalse(structureChanged);
+  }
+
+  /**
+   * Tests inserting, removing and moving nodes.
+   */
+  @Test
+  public void testMerge() {
+    merge("a(b c) d(e) f g");
+    DefaultMutableTreeNode a = find("a");
+    DefaultMutableTreeNode d = find("d");
+    DefaultMutableTreeNode f = find("f");
+    DefaultMutableTreeNode g = find("g");
+    merge("x a(c y) g d(e)");
+    assertSame(a, find("a"));
+    assertSame(d, find("d"));
+    assertSame(g, find("g"));
+    merge("x a(c y) d(e) g f");
+    assertSame(d, find("d"));
+    assertNotSame(f, find("f"));
+    assertFalse(structureChanged);
+  }
+
+  /**
+   * Tests that nodes that are kept stay expanded.
+   */
+  @Test
+  public void testExpansion() {
+    merge("a(b(c) d) e(f) g(h)");
+    TreePath b = new TreePath(model.getPathToRoot(find("a").getChildAt(0)));
+    tree.expandPath(b);
+    tree.expandPath(new TreePath(model.getPathToRoot(find("g"))));
+    assertTrue(tree.isExpanded(b));
+    merge("x(y) a(b(c z) d) g(h)");
+    assertTrue(tree.isExpanded(b));
+    assertTrue(tree.isExpanded(new TreePath(model.getPathToRoot(find("g")))));
+    assertFalse(tree.isExpanded(new TreePath(model.getPathToRoot(find("x")))));
+  }
+
+  /**
+   * Tests that node maps are updated.
+   */
+  @Test
+  public void testUpdateNodes() {
+    merge("a b");
+    DefaultMutableTreeNode a = find("a");
+    DefaultMutableTreeNode newRoot = build("a c");
+    Map<String, TreeNode> nodes = new HashMap<String, TreeNode>();
+    nodes.put("a", newRoot.getChildAt(0));
+    nodes.put("c", newRoot.getChildAt(1));
+    TreeMerger merger = new TreeMerger(model);
+    merger.merge(newRoot);
+    merger.updateNodes(nodes);
+    assertSame(a, nodes.get("a"));
+    assertSame(find("c"), nodes.get("c"));
+    assertEquals(1, merger.getInserted());
+    assertEquals(1, merger.getRemoved());
+    assertEquals(1, merger.getChanged());
+  }
+
+  /**
+   * Tests that wrappers are identified by the IDs of their objects.
+   */
+  @Test
+  public void testGetKey() throws Exception {
+    GameData data = new GameDataBuilder().createSimpleGameData();
+    Unit unit = data.getUnits().iterator().next();
+    assertEquals(TreeMerger.getKey(new UnitNodeWrapper(unit, "a")), TreeMerger
+        .getKey(new UnitNodeWrapper(unit, null, 5, 6)));
+    assertEquals(TreeMerger.getKey(new RegionNodeWrapper(unit.getRegion(), 1)), TreeMerger
+        .getKey(new RegionNodeWrapper(unit.getRegion(), 2)));
+    assertFalse(TreeMerger.getKey(new UnitNodeWrapper(unit, "a")).equals(
+        TreeMerger.getKey(new SimpleNodeWrapper(unit, "a"))));
+  }
+}
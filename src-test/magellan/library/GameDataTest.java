@@ -4,10 +4,26 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assume;
 import org.junit.Test;
 
+import magellan.library.io.GameDataReader;
+import magellan.library.io.cr.CRWriter;
+import magellan.library.io.cr.Loader;
+import magellan.library.io.file.FileTypeFactory;
 import magellan.library.rules.GenericRules;
+import magellan.library.utils.Profiler;
+import magellan.library.utils.transformation.IdentityTransformer;
+import magellan.library.utils.transformation.ReportTransformer;
+import magellan.library.utils.transformation.TwoLevelTransformer;
 import magellan.test.GameDataBuilder;
+import magellan.test.MagellanTestUtil;
 import magellan.test.MagellanTestWithResources;
 
 /**
@@ -44,4 +60,68 @@ public class GameDataTest extends MagellanTestWithResources {
   private EmptyData createEmptyGameData() {
     return new EmptyData(new GenericRules());
   }
+
+  /**
+   * Clones all test reports and compares the result with the result of the CRWriter/CRParser clone.
+   */
+  @Test
+  public void cloneIsEquivalentToWrittenReport() throws Exception {
+    for (File report : MagellanTestUtil.getReports()) {
+      GameData data = load(report);
+      for (ReportTransformer transformer : new ReportTransformer[] { new IdentityTransformer(),
+          new TwoLevelTransformer(CoordinateID.create(2, -3), CoordinateID.ZERO) }) {
+        String expected = write(new Loader().cloneGameData(data, transformer));
+        assertEquals(report.getName(), expected, write(data.clone(transformer)));
+      }
+      assertEquals(report.getName(), write(data), write(data.clone(new IdentityTransformer())));
+    }
+  }
+
+  private GameData load(File report) throws IOException {
+    return new GameDataReader(null).readGameData(FileTypeFactory.singleton().createFileType(report,
+        true));
+  }
+
+  private String write(GameData data) throws IOException {
+    StringWriter out = new StringWriter();
+    CRWriter writer = new CRWriter(data, null, out);
+    writer.writeSynchronously();
+    writer.close();
+    // the date of writing differs
+    return out.toString().replaceAll("\\d+;date", "");
+  }
+
+  private static enum PTags {
+    WRITE_READ, COPY
+  }
+
+  /**
+   * Compares the write/read clone with the structural copy. This takes a while, so it only runs
+   * when testing internally.
+   */
+  @Test
+  public void testProfile() throws Exception {
+    Assume.assumeTrue(MagellanTestUtil.isInternalTesting());
+    final int REPETITIONS = 10;
+    List<GameData> reports = new ArrayList<GameData>();
+    for (File report : MagellanTestUtil.getReports()) {
+      reports.add(load(report));
+    }
+
+    ReportTransformer transformer =
+        new TwoLevelTransformer(CoordinateID.create(1, 1), CoordinateID.ZERO);
+    Profiler p = MagellanTestUtil.startProfile(PTags.values());
+    for (int i = 0; i < REPETITIONS; ++i) {
+      p.split();
+      for (GameData data : reports) {
+        new Loader().cloneGameData(data, transformer);
+      }
+      p.log(PTags.WRITE_READ);
+      for (GameData data : reports) {
+        GameDataMerger.copy(data, transformer);
+      }
+      p.log(PTags.COPY);
+    }
+    p.printTags();
+  }
 }
@@ -0,0 +1,241 @@
+// class magellan.library.gamebinding.CachingOrderParserTest
+// created on Oct 18, 2026
+//
+// Copyright 2003-2026 by magellan project team
+//
+// Author : $Author: $
+// $Id: $
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program (see doc/LICENCE.txt); if not, write to the
+// Free Software Foundation, Inc.,
+// 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+package magellan.library.gamebinding;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import magellan.library.GameData;
+import magellan.library.Order;
+import magellan.library.Region;
+import magellan.library.Unit;
+import magellan.library.completion.OrderParser;
+import magellan.library.tasks.OrderSyntaxInspector.OrderSemanticsProblemTypes;
+import magellan.library.tasks.Problem.Severity;
+import magellan.library.tasks.ProblemFactory;
+import magellan.library.utils.Profiler;
+import magellan.test.GameDataBuilder;
+import magellan.test.MagellanTestUtil;
+import magellan.test.MagellanTestWithResources;
+
+/**
+ * Tests for {@link CachingOrderParser} and {@link GameData#reparseOrders()}.
+ */
+public class CachingOrderParserTest extends MagellanTestWithResources {
+
+  private static final List<String> ORDERS = Arrays.asList("LERNE Hiebwaffen", "ARBEITE",
+      "// comment", "GIB 1 10 Silber", "NACH o o", "FOLGE EINHEIT zwei", "UNSINN");
+
+  private GameDataBuilder builder;
+  private GameData data;
+  private Region region;
+  private Locale locale;
+
+  @Before
+  public void setUp() throws Exception {
+    builder = new GameDataBuilder();
+    data = builder.createSimpleGameData();
+    region = data.getRegions().iterator().next();
+    locale = data.getUnits().iterator().next().getLocale();
+  }
+
+  /**
+   * Tests that cached orders are copied.
+   */
+  @Test
+  public void testParse() {
+    CachingOrderParser.Cache cache = new CachingOrderParser.Cache();
+    OrderParser parser = new CachingOrderParser(data.getOrderParser(), cache);
+    for (String text : ORDERS) {
+      Order order1 = parser.parse(text, locale);
+      Order order2 = parser.parse(text, locale);
+      Order expected = data.getOrderParser().parse(text, locale);
+      assertNotSame(order1, order2);
+      assertEquals(expected.getClass(), order2.getClass());
+      assertEquals(expected.getText(), order2.getText());
+      assertEquals(expected.isValid(), order2.isValid());
+      assertEquals(expected.isLong(), order2.isLong());
+      assertEquals(expected.getTokens().toString(), order2.getTokens().toString());
+    }
+    assertEquals(ORDERS.size(), cache.size());
+
+    Order order1 = parser.parse("ARBEITE", locale);
+    Order order2 = parser.parse("ARBEITE", locale);
+    order1.setProblem(ProblemFactory.createProblem(Severity.WARNING,
+        OrderSemanticsProblemTypes.SEMANTIC_ERROR.type));
+    assertNull(order2.getProblem());
+    assertNull(parser.parse("ARBEITE", locale).getProblem());
+  }
+
+  /**
+   * Tests that the size of the cache is limited.
+   */
+  @Test
+  public void testMaxSize() {
+    CachingOrderParser.Cache cache = new CachingOrderParser.Cache(2);
+    OrderParser parser = new CachingOrderParser(data.getOrderParser(), cache);
+    for (String text : ORDERS) {
+      parser.parse(text, locale);
+    }
+    assertEquals(2, cache.size());
+    assertEquals("ARBEITE", parser.parse("ARBEITE", locale).getText());
+  }
+
+  /**
+   * Tests that getTokens() returns the tokens of cached orders.
+   */
+  @Test
+  @SuppressWarnings("deprecation")
+  public void testGetTokens() {
+    OrderParser parser =
+        new CachingOrderParser(data.getOrderParser(), new CachingOrderParser.Cache());
+    parser.parse("LERNE Hiebwaffen", locale);
+    parser.parse("ARBEITE", locale);
+    parser.parse("LERNE Hiebwaffen", locale);
+    assertEquals("LERNE", parser.getTokens().get(0).getText());
+    assertEquals("Hiebwaffen", parser.getTokens().get(1).getText());
+  }
+
+  /**
+   * Tests that reparsing gives the same orders as parsing and that the parser is used only by the
+   * reparsing threads.
+   */
+  @Test
+  public void testReparseOrders() {
+    List<Unit> units = createUnits(5);
+    data.reparseOrders();
+    for (Unit unit : units) {
+      assertEquals(ORDERS.size(), unit.getOrders2().size());
+      for (int i = 0; i < ORDERS.size(); ++i) {
+        Order order = unit.getOrders2().get(i);
+        Order expected = data.getOrderParser().parse(ORDERS.get(i), unit.getLocale());
+        assertEquals(expected.getText(), order.getText());
+        assertEquals(expected.isValid(), order.isValid());
+        assertEquals(expected.getClass(), order.getClass());
+      }
+    }
+    assertSame(data.getOrderParser(), data.getOrderParser());
+    assertEquals(false, data.getOrderParser() instanceof CachingOrderParser);
+  }
+
+  /**
+   * Tests that reparsing with several threads gives the same orders as parsing, also if there are
+   * fewer units than a thread usually parses.
+   */
+  @Test
+  public void testReparseThreads() {
+    int threads = GameData.getReparseThreads();
+    try {
+      GameData.setReparseThreads(3);
+      List<Unit> units = createUnits(7);
+      data.reparseOrders();
+      for (Unit unit : units) {
+        assertEquals(ORDERS.size(), unit.getOrders2().size());
+        for (int i = 0; i < ORDERS.size(); ++i) {
+          Order expected = data.getOrderParser().parse(ORDERS.get(i), unit.getLocale());
+          assertEquals(expected.getText(), unit.getOrders2().get(i).getText());
+          assertEquals(expected.isValid(), unit.getOrders2().get(i).isValid());
+        }
+      }
+      assertEquals(false, data.getOrderParser() instanceof CachingOrderParser);
+    } finally {
+      GameData.setReparseThreads(threads);
+    }
+  }
+
+  /**
+   * Tests that all units are parsed again if the calling thread is interrupted.
+   */
+  @Test
+  public void testReparseInterrupted() {
+    int threads = GameData.getReparseThreads();
+    try {
+      GameData.setReparseThreads(3);
+      List<Unit> units = createUnits(7);
+      List<List<Order>> before = new ArrayList<List<Order>>();
+      for (Unit unit : units) {
+        before.add(new ArrayList<Order>(unit.getOrders2()));
+      }
+      Thread.currentThread().interrupt();
+      data.reparseOrders();
+      assertTrue(Thread.interrupted());
+      for (int u = 0; u < units.size(); ++u) {
+        assertEquals(ORDERS.size(), units.get(u).getOrders2().size());
+        for (int i = 0; i < ORDERS.size(); ++i) {
+          assertNotSame(before.get(u).get(i), units.get(u).getOrders2().get(i));
+        }
+      }
+    } finally {
+      Thread.interrupted();
+      GameData.setReparseThreads(threads);
+    }
+  }
+
+  private List<Unit> createUnits(int number) {
+    List<Unit> units = new ArrayList<Unit>(number);
+    for (int i = 0; i < number; ++i) {
+      Unit unit = builder.addUnit(data, "U" + i, region);
+      unit.setOrders(ORDERS);
+      units.add(unit);
+    }
+    return units;
+  }
+
+  private static enum PTags {
+    SERIAL, REPARSE
+  }
+
+  /**
+   * Compares reparsing unit by unit with {@link GameData#reparseOrders()}.
+   */
+  @Test
+  public void testProfile() {
+    Assume.assumeTrue(MagellanTestUtil.isInternalTesting());
+    final int REPETITIONS = 10;
+    List<Unit> units = createUnits(2000);
+    Profiler p = MagellanTestUtil.startProfile(PTags.values());
+    for (int i = 0; i < REPETITIONS; ++i) {
+      p.split();
+      for (Unit unit : units) {
+        unit.reparseOrders();
+      }
+      p.log(PTags.SERIAL);
+      data.reparseOrders();
+      p.log(PTags.REPARSE);
+    }
+    p.printTags();
+  }
+}
@@ -0,0 +1,375 @@
+// class magellan.library.gamebinding.EresseaMessageRendererTest
+// created on Oct 18, 2026
+//
+// Copyright 2003-2026 by magellan project team
+//
+// Author : $Author: $
+// $Id: $
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program (see doc/LICENCE.txt); if not, write to the
+// Free Software Foundation, Inc.,
+// 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+package magellan.library.gamebinding;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import magellan.library.CoordinateID;
+import magellan.library.GameData;
+import magellan.library.IntegerID;
+import magellan.library.Message;
+import magellan.library.Region;
+import magellan.library.Unit;
+import magellan.library.impl.MagellanMessageImpl;
+import magellan.library.io.GameDataReader;
+import magellan.library.io.file.FileTypeFactory;
+import magellan.library.rules.MessageType;
+import magellan.library.utils.Profiler;
+import magellan.library.utils.Resources;
+import magellan.test.GameDataBuilder;
+import magellan.test.MagellanTestUtil;
+import magellan.test.MagellanTestWithResources;
+
+/**
+ * Tests for {@link EresseaMessageRenderer}.
+ */
+public class EresseaMessageRendererTest extends MagellanTestWithResources {
+
+  private GameData data;
+  private Unit unit;
+  private Region region;
+  private MessageRenderer renderer;
+  private int nextType = 1;
+
+  @Before
+  public void setUp() throws Exception {
+    GameDataBuilder builder = new GameDataBuilder();
+    data = builder.createSimpleGameData();
+    region = data.getRegions().iterator().next();
+    // unit 1 is the unknown unit
+    unit = builder.addUnit(data, "Hansel", region);
+    renderer = new EresseaMessageRenderer(data);
+  }
+
+  private Message createMessage(MessageType type, String... attributes) {
+    Map<String, String> map = new HashMap<String, String>();
+    for (int i = 0; i < attributes.length; i += 2) {
+      map.put(attributes[i], attributes[i + 1]);
+    }
+    return new MagellanMessageImpl(IntegerID.create(1), "", type, map);
+  }
+
+  private String render(String pattern, String... attributes) {
+    MessageType type = new MessageType(IntegerID.create(nextType++), pattern);
+    type.setGameData(data);
+    return renderer.renderMessage(createMessage(type, attributes));
+  }
+
+  @Test
+  public void testRender() {
+    String id = String.valueOf(unit.getID().intValue());
+    assertEquals(unit + " verspeiste 5 Bauern.", render(
+        "\"$unit($unit) verspeiste $int($amount) Bauern.\"", "unit", id, "amount", "5"));
+    assertEquals("In " + region + " erhoben sich die Toten.", render(
+        "\"In $region($region) erhoben sich die Toten.\"", "region", "0 0 0"));
+    assertEquals("ein Schwert", render("\"$if($eq($amount,1),\"ein\",\"$int($amount)\") Schwert\"",
+        "amount", "1"));
+    assertEquals("2 Schwert", render("\"$if($eq($amount,1),\"ein\",\"$int($amount)\") Schwert\"",
+        "amount", "2"));
+    assertEquals("3 ja", render("\"$int($add($amount,1)) ${x}\"", "amount", "2", "x", "ja"));
+    assertEquals("leer", render("\"$if($isnull($x),\"leer\",$x)\""));
+    assertEquals("5", render("\"$int($strlen($command))\"", "command", "LERNE"));
+    assertEquals(Resources.get("eresseamsgrenderer.func.unit.unknown"), render("$unit($unit)",
+        "unit", "1"));
+    assertEquals(unit.toString(), render("$unit($unit)", "unit", id));
+    assertEquals(" ", render("\"\""));
+  }
+
+  @Test
+  public void testErrors() {
+    assertNull(render("\"$int($amount\"", "amount", "1"));
+    assertNull(render("\"no quote"));
+    assertNull(render("\"$int($amount)\""));
+    assertNull(render("\"$int($amount)\"", "amount", "abc"));
+  }
+
+  @Test
+  public void testPatternChanged() {
+    MessageType type = new MessageType(IntegerID.create(nextType++), "\"a $int($amount)\"");
+    type.setGameData(data);
+    Message msg = createMessage(type, "amount", "1");
+    assertEquals("a 1", renderer.renderMessage(msg));
+    type.setPattern("\"b $int($amount)\"");
+    assertEquals("b 1", renderer.renderMessage(msg));
+  }
+
+  private List<Message> getMessages(GameData report) {
+    List<Message> messages = new ArrayList<Message>();
+    for (magellan.library.Faction faction : report.getFactions()) {
+      if (faction.getMessages() != null) {
+        messages.addAll(faction.getMessages());
+      }
+    }
+    for (Region r : report.getRegions()) {
+      if (r.getMessages() != null) {
+        messages.addAll(r.getMessages());
+      }
+      if (r.getEvents() != null) {
+        messages.addAll(r.getEvents());
+      }
+    }
+    return messages;
+  }
+
+  private List<GameData> loadReports() throws IOException {
+    List<GameData> reports = new ArrayList<GameData>();
+    for (File report : MagellanTestUtil.getReports()) {
+      reports.add(new GameDataReader(null).readGameData(FileTypeFactory.singleton().createFileType(
+          report, true)));
+    }
+    return reports;
+  }
+
+  /** patterns using every function of the renderer, and some broken ones */
+  private static final String[] PATTERNS = {
+      "\"$unit($unit) in $region($region): '$order($command)' - Das geht nicht.\"",
+      "\"$unit($unit) verdient in $region($region) $int($amount) Silber.\"",
+      "\"$unit($unit) \u00fcbergibt $int($amount) $resource($resource,$amount) an $unit($target).\"",
+      "\"Die $ship($ship) segelt von $region($from) nach $region($to).\"",
+      "\"$unit.dative($unit) gef\u00e4llt $building($building) nicht.\"",
+      "\"$faction($faction) schenkt uns $int($amount) Silber.\"",
+      "\"$unit($unit) reist durch $trail($regions).\"",
+      "\"$unit($unit) zaubert $spell($spell) und lernt $skill($skill) als $race($race,$amount).\"",
+      "\"In $region($region) ist $terrain($terrain), $localize($name).\"",
+      "\"$unit($unit) tr\u00e4gt $weight($weight) und geht nach $direction($dir).\"",
+      "\"$unit($unit) produziert $resources($items).\"",
+      "\"$if($eq($amount,1),\"ein\",\"$int($amount)\") $resource($resource,$amount)\"",
+      "\"$int($add($amount,-1)) ${name} $if($isnull($mage),\"\",\"($unit($mage))\")\"",
+      "\"$unit($unit) hat $int($strlen($name)) Zeichen.\"",
+      "\"$int($amount\"", "\"no quote", "$unit($unit)", "\"$foo($unit)\"", "\"$\"", "\"\"" };
+
+  private static final Pattern ATTRIBUTE = Pattern.compile("\\$\\{([^}]*)\\}|\\$([a-z.]+)(\\(?)");
+
+  /**
+   * The renderings of {@link #testSameAsLegacy()} by the previous, uncompiled implementation. Each
+   * line holds a key and, separated by a tab, the escaped rendering; lines without a tab are
+   * messages that could not be rendered.
+   */
+  private static final File EXPECTED = new File("test/tc012/renderings.txt");
+
+  /**
+   * Renders every message type of the test reports and some patterns using every function and
+   * compares the results with the renderings of the previous, uncompiled implementation. The
+   * attributes of the messages are filled with plausible values and with values of every kind.
+   */
+  @Test
+  public void testSameAsLegacy() throws IOException {
+    Map<String, String> expected = readExpected();
+    Map<String, String> actual = renderAll();
+    for (Map.Entry<String, String> entry : expected.entrySet()) {
+      assertTrue(entry.getKey(), actual.containsKey(entry.getKey()));
+      assertEquals(entry.getKey(), entry.getValue(), actual.get(entry.getKey()));
+    }
+    assertEquals(expected.size(), actual.size());
+  }
+
+  /**
+   * Renders the test messages with the current implementation.
+   *
+   * @return the renderings by key, <code>null</code> for messages that could not be rendered
+   */
+  private Map<String, String> renderAll() throws IOException {
+    Map<String, String> result = new LinkedHashMap<String, String>();
+    List<MessageType> types = new ArrayList<MessageType>();
+    for (String pattern : PATTERNS) {
+      MessageType type = new MessageType(IntegerID.create(nextType++), pattern);
+      type.setGameData(data);
+      types.add(type);
+    }
+    render("patterns", data, types, result);
+    int rendered = 0;
+    for (String rendering : result.values()) {
+      if (rendering != null) {
+        ++rendered;
+      }
+    }
+    assertTrue(rendered > PATTERNS.length * 3);
+
+    for (File file : MagellanTestUtil.getReports()) {
+      GameData report = new GameDataReader(null).readGameData(FileTypeFactory.singleton()
+          .createFileType(file, true));
+      String name = file.getParentFile().getName() + "/" + file.getName();
+      render(name, report, report.msgTypes().values(), result);
+      MessageRenderer current = new EresseaMessageRenderer(report);
+      int i = 0;
+      for (Message msg : getMessages(report)) {
+        if (msg.getMessageType() != null) {
+          result.put(name + " message " + i, current.renderMessage(msg));
+        }
+        ++i;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Renders messages of all the types with plausible values and with values of every kind.
+   */
+  private void render(String name, GameData report, Collection<MessageType> types,
+      Map<String, String> result) {
+    MessageRenderer current = new EresseaMessageRenderer(report);
+    Unit someUnit = report.getUnits().isEmpty() ? null : report.getUnits().iterator().next();
+    CoordinateID c = report.getRegions().iterator().next().getID();
+    String[] values =
+        { someUnit == null ? "2" : String.valueOf(someUnit.getID().intValue()), "1",
+            c.getX() + " " + c.getY() + " " + c.getZ(), "9 9", "0 0 0, 1 1 0, 2 2 0",
+            "2 Silber, 1 Pferd", "Silber", "5", "-3", "" };
+    for (MessageType type : types) {
+      if (type.getPattern() == null) {
+        continue;
+      }
+      Set<String> names = new HashSet<String>();
+      Matcher m = ATTRIBUTE.matcher(type.getPattern());
+      while (m.find()) {
+        if (m.group(1) != null) {
+          names.add(m.group(1));
+        } else if (m.group(3).isEmpty()) {
+          names.add(m.group(2));
+        }
+      }
+      List<Map<String, String>> attributeSets = new ArrayList<Map<String, String>>();
+      attributeSets.add(new HashMap<String, String>());
+      Map<String, String> plausible = new HashMap<String, String>();
+      for (String attribute : names) {
+        plausible.put(attribute, getPlausibleValue(attribute, values));
+      }
+      attributeSets.add(plausible);
+      for (String value : values) {
+        Map<String, String> uniform = new HashMap<String, String>();
+        for (String attribute : names) {
+          uniform.put(attribute, value);
+        }
+        attributeSets.add(uniform);
+      }
+      for (int i = 0; i < attributeSets.size(); ++i) {
+        Message msg = new MagellanMessageImpl(IntegerID.create(1), "", type, attributeSets.get(i));
+        result.put(name + " type " + type.getID() + " " + i, current.renderMessage(msg));
+      }
+    }
+  }
+
+  private Map<String, String> readExpected() throws IOException {
+    Map<String, String> result = new LinkedHashMap<String, String>();
+    for (String line : Files.readAllLines(EXPECTED.toPath(), StandardCharsets.UTF_8)) {
+      int tab = line.indexOf('\t');
+      if (tab < 0) {
+        result.put(line, null);
+      } else {
+        result.put(line.substring(0, tab), unescape(line.substring(tab + 1)));
+      }
+    }
+    return result;
+  }
+
+  private static String unescape(String text) {
+    StringBuilder result = new StringBuilder(text.length());
+    for (int i = 0; i < text.length(); ++i) {
+      char ch = text.charAt(i);
+      if (ch == '\\' && i + 1 < text.length()) {
+        ch = text.charAt(++i);
+        if (ch == 'n') {
+          ch = '\n';
+        } else if (ch == 't') {
+          ch = '\t';
+        } else if (ch == 'r') {
+          ch = '\r';
+        }
+      }
+      result.append(ch);
+    }
+    return result.toString();
+  }
+
+  private String getPlausibleValue(String name, String[] values) {
+    if (name.contains("unit") || name.equals("target") || name.equals("mage")
+        || name.equals("faction") || name.equals("ship") || name.equals("building"))
+      return values[0];
+    if (name.contains("region") && !name.equals("regions") || name.equals("from")
+        || name.equals("to"))
+      return values[2];
+    if (name.equals("regions"))
+      return values[4];
+    if (name.equals("items"))
+      return values[5];
+    if (name.equals("resource") || name.equals("spell") || name.equals("skill")
+        || name.equals("race") || name.equals("terrain") || name.equals("name")
+        || name.equals("command"))
+      return values[6];
+    if (name.equals("dir"))
+      return "2";
+    return values[7];
+  }
+
+  private static enum PTags {
+    RENDER
+  }
+
+  /**
+   * Renders every message of the test reports many times. This takes a while, so it only runs when
+   * testing internally.
+   */
+  @Test
+  public void testProfile() throws IOException {
+    Assume.assumeTrue(MagellanTestUtil.isInternalTesting());
+    final int REPETITIONS = 2000;
+    List<GameData> reports = loadReports();
+    int count = 0;
+    Profiler p = MagellanTestUtil.startProfile(PTags.values());
+    p.split();
+    for (int i = 0; i < REPETITIONS; ++i) {
+      for (GameData report : reports) {
+        MessageRenderer reportRenderer = report.getGameSpecificStuff().getMessageRenderer(report);
+        for (Message msg : getMessages(report)) {
+          if (msg.getMessageType() != null && reportRenderer.renderMessage(msg) != null) {
+            ++count;
+          }
+        }
+      }
+    }
+    p.log(PTags.RENDER);
+    p.printTags();
+    System.err.println(count + " messages rendered");
+  }
+}
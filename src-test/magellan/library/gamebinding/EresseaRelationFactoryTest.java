@@ -0,0 +1,364 @@
+// class magellan.library.gamebinding.EresseaRelationFactoryTest
+// created on Oct 18, 2026
+//
+// Copyright 2003-2026 by magellan project team
+//
+// Author : $Author: $
+// $Id: $
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program (see doc/LICENCE.txt); if not, write to the
+// Free Software Foundation, Inc.,
+// 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+package magellan.library.gamebinding;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.swing.SwingUtilities;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import magellan.library.Building;
+import magellan.library.Faction;
+import magellan.library.GameData;
+import magellan.library.Order;
+import magellan.library.Region;
+import magellan.library.Unit;
+import magellan.library.event.UnitChangeEvent;
+import magellan.library.event.UnitChangeListener;
+import magellan.library.impl.MagellanOrdersImplementation;
+import magellan.library.relation.LeaveRelation;
+import magellan.library.relation.UnitRelation;
+import magellan.library.tasks.OrderSyntaxInspector.OrderSemanticsProblemTypes;
+import magellan.library.tasks.Problem;
+import magellan.library.tasks.Problem.Severity;
+import magellan.library.tasks.ProblemFactory;
+import magellan.library.utils.CacheStage;
+import magellan.library.utils.CacheStage.NotInSnapshotException;
+import magellan.test.GameDataBuilder;
+import magellan.test.MagellanTestWithResources;
+
+/**
+ * Tests the background processing of {@link EresseaRelationFactory}.
+ */
+public class EresseaRelationFactoryTest extends MagellanTestWithResources {
+
+  private GameDataBuilder builder;
+  private GameData data;
+  private Unit unit;
+  private Region region0;
+  private Building building;
+  private EresseaRelationFactory relationFactory;
+  private List<Boolean> events;
+
+  @Before
+  public void setUp() throws Exception {
+    builder = new GameDataBuilder();
+    data = builder.createSimpleGameData();
+    unit = data.getUnits().iterator().next();
+    region0 = data.getRegions().iterator().next();
+    building = builder.addBuilding(data, region0, "b1", "Burg", "Burg 1", 10);
+    unit.setBuilding(building);
+    building.setOwner(unit);
+    unit.clearOrders();
+    relationFactory = ((EresseaRelationFactory) data.getGameSpecificStuff().getRelationFactory());
+    relationFactory.restartUpdating();
+    relationFactory.waitForRelations();
+
+    events = Collections.synchronizedList(new ArrayList<Boolean>());
+    data.addUnitChangeListener(new UnitChangeListener() {
+      public void unitChanged(UnitChangeEvent event) {
+        events.add(SwingUtilities.isEventDispatchThread());
+      }
+    });
+  }
+
+  @After
+  public void tearDown() {
+    relationFactory.stopUpdating();
+  }
+
+  /**
+   * Relations are computed in the background and published on the EDT.
+   */
+  @Test
+  public void testBackground() throws Exception {
+    unit.addOrder("VERLASSE");
+    relationFactory.createRelations(region0);
+    assertTrue(relationFactory.isPending());
+    relationFactory.waitForRelations();
+
+    assertFalse(relationFactory.isPending());
+    assertNull(unit.getModifiedBuilding());
+    assertEquals(1, unit.getRelations(LeaveRelation.class).size());
+    assertEquals(Collections.singletonList(true), events);
+  }
+
+  /**
+   * Waiting on the EDT processes the changed regions immediately.
+   */
+  @Test
+  public void testWaitOnEDT() throws Exception {
+    final Throwable[] error = new Throwable[1];
+    SwingUtilities.invokeAndWait(new Runnable() {
+      public void run() {
+        try {
+          unit.addOrder("VERLASSE");
+          relationFactory.createRelations(region0);
+          relationFactory.waitForRelations();
+          assertFalse(relationFactory.isPending());
+          assertNull(unit.getModifiedBuilding());
+        } catch (Throwable t) {
+          error[0] = t;
+        }
+      }
+    });
+    if (error[0] != null)
+      throw new AssertionError(error[0]);
+    assertEquals(Collections.singletonList(true), events);
+  }
+
+  /**
+   * A region that is changed again is processed again.
+   */
+  @Test
+  public void testChangeAgain() throws Exception {
+    unit.addOrder("VERLASSE");
+    relationFactory.createRelations(region0);
+    unit.clearOrders();
+    relationFactory.createRelations(region0);
+    relationFactory.waitForRelations();
+
+    assertEquals(building, unit.getModifiedBuilding());
+    assertEquals(0, unit.getRelations(LeaveRelation.class).size());
+  }
+
+  /**
+   * Waiting returns immediately when updating is stopped; the regions are processed after
+   * restarting.
+   */
+  @Test
+  public void testStopped() throws Exception {
+    relationFactory.stopUpdating();
+    unit.addOrder("VERLASSE");
+    relationFactory.createRelations(region0);
+    relationFactory.waitForRelations();
+    assertTrue(relationFactory.isPending());
+    assertEquals(building, unit.getModifiedBuilding());
+
+    relationFactory.restartUpdating();
+    relationFactory.waitForRelations();
+    assertFalse(relationFactory.isPending());
+    assertNull(unit.getModifiedBuilding());
+  }
+
+  /**
+   * With dependency tracking, only the orders of units that depend on the changed units are
+   * executed again. The result is the same as executing all orders.
+   */
+  @Test
+  public void testDependencyTracking() throws Exception {
+    relationFactory.stopUpdating();
+    Faction faction1 = unit.getFaction();
+    Faction faction2 = builder.addFaction(data, "f2", "Others", "Menschen", 1);
+    List<Unit> units1 = new ArrayList<Unit>();
+    List<Unit> units2 = new ArrayList<Unit>();
+    for (int i = 0; i < 6; ++i) {
+      units1.add(builder.addUnit(data, "a" + i, "A" + i, faction1, region0));
+      units2.add(builder.addUnit(data, "b" + i, "B" + i, faction2, region0));
+    }
+    for (int i = 0; i < 6; ++i) {
+      builder.addItem(data, units1.get(i), "Silber", 100);
+      builder.addItem(data, units2.get(i), "Silber", 100);
+      units1.get(i).addOrder(i % 2 == 0 ? "LERNE Hiebwaffen" : "GIB a" + (i - 1) + " 50 Silber");
+      units2.get(i).addOrder(i % 2 == 0 ? "LERNE Taktik" : "RESERVIERE 20 Silber");
+    }
+
+    relationFactory.setDependencyTracking(true);
+    relationFactory.processRegionNow(region0);
+    List<UnitRelation> relations1 = new ArrayList<UnitRelation>(units1.get(1).getRelations());
+    assertFalse(relations1.isEmpty());
+
+    units2.get(0).clearOrders();
+    units2.get(0).addOrder("GIB b1 30 Silber");
+    relationFactory.processRegionNow(region0);
+    String incremental = describe(region0);
+    // the other faction has not been touched
+    assertEquals(relations1.size(), units1.get(1).getRelations().size());
+    for (int i = 0; i < relations1.size(); ++i) {
+      assertSame(relations1.get(i), units1.get(1).getRelations().get(i));
+    }
+
+    relationFactory.setDependencyTracking(false);
+    relationFactory.processRegionNow(region0);
+    assertEquals(describe(region0), incremental);
+
+    // new units: all orders are executed again
+    relationFactory.setDependencyTracking(true);
+    relationFactory.processRegionNow(region0);
+    builder.addUnit(data, "c", "C", faction2, region0);
+    relationFactory.processRegionNow(region0);
+    assertFalse(units1.get(1).getRelations().contains(relations1.get(0)));
+  }
+
+  private String describe(Region r) {
+    StringBuilder result = new StringBuilder();
+    for (Unit u : r.units()) {
+      result.append(u).append(": ").append(u.getModifiedPersons()).append(" ").append(
+          u.getModifiedItems()).append(" ").append(u.getModifiedUnitContainer()).append("\n");
+      for (UnitRelation rel : u.getRelations()) {
+        result.append("  ").append(rel.getClass().getSimpleName()).append(rel).append("\n");
+      }
+      for (Order o : u.getOrders2()) {
+        result.append("  ").append(o.getText()).append(" ").append(o.getProblem()).append("\n");
+      }
+    }
+    return result.toString();
+  }
+
+  /**
+   * Changes in a stage are invisible until they are published.
+   */
+  @Test
+  public void testStage() throws Exception {
+    final Unit unit2 = builder.addUnit(data, "Unit2", region0);
+    final CacheStage[] stage = new CacheStage[1];
+    Thread worker = new Thread(new Runnable() {
+      public void run() {
+        stage[0] = CacheStage.begin();
+        unit.enter(null);
+        building.setModifiedOwnerUnit(unit2);
+        stage[0].end();
+      }
+    });
+    worker.start();
+    worker.join();
+
+    assertEquals(building, unit.getModifiedBuilding());
+    assertSame(unit, building.getModifiedOwnerUnit());
+    stage[0].publish();
+    assertNull(unit.getModifiedBuilding());
+    assertSame(unit2, building.getModifiedOwnerUnit());
+  }
+
+  /**
+   * A thread with a snapshot stage sees the copied orders and sets problems in the stage only. It
+   * must not use objects outside the snapshot.
+   */
+  @Test
+  public void testSnapshot() throws Exception {
+    unit.addOrder("VERLASSE");
+    final Order order = unit.getOrders2().get(0);
+    final Problem problem =
+        ProblemFactory.createProblem(Severity.WARNING,
+            OrderSemanticsProblemTypes.SEMANTIC_ERROR.type, unit, null, "test", 1);
+    final CacheStage stage = CacheStage.createSnapshot();
+    stage.addSnapshot(unit);
+    stage.addOrders(unit, new MagellanOrdersImplementation(unit, new ArrayList<Order>(unit
+        .getOrders2())));
+    unit.clearOrders();
+
+    final List<Object> seen = new ArrayList<Object>();
+    Thread worker = new Thread(new Runnable() {
+      public void run() {
+        stage.activate();
+        try {
+          seen.add(unit.getOrders2().size());
+          order.setProblem(problem);
+          seen.add(order.getProblem());
+          try {
+            building.getCache();
+          } catch (NotInSnapshotException e) {
+            seen.add(e.getClass());
+          }
+        } finally {
+          stage.end();
+        }
+      }
+    });
+    worker.start();
+    worker.join();
+
+    assertEquals(Arrays.asList(1, problem, NotInSnapshotException.class), seen);
+    assertNull(order.getProblem());
+    stage.publish();
+    assertSame(problem, order.getProblem());
+  }
+
+  /**
+   * The snapshot of a region holds the units of the region, but not those of their factions.
+   */
+  @Test
+  public void testSnapshotFaction() throws Exception {
+    final CacheStage stage = relationFactory.createSnapshot(unit.getRegion());
+    final List<Object> seen = new ArrayList<Object>();
+    Thread worker = new Thread(new Runnable() {
+      public void run() {
+        stage.activate();
+        try {
+          seen.add(unit.getRegion().units().size());
+          try {
+            unit.getFaction().units();
+          } catch (NotInSnapshotException e) {
+            seen.add(e.getClass());
+          }
+        } finally {
+          stage.end();
+        }
+      }
+    });
+    worker.start();
+    worker.join();
+
+    assertEquals(Arrays.asList(unit.getRegion().units().size(), NotInSnapshotException.class), seen);
+  }
+
+  /**
+   * If the background computation fails, the region is processed on the EDT.
+   */
+  @Test
+  public void testForeground() throws Exception {
+    relationFactory.stopUpdating();
+    EresseaRelationFactory factory = new EresseaRelationFactory(data.getRules()) {
+      @Override
+      protected CacheStage createSnapshot(Region r) {
+        // the orders use objects that are not in the empty snapshot
+        return CacheStage.createSnapshot();
+      }
+    };
+    try {
+      unit.addOrder("VERLASSE");
+      factory.createRelations(region0);
+      factory.waitForRelations();
+
+      assertFalse(factory.isPending());
+      assertNull(unit.getModifiedBuilding());
+      assertEquals(1, unit.getRelations(LeaveRelation.class).size());
+      assertEquals(Collections.singletonList(true), events);
+    } finally {
+      factory.stopUpdating();
+    }
+  }
+}
@@ -0,0 +1,140 @@
+// class magellan.library.io.RulesReaderTest
+// created on Oct 18, 2026
+//
+// Copyright 2003-2026 by magellan project team
+//
+// Author : $Author: $
+// $Id: $
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program (see doc/LICENCE.txt); if not, write to the
+// Free Software Foundation, Inc.,
+// 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+package magellan.library.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Iterator;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import magellan.library.Item;
+import magellan.library.Rules;
+import magellan.library.StringID;
+import magellan.library.rules.ItemType;
+import magellan.library.rules.SkillType;
+import magellan.library.utils.Profiler;
+import magellan.test.MagellanTestUtil;
+import magellan.test.MagellanTestWithResources;
+
+/**
+ * Tests for the rules cache of {@link RulesReader}.
+ */
+public class RulesReaderTest extends MagellanTestWithResources {
+
+  @Before
+  public void setUp() throws Exception {
+    RulesReader.clearCache();
+  }
+
+  /**
+   * Tests that every read returns an independent copy of the cached rules.
+   */
+  @Test
+  public void testCopies() {
+    Rules rules1 = new RulesReader().readRules("eressea");
+    Rules rules2 = new RulesReader().readRules("eressea");
+    assertNotSame(rules1, rules2);
+    assertEquals("eressea", rules2.getGameName());
+    assertEquals(rules1.getItemTypes().size(), rules2.getItemTypes().size());
+
+    ItemType sword1 = rules1.getItemType("Schwert");
+    ItemType sword2 = rules2.getItemType("Schwert");
+    assertNotNull(sword1);
+    assertNotSame(sword1, sword2);
+
+    rules1.changeName("Schwert", "sword");
+    assertEquals("sword", sword1.getName());
+    assertEquals("Schwert", sword2.getName());
+    assertSame(sword1, rules1.getItemType("sword"));
+    assertNull(rules2.getItemType("sword"));
+    assertEquals("Schwert", new RulesReader().readRules("eressea").getItemType("Schwert").getName());
+
+    rules1.getItemType(StringID.create("Foo"), true);
+    assertNotNull(rules1.getItemType("Foo"));
+    assertNull(rules2.getItemType("Foo"));
+  }
+
+  /**
+   * Tests that the copied types refer to the types of their own rules.
+   */
+  @Test
+  public void testReferences() {
+    new RulesReader().readRules("eressea");
+    Rules rules = new RulesReader().readRules("eressea");
+
+    ItemType sword = rules.getItemType("Schwert");
+    assertSame(rules.getItemCategory(StringID.create("weapons")), sword.getCategory());
+    assertSame(rules.getSkillType("Waffenbau"), sword.getMakeSkill().getSkillType());
+    assertEquals(3, sword.getMakeSkill().getLevel());
+    Iterator<Item> resources = sword.getResources();
+    assertSame(rules.getItemType("Eisen"), resources.next().getItemType());
+
+    SkillType skill = rules.getSkillType("Hiebwaffen");
+    assertSame(rules.getSkillCategory(StringID.create("war")), skill.getCategory());
+  }
+
+  /**
+   * Tests that types are found by name and by id.
+   */
+  @Test
+  public void testLookup() {
+    Rules rules = new RulesReader().readRules("eressea");
+    for (ItemType type : rules.getItemTypes()) {
+      assertSame(type, rules.getItemType(type.getName()));
+      assertSame(type, rules.getItemType(type.getID().toString()));
+    }
+    assertNull(rules.getItemType("NoSuchItem"));
+  }
+
+  private static enum PTags {
+    UNCACHED, CACHED
+  }
+
+  /**
+   * Compares reading the rules from file with reading them from the cache.
+   */
+  @Test
+  public void testProfile() {
+    Assume.assumeTrue(MagellanTestUtil.isInternalTesting());
+    final int REPETITIONS = 20;
+    Profiler p = MagellanTestUtil.startProfile(PTags.values());
+    for (int i = 0; i < REPETITIONS; ++i) {
+      p.split();
+      RulesReader.clearCache();
+      Rules uncached = new RulesReader().readRules("eressea");
+      p.log(PTags.UNCACHED);
+      Rules cached = new RulesReader().readRules("eressea");
+      p.log(PTags.CACHED);
+      assertEquals(uncached.getItemTypes().size(), cached.getItemTypes().size());
+    }
+    p.printTags();
+  }
+}
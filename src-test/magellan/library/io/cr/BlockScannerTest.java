@@ -0,0 +1,264 @@
+// class magellan.library.io.cr.BlockScannerTest
+// created on Oct 18, 2026
+//
+// Copyright 2003-2026 by magellan project team
+//
+// Author : $Author: $
+// $Id: $
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program (see doc/LICENCE.txt); if not, write to the
+// Free Software Foundation, Inc.,
+// 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+package magellan.library.io.cr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.AfterClass;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import magellan.library.GameData;
+import magellan.library.Region;
+import magellan.library.io.GameDataReader;
+import magellan.library.io.file.FileTypeFactory;
+import magellan.library.utils.Profiler;
+import magellan.test.GameDataBuilder;
+import magellan.test.MagellanTestUtil;
+import magellan.test.MagellanTestWithResources;
+
+/**
+ * Tests for {@link BlockScanner}.
+ */
+public class BlockScannerTest extends MagellanTestWithResources {
+
+  private static ForkJoinPool pool;
+
+  @BeforeClass
+  public static void setUpPool() {
+    pool = new ForkJoinPool(3);
+  }
+
+  @AfterClass
+  public static void tearDownPool() {
+    pool.shutdown();
+  }
+
+  @Test
+  public void testEmpty() throws IOException {
+    BlockScanner sc = new BlockScanner(new StringReader(""), pool);
+    sc.getNextToken();
+    assertTrue(sc.eof);
+    assertEquals(1, sc.lnr);
+  }
+
+  @Test
+  public void testChunks() throws IOException {
+    String input = "VERSION 66\r\n1;a\r\n\r\nREGION 0 0\r\"x\";b\r\rEINHEIT 1\n2;c\n\nEINHEIT 2\n\"y\";d";
+    for (int chunkSize = 1; chunkSize < input.length() + 2; ++chunkSize) {
+      assertSame(input, new Scanner(new StringReader(input)), new BlockScanner(new StringReader(input),
+          pool, chunkSize));
+    }
+  }
+
+  @Test
+  public void testError() throws IOException {
+    BlockScanner sc = new BlockScanner(new StringReader("REGION 0 0\n1;2;3\n"), pool);
+    sc.getNextToken();
+    try {
+      sc.getNextToken();
+      fail();
+    } catch (IOException e) {
+      assertEquals("Scanner.getNextToken(): invalid token format in line 2", e.getMessage());
+    }
+  }
+
+  /**
+   * Compares the tokens of all test reports with the tokens of the sequential scanner.
+   */
+  @Test
+  public void testReports() throws IOException {
+    for (File report : MagellanTestUtil.getReports()) {
+      String input = new String(Files.readAllBytes(report.toPath()), StandardCharsets.ISO_8859_1);
+      for (int chunkSize : new int[] { 100, 1000, 1 << 16 }) {
+        assertSame(report.getName(), new Scanner(new StringReader(input)), new BlockScanner(
+            new StringReader(input), pool, chunkSize));
+      }
+    }
+  }
+
+  /**
+   * Loads all test reports sequentially and in parallel and compares the written reports.
+   */
+  @Test
+  public void testGameDataReader() throws IOException {
+    for (File report : MagellanTestUtil.getReports()) {
+      if (report.getName().startsWith("ar") || report.getName().startsWith("astral")) {
+        // incomplete reports
+        continue;
+      }
+      GameDataReader reader = new GameDataReader(null);
+      String sequential = write(reader.readGameData(FileTypeFactory.singleton().createFileType(report,
+          true)));
+      reader.setParallel(true);
+      String parallel = write(reader.readGameData(FileTypeFactory.singleton().createFileType(report,
+          true)));
+      assertEquals(report.getName(), sequential, parallel);
+    }
+  }
+
+  /**
+   * Reads a report with regions that cannot be parsed independently of each other sequentially and
+   * in parallel and compares the written reports.
+   */
+  @Test
+  public void testParallelRegions() throws IOException {
+    String report = "VERSION 66\n\"Eressea\";Spiel\n\"Standard\";Konfiguration\n"
+        + "\"Hex\";Koordinaten\n36;Basis\n1;Umlaute\n600;Runde\n2;Zeitalter\n"
+        + "PARTEI 1\n\"de\";locale\n\"Partei 1\";Parteiname\n"
+        // a region with an owner, a message and a unit following a unit of a later region
+        + "REGION 0 0\n\"Ebene\";Terrain\n\"R1\";Name\n1;owner\nMESSAGE 1\n5;type\n"
+        + "\"Text\";rendered\n\"events\";section\nEINHEIT 11\n\"U\";Name\n1;Partei\n1;Anzahl\n"
+        + "\"Menschen\";Typ\n14;folgt\nCOMMANDS\n\"ARBEITE\"\n"
+        // a unit of an unknown faction, a ship and a scheme
+        + "REGION 1 0\n\"Ebene\";Terrain\nSCHIFF 21\n\"Boot\";Typ\n12;Kapitaen\n"
+        + "EINHEIT 12\n\"V\";Name\n2;Partei\n1;Anzahl\n\"Menschen\";Typ\n21;Schiff\n"
+        + "SCHEMEN 3 0\n\"S\";name\n"
+        // the same region again
+        + "REGION 0 0\n\"Ebene\";Terrain\n\"R2\";Name\n"
+        // the followed unit
+        + "REGION 2 0\n\"Ebene\";Terrain\nEINHEIT 14\n1;Partei\n1;Anzahl\n\"Menschen\";Typ\n"
+        // a unit with an unknown race and an unknown block
+        + "REGION 4 0\n\"Ebene\";Terrain\nEINHEIT 15\n1;Partei\n1;Anzahl\n\"Xyz\";Typ\n"
+        + "FOO\n1;bar\n"
+        // the region of the scheme
+        + "REGION 3 0\n\"Berg\";Terrain\n"
+        + "MESSAGETYPE 5\n\"Text\";text\n\"other\";section\n";
+
+    String sequential = write(read(report, false));
+    String parallel = write(read(report, true));
+    assertTrue(sequential.contains("EINHEIT 14"));
+    assertEquals(sequential, parallel);
+  }
+
+  private GameData read(String report, boolean parallel) throws IOException {
+    GameDataReader reader = new GameDataReader(null);
+    CRParser parser = new CRParser(null);
+    parser.setParallel(parallel);
+    return parser.read(new StringReader(report), reader.createGameData("eressea"));
+  }
+
+  private String write(GameData data) throws IOException {
+    StringWriter out = new StringWriter();
+    CRWriter writer = new CRWriter(data, null, out);
+    writer.writeSynchronously();
+    writer.close();
+    // the date of writing differs
+    return out.toString().replaceAll("\\d+;date", "");
+  }
+
+  private void assertSame(String msg, Scanner expected, Scanner actual) throws IOException {
+    do {
+      expected.getNextToken();
+      actual.getNextToken();
+      String line = msg + ":" + expected.lnr;
+      assertEquals(line, expected.argc, actual.argc);
+      assertEquals(line, expected.argv[0], actual.argv[0]);
+      assertEquals(line, expected.argv[1], actual.argv[1]);
+      assertEquals(line, expected.eof, actual.eof);
+      assertEquals(line, expected.isBlock, actual.isBlock);
+      assertEquals(line, expected.isIdBlock, actual.isIdBlock);
+      for (int i = 0; i < expected.argc; ++i) {
+        assertEquals(line, expected.isString[i], actual.isString[i]);
+      }
+      assertEquals(line, expected.lnr, actual.lnr);
+    } while (!expected.eof);
+  }
+
+  private static enum PTags {
+    SEQUENTIAL, PARALLEL
+  }
+
+  @Test
+  public void testProfile() throws IOException {
+    Assume.assumeTrue(MagellanTestUtil.isInternalTesting());
+    final int REPETITIONS = 20;
+    StringBuilder all = new StringBuilder();
+    for (File report : MagellanTestUtil.getReports()) {
+      all.append(new String(Files.readAllBytes(report.toPath()), StandardCharsets.ISO_8859_1));
+    }
+    for (int i = 0; i < 4; ++i) {
+      all.append(all);
+    }
+    String input = all.toString();
+
+    Profiler p = MagellanTestUtil.startProfile(PTags.values());
+    for (int i = 0; i < REPETITIONS; ++i) {
+      p.split();
+      Scanner sequential = new Scanner(new StringReader(input));
+      for (sequential.getNextToken(); !sequential.eof; sequential.getNextToken()) {
+        // just scan
+      }
+      p.log(PTags.SEQUENTIAL);
+      Scanner parallel = new BlockScanner(new StringReader(input));
+      for (parallel.getNextToken(); !parallel.eof; parallel.getNextToken()) {
+        // just scan
+      }
+      p.log(PTags.PARALLEL);
+    }
+    p.printTags();
+  }
+
+  /**
+   * Compares reading a generated report sequentially and in parallel.
+   */
+  @Test
+  public void testProfileRead() throws Exception {
+    Assume.assumeTrue(MagellanTestUtil.isInternalTesting());
+    final int REPETITIONS = 10;
+    GameDataBuilder builder = new GameDataBuilder();
+    GameData data = builder.createSimpleGameData();
+    for (int x = 0; x < 100; ++x) {
+      for (int y = 1; y < 100; ++y) {
+        Region region =
+            builder.addRegion(data, x + " " + y, "R" + x + "_" + y, "Ebene", x * 100 + y);
+        for (int u = 0; u < 3; ++u) {
+          builder.addUnit(data, "u" + u, region).addOrder("ARBEITE");
+        }
+      }
+    }
+    String report = write(data);
+
+    Profiler p = MagellanTestUtil.startProfile(PTags.values());
+    for (int i = 0; i < REPETITIONS; ++i) {
+      p.split();
+      read(report, false);
+      p.log(PTags.SEQUENTIAL);
+      read(report, true);
+      p.log(PTags.PARALLEL);
+    }
+    p.printTags();
+  }
+}
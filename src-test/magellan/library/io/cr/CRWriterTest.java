@@ -40,6 +40,7 @@ import magellan.library.CompleteData;
 import magellan.library.GameData;
 import magellan.library.IntegerID;
 import magellan.library.Message;
+import magellan.library.Region;
 import magellan.library.Rules;
 import magellan.library.Unit;
 import magellan.library.impl.MagellanMessageImpl;
@@ -163,4 +164,31 @@ public class CRWriterTest {
     assertEquals(order, unit2.getOrders2().get(1).toString());
   }
 
+  @Test
+  public void testWriteParallel() throws IOException {
+    for (int x = 0; x < 12; ++x) {
+      for (int y = 1; y < 12; ++y) {
+        Region region = builder.addRegion(data, x + " " + y, "R" + x + y, "Ebene", x * 12 + y);
+        for (int u = 0; u < x % 3; ++u) {
+          Unit unit = builder.addUnit(data, "u" + x + y + u, region);
+          unit.addOrder("ARBEITE");
+        }
+        if (y % 5 == 0) {
+          builder.addShip(data, region, "s" + x + y, "Boot", "Boot", 5);
+        }
+      }
+    }
+
+    setupWriter();
+    writer.doWrite();
+    writer.close();
+    String sequential = strWriter.toString().replaceAll("\\d+;date", "");
+
+    setupWriter();
+    writer.setParallel(true);
+    writer.doWrite();
+    writer.close();
+    assertEquals(sequential, strWriter.toString().replaceAll("\\d+;date", ""));
+  }
+
 }
@@ -0,0 +1,197 @@
+// class magellan.library.io.cr.LineScanner
+// created on Oct 18, 2026
+//
+// Copyright 2003-2026 by magellan project team
+//
+// Author : $Author: $
+// $Id: $
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program (see doc/LICENCE.txt); if not, write to the
+// Free Software Foundation, Inc.,
+// 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+package magellan.library.io.cr;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+
+import magellan.library.utils.StringFactory;
+import magellan.library.utils.Umlaut;
+import magellan.library.utils.logging.Logger;
+
+/**
+ * The line based implementation of {@link Scanner} that was used before the scanner worked on its
+ * own character buffer. Used as reference for the results and the speed of {@link Scanner}.
+ */
+public class LineScanner {
+  private static final Logger log = Logger.getInstance(LineScanner.class);
+  private BufferedReader stream;
+
+  /** number of tokens */
+  public int argc;
+
+  /** the tokens */
+  public String argv[];
+
+  /** Is it a string? (enclosed in "") */
+  public boolean isString[];
+
+  /** end of file reached? */
+  public boolean eof;
+
+  /** current line number */
+  public int lnr;
+
+  /** Is this a begin of block token? */
+  public boolean isBlock;
+
+  /** Is this a block with Id? */
+  public boolean isIdBlock;
+
+  /**
+   * Creates a new LineScanner object.
+   * 
+   * @param in The Reader used for reading input
+   * @throws IOException Never thrown
+   */
+  public LineScanner(Reader in) throws IOException {
+    stream = new BufferedReader(in);
+    argv = new String[2];
+    isString = new boolean[2];
+    lnr = 0;
+    eof = false;
+  }
+
+  /**
+   * Parses until the next token, skipping empty lines.
+   * 
+   * @throws IOException If an I/O error occurs
+   */
+  public void getNextToken() throws IOException {
+    String line;
+    char buf[];
+    int len;
+    int i;
+    int start;
+
+    argv[0] = null;
+    argv[1] = null;
+    argc = 0;
+    isBlock = false;
+    isIdBlock = false;
+    lnr++;
+    line = stream.readLine();
+    if (line == null) {
+      eof = true;
+      stream.close();
+
+      return;
+    }
+
+    len = line.length();
+
+    // skip empty lines
+    if (line.length() == 0) {
+      getNextToken();
+
+      return;
+    }
+    buf = line.toCharArray();
+
+    if (('A' <= buf[0]) && (buf[0] <= 'Z')) {
+      isBlock = true;
+
+      if (line.indexOf(' ') >= 0) {
+        isIdBlock = true;
+      }
+    }
+
+    i = 0;
+
+    while ((i < len) && (buf[i] != '\r') && (buf[i] != '\n')) {
+      if (argc > 1)
+        throw new IOException("Scanner.getNextToken(): invalid token format in line " + lnr);
+
+      if (buf[i] == '"') {
+        // quoted string, all until the last '"' is the string content; escaped quotes are replaced
+        i++; // skip start "
+        if (line.lastIndexOf('"') != -1) {
+          int lastQuote = line.lastIndexOf('"');
+          if (lastQuote < i) {
+            // TODO throw IOException?
+            LineScanner.log.warn("Error parsing line " + lnr + ": " + line);
+            break;
+          }
+
+          String str = line.substring(i, lastQuote);
+          if (str.contains("\\")) {
+            if (str.matches(".*[^\\\\][\\\\][^\\\\\"].*")) {
+              LineScanner.log.warn("Wrong escape in line " + lnr + ": " + line);
+            }
+            str = Umlaut.replace(str, "\\\"", "\"");
+            str = Umlaut.replace(str, "\\\\", "\\");
+          }
+          argv[argc] = StringFactory.getFactory().intern(str);
+          i = lastQuote;
+        } else {
+          // old code: May be better but we wont use it
+          char outbuf[] = new char[len];
+          int outPtr = 0;
+          start = i; // marker for begin of string
+
+          while (i < len) {
+            if (buf[i] == '"') {
+              if (buf[i - 1] == '\\') { // escaped quotation mark
+                outbuf[outPtr - 1] = '"';
+                i++;
+              } else { // unescaped quotation mark, stop reading
+
+                break;
+              }
+            } else if ((buf[i] != '\r') && (buf[i] != '\n')) {
+              outbuf[outPtr++] = buf[i++];
+            }
+          }
+
+          if (i == len) {
+            LineScanner.log.warn("Missing \" in line " + lnr);
+          }
+
+          // pavkovic 2003.07.02: use String.intern() method to reduce memory consumption
+          argv[argc] = StringFactory.getFactory().intern(new String(outbuf, 0, outPtr));
+        }
+        isString[argc] = true;
+        argc++;
+        i++; // skip "
+      } else {
+        // normal token
+        start = i;
+
+        while ((i < len) && (buf[i] != ';') && (buf[i] != '\r') && (buf[i] != '\n')) {
+          i++;
+        }
+
+        // pavkovic 2003.07.02: use String.intern() method to reduce memory consumption
+        argv[argc] = StringFactory.getFactory().intern(line.substring(start, i));
+        isString[argc] = false;
+        argc++;
+      }
+
+      if ((i < len) && (buf[i] == ';')) {
+        i++; /* skip ; */
+      }
+    }
+  }
+}
@@ -28,14 +28,25 @@ import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.io.StringReader;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 
+import org.junit.Assume;
 import org.junit.Before;
 import org.junit.Test;
 
+import magellan.library.utils.Profiler;
 import magellan.library.utils.logging.LogListener;
 import magellan.library.utils.logging.Logger;
+import magellan.test.MagellanTestUtil;
 
 /**
  * Tests for {@link Scanner}.
@@ -281,6 +292,135 @@ public class ScannerTest {
     assertLog("Wrong escape in line 1: \"a\\bc\"");
   }
 
+  @Test
+  public void testLineBreaks() throws IOException {
+    Scanner sc = getScanner("BLOCK\r\n1;a\r\r\"x\";b\n\r\nBLUCK");
+    sc.getNextToken();
+    assertState(sc, new ScannerState().setArgc(1).setArgv0("BLOCK").setBlock(true));
+    sc.getNextToken();
+    assertState(sc, new ScannerState().setArgc(2).setArgv0("1").setArgv1("a").setLine(2));
+    sc.getNextToken();
+    assertState(sc, new ScannerState().setArgc(2).setArgv0("x").setArgv1("b").setString0(true).setLine(4));
+    sc.getNextToken();
+    assertState(sc, new ScannerState().setArgc(1).setArgv0("BLUCK").setBlock(true).setLine(6));
+    sc.getNextToken();
+    assertState(sc, new ScannerState().setLine(7).setEof(true));
+  }
+
+  @Test
+  public void testLongLine() throws IOException {
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < 100000; ++i) {
+      text.append((char) ('a' + i % 26));
+    }
+    Scanner sc = getScanner("1;a\n\"" + text + "\";b\n2;c");
+    sc.getNextToken();
+    sc.getNextToken();
+    assertState(sc, new ScannerState().setArgc(2).setArgv0(text.toString()).setArgv1("b").setString0(true)
+        .setLine(2));
+    sc.getNextToken();
+    assertState(sc, new ScannerState().setArgc(2).setArgv0("2").setArgv1("c").setLine(3));
+  }
+
+  @Test
+  public void testTokensShared() throws IOException {
+    Scanner sc = getScanner("\"Hodor\";name\n\"Hodor\";name");
+    sc.getNextToken();
+    String name = sc.argv[0];
+    String tag = sc.argv[1];
+    sc.getNextToken();
+    assertTrue(name == sc.argv[0]);
+    assertTrue(tag == sc.argv[1]);
+  }
+
+  @Test
+  public void testChannel() throws IOException {
+    String input = "VERSION 66\n\"\u00c4rger \\\"\u00df\\\"\";name\n";
+    for (Charset charset : new Charset[] { StandardCharsets.ISO_8859_1, StandardCharsets.UTF_8 }) {
+      Scanner sc = new Scanner(Channels.newChannel(new ByteArrayInputStream(input.getBytes(charset))), charset);
+      sc.getNextToken();
+      assertState(sc, new ScannerState().setArgc(1).setArgv0("VERSION 66").setIdBlock(true));
+      sc.getNextToken();
+      assertState(sc, new ScannerState().setArgc(2).setArgv0("\u00c4rger \"\u00df\"").setArgv1("name").setString0(
+          true).setLine(2));
+      sc.getNextToken();
+      assertState(sc, new ScannerState().setString0(true).setLine(3).setEof(true));
+    }
+  }
+
+  /**
+   * Compares the tokens of all test reports with the tokens of the line based scanner.
+   */
+  @Test
+  public void testReports() throws IOException {
+    for (File report : MagellanTestUtil.getReports()) {
+      LineScanner expected = new LineScanner(new InputStreamReader(new FileInputStream(report),
+          StandardCharsets.ISO_8859_1));
+      Scanner actual = getScanner(new String(Files.readAllBytes(report.toPath()), StandardCharsets.ISO_8859_1));
+      Scanner channel = new Scanner(Files.newByteChannel(report.toPath()), StandardCharsets.ISO_8859_1);
+      do {
+        expected.getNextToken();
+        actual.getNextToken();
+        channel.getNextToken();
+        assertSame(report, expected, actual);
+        assertSame(report, expected, channel);
+      } while (!expected.eof);
+    }
+  }
+
+  private void assertSame(File report, LineScanner expected, Scanner actual) {
+    String msg = report.getName() + ":" + expected.lnr;
+    assertEquals(msg, expected.argc, actual.argc);
+    assertEquals(msg, expected.argv[0], actual.argv[0]);
+    assertEquals(msg, expected.argv[1], actual.argv[1]);
+    assertEquals(msg, expected.eof, actual.eof);
+    assertEquals(msg, expected.isBlock, actual.isBlock);
+    assertEquals(msg, expected.isIdBlock, actual.isIdBlock);
+    for (int i = 0; i < expected.argc; ++i) {
+      assertEquals(msg, expected.isString[i], actual.isString[i]);
+    }
+    assertEquals(msg, expected.lnr, actual.lnr);
+  }
+
+  private static enum PTags {
+    LINE, BUFFER, CHANNEL
+  }
+
+  @Test
+  public void testProfile() throws IOException {
+    Assume.assumeTrue(MagellanTestUtil.isInternalTesting());
+    final int REPETITIONS = 200;
+    StringBuilder all = new StringBuilder();
+    for (File report : MagellanTestUtil.getReports()) {
+      all.append(new String(Files.readAllBytes(report.toPath()), StandardCharsets.ISO_8859_1));
+    }
+    String input = all.toString();
+    byte[] bytes = input.getBytes(StandardCharsets.ISO_8859_1);
+    long tokens = 0;
+
+    Profiler p = MagellanTestUtil.startProfile(PTags.values());
+    for (int i = 0; i < REPETITIONS; ++i) {
+      p.split();
+      LineScanner line = new LineScanner(new StringReader(input));
+      for (line.getNextToken(); !line.eof; line.getNextToken()) {
+        tokens += line.argc;
+      }
+      p.log(PTags.LINE);
+      Scanner buffer = getScanner(input);
+      for (buffer.getNextToken(); !buffer.eof; buffer.getNextToken()) {
+        // just scan
+      }
+      p.log(PTags.BUFFER);
+      Scanner channel = new Scanner(Channels.newChannel(new ByteArrayInputStream(bytes)), StandardCharsets.ISO_8859_1);
+      for (channel.getNextToken(); !channel.eof; channel.getNextToken()) {
+        // just scan
+      }
+      p.log(PTags.CHANNEL);
+    }
+    p.printTags();
+    System.err.println(tokens + " tokens");
+  }
+
   private void assertState(Scanner sc, ScannerState state) {
     assertEquals(state.argc, sc.argc);
     assertEquals(state.argv[0], sc.argv[0]);
@@ -0,0 +1,345 @@
+// class magellan.library.io.file.CompressedFileTypeTest
+// created on Oct 18, 2026
+//
+// Copyright 2003-2026 by magellan project team
+//
+// Author : $Author: $
+// $Id: $
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program (see doc/LICENCE.txt); if not, write to the
+// Free Software Foundation, Inc.,
+// 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+package magellan.library.io.file;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.tools.bzip2.CBZip2OutputStream;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import magellan.library.GameData;
+import magellan.library.Region;
+import magellan.library.io.GameDataReader;
+import magellan.library.io.cr.CRWriter;
+import magellan.library.utils.Profiler;
+import magellan.test.GameDataBuilder;
+import magellan.test.MagellanTestUtil;
+import magellan.test.MagellanTestWithResources;
+
+/**
+ * Tests reading and writing compressed reports, {@link ReadAheadInputStream} and
+ * {@link BlockCompressorOutputStream}.
+ */
+public class CompressedFileTypeTest extends MagellanTestWithResources {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private byte[] report;
+
+  @Before
+  public void setUp() throws Exception {
+    report = createReport(20);
+  }
+
+  private byte[] createReport(int size) throws Exception {
+    GameDataBuilder builder = new GameDataBuilder();
+    GameData data = builder.createSimpleGameData();
+    for (int x = 1; x <= size; ++x) {
+      for (int y = 1; y <= size; ++y) {
+        Region r = builder.addRegion(data, x + " " + y, "R" + x + "_" + y, "Ebene", x * size + y);
+        for (int i = 0; i < 3; ++i) {
+          builder.addUnit(data, "U" + i, r).setOrders(Arrays.asList("ARBEITE", "// " + x));
+        }
+      }
+    }
+    StringWriter out = new StringWriter();
+    CRWriter writer = new CRWriter(data, null, out);
+    writer.writeSynchronously();
+    writer.close();
+    return out.toString().getBytes(FileType.DEFAULT_ENCODING.toString());
+  }
+
+  private File write(String name) throws IOException {
+    File file = new File(folder.getRoot(), name);
+    OutputStream out = new FileOutputStream(file);
+    if (name.endsWith(FileType.GZIP)) {
+      out = new GZIPOutputStream(out);
+    } else if (name.endsWith(FileType.BZIP2)) {
+      out.write('B');
+      out.write('Z');
+      out = new CBZip2OutputStream(out);
+    } else if (name.endsWith(FileType.ZIP)) {
+      ZipOutputStream zos = new ZipOutputStream(out);
+      zos.putNextEntry(new ZipEntry("report.cr"));
+      out = zos;
+    }
+    out.write(report);
+    out.close();
+    return file;
+  }
+
+  private String read(File file) throws IOException {
+    Reader reader = FileTypeFactory.singleton().createFileType(file, true).createReader();
+    StringBuilder result = new StringBuilder();
+    char[] buffer = new char[1000];
+    for (int n = reader.read(buffer); n >= 0; n = reader.read(buffer)) {
+      result.append(buffer, 0, n);
+    }
+    reader.close();
+    return result.toString();
+  }
+
+  /**
+   * Tests that all file types return the same content.
+   */
+  @Test
+  public void testRead() throws Exception {
+    String expected = read(write("report.cr"));
+    assertTrue(expected.startsWith("VERSION"));
+    assertEquals(expected, read(write("report.cr.gz")));
+    assertEquals(expected, read(write("report.cr.bz2")));
+    assertEquals(expected, read(write("report.zip")));
+  }
+
+  /**
+   * Tests that the zip stream reads blocks.
+   */
+  @Test
+  public void testZipBlocks() throws Exception {
+    File file = write("report.zip");
+    InputStream in = FileTypeFactory.singleton().createFileType(file, true).createInputStream();
+    byte[] buffer = new byte[report.length + 10];
+    int length = 0;
+    for (int n = in.read(buffer); n >= 0; n = in.read(buffer, length, buffer.length - length)) {
+      length += n;
+    }
+    in.close();
+    assertEquals(report.length, length);
+    assertEquals(Arrays.toString(report), Arrays.toString(Arrays.copyOf(buffer, length)));
+  }
+
+  /**
+   * Tests reading, skipping and closing a ReadAheadInputStream.
+   */
+  @Test
+  public void testReadAhead() throws Exception {
+    InputStream in = new ReadAheadInputStream(new ByteArrayInputStream(report), "test", 100, 2);
+    assertEquals(report[0], in.read());
+    assertEquals(99, in.skip(1000));
+    byte[] buffer = new byte[report.length];
+    int length = 100;
+    for (int n = in.read(buffer, length, buffer.length - length); n > 0; n =
+        in.read(buffer, length, buffer.length - length)) {
+      length += n;
+    }
+    assertEquals(report.length, length);
+    assertEquals(-1, in.read());
+    in.close();
+    assertEquals(report[report.length - 1], buffer[report.length - 1]);
+
+    in = new ReadAheadInputStream(new ByteArrayInputStream(report), "test", 100, 2);
+    in.read();
+    in.close();
+    try {
+      in.read();
+      fail("stream closed");
+    } catch (IOException e) {
+      // expected
+    }
+  }
+
+  /**
+   * Tests that an error of the source is thrown by the reading thread.
+   */
+  @Test
+  public void testReadAheadError() throws Exception {
+    InputStream source = new InputStream() {
+      int count = 0;
+
+      @Override
+      public int read() throws IOException {
+        if (++count > 150)
+          throw new IOException("broken");
+        return 'a';
+      }
+    };
+    InputStream in = new ReadAheadInputStream(source, "test", 100, 2);
+    try {
+      while (in.read() >= 0) {
+        // read until error
+      }
+      fail("error expected");
+    } catch (IOException e) {
+      assertEquals("broken", e.getMessage());
+    }
+    in.close();
+  }
+
+  private File write(String name, int threads) throws IOException {
+    File file = new File(folder.getRoot(), name);
+    FileType type = FileTypeFactory.singleton().createFileType(file, false);
+    type.setCreateBackup(false);
+    type.setCompressionThreads(threads);
+    Writer writer = type.createWriter(FileType.DEFAULT_ENCODING.toString());
+    writer.write(new String(report, FileType.DEFAULT_ENCODING.toString()));
+    writer.close();
+    return file;
+  }
+
+  /**
+   * Tests that compressed files written with and without compression threads can be read.
+   */
+  @Test
+  public void testWrite() throws Exception {
+    String expected = read(write("report.cr"));
+    for (int threads = 0; threads < 3; ++threads) {
+      assertEquals(expected, read(write("report" + threads + ".cr.gz", threads)));
+      assertEquals(expected, read(write("report" + threads + ".cr.bz2", threads)));
+    }
+  }
+
+  /**
+   * Tests that many small gzip members are written in the right order.
+   */
+  @Test
+  public void testGZipBlocks() throws Exception {
+    File file = new File(folder.getRoot(), "blocks.gz");
+    OutputStream out =
+        new BlockCompressorOutputStream.GZip(new FileOutputStream(file), "test", 3, 1000);
+    out.write(report, 0, 10);
+    out.write(report[10]);
+    out.write(report, 11, report.length - 11);
+    out.flush();
+    out.close();
+    out.close();
+
+    InputStream in = new GZIPInputStream(new FileInputStream(file));
+    byte[] buffer = new byte[report.length + 10];
+    int length = 0;
+    for (int n = in.read(buffer); n >= 0; n = in.read(buffer, length, buffer.length - length)) {
+      length += n;
+    }
+    in.close();
+    assertEquals(report.length, length);
+    assertEquals(Arrays.toString(report), Arrays.toString(Arrays.copyOf(buffer, length)));
+    try {
+      out.write(1);
+      fail("stream closed");
+    } catch (IOException e) {
+      // expected
+    }
+  }
+
+  /**
+   * Tests that an error of a worker is thrown by the writing thread.
+   */
+  @Test
+  public void testCompressError() throws Exception {
+    OutputStream out =
+        new BlockCompressorOutputStream(new ByteArrayOutputStream(), "test", 2, 100) {
+          @Override
+          protected byte[] compress(byte[] data, int length) throws IOException {
+            throw new IOException("broken");
+          }
+        };
+    try {
+      out.write(report);
+      out.close();
+      fail("error expected");
+    } catch (IOException e) {
+      assertEquals("broken", e.getMessage());
+    }
+  }
+
+  private static enum PTags {
+    PLAIN, GZ, BZ2, ZIP
+  }
+
+  private static enum WTags {
+    GZ, GZ_THREADS, BZ2, BZ2_THREADS
+  }
+
+  /**
+   * Compares writing gz and bz2 files with and without compression threads.
+   */
+  @Test
+  public void testWriteProfile() throws Exception {
+    Assume.assumeTrue(MagellanTestUtil.isInternalTesting());
+    final int REPETITIONS = 3;
+    report = createReport(40);
+
+    Profiler p = MagellanTestUtil.startProfile(WTags.values());
+    for (int i = 0; i < REPETITIONS; ++i) {
+      p.split();
+      write("report.cr.gz", 0);
+      p.log(WTags.GZ);
+      write("report.cr.gz", FileType.DEFAULT_COMPRESSION_THREADS);
+      p.log(WTags.GZ_THREADS);
+      write("report.cr.bz2", 0);
+      p.log(WTags.BZ2);
+      write("report.cr.bz2", FileType.DEFAULT_COMPRESSION_THREADS);
+      p.log(WTags.BZ2_THREADS);
+    }
+    p.printTags();
+  }
+
+  /**
+   * Compares loading the same report from plain, gz, bz2 and zip files.
+   */
+  @Test
+  public void testProfile() throws Exception {
+    Assume.assumeTrue(MagellanTestUtil.isInternalTesting());
+    final int REPETITIONS = 3;
+    report = createReport(40);
+    File[] files = new File[] { write("report.cr"), write("report.cr.gz"), write("report.cr.bz2"),
+        write("report.zip") };
+
+    Profiler p = MagellanTestUtil.startProfile(PTags.values());
+    for (int i = 0; i < REPETITIONS; ++i) {
+      for (int j = 0; j < files.length; ++j) {
+        p.split();
+        GameData data =
+            new GameDataReader(null).readGameData(FileTypeFactory.singleton().createFileType(
+                files[j], true));
+        p.log(PTags.values()[j]);
+        assertEquals(40 * 40 * 3 + 1, data.getUnits().size());
+      }
+    }
+    p.printTags();
+  }
+}
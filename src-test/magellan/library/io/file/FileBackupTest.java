@@ -0,0 +1,218 @@
+// class magellan.library.io.file.FileBackupTest
+// created on Oct 18, 2026
+//
+// Copyright 2003-2026 by magellan project team
+//
+// Author : $Author: $
+// $Id: $
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program (see doc/LICENCE.txt); if not, write to the
+// Free Software Foundation, Inc.,
+// 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+package magellan.library.io.file;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Arrays;
+import java.util.Set;
+
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import magellan.library.io.file.FileBackup.Mode;
+import magellan.library.utils.Profiler;
+import magellan.test.MagellanTestUtil;
+import magellan.test.MagellanTestWithResources;
+
+/**
+ * Tests for {@link FileBackup}.
+ */
+public class FileBackupTest extends MagellanTestWithResources {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private File write(File file, String content) throws IOException {
+    Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    return file;
+  }
+
+  private String read(File file) throws IOException {
+    return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Tests that copies are numbered and obsolete revisions are removed.
+   */
+  @Test
+  public void testCopy() throws Exception {
+    File dir = folder.getRoot();
+    File file = new File(dir, "report.cr");
+    for (int i = 1; i <= 4; ++i) {
+      write(file, "v" + i);
+      File backup = FileBackup.create(file, dir, 2, Mode.COPY);
+      assertEquals(new File(dir, "report.cr~" + i + "~"), backup);
+      assertEquals("v" + i, read(backup));
+      assertEquals("v" + i, read(file));
+    }
+    FileBackup.waitForBackground();
+    assertFalse(new File(dir, "report.cr~1~").exists());
+    assertFalse(new File(dir, "report.cr~2~").exists());
+    assertTrue(new File(dir, "report.cr~3~").exists());
+    assertEquals("4", read(new File(dir, "report.cr~index~")));
+  }
+
+  /**
+   * Tests that the file is renamed in mode MOVE.
+   */
+  @Test
+  public void testMove() throws Exception {
+    File dir = folder.getRoot();
+    File file = write(new File(dir, "report.cr"), "v1");
+    File backup = FileBackup.create(file, dir, 2, Mode.MOVE);
+    assertFalse(file.exists());
+    assertEquals("v1", read(backup));
+  }
+
+  /**
+   * Tests that a symbolic link is copied instead of moved, so that the link is kept.
+   */
+  @Test
+  public void testMoveSymbolicLink() throws Exception {
+    File dir = folder.getRoot();
+    File real = write(folder.newFile("real.cr"), "v1");
+    File file = new File(dir, "report.cr");
+    try {
+      Files.createSymbolicLink(file.toPath(), real.toPath());
+    } catch (UnsupportedOperationException | IOException e) {
+      Assume.assumeNoException(e);
+    }
+    File backup = FileBackup.create(file, dir, 2, Mode.MOVE);
+    assertTrue(Files.isSymbolicLink(file.toPath()));
+    assertEquals("v1", read(backup));
+  }
+
+  /**
+   * Tests that a file with other permissions than a new file is copied instead of moved.
+   */
+  @Test
+  public void testMovePermissions() throws Exception {
+    File dir = folder.getRoot();
+    File file = write(new File(dir, "report.cr"), "v1");
+    Assume.assumeTrue(Files.getFileAttributeView(file.toPath(),
+        PosixFileAttributeView.class) != null);
+    Set<PosixFilePermission> permissions = PosixFilePermissions.fromString("rw-------");
+    Assume.assumeFalse(permissions.equals(Files.getPosixFilePermissions(file.toPath())));
+    Files.setPosixFilePermissions(file.toPath(), permissions);
+
+    File backup = FileBackup.create(file, dir, 2, Mode.MOVE);
+    assertTrue(file.exists());
+    assertEquals("v1", read(backup));
+    // no probe file is left behind
+    for (String name : dir.list()) {
+      assertFalse(name, name.endsWith(".tmp"));
+    }
+  }
+
+  /**
+   * Tests that a moved backup ends up in another directory.
+   */
+  @Test
+  public void testMoveOtherDirectory() throws Exception {
+    File file = write(folder.newFile("report.cr"), "v1");
+    File dir = new File(folder.getRoot(), "backups");
+    File backup = FileBackup.create(file, dir, 2, Mode.MOVE);
+    FileBackup.waitForBackground();
+    assertFalse(file.exists());
+    assertEquals(dir, backup.getParentFile());
+    assertEquals("v1", read(backup));
+    // no temporary file is left behind
+    assertEquals(Arrays.asList("backups"), Arrays.asList(folder.getRoot().list()));
+  }
+
+  /**
+   * Tests that revisions are found without index and with an outdated index.
+   */
+  @Test
+  public void testIndex() throws Exception {
+    File dir = folder.getRoot();
+    File file = write(new File(dir, "report.cr"), "v");
+    write(new File(dir, "report.cr~7~"), "v7");
+    assertEquals("report.cr~8~", FileBackup.create(file, dir, 0, Mode.COPY).getName());
+    assertEquals("8", read(new File(dir, "report.cr~index~")));
+
+    write(new File(dir, "report.cr~index~"), "3");
+    assertEquals("report.cr~9~", FileBackup.create(file, dir, 0, Mode.COPY).getName());
+
+    write(new File(dir, "report.cr~index~"), "x");
+    assertEquals("report.cr~10~", FileBackup.create(file, dir, 0, Mode.COPY).getName());
+    assertTrue(new File(dir, "report.cr~7~").exists());
+  }
+
+  /**
+   * Tests that writing a file type keeps the old content in the backup.
+   */
+  @Test
+  public void testFileType() throws Exception {
+    File file = write(new File(folder.getRoot(), "report.cr"), "old");
+    FileType type = FileTypeFactory.singleton().createFileType(file, false);
+    Writer writer = type.createWriter("UTF-8", 2);
+    writer.write("new");
+    writer.close();
+    assertEquals("new", read(file));
+    assertEquals("old", read(new File(folder.getRoot(), "report.cr~1~")));
+  }
+
+  private static enum PTags {
+    COPY, MOVE
+  }
+
+  /**
+   * Compares copying and moving backups of a big file.
+   */
+  @Test
+  public void testProfile() throws Exception {
+    Assume.assumeTrue(MagellanTestUtil.isInternalTesting());
+    final int REPETITIONS = 5;
+    File dir = folder.getRoot();
+    File file = new File(dir, "report.cr");
+    byte[] content = new byte[20 * 1024 * 1024];
+    Arrays.fill(content, (byte) 'a');
+
+    Profiler p = MagellanTestUtil.startProfile(PTags.values());
+    for (int i = 0; i < REPETITIONS; ++i) {
+      Files.write(file.toPath(), content);
+      p.split();
+      FileBackup.create(file, dir, 2, Mode.COPY);
+      p.log(PTags.COPY);
+      FileBackup.create(file, dir, 2, Mode.MOVE);
+      p.log(PTags.MOVE);
+    }
+    FileBackup.waitForBackground();
+    p.printTags();
+  }
+}
@@ -0,0 +1,201 @@
+// class magellan.library.utils.DistanceOracleTest
+// created on Oct 18, 2026
+//
+// Copyright 2003-2026 by magellan project team
+//
+// Author : $Author: $
+// $Id: $
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program (see doc/LICENCE.txt); if not, write to the
+// Free Software Foundation, Inc.,
+// 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+package magellan.library.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import magellan.library.CoordinateID;
+import magellan.library.GameData;
+import magellan.library.ID;
+import magellan.library.Region;
+import magellan.library.rules.BuildingType;
+import magellan.library.rules.RegionType;
+import magellan.library.utils.DistanceOracle.Graph;
+import magellan.library.utils.Regions.MultidimensionalMetric;
+import magellan.library.utils.Regions.ShipMetric;
+import magellan.library.utils.Regions.UnitMetric;
+import magellan.test.GameDataBuilder;
+import magellan.test.MagellanTestWithResources;
+
+/**
+ * Tests for {@link DistanceOracle}.
+ */
+public class DistanceOracleTest extends MagellanTestWithResources {
+
+  private static final String[] TYPES = { "Ozean", "Ozean", "Ebene", "Berge", "Wald", "Gletscher" };
+
+  private GameData data;
+  private List<Region> regions;
+
+  private void createWorld(Random random, int side) throws Exception {
+    GameDataBuilder builder = new GameDataBuilder();
+    data = builder.createSimplestGameData();
+    for (int x = 0; x < side; ++x) {
+      for (int y = 0; y < side; ++y) {
+        if ((x != 0 || y != 0) && random.nextInt(6) > 0) {
+          builder.addRegion(data, x + " " + y, null, TYPES[random.nextInt(TYPES.length)], -1);
+        }
+      }
+    }
+    regions = new ArrayList<Region>(data.getRegions());
+  }
+
+  /**
+   * Returns the number of steps from start to all reachable regions in the graph.
+   */
+  private Map<CoordinateID, Integer> bfs(Region start, Graph graph) {
+    Map<CoordinateID, Integer> result = new HashMap<CoordinateID, Integer>();
+    Deque<Region> queue = new ArrayDeque<Region>();
+    result.put(start.getID(), 0);
+    queue.add(start);
+    while (!queue.isEmpty()) {
+      Region r = queue.poll();
+      for (Region n : r.getNeighbors().values()) {
+        if (!result.containsKey(n.getID())
+            && (graph == Graph.ALL || r.getRegionType().isOcean() || n.getRegionType().isOcean())) {
+          result.put(n.getID(), result.get(r.getID()) + 1);
+          queue.add(n);
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Checks that the bounds never exceed the number of steps and that unreachable regions are
+   * recognized.
+   */
+  @Test
+  public void testLowerBounds() throws Exception {
+    Random random = new Random(42);
+    createWorld(random, 20);
+    DistanceOracle oracle = new DistanceOracle(data, DistanceOracle.LANDMARKS);
+    for (Graph graph : Graph.values()) {
+      for (int i = 0; i < 30; ++i) {
+        Region start = regions.get(random.nextInt(regions.size()));
+        Map<CoordinateID, Integer> steps = bfs(start, graph);
+        for (Region r : regions) {
+          Integer expected = steps.get(r.getID());
+          if (expected != null) {
+            assertTrue(graph + ": " + start + "->" + r, oracle.getLowerBound(graph, start.getID(), r
+                .getID()) <= expected);
+            assertTrue(oracle.isConnected(graph, start.getID(), r.getID()));
+          } else {
+            assertFalse(oracle.isConnected(graph, start.getID(), r.getID()));
+          }
+        }
+      }
+    }
+    CoordinateID unknown = CoordinateID.create(-5, -5);
+    assertEquals(0, oracle.getLowerBound(Graph.ALL, regions.get(0).getID(), unknown));
+    assertTrue(oracle.isConnected(Graph.ALL, regions.get(0).getID(), unknown));
+  }
+
+  /**
+   * Checks that path searches find the same distances with and without oracle.
+   */
+  @Test
+  public void testSameDistances() throws Exception {
+    Random random = new Random(43);
+    createWorld(random, 15);
+    RegionType glacier = data.getRules().getRegionType("Gletscher");
+    Map<ID, RegionType> excluded = new HashMap<ID, RegionType>();
+    excluded.put(glacier.getID(), glacier);
+
+    Map<CoordinateID, Region> regionMap = new HashMap<CoordinateID, Region>();
+    for (Region r : regions) {
+      regionMap.put(r.getID(), r);
+    }
+
+    List<CoordinateID[]> queries = new ArrayList<CoordinateID[]>();
+    for (int i = 0; i < 40; ++i) {
+      queries.add(new CoordinateID[] { regions.get(random.nextInt(regions.size())).getID(),
+          regions.get(random.nextInt(regions.size())).getID() });
+    }
+    int[][] results = new int[2][queries.size() * 2];
+    for (int pass = 0; pass < 2; ++pass) {
+      if (pass == 1) {
+        data.setDistanceOracleEnabled(true);
+        waitForOracle();
+      }
+      int q = 0;
+      for (CoordinateID[] query : queries) {
+        for (int kind = 0; kind < 2; ++kind) {
+          MultidimensionalMetric metric =
+              kind == 0 ? new UnitMetric(regionMap, excluded, query[0], query[1])
+                  : new ShipMetric(regionMap, query[0], query[1], excluded, Collections
+                      .<BuildingType> emptySet(), 3, Direction.INVALID);
+          Regions.getDistances(regionMap, query[0], query[1], Integer.MAX_VALUE, metric);
+          results[pass][q++] = metric.get(query[1]).getDistance();
+        }
+      }
+    }
+    for (int q = 0; q < results[0].length; ++q) {
+      assertEquals(queries.get(q / 2)[0] + "->" + queries.get(q / 2)[1], results[0][q],
+          results[1][q]);
+    }
+  }
+
+  /**
+   * Checks that adding regions discards the oracle and that it is built again after the report has
+   * been processed.
+   */
+  @Test
+  public void testRebuild() throws Exception {
+    createWorld(new Random(44), 5);
+    data.setDistanceOracleEnabled(true);
+    waitForOracle();
+    new GameDataBuilder().addRegion(data, "10 10", null, "Ebene", -1);
+    assertNull(data.getDistanceOracle());
+    new GameDataBuilder().addRegion(data, "10 11", null, "Ebene", -1);
+    assertNull(data.getDistanceOracle());
+    data.postProcess();
+    waitForOracle();
+    assertTrue(data.getDistanceOracle().isConnected(Graph.ALL, CoordinateID.create(10, 10),
+        CoordinateID.create(10, 11)));
+    assertFalse(data.getDistanceOracle().isConnected(Graph.ALL, CoordinateID.create(10, 10),
+        CoordinateID.create(0, 0)));
+  }
+
+  private void waitForOracle() throws InterruptedException {
+    for (int wait = 0; data.getDistanceOracle() == null && wait < 1000; ++wait) {
+      Thread.sleep(10);
+    }
+    assertTrue(data.getDistanceOracle() != null);
+  }
+}
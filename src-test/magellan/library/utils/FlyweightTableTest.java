@@ -0,0 +1,233 @@
+// class magellan.library.utils.FlyweightTableTest
+// created on Oct 18, 2026
+//
+// Copyright 2003-2026 by magellan project team
+//
+// Author : $Author: $
+// $Id: $
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program (see doc/LICENCE.txt); if not, write to the
+// Free Software Foundation, Inc.,
+// 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+package magellan.library.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import magellan.library.CoordinateID;
+import magellan.library.EntityID;
+import magellan.library.UnitID;
+import magellan.test.MagellanTestUtil;
+
+/**
+ * Tests for {@link FlyweightTable} and the ID factories that use it.
+ */
+public class FlyweightTableTest {
+
+  private static class Key {
+    final int a, b, c;
+
+    Key(int a, int b, int c) {
+      this.a = a;
+      this.b = b;
+      this.c = c;
+    }
+  }
+
+  private static class KeyTable extends FlyweightTable<Key> {
+    KeyTable(int capacity) {
+      super(capacity);
+    }
+
+    @Override
+    protected int hash(int a, int b, int c) {
+      return FlyweightTable.mix(a, b, c);
+    }
+
+    @Override
+    protected int hash(Key value) {
+      return FlyweightTable.mix(value.a, value.b, value.c);
+    }
+
+    @Override
+    protected boolean matches(Key value, int a, int b, int c) {
+      return value.a == a && value.b == b && value.c == c;
+    }
+
+    @Override
+    protected Key create(int a, int b, int c) {
+      return new Key(a, b, c);
+    }
+  }
+
+  /**
+   * Tests that objects are shared and survive growing the table.
+   */
+  @Test
+  public void testGet() {
+    KeyTable table = new KeyTable(4);
+    Key first = table.get(1, 2, 3);
+    assertSame(first, table.get(1, 2, 3));
+    assertNotSame(first, table.get(3, 2, 1));
+
+    List<Key> keys = new ArrayList<Key>();
+    for (int i = 0; i < 10000; ++i) {
+      keys.add(table.get(i, -i, i % 7));
+    }
+    assertEquals(10002, table.size());
+    for (int i = 0; i < 10000; ++i) {
+      assertSame(keys.get(i), table.get(i, -i, i % 7));
+    }
+    assertSame(first, table.get(1, 2, 3));
+
+    table.clear();
+    assertEquals(0, table.size());
+    assertNotSame(first, table.get(1, 2, 3));
+  }
+
+  /**
+   * Tests that threads racing for the same keys get the same objects.
+   */
+  @Test
+  public void testConcurrentGet() throws Exception {
+    final KeyTable table = new KeyTable(4);
+    final int keys = 20000;
+    ExecutorService pool = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<Key[]>> results = new ArrayList<Future<Key[]>>();
+      for (int t = 0; t < 4; ++t) {
+        results.add(pool.submit(new Callable<Key[]>() {
+          public Key[] call() {
+            Key[] result = new Key[keys];
+            for (int i = 0; i < keys; ++i) {
+              result[i] = table.get(i, i, 0);
+            }
+            return result;
+          }
+        }));
+      }
+      Key[] first = results.get(0).get();
+      for (Future<Key[]> result : results) {
+        Key[] other = result.get();
+        for (int i = 0; i < keys; ++i) {
+          assertSame(first[i], other[i]);
+        }
+      }
+      assertEquals(keys, table.size());
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * Tests the ID factories.
+   */
+  @Test
+  public void testIDs() {
+    assertSame(CoordinateID.create(1000, -1000, 3), CoordinateID.create(1000, -1000, 3));
+    assertSame(CoordinateID.ZERO, CoordinateID.create(0, 0, 0));
+    assertEquals(CoordinateID.create(1000, -1000), CoordinateID.create(1000, -1000, 0));
+
+    assertSame(UnitID.createUnitID(42, 36), UnitID.createUnitID(42, 36));
+    assertSame(UnitID.createUnitID(-42, 36), UnitID.createUnitID(-42, 36));
+    assertEquals(10, UnitID.createUnitID(42, 10).getRadix());
+    assertEquals(36, UnitID.createUnitID(42, 36).getRadix());
+    assertSame(EntityID.createEntityID(42, 36), EntityID.createEntityID(42, 36));
+    assertEquals(UnitID.class, UnitID.createUnitID(43, 36).getClass());
+    assertEquals(EntityID.class, EntityID.createEntityID(43, 36).getClass());
+  }
+
+  private static enum PTags {
+    MAP_CREATE, TABLE_CREATE, MAP_LOOKUP, TABLE_LOOKUP
+  }
+
+  private static Map<Integer, Key> map = new HashMap<Integer, Key>();
+
+  private static synchronized Key getSynchronized(int a) {
+    Key key = map.get(a);
+    if (key == null) {
+      key = new Key(a, 0, 0);
+      map.put(a, key);
+    }
+    return key;
+  }
+
+  private void run(ExecutorService pool, int threads, final int keys, final boolean table,
+      final KeyTable keyTable) throws Exception {
+    List<Future<?>> results = new ArrayList<Future<?>>();
+    for (int t = 0; t < threads; ++t) {
+      results.add(pool.submit(new Runnable() {
+        public void run() {
+          for (int i = 0; i < keys; ++i) {
+            if (table) {
+              keyTable.get(i, 0, 0);
+            } else {
+              getSynchronized(i);
+            }
+          }
+        }
+      }));
+    }
+    for (Future<?> result : results) {
+      result.get();
+    }
+  }
+
+  /**
+   * Compares creating and looking up objects in a synchronized HashMap and in a FlyweightTable with
+   * several threads.
+   */
+  @Test
+  public void testProfile() throws Exception {
+    Assume.assumeTrue(MagellanTestUtil.isInternalTesting());
+    final int THREADS = 4;
+    final int KEYS = 200000;
+    final int REPETITIONS = 3;
+    ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+    Profiler p = MagellanTestUtil.startProfile(PTags.values());
+    try {
+      for (int i = 0; i < REPETITIONS; ++i) {
+        map.clear();
+        KeyTable table = new KeyTable(16);
+        p.split();
+        run(pool, THREADS, KEYS, false, null);
+        p.log(PTags.MAP_CREATE);
+        run(pool, THREADS, KEYS, true, table);
+        p.log(PTags.TABLE_CREATE);
+        run(pool, THREADS, KEYS, false, null);
+        p.log(PTags.MAP_LOOKUP);
+        run(pool, THREADS, KEYS, true, table);
+        p.log(PTags.TABLE_LOOKUP);
+        assertEquals(KEYS, table.size());
+      }
+    } finally {
+      pool.shutdown();
+    }
+    p.printTags();
+  }
+}
@@ -0,0 +1,133 @@
+// class magellan.library.utils.IndexedHeapTest
+// created on Oct 18, 2026
+//
+// Copyright 2003-2026 by magellan project team
+//
+// Author : $Author: $
+// $Id: $
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program (see doc/LICENCE.txt); if not, write to the
+// Free Software Foundation, Inc.,
+// 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+package magellan.library.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link IndexedHeap}.
+ */
+public class IndexedHeapTest {
+
+  private static class Key implements IndexedHeap.Element, Comparable<Key> {
+    int key;
+    int index = -1;
+
+    Key(int key) {
+      this.key = key;
+    }
+
+    public int getHeapIndex() {
+      return index;
+    }
+
+    public void setHeapIndex(int index) {
+      this.index = index;
+    }
+
+    public int compareTo(Key o) {
+      return Integer.compare(key, o.key);
+    }
+  }
+
+  @Test
+  public void testBasics() {
+    IndexedHeap<Key> heap = new IndexedHeap<Key>();
+    assertTrue(heap.isEmpty());
+    assertNull(heap.peek());
+    Key a = new Key(5), b = new Key(3), c = new Key(7);
+    heap.add(a);
+    heap.add(b);
+    heap.add(c);
+    assertEquals(3, heap.size());
+    assertEquals(b, heap.peek());
+    c.key = 1;
+    heap.decreaseKey(c);
+    assertEquals(c, heap.poll());
+    assertFalse(heap.contains(c));
+    assertEquals(-1, c.getHeapIndex());
+    b.key = 10;
+    heap.update(b);
+    assertEquals(a, heap.poll());
+    assertEquals(b, heap.poll());
+    assertTrue(heap.isEmpty());
+
+    heap.add(a);
+    heap.clear();
+    assertFalse(heap.contains(a));
+    heap.add(a);
+    assertTrue(heap.contains(a));
+  }
+
+  /**
+   * Compares random operations with a PriorityQueue.
+   */
+  @Test
+  public void testRandom() {
+    Random random = new Random(42);
+    IndexedHeap<Key> heap = new IndexedHeap<Key>();
+    PriorityQueue<Key> queue = new PriorityQueue<Key>();
+    List<Key> elements = new ArrayList<Key>();
+    for (int i = 0; i < 5000; ++i) {
+      int op = random.nextInt(4);
+      if (op == 0 && !queue.isEmpty()) {
+        Key min = heap.poll();
+        assertEquals(queue.peek().key, min.key);
+        queue.remove(min);
+        elements.remove(min);
+      } else if (op == 1 && !elements.isEmpty()) {
+        Key k = elements.get(random.nextInt(elements.size()));
+        queue.remove(k);
+        k.key -= random.nextInt(100);
+        heap.decreaseKey(k);
+        queue.add(k);
+      } else if (op == 2 && !elements.isEmpty()) {
+        Key k = elements.get(random.nextInt(elements.size()));
+        queue.remove(k);
+        k.key += random.nextInt(200) - 100;
+        heap.update(k);
+        queue.add(k);
+      } else {
+        Key k = new Key(random.nextInt(1000));
+        heap.add(k);
+        queue.add(k);
+        elements.add(k);
+      }
+      assertEquals(queue.size(), heap.size());
+    }
+    while (!queue.isEmpty()) {
+      assertEquals(queue.poll().key, heap.poll().key);
+    }
+  }
+}
@@ -0,0 +1,176 @@
+// class magellan.library.utils.RegionIndexTest
+// created on Oct 18, 2026
+//
+// Copyright 2003-2026 by magellan project team
+//
+// Author : $Author: $
+// $Id: $
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program (see doc/LICENCE.txt); if not, write to the
+// Free Software Foundation, Inc.,
+// 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+package magellan.library.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import magellan.library.CoordinateID;
+import magellan.library.GameData;
+import magellan.library.Region;
+import magellan.test.GameDataBuilder;
+import magellan.test.MagellanTestWithResources;
+
+/**
+ * Tests for {@link RegionIndex}.
+ */
+public class RegionIndexTest extends MagellanTestWithResources {
+
+  private GameDataBuilder builder;
+  private GameData data;
+  private RegionIndex index;
+
+  @Before
+  public void setUp() throws Exception {
+    builder = new GameDataBuilder();
+    data = builder.createSimplestGameData();
+    index = new RegionIndex();
+  }
+
+  private Region create(int x, int y, int z) {
+    return MagellanFactory.createRegion(CoordinateID.create(x, y, z), data);
+  }
+
+  private static List<CoordinateID> ids(Collection<Region> regions) {
+    List<CoordinateID> result = new ArrayList<CoordinateID>();
+    for (Region r : regions) {
+      result.add(r.getID());
+    }
+    return result;
+  }
+
+  @Test
+  public void testPutRemove() {
+    Region r1 = create(1, 2, 0);
+    assertNull(index.put(r1));
+    assertSame(r1, index.get(CoordinateID.create(1, 2, 0)));
+    assertNull(index.get(CoordinateID.create(1, 2, 1)));
+    assertEquals(1, index.size());
+
+    Region r2 = create(1, 2, 0);
+    assertSame(r1, index.put(r2));
+    assertEquals(1, index.size());
+
+    assertNull(index.remove(CoordinateID.create(2, 2, 0)));
+    assertSame(r2, index.remove(CoordinateID.create(1, 2, 0)));
+    assertEquals(0, index.size());
+    assertTrue(index.getLayers().isEmpty());
+  }
+
+  @Test
+  public void testRows() {
+    for (int x = -3; x <= 3; ++x) {
+      for (int y = -3; y <= 3; y += 2) {
+        index.put(create(x, y, 0));
+      }
+    }
+    index.put(create(0, 0, 1));
+
+    assertEquals(Arrays.asList(-1, 1, 3), new ArrayList<Integer>(index.getRows(0, -2, 5)));
+    assertTrue(index.getRows(0, 3, 2).isEmpty());
+    assertTrue(index.getRows(2, -10, 10).isEmpty());
+    assertEquals(Arrays.asList(CoordinateID.create(-1, 1, 0), CoordinateID.create(0, 1, 0),
+        CoordinateID.create(1, 1, 0)), ids(index.getRow(0, 1, -1, 2)));
+    assertTrue(index.getRow(0, 0, -10, 10).isEmpty());
+    assertTrue(index.getRow(0, 1, 2, 2).isEmpty());
+
+    assertEquals(28, index.getRegions(0).size());
+    assertEquals(Arrays.asList(CoordinateID.create(0, 0, 1)), ids(index.getRegions(1)));
+    List<CoordinateID> layer = ids(index.getRegions(0));
+    assertEquals(CoordinateID.create(-3, -3, 0), layer.get(0));
+    assertEquals(CoordinateID.create(-2, -3, 0), layer.get(1));
+    assertEquals(CoordinateID.create(3, 3, 0), layer.get(27));
+  }
+
+  /**
+   * Tests that GameData keeps the indexes up to date.
+   */
+  @Test
+  public void testGameData() {
+    Region r1 = builder.addRegion(data, "1 1", "R1", "Ebene", 2);
+    assertSame(r1, data.regionIndex().get(r1.getID()));
+    assertEquals(data.getRegions().size(), data.regionIndex().size());
+
+    Region aVoid = data.addVoid(CoordinateID.create(2, 1));
+    assertSame(aVoid, data.voidIndex().get(aVoid.getID()));
+    Region r2 = builder.addRegion(data, "2 1", "R2", "Ebene", 3);
+    assertNull(data.voidIndex().get(aVoid.getID()));
+    assertSame(r2, data.regionIndex().get(r2.getID()));
+
+    data.makeWrapper(r2, r1);
+    assertNull(data.regionIndex().get(r2.getID()));
+    assertSame(r2, data.wrapperIndex().get(r2.getID()));
+
+    data.removeRegion(r1);
+    assertNull(data.regionIndex().get(r1.getID()));
+    assertEquals(data.getRegions().size(), data.regionIndex().size());
+  }
+
+  /**
+   * Queries return copies, so they can be iterated while another thread changes the index.
+   */
+  @Test
+  public void testConcurrentChanges() throws Exception {
+    index.put(create(0, 0, 0));
+    Collection<Region> row = index.getRow(0, 0, -10, 10);
+    Collection<Region> layer = index.getRegions(0);
+    index.put(create(1, 0, 0));
+    assertEquals(1, row.size());
+    assertEquals(1, layer.size());
+
+    final Throwable[] error = new Throwable[1];
+    Thread writer = new Thread(new Runnable() {
+      public void run() {
+        try {
+          for (int x = 2; x < 20000; ++x) {
+            index.put(create(x, x % 7, 0));
+          }
+        } catch (Throwable t) {
+          error[0] = t;
+        }
+      }
+    });
+    writer.start();
+    while (writer.isAlive()) {
+      for (int y : index.getRows(0, 0, 6)) {
+        for (Region r : index.getRow(0, y, 0, 20000)) {
+          assertEquals(y, r.getID().getY());
+        }
+      }
+    }
+    writer.join();
+    assertNull(error[0]);
+    assertEquals(20000, index.size());
+  }
+}
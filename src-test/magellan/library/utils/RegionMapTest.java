@@ -0,0 +1,247 @@
+// class magellan.library.utils.RegionMapTest
+// created on Oct 18, 2026
+//
+// Copyright 2003-2026 by magellan project team
+//
+// Author : $Author: $
+// $Id: $
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program (see doc/LICENCE.txt); if not, write to the
+// Free Software Foundation, Inc.,
+// 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+package magellan.library.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import magellan.library.CoordinateID;
+import magellan.test.MagellanTestUtil;
+
+/**
+ * Tests for {@link RegionMap}.
+ */
+public class RegionMapTest {
+
+  @Test
+  public void testBasics() {
+    RegionMap<String> map = new RegionMap<String>();
+    assertTrue(map.isEmpty());
+    assertNull(map.put(CoordinateID.create(1, 2, 0), "a"));
+    assertNull(map.put(CoordinateID.create(1, 2, 1), "b"));
+    assertNull(map.put(CoordinateID.create(-1, -2, 0), "c"));
+    assertEquals("a", map.put(CoordinateID.create(1, 2), "d"));
+    assertEquals(3, map.size());
+    assertEquals("d", map.get(CoordinateID.create(1, 2)));
+    assertEquals("d", map.get(1, 2, 0));
+    assertEquals("b", map.get(1, 2, 1));
+    assertEquals("c", map.get(-1, -2, 0));
+    assertNull(map.get(2, 1, 0));
+    assertNull(map.get("1 2 0"));
+    assertNull(map.get(null));
+    assertFalse(map.containsKey(CoordinateID.create(Integer.MAX_VALUE, Integer.MIN_VALUE)));
+
+    // re-inserting keeps the position
+    assertEquals("[d, b, c]", map.values().toString());
+    assertEquals("c", map.remove(CoordinateID.create(-1, -2)));
+    assertNull(map.remove(CoordinateID.create(-1, -2)));
+    map.put(CoordinateID.create(-1, -2), "c");
+    assertEquals("[d, b, c]", map.values().toString());
+
+    assertEquals(map, new LinkedHashMap<CoordinateID, String>(map));
+    assertEquals(new LinkedHashMap<CoordinateID, String>(map).hashCode(), map.hashCode());
+
+    map.clear();
+    assertTrue(map.isEmpty());
+    assertNull(map.get(1, 2, 0));
+  }
+
+  @Test
+  public void testIterators() {
+    RegionMap<Integer> map = new RegionMap<Integer>();
+    for (int i = 0; i < 10; ++i) {
+      map.put(CoordinateID.create(i, -i), i);
+    }
+    Iterator<CoordinateID> it = map.keySet().iterator();
+    while (it.hasNext()) {
+      if (it.next().getX() % 2 == 0) {
+        it.remove();
+      }
+    }
+    assertEquals("[1, 3, 5, 7, 9]", map.values().toString());
+    for (Map.Entry<CoordinateID, Integer> entry : map.entrySet()) {
+      entry.setValue(entry.getValue() * 10);
+    }
+    assertEquals("[10, 30, 50, 70, 90]", map.values().toString());
+    assertEquals(Integer.valueOf(30), map.get(3, -3, 0));
+
+    try {
+      for (CoordinateID c : map.keySet()) {
+        map.remove(c);
+      }
+      fail();
+    } catch (ConcurrentModificationException e) {
+      // expected
+    }
+  }
+
+  /**
+   * Compares random operations with a LinkedHashMap.
+   */
+  @Test
+  public void testRandom() {
+    Random random = new Random(42);
+    RegionMap<Integer> map = new RegionMap<Integer>(1);
+    Map<CoordinateID, Integer> expected = new LinkedHashMap<CoordinateID, Integer>();
+    for (int i = 0; i < 20000; ++i) {
+      CoordinateID c =
+          CoordinateID.create(random.nextInt(40) - 20, random.nextInt(40) - 20, random.nextInt(3));
+      switch (random.nextInt(4)) {
+      case 0:
+        assertEquals(expected.remove(c), map.remove(c));
+        break;
+      case 1:
+        assertEquals(expected.get(c), map.get(c.getX(), c.getY(), c.getZ()));
+        break;
+      default:
+        assertEquals(expected.put(c, i), map.put(c, i));
+      }
+      assertEquals(expected.size(), map.size());
+    }
+    assertEquals(new ArrayList<CoordinateID>(expected.keySet()), new ArrayList<CoordinateID>(map
+        .keySet()));
+    assertEquals(new ArrayList<Integer>(expected.values()), new ArrayList<Integer>(map.values()));
+  }
+
+  private static enum PTags {
+    FILL_LINKED, FILL_REGION, GET_LINKED, GET_REGION, NEIGHBOURS_LINKED, NEIGHBOURS_REGION,
+    ITERATE_LINKED, ITERATE_REGION
+  }
+
+  private static final int[][] NEIGHBOURS = { { 1, 0 }, { 0, 1 }, { -1, 1 }, { -1, 0 }, { 0, -1 },
+      { 1, -1 } };
+
+  /**
+   * Compares memory and run time with a LinkedHashMap for a world of 200k regions.
+   */
+  @Test
+  public void testProfile() {
+    Assume.assumeTrue(MagellanTestUtil.isInternalTesting());
+    final int REPETITIONS = 3;
+    final int SIDE = 450;
+    List<CoordinateID> coordinates = new ArrayList<CoordinateID>(SIDE * SIDE);
+    for (int x = 0; x < SIDE; ++x) {
+      for (int y = 0; y < SIDE; ++y) {
+        coordinates.add(CoordinateID.create(x - SIDE / 2, y - SIDE / 2, 0));
+      }
+    }
+    Object region = new Object();
+
+    Profiler p = MagellanTestUtil.startProfile(PTags.values());
+    long linkedMemory = 0, regionMemory = 0;
+    for (int i = 0; i < REPETITIONS; ++i) {
+      long before = usedMemory();
+      p.split();
+      Map<CoordinateID, Object> linked = new LinkedHashMap<CoordinateID, Object>();
+      for (CoordinateID c : coordinates) {
+        linked.put(c, region);
+      }
+      p.log(PTags.FILL_LINKED);
+      linkedMemory = usedMemory() - before;
+
+      before = usedMemory();
+      p.split();
+      RegionMap<Object> regions = new RegionMap<Object>();
+      for (CoordinateID c : coordinates) {
+        regions.put(c, region);
+      }
+      p.log(PTags.FILL_REGION);
+      regionMemory = usedMemory() - before;
+
+      int found = 0;
+      p.split();
+      for (CoordinateID c : coordinates) {
+        if (linked.get(c) != null) {
+          ++found;
+        }
+      }
+      p.log(PTags.GET_LINKED);
+      for (CoordinateID c : coordinates) {
+        if (regions.get(c) != null) {
+          ++found;
+        }
+      }
+      p.log(PTags.GET_REGION);
+      assertEquals(2 * coordinates.size(), found);
+
+      found = 0;
+      p.split();
+      for (CoordinateID c : coordinates) {
+        for (int[] d : NEIGHBOURS) {
+          if (linked.get(CoordinateID.create(c.getX() + d[0], c.getY() + d[1], c.getZ())) != null) {
+            ++found;
+          }
+        }
+      }
+      p.log(PTags.NEIGHBOURS_LINKED);
+      for (CoordinateID c : coordinates) {
+        for (int[] d : NEIGHBOURS) {
+          if (regions.get(c.getX() + d[0], c.getY() + d[1], c.getZ()) != null) {
+            --found;
+          }
+        }
+      }
+      p.log(PTags.NEIGHBOURS_REGION);
+      assertEquals(0, found);
+
+      p.split();
+      for (Object o : linked.values()) {
+        if (o != null) {
+          ++found;
+        }
+      }
+      p.log(PTags.ITERATE_LINKED);
+      for (Object o : regions.values()) {
+        if (o != null) {
+          --found;
+        }
+      }
+      p.log(PTags.ITERATE_REGION);
+      assertEquals(0, found);
+    }
+    p.printTags();
+    System.out.println("memory LinkedHashMap: " + linkedMemory / 1024 + "k, RegionMap: "
+        + regionMemory / 1024 + "k");
+  }
+
+  private static long usedMemory() {
+    Runtime runtime = Runtime.getRuntime();
+    System.gc();
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
@@ -0,0 +1,236 @@
+// class magellan.library.utils.RegionsDistanceTest
+// created on Oct 18, 2026
+//
+// Copyright 2003-2026 by magellan project team
+//
+// Author : $Author: $
+// $Id: $
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program (see doc/LICENCE.txt); if not, write to the
+// Free Software Foundation, Inc.,
+// 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+package magellan.library.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import magellan.library.CoordinateID;
+import magellan.library.GameData;
+import magellan.library.ID;
+import magellan.library.Region;
+import magellan.library.rules.BuildingType;
+import magellan.library.rules.RegionType;
+import magellan.library.utils.Regions.LandMetric;
+import magellan.library.utils.Regions.Metric;
+import magellan.library.utils.Regions.MultidimensionalMetric;
+import magellan.library.utils.Regions.RegionInfo;
+import magellan.library.utils.Regions.RoadMetric;
+import magellan.library.utils.Regions.ShipMetric;
+import magellan.library.utils.Regions.UnitMetric;
+import magellan.test.GameDataBuilder;
+import magellan.test.MagellanTestUtil;
+import magellan.test.MagellanTestWithResources;
+
+/**
+ * Tests {@link Regions#getDistances(Map, CoordinateID, CoordinateID, int, Metric)} with the
+ * {@link MultidimensionalMetric}s.
+ */
+public class RegionsDistanceTest extends MagellanTestWithResources {
+
+  private static final String[] TYPES = { "Ozean", "Ozean", "Ebene", "Berge", "Wald", "Gletscher" };
+
+  private GameData data;
+  private List<Region> regions;
+  private Map<CoordinateID, Region> regionMap;
+  private Map<ID, RegionType> excluded;
+
+  /**
+   * Hides the type of a metric, so that the general algorithm with a PriorityQueue is used.
+   */
+  private static class PlainMetric implements Metric {
+    private Metric metric;
+
+    PlainMetric(Metric metric) {
+      this.metric = metric;
+    }
+
+    public RegionInfo createZero(CoordinateID node) {
+      return metric.createZero(node);
+    }
+
+    public RegionInfo createInfinity(CoordinateID node) {
+      return metric.createInfinity(node);
+    }
+
+    public RegionInfo get(CoordinateID node) {
+      return metric.get(node);
+    }
+
+    public Map<CoordinateID, Region> getNeighbours(CoordinateID id) {
+      return metric.getNeighbours(id);
+    }
+
+    public boolean relax(RegionInfo current, RegionInfo nextRecord) {
+      return metric.relax(current, nextRecord);
+    }
+
+    public Map<CoordinateID, ? extends RegionInfo> getDistances() {
+      return metric.getDistances();
+    }
+  }
+
+  private void createWorld(Random random, int side, boolean ocean) throws Exception {
+    GameDataBuilder builder = new GameDataBuilder();
+    data = builder.createSimplestGameData();
+    for (int x = 0; x < side; ++x) {
+      for (int y = 0; y < side; ++y) {
+        if ((x != 0 || y != 0) && (ocean || random.nextInt(10) > 0)) {
+          builder.addRegion(data, x + " " + y, null, ocean ? "Ozean" : TYPES[random
+              .nextInt(TYPES.length)], -1);
+        }
+      }
+    }
+    regions = new ArrayList<Region>(data.getRegions());
+    regionMap = new HashMap<CoordinateID, Region>();
+    for (Region r : regions) {
+      regionMap.put(r.getID(), r);
+    }
+    if (!ocean) {
+      for (Region r : regions) {
+        if (!r.getRegionType().isOcean() && random.nextInt(3) == 0) {
+          builder.addRoad(r, random.nextInt(6), 100);
+        }
+      }
+    }
+    RegionType glacier = data.getRules().getRegionType("Gletscher");
+    excluded = new HashMap<ID, RegionType>();
+    excluded.put(glacier.getID(), glacier);
+  }
+
+  private MultidimensionalMetric createMetric(int kind, CoordinateID start, CoordinateID dest) {
+    switch (kind) {
+    case 0:
+      return new UnitMetric(regionMap, excluded, start, dest);
+    case 1:
+      return new ShipMetric(regionMap, start, dest, excluded, Collections
+          .<BuildingType> emptySet(), 3, Direction.INVALID);
+    case 2:
+      return new RoadMetric(regionMap, excluded, start, dest, 2, 3);
+    default:
+      return new LandMetric(regionMap, excluded, start, dest, 2, 3);
+    }
+  }
+
+  /**
+   * Compares the distances with those of the general algorithm.
+   */
+  @Test
+  public void testSameDistances() throws Exception {
+    Random random = new Random(42);
+    createWorld(random, 15, false);
+    for (int i = 0; i < 20; ++i) {
+      CoordinateID start = regions.get(random.nextInt(regions.size())).getID();
+      CoordinateID dest = regions.get(random.nextInt(regions.size())).getID();
+      for (int kind = 0; kind < 4; ++kind) {
+        MultidimensionalMetric expected = createMetric(kind, start, dest);
+        MultidimensionalMetric actual = createMetric(kind, start, dest);
+        Regions.getDistances(regionMap, start, dest, Integer.MAX_VALUE, new PlainMetric(
+            expected));
+        Regions.getDistances(regionMap, start, dest, Integer.MAX_VALUE, actual);
+        assertEquals(kind + ": " + start + "->" + dest, expected.get(dest).getDistance(), actual
+            .get(dest).getDistance());
+
+        expected = createMetric(kind, start, null);
+        actual = createMetric(kind, start, null);
+        Regions.getDistances(regionMap, start, null, 6, new PlainMetric(expected));
+        Regions.getDistances(regionMap, start, null, 6, actual);
+        for (RegionInfo info : expected.getDistances().values()) {
+          if (info.getDistance() <= 6) {
+            assertNotNull(actual.getDistances().get(info.getID()));
+            assertEquals(kind + ": " + start + "->" + info.getID(), info.getDistance(), actual
+                .getDistances().get(info.getID()).getDistance());
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Checks that the distances of a search stay valid after other searches, because only the queue
+   * and not the distance records are reused.
+   */
+  @Test
+  public void testIndependentResults() throws Exception {
+    Random random = new Random(7);
+    createWorld(random, 10, false);
+    CoordinateID start = regions.get(0).getID();
+    MultidimensionalMetric first = createMetric(0, start, null);
+    Regions.getDistances(regionMap, start, null, 5, first);
+    Map<CoordinateID, Integer> distances = new HashMap<CoordinateID, Integer>();
+    for (RegionInfo info : first.getDistances().values()) {
+      distances.put(info.getID(), info.getDistance());
+    }
+    for (int kind = 0; kind < 4; ++kind) {
+      CoordinateID other = regions.get(random.nextInt(regions.size())).getID();
+      Regions.getDistances(regionMap, other, null, 5, createMetric(kind, other, null));
+    }
+    assertEquals(distances.size(), first.getDistances().size());
+    for (RegionInfo info : first.getDistances().values()) {
+      assertEquals(distances.get(info.getID()).intValue(), info.getDistance());
+    }
+  }
+
+  private static enum PTags {
+    UNIT, UNIT_PLAIN, SHIP, SHIP_PLAIN, ROAD, ROAD_PLAIN, LAND, LAND_PLAIN
+  }
+
+  /**
+   * Measures searches of all four metrics with the general algorithm and the decrease-key heap. The
+   * ship metric is measured on an ocean.
+   */
+  @Test
+  public void testProfile() throws Exception {
+    Assume.assumeTrue(MagellanTestUtil.isInternalTesting());
+    final int REPETITIONS = 10;
+    Random random = new Random(1);
+    Profiler p = MagellanTestUtil.startProfile(PTags.values());
+    PTags[] tags = PTags.values();
+    for (int kind = 0; kind < 4; ++kind) {
+      createWorld(random, kind == 1 ? 100 : kind == 3 ? 12 : 40, kind == 1);
+      for (int i = 0; i < REPETITIONS; ++i) {
+        CoordinateID start = regions.get(random.nextInt(regions.size())).getID();
+        CoordinateID dest = regions.get(random.nextInt(regions.size())).getID();
+        p.split();
+        Regions.getDistances(regionMap, start, dest, Integer.MAX_VALUE, new PlainMetric(
+            createMetric(kind, start, dest)));
+        p.log(tags[kind * 2 + 1]);
+        Regions.getDistances(regionMap, start, dest, Integer.MAX_VALUE, createMetric(kind,
+            start, dest));
+        p.log(tags[kind * 2]);
+      }
+    }
+    p.printTags();
+  }
+}
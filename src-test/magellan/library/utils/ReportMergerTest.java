@@ -0,0 +1,116 @@
+// class magellan.library.utils.ReportMergerTest
+// created on Oct 18, 2026
+//
+// Copyright 2003-2026 by magellan project team
+//
+// Author : $Author: $
+// $Id: $
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program (see doc/LICENCE.txt); if not, write to the
+// Free Software Foundation, Inc.,
+// 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+package magellan.library.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.junit.Test;
+
+import magellan.library.GameData;
+import magellan.library.Unit;
+import magellan.library.io.GameDataReader;
+import magellan.library.io.cr.CRWriter;
+import magellan.library.io.file.FileTypeFactory;
+import magellan.test.MagellanTestWithResources;
+
+/**
+ * Tests for {@link ReportMerger}.
+ */
+public class ReportMergerTest extends MagellanTestWithResources {
+
+  private static final File DIR = new File("test/tc007");
+  private static final String[] REPORTS = { "550-foo.cr", "550-expl.cr", "551-bsp.cr",
+      "551-foo.cr", "551-expl.cr" };
+
+  /**
+   * Merges reports in parallel and compares the written result with the result of sequential
+   * merging, once without a limit of loaded reports and once with the smallest limit. The sort
+   * order of the units depends on the merge order, so the units are written in order of their IDs.
+   */
+  @Test
+  public void testParallelMerge() throws Exception {
+    String sequential = write(merge(false, true, 0));
+    for (int maxLoaded : new int[] { 0, 1 }) {
+      ReportMerger merger = createMerger();
+      merger.setParallel(true);
+      merger.setMaxLoadedReports(maxLoaded);
+      GameData result = merger.merge(new NullUserInterface(), true, false, false);
+      assertEquals("max " + maxLoaded, sequential, write(result));
+      assertTrue(merger.getMergeTimes().containsKey(1));
+      if (maxLoaded == 1) {
+        // (((1 2) 3) 4) 5, then the current report: no more than two reports are held
+        assertEquals(5, merger.getMergeTimes().size());
+      } else {
+        // ((1 2) (3 4)) 5 if the merges are fast enough, then the current report
+        assertTrue(merger.getMergeTimes().size() >= 4);
+        assertTrue(merger.getMergeTimes().size() <= 5);
+      }
+    }
+  }
+
+  private GameData merge(boolean parallel, boolean sort, int maxLoaded) {
+    ReportMerger merger = createMerger();
+    merger.setParallel(parallel);
+    merger.setMaxLoadedReports(maxLoaded);
+    return merger.merge(new NullUserInterface(), sort, false, false);
+  }
+
+  private ReportMerger createMerger() {
+    File[] files = new File[REPORTS.length];
+    for (int i = 0; i < files.length; ++i) {
+      files[i] = new File(DIR, REPORTS[i]);
+    }
+    return new ReportMerger(load(new File(DIR, "550-bsp.cr")), files, new ReportMerger.Loader() {
+      public GameData load(File file) {
+        return ReportMergerTest.this.load(file);
+      }
+    }, null);
+  }
+
+  private GameData load(File file) {
+    try {
+      return new GameDataReader(null).readGameData(FileTypeFactory.singleton().createFileType(file,
+          true));
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private String write(GameData data) throws IOException {
+    for (Unit unit : data.getUnits()) {
+      unit.setSortIndex(0);
+    }
+    StringWriter out = new StringWriter();
+    CRWriter writer = new CRWriter(data, null, out);
+    writer.writeSynchronously();
+    writer.close();
+    // the date of writing differs
+    return out.toString().replaceAll("\\d+;date", "");
+  }
+}
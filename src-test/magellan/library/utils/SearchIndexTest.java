@@ -0,0 +1,204 @@
+// class magellan.library.utils.SearchIndexTest
+// created on Oct 18, 2026
+//
+// Copyright 2003-2026 by magellan project team
+//
+// Author : $Author: $
+// $Id: $
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program (see doc/LICENCE.txt); if not, write to the
+// Free Software Foundation, Inc.,
+// 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+package magellan.library.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import magellan.library.GameData;
+import magellan.library.Region;
+import magellan.library.Unique;
+import magellan.library.Unit;
+import magellan.library.utils.SearchIndex.Field;
+import magellan.test.GameDataBuilder;
+import magellan.test.MagellanTestUtil;
+import magellan.test.MagellanTestWithResources;
+
+/**
+ * Tests for {@link SearchIndex}.
+ */
+public class SearchIndexTest extends MagellanTestWithResources {
+
+  private static final String[] WORDS = { "Schwert", "Bogen", "Pferd", "Eisen", "Holz", "Stein",
+      "Wagen", "Kraut", "Silber", "Burg" };
+
+  private GameDataBuilder builder;
+  private GameData data;
+  private Unit unit;
+  private Region region;
+
+  @Before
+  public void setUp() throws Exception {
+    builder = new GameDataBuilder();
+    data = builder.createSimpleGameData();
+    unit = data.getUnits().iterator().next();
+    region = unit.getRegion();
+  }
+
+  private Set<Unique> find(SearchIndex index, String literal, Field... fields) {
+    return index.find(literal, EnumSet.of(fields[0], fields), SearchIndex.containing(literal,
+        false));
+  }
+
+  @Test
+  public void testFind() throws Exception {
+    unit.setName("Hansel und Gretel");
+    unit.addOrder("MACHE Schwert");
+    SearchIndex index = new SearchIndex(data);
+    index.build();
+
+    assertEquals(Collections.singleton(unit), find(index, "gretel", Field.NAME));
+    assertEquals(Collections.singleton(unit), find(index, "GRET", Field.NAME, Field.ORDER));
+    assertEquals(Collections.singleton(unit), find(index, "schwert", Field.NAME, Field.ORDER));
+    assertTrue(find(index, "schwert", Field.NAME).isEmpty());
+    assertTrue(find(index, "gretchen", Field.NAME).isEmpty());
+    assertTrue(find(index, "u", Field.NAME).contains(unit));
+    assertTrue(find(index, unit.getID().toString(), Field.ID).contains(unit));
+    assertTrue(find(index, region.getName(), Field.NAME).contains(region));
+
+    // case sensitive
+    assertTrue(index.find("gretel", EnumSet.of(Field.NAME), SearchIndex.containing("gretel", true))
+        .isEmpty());
+  }
+
+  @Test
+  public void testUpdate() throws Exception {
+    SearchIndex index = new SearchIndex(data);
+    index.build();
+    assertTrue(find(index, "Bogen", Field.ORDER).isEmpty());
+
+    unit.addOrder("MACHE Bogen");
+    index.update(unit);
+    assertEquals(Collections.singleton(unit), find(index, "bogen", Field.ORDER));
+
+    Unit unit2 = builder.addUnit(data, "Neu", region);
+    unit2.addOrder("MACHE Bogen");
+    assertFalse(index.contains(unit2));
+    index.update(unit2);
+    assertTrue(index.contains(unit2));
+    assertEquals(2, find(index, "bogen", Field.ORDER).size());
+  }
+
+  @Test
+  public void testCollect() throws Exception {
+    unit.addOrder("MACHE Schwert");
+    SearchIndex index = new SearchIndex(data);
+    index.collect();
+    assertTrue(index.contains(unit));
+    assertTrue(find(index, "schwert", Field.ORDER).isEmpty());
+
+    index.index();
+    assertEquals(Collections.singleton(unit), find(index, "schwert", Field.ORDER));
+  }
+
+  @Test
+  public void testWordPrefix() {
+    Predicate<String> prefix = SearchIndex.wordPrefix("sch", false);
+    assertTrue(prefix.test("Schwert"));
+    assertTrue(prefix.test("MACHE Schwert"));
+    assertTrue(prefix.test("(schwert)"));
+    assertFalse(prefix.test("Rauschen"));
+    assertFalse(SearchIndex.wordPrefix("sch", true).test("Schwert"));
+  }
+
+  /**
+   * Compares the index with testing all objects.
+   */
+  @Test
+  public void testSameResults() throws Exception {
+    addUnits(500);
+    SearchIndex index = new SearchIndex(data);
+    index.build();
+    Set<Field> fields = EnumSet.of(Field.NAME, Field.ORDER, Field.ID);
+    for (String word : WORDS) {
+      for (String literal : new String[] { word, word.substring(0, 2), word.substring(1, 4) }) {
+        Predicate<String> filter = SearchIndex.containing(literal, false);
+        assertEquals(literal, scan(literal, fields, filter), index.find(literal, fields, filter));
+      }
+    }
+  }
+
+  private Set<Unique> scan(String literal, Set<Field> fields, Predicate<String> filter) {
+    Set<Unique> result = new HashSet<Unique>();
+    for (Unit u : data.getUnits()) {
+      for (Field field : fields) {
+        for (String text : SearchIndex.getTexts(data, u, field)) {
+          if (filter.test(text)) {
+            result.add(u);
+          }
+        }
+      }
+    }
+    return result;
+  }
+
+  private void addUnits(int count) throws Exception {
+    Random random = new Random(42);
+    for (int i = 0; i < count; ++i) {
+      Unit u = builder.addUnit(data, WORDS[random.nextInt(WORDS.length)] + " " + i, region);
+      for (int j = 0; j < 5; ++j) {
+        u.addOrder("MACHE " + WORDS[random.nextInt(WORDS.length)]);
+      }
+    }
+  }
+
+  private static enum PTags {
+    BUILD, INDEX, SCAN
+  }
+
+  @Test
+  public void testProfile() throws Exception {
+    Assume.assumeTrue(MagellanTestUtil.isInternalTesting());
+    addUnits(10000);
+    Set<Field> fields = EnumSet.of(Field.NAME, Field.ORDER, Field.DESCRIPTION);
+    Profiler p = MagellanTestUtil.startProfile(PTags.values());
+    p.split();
+    SearchIndex index = new SearchIndex(data);
+    index.build();
+    p.log(PTags.BUILD);
+    for (int i = 0; i < 5; ++i) {
+      for (String word : WORDS) {
+        index.find(word, fields, SearchIndex.containing(word, false));
+      }
+      p.log(PTags.INDEX);
+      for (String word : WORDS) {
+        scan(word, fields, SearchIndex.containing(word, false));
+      }
+      p.log(PTags.SCAN);
+    }
+    p.printTags();
+  }
+}
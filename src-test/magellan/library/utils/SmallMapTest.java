@@ -0,0 +1,206 @@
+// class magellan.library.utils.SmallMapTest
+// created on Oct 18, 2026
+//
+// Copyright 2003-2026 by magellan project team
+//
+// Author : $Author: $
+// $Id: $
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program (see doc/LICENCE.txt); if not, write to the
+// Free Software Foundation, Inc.,
+// 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+package magellan.library.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import magellan.test.MagellanTestUtil;
+
+/**
+ * Tests for {@link SmallMap}.
+ */
+public class SmallMapTest {
+
+  @Test
+  public void testBasics() {
+    Map<String, Integer> map = new SmallMap<String, Integer>(1);
+    assertTrue(map.isEmpty());
+    assertNull(map.put("a", 1));
+    assertNull(map.put(null, 2));
+    assertNull(map.put("c", null));
+    assertEquals(Integer.valueOf(1), map.put("a", 4));
+    assertEquals(3, map.size());
+    assertEquals(Integer.valueOf(4), map.get("a"));
+    assertEquals(Integer.valueOf(2), map.get(null));
+    assertTrue(map.containsKey("c"));
+    assertNull(map.get("c"));
+    assertFalse(map.containsKey("d"));
+    assertEquals("{a=4, null=2, c=null}", map.toString());
+
+    assertEquals(Integer.valueOf(2), map.remove(null));
+    assertEquals("{a=4, c=null}", map.toString());
+    assertEquals(new LinkedHashMap<String, Integer>(map), map);
+    assertEquals(new LinkedHashMap<String, Integer>(map).hashCode(), map.hashCode());
+
+    map.clear();
+    assertTrue(map.isEmpty());
+  }
+
+  @Test
+  public void testGrow() {
+    Map<Integer, Integer> map = new SmallMap<Integer, Integer>();
+    for (int i = 0; i < 2 * SmallMap.THRESHOLD; ++i) {
+      map.put(i, i);
+    }
+    assertEquals(2 * SmallMap.THRESHOLD, map.size());
+    map.put(0, -1);
+    Iterator<Integer> it = map.values().iterator();
+    assertEquals(Integer.valueOf(-1), it.next());
+    for (int i = 1; i < 2 * SmallMap.THRESHOLD; ++i) {
+      assertEquals(Integer.valueOf(i), it.next());
+    }
+    map.clear();
+    map.put(3, 3);
+    assertEquals("{3=3}", map.toString());
+  }
+
+  @Test
+  public void testIterators() {
+    Map<Integer, Integer> map = new SmallMap<Integer, Integer>();
+    for (int i = 0; i < 6; ++i) {
+      map.put(i, i);
+    }
+    for (Iterator<Integer> it = map.keySet().iterator(); it.hasNext();) {
+      if (it.next() % 2 == 0) {
+        it.remove();
+      }
+    }
+    assertEquals("{1=1, 3=3, 5=5}", map.toString());
+    for (Map.Entry<Integer, Integer> entry : map.entrySet()) {
+      entry.setValue(entry.getValue() * 10);
+    }
+    assertEquals("{1=10, 3=30, 5=50}", map.toString());
+
+    try {
+      for (Integer key : map.keySet()) {
+        map.remove(key);
+      }
+      fail();
+    } catch (ConcurrentModificationException e) {
+      // expected
+    }
+  }
+
+  /**
+   * Compares random operations with a LinkedHashMap.
+   */
+  @Test
+  public void testRandom() {
+    Random random = new Random(42);
+    for (int round = 0; round < 100; ++round) {
+      Map<Integer, Integer> map = new SmallMap<Integer, Integer>(random.nextInt(4));
+      Map<Integer, Integer> expected = new LinkedHashMap<Integer, Integer>();
+      int range = 2 + random.nextInt(2 * SmallMap.THRESHOLD);
+      for (int i = 0; i < 200; ++i) {
+        Integer key = random.nextInt(range);
+        switch (random.nextInt(3)) {
+        case 0:
+          assertEquals(expected.remove(key), map.remove(key));
+          break;
+        case 1:
+          assertEquals(expected.get(key), map.get(key));
+          break;
+        default:
+          assertEquals(expected.put(key, i), map.put(key, i));
+        }
+        assertEquals(expected.size(), map.size());
+      }
+      assertEquals(new ArrayList<Map.Entry<Integer, Integer>>(expected.entrySet()),
+          new ArrayList<Map.Entry<Integer, Integer>>(map.entrySet()));
+    }
+  }
+
+  private static enum PTags {
+    LINKED, SMALL
+  }
+
+  /**
+   * Compares memory and time of many small maps with LinkedHashMaps. Use {@link Sizeof} with a report
+   * file as argument to measure the heap per unit of a real report.
+   */
+  @Test
+  public void testProfile() {
+    Assume.assumeTrue(MagellanTestUtil.isInternalTesting());
+    final int COUNT = 100000;
+    final int REPETITIONS = 3;
+    Profiler p = MagellanTestUtil.startProfile(PTags.values());
+    long linkedMemory = 0, smallMemory = 0;
+    for (int r = 0; r < REPETITIONS; ++r) {
+      long before = usedMemory();
+      p.split();
+      List<Map<Integer, Integer>> linked = new ArrayList<Map<Integer, Integer>>(COUNT);
+      for (int i = 0; i < COUNT; ++i) {
+        Map<Integer, Integer> map = new LinkedHashMap<Integer, Integer>(3, .8f);
+        fill(map, i);
+        linked.add(map);
+      }
+      p.log(PTags.LINKED);
+      linkedMemory = usedMemory() - before;
+
+      before = usedMemory();
+      p.split();
+      List<Map<Integer, Integer>> small = new ArrayList<Map<Integer, Integer>>(COUNT);
+      for (int i = 0; i < COUNT; ++i) {
+        Map<Integer, Integer> map = CollectionFactory.createOrderedMap(3, .8f);
+        fill(map, i);
+        small.add(map);
+      }
+      p.log(PTags.SMALL);
+      smallMemory = usedMemory() - before;
+      assertEquals(linked, small);
+    }
+    p.printTags();
+    System.out.println("memory per map LinkedHashMap: " + linkedMemory / COUNT
+        + " bytes, CollectionFactory: " + smallMemory / COUNT + " bytes");
+  }
+
+  /** puts 0 to 8 entries (mostly 1 to 4) into the map */
+  private void fill(Map<Integer, Integer> map, int i) {
+    int entries = (i % 7 == 0) ? 8 : i % 5;
+    for (int k = 0; k < entries; ++k) {
+      map.put(k * 37, i);
+    }
+  }
+
+  private static long usedMemory() {
+    Runtime runtime = Runtime.getRuntime();
+    System.gc();
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
@@ -0,0 +1,137 @@
+// class magellan.library.utils.replacers.ReplacerSystemTest
+// created on Oct 18, 2026
+//
+// Copyright 2003-2026 by magellan project team
+//
+// Author : $Author: $
+// $Id: $
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program (see doc/LICENCE.txt); if not, write to the
+// Free Software Foundation, Inc.,
+// 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+package magellan.library.utils.replacers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import magellan.library.GameData;
+import magellan.library.Region;
+import magellan.library.Unit;
+import magellan.library.utils.Profiler;
+import magellan.test.GameDataBuilder;
+import magellan.test.MagellanTestUtil;
+import magellan.test.MagellanTestWithResources;
+
+/**
+ * Tests for the result cache of {@link ReplacerSystem}.
+ */
+public class ReplacerSystemTest extends MagellanTestWithResources {
+
+  private GameDataBuilder builder;
+  private GameData data;
+  private Region region;
+  private Unit unit;
+
+  @Before
+  public void setUp() throws Exception {
+    builder = new GameDataBuilder();
+    data = builder.createSimpleGameData();
+    region = data.getRegions().iterator().next();
+    unit = data.getUnits().iterator().next();
+    unit.setPersons(3);
+    new ReplacerHelp(context.getEventDispatcher(), data);
+  }
+
+  @Test
+  public void testCaching() {
+    ReplacerSystem system = ReplacerHelp.createReplacer("count");
+    assertFalse(system.isCaching());
+    assertEquals(3, system.getReplacement(region));
+    unit.setPersons(5);
+    assertEquals(5, system.getReplacement(region));
+
+    system.setCaching(true);
+    assertTrue(system.isCaching());
+    assertEquals(5, system.getReplacement(region));
+    unit.setPersons(7);
+    assertEquals(5, system.getReplacement(region));
+    system.invalidate(region);
+    assertEquals(7, system.getReplacement(region));
+    unit.setPersons(9);
+    system.invalidate();
+    assertEquals(9, system.getReplacement(region));
+
+    system.setCaching(false);
+    unit.setPersons(11);
+    assertEquals(11, system.getReplacement(region));
+  }
+
+  @Test
+  public void testOtherArguments() {
+    ReplacerSystem system = ReplacerHelp.createReplacer("count");
+    system.setCaching(true);
+    assertEquals(null, system.getReplacement(unit));
+    assertEquals(null, system.getReplacement(null));
+  }
+
+  private static enum PTags {
+    EVALUATE, CACHED
+  }
+
+  @Test
+  public void testProfile() {
+    Assume.assumeTrue(MagellanTestUtil.isInternalTesting());
+    final int REPETITIONS = 20;
+    List<Region> regions = new ArrayList<Region>();
+    for (int x = 1; x < 30; ++x) {
+      for (int y = 1; y < 30; ++y) {
+        Region r = builder.addRegion(data, x + " " + y, "R" + x + y, "Ebene", x * 30 + y);
+        for (int i = 0; i < 10; ++i) {
+          builder.addUnit(data, "U" + i, r).setPersons(i + 1);
+        }
+        regions.add(r);
+      }
+    }
+    // \u00a7 is the command separator
+    String def = "skill\u00a7Hiebwaffen\u00a7countUnits\u00a7count";
+    ReplacerSystem plain = ReplacerHelp.createReplacer(def);
+    ReplacerSystem cached = ReplacerHelp.createReplacer(def);
+    cached.setCaching(true);
+
+    List<Object> expected = new ArrayList<Object>();
+    Profiler p = MagellanTestUtil.startProfile(PTags.values());
+    for (int i = 0; i < REPETITIONS; ++i) {
+      expected.clear();
+      p.split();
+      for (Region r : regions) {
+        expected.add(plain.getReplacement(r));
+      }
+      p.log(PTags.EVALUATE);
+      for (int j = 0; j < regions.size(); ++j) {
+        assertEquals(expected.get(j), cached.getReplacement(regions.get(j)));
+      }
+      p.log(PTags.CACHED);
+    }
+    p.printTags();
+  }
+}
@@ -0,0 +1,256 @@
+// class magellan.plugin.extendedcommands.ExecutionThreadTest
+// created on Oct 18, 2026
+//
+// Copyright 2003-2026 by magellan project team
+//
+// Author : $Author: $
+// $Id: $
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program (see doc/LICENCE.txt); if not, write to the
+// Free Software Foundation, Inc.,
+// 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+package magellan.plugin.extendedcommands;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import magellan.library.GameData;
+import magellan.library.Order;
+import magellan.library.Region;
+import magellan.library.Unit;
+import magellan.library.utils.Locales;
+import magellan.library.utils.NullUserInterface;
+import magellan.library.utils.Resources;
+import magellan.library.utils.logging.Logger;
+import magellan.test.GameDataBuilder;
+import magellan.test.MagellanTestWithResources;
+
+/**
+ * Tests for {@link ExecutionThread}.
+ */
+public class ExecutionThreadTest extends MagellanTestWithResources {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private List<String> scripts;
+  /** index of the script with the highest priority */
+  private int highest;
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws Exception {
+    setLocale(DE_LOCALE);
+    initResources();
+    Resources.getInstance().initialize(new File("."), "extendedcommands_");
+    Logger.setLevel(Logger.WARN);
+    Locales.setGUILocale(DE_LOCALE);
+    Locales.setOrderLocale(DE_LOCALE);
+  }
+
+  @Before
+  public void setUp() {
+    scripts = new ArrayList<String>();
+    highest = -1;
+  }
+
+  private GameData createData() throws Exception {
+    GameDataBuilder builder = new GameDataBuilder();
+    GameData data = builder.createSimpleGameData();
+    for (int x = 1; x < 5; ++x) {
+      Region region = builder.addRegion(data, x + " 0", "R" + x, "Ebene", x);
+      for (int u = 0; u < 3; ++u) {
+        builder.addUnit(data, "u" + x + u, region);
+      }
+    }
+    return data;
+  }
+
+  private ExtendedCommands createCommands(GameData data) throws IOException {
+    File file = folder.newFile();
+    PrintWriter writer = new PrintWriter(file, "UTF-8");
+    writer.println("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+    writer.println("<extended_commands>");
+    writer.println("<library><![CDATA[import magellan.library.*;\nvoid work(Unit u) { u.addOrder(\"ARBEITE\"); }\n]]></library>");
+    int i = 0;
+    for (Unit unit : data.getUnits()) {
+      if (i < scripts.size()) {
+        Priority priority = i == highest ? Priority.HIGHEST : Priority.NORMAL;
+        writer.println("<unit id=\"" + unit.getID() + "\" priority=\"" + priority
+            + "\"><![CDATA[" + scripts.get(i++) + "]]></unit>");
+      }
+    }
+    writer.println("</extended_commands>");
+    writer.close();
+    return new ExtendedCommands(file.getAbsolutePath());
+  }
+
+  private List<String> getOrders(Unit unit) {
+    List<String> orders = new ArrayList<String>();
+    for (Order order : unit.getOrders2()) {
+      orders.add(order.getText());
+    }
+    return orders;
+  }
+
+  private void assertSameOrders(GameData expected, GameData actual) {
+    for (Unit unit : expected.getUnits()) {
+      Unit other = actual.getUnit(unit.getID());
+      assertEquals(unit.toString(), getOrders(unit), getOrders(other));
+      assertEquals(unit.toString(), unit.getTagMap(), other.getTagMap());
+      assertEquals(unit.toString(), unit.tempUnits().size(), other.tempUnits().size());
+    }
+  }
+
+  private GameData execute(boolean parallel) throws Exception {
+    GameData data = createData();
+    ExtendedCommands commands = createCommands(data);
+    new ExecutionThread(null, new NullUserInterface(), commands).executeAll(data, parallel);
+    assertEquals(commands.getUnitsWithCommands(data).size(), commands.getExecutionTimes().size());
+    return data;
+  }
+
+  /**
+   * Scripts that only change their own units.
+   */
+  @Test
+  public void testParallel() throws Exception {
+    for (int i = 0; i < 12; ++i) {
+      scripts.add("work(unit);\nunit.addOrder(\"; " + i + "\");");
+    }
+    GameData actual = execute(true);
+    assertSameOrders(execute(false), actual);
+    int working = 0;
+    for (Unit unit : actual.getUnits()) {
+      working += getOrders(unit).contains("ARBEITE") ? 1 : 0;
+    }
+    assertEquals(12, working);
+  }
+
+  /**
+   * Scripts that change units in other regions must be run sequentially.
+   */
+  @Test
+  public void testConflict() throws Exception {
+    for (int i = 0; i < 12; ++i) {
+      if (i == 4) {
+        scripts.add("for (Unit u : world.getUnits()) {\n"
+            + "  u.addOrder(\"; touched\");\n"
+            + "}");
+      } else {
+        scripts.add("work(unit);");
+      }
+    }
+    GameData expected = execute(false);
+    GameData actual = execute(true);
+    assertSameOrders(expected, actual);
+    for (Unit unit : actual.getUnits()) {
+      assertTrue(unit.toString(), getOrders(unit).contains("; touched"));
+    }
+  }
+
+  /**
+   * Tags of units in other regions are confined like orders, even if the script catches the
+   * exception.
+   */
+  @Test
+  public void testTagConflict() throws Exception {
+    for (int i = 0; i < 12; ++i) {
+      if (i == 7) {
+        scripts.add("try {\n"
+            + "  for (Unit u : world.getUnits()) {\n"
+            + "    u.putTag(\"seen\", unit.getID().toString());\n"
+            + "  }\n"
+            + "} catch (RuntimeException e) {\n"
+            + "}");
+      } else {
+        scripts.add("work(unit);\nunit.putTag(\"own\", \"" + i + "\");");
+      }
+    }
+    GameData actual = execute(true);
+    assertSameOrders(execute(false), actual);
+    for (Unit unit : actual.getUnits()) {
+      assertTrue(unit.toString(), unit.containsTag("seen"));
+    }
+  }
+
+  /**
+   * Creating temp units changes the temp ids shared by all regions.
+   */
+  @Test
+  public void testTempConflict() throws Exception {
+    for (int i = 0; i < 12; ++i) {
+      scripts.add("unit.createTemp(world, UnitID.createUnitID(-1 - unit.getID().intValue(), "
+          + "world.base));");
+    }
+    GameData actual = execute(true);
+    assertSameOrders(execute(false), actual);
+    int temps = 0;
+    for (Unit unit : actual.getUnits()) {
+      temps += unit.tempUnits().size();
+    }
+    assertEquals(12, temps);
+  }
+
+  /**
+   * Scripts with lower priority see the changes of a script that cannot be run in parallel, even in
+   * other regions.
+   */
+  @Test
+  public void testPriorityOrder() throws Exception {
+    highest = 1;
+    for (int i = 0; i < 12; ++i) {
+      if (i == 1) {
+        scripts.add("int n = 1;\nvoid f(Unit u) { u.putTag(\"seen\", \"\" + n); }\n"
+            + "for (Unit u : world.getUnits()) {\n  f(u);\n}");
+      } else {
+        scripts.add("if (unit.containsTag(\"seen\")) {\n  unit.addOrder(\"; seen\");\n}");
+      }
+    }
+    GameData actual = execute(true);
+    assertSameOrders(execute(false), actual);
+    int seen = 0;
+    for (Unit unit : actual.getUnits()) {
+      seen += getOrders(unit).contains("; seen") ? 1 : 0;
+    }
+    assertEquals(11, seen);
+  }
+
+  /**
+   * Scripts that cannot be compiled are run sequentially.
+   */
+  @Test
+  public void testNotCompiled() throws Exception {
+    for (int i = 0; i < 6; ++i) {
+      if (i == 1) {
+        scripts.add("int n = 1;\nvoid f() { unit.addOrder(\"; n\" + n); }\nf();");
+      } else {
+        scripts.add("work(unit);");
+      }
+    }
+    assertSameOrders(execute(false), execute(true));
+  }
+}
@@ -0,0 +1,206 @@
+// class magellan.plugin.extendedcommands.JShellPoolTest
+// created on Oct 18, 2026
+//
+// Copyright 2003-2026 by magellan project team
+//
+// Author : $Author: $
+// $Id: $
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program (see doc/LICENCE.txt); if not, write to the
+// Free Software Foundation, Inc.,
+// 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+package magellan.plugin.extendedcommands;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import magellan.library.GameData;
+import magellan.library.Unit;
+import magellan.library.utils.Profiler;
+import magellan.plugin.extendedcommands.ExtendedCommands.JShellException;
+import magellan.test.GameDataBuilder;
+import magellan.test.MagellanTestUtil;
+
+/**
+ * Tests for {@link JShellPool}.
+ */
+public class JShellPoolTest {
+
+  /** written by the scripts */
+  public static List<Object> results = Collections.synchronizedList(new ArrayList<Object>());
+
+  private static final String RESULTS = JShellPoolTest.class.getName() + ".results";
+
+  private JShellPool pool;
+  private GameData data;
+
+  @Before
+  public void setUp() throws Exception {
+    pool = new JShellPool(1);
+    data = new GameDataBuilder().createSimpleGameData();
+    results.clear();
+  }
+
+  @After
+  public void tearDown() {
+    pool.close();
+  }
+
+  private boolean run(String script, Unit unit) throws Throwable {
+    return pool.run(script, data, unit, null, null, null);
+  }
+
+  @Test
+  public void testRepeated() throws Throwable {
+    String script = "int i = 20;\nint twice(int x) { return 2 * x; }\n" + RESULTS
+        + ".add(twice(i) + 2);\n" + RESULTS + ".add(unit);";
+    Unit unit = data.getUnits().iterator().next();
+    assertTrue(run(script, unit));
+    assertTrue(run(script, null));
+    assertEquals(4, results.size());
+    assertEquals(42, results.get(0));
+    assertSame(unit, results.get(1));
+    assertEquals(42, results.get(2));
+    assertEquals(null, results.get(3));
+  }
+
+  @Test
+  public void testGlobalsInDeclarations() throws Throwable {
+    String script = "class A { Object get() { return world; } }\n" + RESULTS + ".add(new A().get());";
+    assertTrue(run(script, null));
+    assertSame(data, results.get(0));
+  }
+
+  @Test
+  public void testConflictingDeclarations() throws Throwable {
+    String script1 = "int f() { return 1; }\n" + RESULTS + ".add(f());";
+    String script2 = "int f() { return 2; }\n" + RESULTS + ".add(f());";
+    for (int i = 0; i < 3; ++i) {
+      assertTrue(run(script1, null));
+      assertTrue(run(script2, null));
+    }
+    assertEquals(List.of(1, 2, 1, 2, 1, 2), results);
+  }
+
+  /**
+   * Tests that a script keeps its globals while another thread runs a script.
+   */
+  @Test
+  public void testConcurrentGlobals() throws Throwable {
+    final String script =
+        "Object before = unit;\nThread.sleep(400);\n" + RESULTS + ".add(before == unit);";
+    Iterator<Unit> units = data.getUnits().iterator();
+    final Unit unit1 = units.next();
+    final Unit unit2 = new GameDataBuilder().addUnit(data, "U2", unit1.getRegion());
+    // compile the script in the idle session
+    assertTrue(run(script, unit1));
+
+    Thread other = new Thread(new Runnable() {
+      public void run() {
+        try {
+          JShellPoolTest.this.run(script, unit1);
+        } catch (Throwable t) {
+          results.add(t);
+        }
+      }
+    });
+    other.start();
+    Thread.sleep(100);
+    assertTrue(run(script, unit2));
+    other.join();
+    assertEquals(List.of(true, true, true), results);
+  }
+
+  @Test
+  public void testRejected() throws Throwable {
+    // incomplete
+    assertFalse(run("class x {", null));
+    // import after statement
+    assertFalse(run("int a;\nimport java.util.*;", null));
+    // method depends on top level variable
+    assertFalse(run("int a = 1;\nint f() { return a; }\n" + RESULTS + ".add(f());", null));
+    // not a statement
+    assertFalse(run("int a = 1;\na", null));
+    assertTrue(results.isEmpty());
+    // a valid script still runs
+    assertTrue(run(RESULTS + ".add(1);", null));
+    assertEquals(List.of(1), results);
+  }
+
+  private static enum PTags {
+    COMPILE, RUN
+  }
+
+  @Test
+  public void testProfile() throws Throwable {
+    Assume.assumeTrue(MagellanTestUtil.isInternalTesting());
+    Profiler p = MagellanTestUtil.startProfile(PTags.values());
+    for (int i = 0; i < 5; ++i) {
+      String script = "int count = " + i + ";\nfor (Unit u : world.getUnits()) {\n  ++count;\n}\n"
+          + RESULTS + ".add(count);";
+      p.split();
+      run(script, null);
+      p.log(PTags.COMPILE);
+      for (int j = 0; j < 100; ++j) {
+        run(script, null);
+      }
+      p.log(PTags.RUN);
+    }
+    p.printTags();
+  }
+
+  @Test
+  public void testException() throws Throwable {
+    try {
+      run("throw new IllegalStateException(\"abc\");", null);
+      fail();
+    } catch (JShellException e) {
+      assertEquals("Exception in snippet caused by java.lang.IllegalStateException", e
+          .getMessage());
+      assertTrue(e.getCause() instanceof IllegalStateException);
+      assertEquals("abc", e.getCause().getMessage());
+    }
+  }
+
+  /**
+   * Tests that the description of an exception names the statement that has thrown it.
+   */
+  @Test
+  public void testExceptionStatement() throws Throwable {
+    String script = "int f() { return 0; }\nint a = 1;\n\nObject o = null;\nif (a == 1) {\n"
+        + "  o.hashCode();\n}\nint b = 2;";
+    try {
+      run(script, null);
+      fail();
+    } catch (JShellException e) {
+      assertTrue(e.getCause() instanceof NullPointerException);
+      assertTrue(e.getDescription(), e.getDescription().startsWith(
+          "\nSNIPPET\nif (a == 1) {\n  o.hashCode();\n}\nEXCEPTION java.lang.NullPointerException\n"));
+    }
+  }
+}
@@ -23,6 +23,7 @@
 //
 package magellan.test;
 
+import java.io.File;
 import java.io.IOException;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
@@ -30,11 +31,15 @@ import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.nio.file.attribute.PosixFilePermission;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.EnumSet;
+import java.util.List;
 import java.util.Set;
 
+import magellan.library.utils.Profiler;
+
 public class MagellanTestUtil {
 
   public static void forceDelete(Path dir) throws IOException {
@@ -91,4 +96,30 @@ public class MagellanTestUtil {
     return "INTERNAL".equals(System.getenv("MAGELLAN2_TESTING"));
   }
 
+  /**
+   * Returns a new profiler for the given tags.
+   */
+  public static Profiler startProfile(Enum<?>... tags) {
+    Profiler p = new Profiler();
+    p.register(tags);
+    return p;
+  }
+
+  /**
+   * Returns all report files test/&lt;dir&gt;/*.cr.
+   */
+  public static List<File> getReports() {
+    List<File> result = new ArrayList<File>();
+    for (File dir : new File("test").listFiles()) {
+      if (dir.isDirectory()) {
+        for (File report : dir.listFiles()) {
+          if (report.getName().endsWith(".cr")) {
+            result.add(report);
+          }
+        }
+      }
+    }
+    return result;
+  }
+
 }